@@ -0,0 +1,71 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.routing.algorithm.AStar;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One shortest path tree search per request of {@link VermontRequests}. Linking the origin and
+ * destination to the street graph is done outside of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AStarBenchmark {
+
+    @Param({ "WALK", "BICYCLE", "WALK,TRANSIT" })
+    public String modes;
+
+    private Graph graph;
+
+    private RoutingRequest[] requests;
+
+    @Setup
+    public void setup() {
+        graph = ConstantsForTests.getInstance().getVermontGraph();
+    }
+
+    @Setup(Level.Invocation)
+    public void linkRequests() {
+        requests = new RoutingRequest[VermontRequests.N_PLACES];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = VermontRequests.build(graph, VermontRequests.PLACES[i], modes);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void unlinkRequests() {
+        for (RoutingRequest request : requests) {
+            request.cleanup();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VermontRequests.N_PLACES)
+    public void shortestPathTree(Blackhole blackhole) {
+        for (RoutingRequest request : requests) {
+            blackhole.consume(new AStar().getShortestPathTree(request));
+        }
+    }
+}
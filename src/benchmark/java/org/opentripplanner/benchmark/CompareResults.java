@@ -0,0 +1,72 @@
+package org.opentripplanner.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compare two JMH JSON result files, typically target/jmh-result.json of two commits, and print the
+ * relative change of the score and of the normalized allocation rate of each benchmark found in both.
+ *
+ *   mvn -Pbenchmark -Dbenchmark.main=org.opentripplanner.benchmark.CompareResults \
+ *       -Dbenchmark.args="before.json target/jmh-result.json"
+ */
+public class CompareResults {
+
+    private static final String ALLOC_RATE_NORM = "\u00b7gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CompareResults <baseline.json> <result.json>");
+            System.exit(1);
+        }
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> results = read(new File(args[1]));
+        System.out.printf("%-70s %14s %14s %8s %10s%n", "Benchmark", "Baseline", "Result", "Change", "Alloc");
+        for (Map.Entry<String, JsonNode> entry : results.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double scoreBefore = before.path("primaryMetric").path("score").asDouble();
+            double scoreAfter = after.path("primaryMetric").path("score").asDouble();
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            System.out.printf("%-70s %14s %14s %8s %10s%n", entry.getKey(),
+                    String.format("%.3f", scoreBefore), String.format("%.3f %s", scoreAfter, unit),
+                    change(scoreBefore, scoreAfter),
+                    change(allocation(before), allocation(after)));
+        }
+    }
+
+    /** Results by benchmark name and parameters. */
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double allocation(JsonNode result) {
+        return result.path("secondaryMetrics").path(ALLOC_RATE_NORM).path("score").asDouble(Double.NaN);
+    }
+
+    private static String change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return "-";
+        }
+        return String.format("%+.1f%%", 100 * (after - before) / before);
+    }
+}
@@ -0,0 +1,117 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.routing.edgetype.TripPattern;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.trippattern.TripTimes;
+import org.opentripplanner.updater.stoptime.TimetableSnapshotSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.org.siri.siri20.EstimatedCall;
+import uk.org.siri.siri20.EstimatedTimetableDeliveryStructure;
+import uk.org.siri.siri20.EstimatedVehicleJourney;
+import uk.org.siri.siri20.EstimatedVersionFrameStructure;
+import uk.org.siri.siri20.FramedVehicleJourneyRefStructure;
+import uk.org.siri.siri20.LineRef;
+import uk.org.siri.siri20.StopPointRef;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a full SIRI estimated timetable dataset, delaying every scheduled Vermont trip, to a
+ * timetable snapshot source. The journeys refer to their trips by id, so this measures applying the
+ * updates to the timetables and the snapshot rather than the fuzzy trip matching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EstimatedTimetableBenchmark {
+
+    @Param({ "100", "1000" })
+    public int journeys;
+
+    private Graph graph;
+
+    private TimetableSnapshotSource snapshotSource;
+
+    private List<EstimatedTimetableDeliveryStructure> deliveries;
+
+    @Setup
+    public void setup() {
+        graph = ConstantsForTests.getInstance().getVermontGraph();
+        snapshotSource = new TimetableSnapshotSource(graph);
+        snapshotSource.purgeExpiredData = false;
+
+        ZonedDateTime midnight = ZonedDateTime.of(2018, 5, 23, 0, 0, 0, 0, graph.getTimeZone().toZoneId());
+        EstimatedVersionFrameStructure frame = new EstimatedVersionFrameStructure();
+        List<TripPattern> patterns = new ArrayList<>(graph.index.patternForId.values());
+        patterns.sort((p1, p2) -> p1.code.compareTo(p2.code));
+        for (TripPattern pattern : patterns) {
+            for (TripTimes tripTimes : pattern.scheduledTimetable.tripTimes) {
+                if (frame.getEstimatedVehicleJourneies().size() == journeys) {
+                    break;
+                }
+                // The service date of a journey is the date of its first departure.
+                if (tripTimes.getScheduledDepartureTime(0) < 24 * 60 * 60) {
+                    frame.getEstimatedVehicleJourneies().add(delayedJourney(pattern, tripTimes, midnight));
+                }
+            }
+        }
+        if (frame.getEstimatedVehicleJourneies().size() < journeys) {
+            throw new IllegalStateException("Test graph has only " + frame.getEstimatedVehicleJourneies().size() + " trips.");
+        }
+        EstimatedTimetableDeliveryStructure delivery = new EstimatedTimetableDeliveryStructure();
+        delivery.getEstimatedJourneyVersionFrames().add(frame);
+        deliveries = Collections.singletonList(delivery);
+    }
+
+    @Benchmark
+    public TimetableSnapshotSource applyEstimatedTimetable() {
+        // A full dataset replaces the updates of the previous invocation.
+        snapshotSource.applyEstimatedTimetable(graph, true, deliveries);
+        return snapshotSource;
+    }
+
+    private static EstimatedVehicleJourney delayedJourney(TripPattern pattern, TripTimes tripTimes, ZonedDateTime midnight) {
+        EstimatedVehicleJourney journey = new EstimatedVehicleJourney();
+        LineRef lineRef = new LineRef();
+        lineRef.setValue(pattern.route.getId().getId());
+        journey.setLineRef(lineRef);
+        FramedVehicleJourneyRefStructure framedVehicleJourneyRef = new FramedVehicleJourneyRefStructure();
+        framedVehicleJourneyRef.setDatedVehicleJourneyRef(tripTimes.trip.getId().getId());
+        journey.setFramedVehicleJourneyRef(framedVehicleJourneyRef);
+
+        EstimatedVehicleJourney.EstimatedCalls calls = new EstimatedVehicleJourney.EstimatedCalls();
+        for (int i = 0; i < tripTimes.getNumStops(); i++) {
+            EstimatedCall call = new EstimatedCall();
+            StopPointRef stopPointRef = new StopPointRef();
+            stopPointRef.setValue(pattern.getStop(i).getId().getId());
+            call.setStopPointRef(stopPointRef);
+            ZonedDateTime aimedArrival = midnight.plusSeconds(tripTimes.getScheduledArrivalTime(i));
+            ZonedDateTime aimedDeparture = midnight.plusSeconds(tripTimes.getScheduledDepartureTime(i));
+            call.setAimedArrivalTime(aimedArrival);
+            call.setExpectedArrivalTime(aimedArrival.plusMinutes(2));
+            call.setAimedDepartureTime(aimedDeparture);
+            call.setExpectedDepartureTime(aimedDeparture.plusMinutes(2));
+            calls.getEstimatedCalls().add(call);
+        }
+        journey.setEstimatedCalls(calls);
+        return journey;
+    }
+}
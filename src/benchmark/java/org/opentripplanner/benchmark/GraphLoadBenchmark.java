@@ -0,0 +1,52 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.datastore.FileType;
+import org.opentripplanner.standalone.datastore.file.FileDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserializes the Vermont test graph, saved once to a temporary file in the setup. The file is
+ * small enough to stay in the OS page cache, so this mostly measures deserialization and indexing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+public class GraphLoadBenchmark {
+
+    private File graphFile;
+
+    @Setup
+    public void setup() throws IOException {
+        graphFile = File.createTempFile("Graph", ".obj");
+        ConstantsForTests.getInstance().getVermontGraph().save(new FileDataSource(graphFile, FileType.GRAPH));
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphFile.delete();
+    }
+
+    @Benchmark
+    public Graph load() throws IOException {
+        return Graph.load(graphFile);
+    }
+}
@@ -0,0 +1,86 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.standalone.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes index API GraphQL queries against the Vermont test graph, the way the IndexAPI resource
+ * does: parsing, validation and data fetching are all included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphQLBenchmark {
+
+    private static final Map<String, String> QUERIES = new HashMap<>();
+
+    static {
+        QUERIES.put("routes",
+                "query Routes {" +
+                "  routes {" +
+                "    gtfsId shortName longName" +
+                "    patterns { code stops { gtfsId name lat lon } }" +
+                "  }" +
+                "}");
+        QUERIES.put("departures",
+                "query Departures($lat: Float!, $lon: Float!, $startTime: Long!) {" +
+                "  stopsByRadius(lat: $lat, lon: $lon, radius: 5000) {" +
+                "    edges { node { distance stop {" +
+                "      gtfsId name" +
+                "      stoptimesWithoutPatterns(startTime: $startTime, numberOfDepartures: 10) {" +
+                "        scheduledDeparture realtimeDeparture trip { gtfsId route { shortName } }" +
+                "      }" +
+                "    } } }" +
+                "  }" +
+                "}");
+    }
+
+    @Param({ "routes", "departures" })
+    public String query;
+
+    private Graph graph;
+
+    private Router router;
+
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setup() {
+        graph = ConstantsForTests.getInstance().getVermontGraph();
+        router = new Router("default", graph);
+        variables = new HashMap<>();
+        variables.put("lat", 44.4214596);
+        variables.put("lon", -72.019371);
+        // 2018-05-23 8:00 in Vermont, in seconds since the epoch.
+        variables.put("startTime", 1527076800L);
+    }
+
+    @Benchmark
+    public Map<String, Object> execute() {
+        Map<String, Object> result = graph.index.getGraphQLExecutionResult(QUERIES.get(query), router,
+                variables, null, 30000, 100000);
+        if (result.containsKey("errors")) {
+            throw new IllegalStateException("GraphQL errors: " + result.get("errors"));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traverses pairs of consecutive street edges of the Vermont test graph, so that turn costs and
+ * turn restrictions are evaluated as well. Run with the GC profiler (the default arguments of the
+ * benchmark profile) to get the allocation rate per traversal in gc.alloc.rate.norm.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreetEdgeTraversalBenchmark {
+
+    private static final int N_PAIRS = 10000;
+
+    @Param({ "WALK", "BICYCLE", "CAR" })
+    public TraverseMode mode;
+
+    private State[] initialStates;
+
+    private StreetEdge[] firstEdges;
+
+    private StreetEdge[] secondEdges;
+
+    @Setup
+    public void setup() {
+        Graph graph = ConstantsForTests.getInstance().getVermontGraph();
+        RoutingRequest options = new RoutingRequest(new TraverseModeSet(mode));
+        options.setDummyRoutingContext(graph);
+
+        List<StreetEdge> first = new ArrayList<>();
+        List<StreetEdge> second = new ArrayList<>();
+        for (StreetEdge e1 : graph.getStreetEdges()) {
+            for (Edge e2 : e1.getToVertex().getOutgoing()) {
+                if (e2 instanceof StreetEdge && !e2.isReverseOf(e1) && !e1.isReverseOf(e2)) {
+                    first.add(e1);
+                    second.add((StreetEdge) e2);
+                    break;
+                }
+            }
+            if (first.size() == N_PAIRS) break;
+        }
+        if (first.size() < N_PAIRS) {
+            throw new IllegalStateException("Test graph has only " + first.size() + " edge pairs.");
+        }
+        firstEdges = first.toArray(new StreetEdge[0]);
+        secondEdges = second.toArray(new StreetEdge[0]);
+        initialStates = new State[N_PAIRS];
+        for (int i = 0; i < N_PAIRS; i++) {
+            initialStates[i] = new State(firstEdges[i].getFromVertex(), options);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_PAIRS)
+    public void traverseEdgePairs(Blackhole blackhole) {
+        for (int i = 0; i < N_PAIRS; i++) {
+            State s1 = firstEdges[i].traverse(initialStates[i]);
+            if (s1 != null) {
+                blackhole.consume(secondEdges[i].traverse(s1));
+            }
+        }
+    }
+}
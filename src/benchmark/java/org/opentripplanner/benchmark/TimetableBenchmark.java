@@ -0,0 +1,98 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.model.calendar.ServiceDate;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.ServiceDay;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.edgetype.Timetable;
+import org.opentripplanner.routing.edgetype.TripPattern;
+import org.opentripplanner.routing.graph.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up the next departure (or previous arrival) at stops of all the Vermont trip patterns, with
+ * the time of the searches spread over the day so that both early and late trips are returned.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimetableBenchmark {
+
+    private static final int N_QUERIES = 1000;
+
+    @Param({ "true", "false" })
+    public boolean boarding;
+
+    private Timetable[] timetables;
+
+    private int[] stopIndexes;
+
+    private State[] states;
+
+    private ServiceDay[] serviceDays;
+
+    @Setup
+    public void setup() {
+        Graph graph = ConstantsForTests.getInstance().getVermontGraph();
+        List<TripPattern> patterns = new ArrayList<>(graph.index.patternForId.values());
+        patterns.removeIf(pattern -> pattern.scheduledTimetable.tripTimes.isEmpty());
+        if (patterns.isEmpty()) {
+            throw new IllegalStateException("Test graph has no scheduled trips.");
+        }
+        patterns.sort((p1, p2) -> p1.code.compareTo(p2.code));
+
+        ServiceDate serviceDate = new ServiceDate(2018, 5, 23);
+        Map<String, ServiceDay> serviceDayForAgency = new HashMap<>();
+        timetables = new Timetable[N_QUERIES];
+        stopIndexes = new int[N_QUERIES];
+        states = new State[N_QUERIES];
+        serviceDays = new ServiceDay[N_QUERIES];
+        for (int i = 0; i < N_QUERIES; i++) {
+            TripPattern pattern = patterns.get(i % patterns.size());
+            int nStops = pattern.stopPattern.stops.length;
+            // Boarding is never possible at the last stop, nor alighting at the first one.
+            int stopIndex = boarding ? (i / patterns.size()) % (nStops - 1) : 1 + (i / patterns.size()) % (nStops - 1);
+            RoutingRequest options = new RoutingRequest(new TraverseModeSet(TraverseMode.WALK, TraverseMode.TRANSIT));
+            options.setDateTime("2018-05-23", String.format("%d:%02d", 5 + i % 18, i % 60), graph.getTimeZone());
+            options.setArriveBy(!boarding);
+            options.setDummyRoutingContext(graph);
+            String agencyId = pattern.route.getAgency().getId();
+            timetables[i] = pattern.scheduledTimetable;
+            stopIndexes[i] = stopIndex;
+            states[i] = new State(graph.index.stopVertexForStop.get(pattern.getStop(stopIndex)), options);
+            serviceDays[i] = serviceDayForAgency.computeIfAbsent(agencyId,
+                    id -> new ServiceDay(graph, serviceDate, graph.getCalendarService(), id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(N_QUERIES)
+    public void nextTrip(Blackhole blackhole) {
+        for (int i = 0; i < N_QUERIES; i++) {
+            blackhole.consume(timetables[i].getNextTrip(states[i], serviceDays[i], stopIndexes[i], boarding));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.api.resource.GraphPathToTripPlanConverter;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.impl.GraphPathFinder;
+import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.standalone.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts the paths found for the transit requests of {@link VermontRequests} to trip plans, as
+ * the plan API does after each search. The searches themselves are done once, in the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripPlanConverterBenchmark {
+
+    private final List<RoutingRequest> requests = new ArrayList<>();
+
+    private final List<List<GraphPath>> paths = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Graph graph = ConstantsForTests.getInstance().getVermontGraph();
+        GraphPathFinder finder = new GraphPathFinder(new Router("default", graph));
+        for (String[] place : VermontRequests.PLACES) {
+            RoutingRequest request = VermontRequests.build(graph, place, "WALK,TRANSIT");
+            request.setNumItineraries(3);
+            requests.add(request);
+            paths.add(finder.getPaths(request));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (RoutingRequest request : requests) {
+            request.cleanup();
+        }
+    }
+
+    @Benchmark
+    public void generatePlans(Blackhole blackhole) {
+        for (int i = 0; i < requests.size(); i++) {
+            blackhole.consume(GraphPathToTripPlanConverter.generatePlan(paths.get(i), requests.get(i)));
+        }
+    }
+}
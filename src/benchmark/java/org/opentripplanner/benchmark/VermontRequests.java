@@ -0,0 +1,50 @@
+package org.opentripplanner.benchmark;
+
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseModeSet;
+import org.opentripplanner.routing.graph.Graph;
+
+/**
+ * Origins, destinations and departure times on the Vermont test graph, taken from
+ * VermontFlexRoutingTest so that they are known to have transit service.
+ */
+class VermontRequests {
+
+    static final String DATE = "2018-05-23";
+
+    /** From, to and time of each request. */
+    static final String[][] PLACES = {
+        { "44.4214596,-72.019371", "44.4277732,-72.01203514", "1:37pm" },
+        { "44.38485134435363,-72.05881118774415", "44.422379116722084,-72.0198440551758", "1:37pm" },
+        { "44.950950106914135,-72.20008850097658", "44.94985671536269,-72.13708877563478", "4:00pm" },
+        { "44.8091683,-72.20580269999999", "44.94985671536269,-72.13708877563478", "9:30am" }
+    };
+
+    /**
+     * Number of requests, as a constant for {@link org.openjdk.jmh.annotations.OperationsPerInvocation}. It is checked
+     * against {@link #PLACES} when the class is loaded.
+     */
+    static final int N_PLACES = 4;
+
+    static {
+        if (PLACES.length != N_PLACES) {
+            throw new IllegalStateException("N_PLACES is " + N_PLACES + " but there are " + PLACES.length + " places.");
+        }
+    }
+
+    /** Build a request with the Vermont router-config.json defaults and link it to the graph. */
+    static RoutingRequest build(Graph graph, String[] place, String modes) {
+        RoutingRequest options = new RoutingRequest(new TraverseModeSet(modes));
+        options.maxWalkDistance = 804;
+        options.callAndRideReluctance = 3.0;
+        options.walkReluctance = 3.0;
+        options.waitAtBeginningFactor = 0;
+        options.transferPenalty = 600;
+        options.ignoreDrtAdvanceBookMin = true;
+        options.setDateTime(DATE, place[2], graph.getTimeZone());
+        options.setFromString(place[0]);
+        options.setToString(place[1]);
+        options.setRoutingContext(graph);
+        return options;
+    }
+}
@@ -50,6 +50,12 @@ public class DebugOutput {
     public long totalTime;
     public boolean timedOut;
 
+    /** Number of searches run at once by the parallel mode of the path finder, 0 if it was not used. */
+    public int parallelSearches;
+
+    /** Number of those parallel searches which found at least one of the returned paths. */
+    public int contributingSearches;
+
     /**
      * Record the time when we first began calculating a path for this request
      * (before any heuristic pre-calculation). Note that timings will not
@@ -13,10 +13,6 @@
 
 package org.opentripplanner.api.resource;
 
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-
-import javax.imageio.ImageIO;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -26,9 +22,6 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
-import org.geotools.geometry.Envelope2D;
-import org.opentripplanner.analyst.core.SlippyTile;
-import org.opentripplanner.analyst.request.TileRequest;
 import org.opentripplanner.api.common.RoutingResource;
 import org.opentripplanner.api.parameter.MIMEImageFormat;
 
@@ -53,7 +46,7 @@ import org.opentripplanner.standalone.Router;
  * </pre>
  * 
  * Tile rendering goes through TileRendererManager which select the appropriate renderer for the
- * given layer.
+ * given layer, and caches the encoded tiles.
  * 
  * @see TileRendererManager
  * @see TileRenderer
@@ -64,6 +57,8 @@ import org.opentripplanner.standalone.Router;
 @Path("/routers/{routerId}/inspector")
 public class GraphInspectorTileResource extends RoutingResource {
 
+    private static final String VECTOR_TILE_MEDIA_TYPE = "application/x-protobuf";
+
     @Context
     private OTPServer otpServer;
 
@@ -89,20 +84,32 @@ public class GraphInspectorTileResource extends RoutingResource {
     @Produces("image/*")
     public Response tileGet() throws Exception {
 
-        // Re-use analyst
-        Envelope2D env = SlippyTile.tile2Envelope(x, y, z);
-        TileRequest tileRequest = new TileRequest(env, 256, 256);
+        Router router = otpServer.getRouter(routerId);
+        MIMEImageFormat format = new MIMEImageFormat("image/" + ext);
+        byte[] image = router.tileRendererManager.getTile(x, y, z, layer, format);
+
+        CacheControl cc = new CacheControl();
+        cc.setMaxAge(3600);
+        cc.setNoCache(false);
+        return Response.ok(image).type(format.toString()).cacheControl(cc).build();
+    }
+
+    /**
+     * Mapbox Vector Tile containing the edges and vertices of the tile, with the color and label of
+     * every edge/vertex layer as feature properties. A single tile thus serves all inspector layers,
+     * styling is done by the client.
+     */
+    @GET @Path("/vectortile/{z}/{x}/{y}.pbf")
+    @Produces(VECTOR_TILE_MEDIA_TYPE)
+    public Response vectorTileGet() throws Exception {
 
         Router router = otpServer.getRouter(routerId);
-        BufferedImage image = router.tileRendererManager.renderTile(tileRequest, layer);
+        byte[] tile = router.tileRendererManager.getVectorTile(x, y, z);
 
-        MIMEImageFormat format = new MIMEImageFormat("image/" + ext);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
-        ImageIO.write(image, format.type, baos);
         CacheControl cc = new CacheControl();
         cc.setMaxAge(3600);
         cc.setNoCache(false);
-        return Response.ok(baos.toByteArray()).type(format.toString()).cacheControl(cc).build();
+        return Response.ok(tile).type(VECTOR_TILE_MEDIA_TYPE).cacheControl(cc).build();
     }
 
     /**
@@ -14,11 +14,10 @@
 package org.opentripplanner.api.resource;
 
 import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.api.model.*;
+import org.opentripplanner.common.geometry.CoordinateBuffer;
 import org.opentripplanner.common.geometry.DirectionUtils;
-import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.geometry.PackedCoordinateSequence;
 import org.opentripplanner.common.model.P2;
 import org.opentripplanner.model.*;
@@ -39,6 +38,7 @@ import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.routing.trippattern.TripTimes;
 import org.opentripplanner.routing.vertextype.*;
 import org.opentripplanner.util.PolylineEncoder;
+import org.opentripplanner.util.model.EncodedPolylineBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -275,6 +275,23 @@ public abstract class GraphPathToTripPlanConverter {
         return coordinates;
     }
 
+    /**
+     * Encode the geometry of an {@link Edge} array, that is the coordinates returned by
+     * {@link #makeCoordinates(Edge[])}, without creating them.
+     *
+     * @param edges The array of input edges
+     * @return The encoded polyline of the points on the edges
+     */
+    public static EncodedPolylineBean makeLegGeometry(Edge[] edges) {
+        PolylineEncoder.Builder polyline = new PolylineEncoder.Builder();
+
+        for (Edge edge : edges) {
+            edge.forEachDisplayCoordinate(polyline.getCount() > 0, polyline); // Avoid duplications
+        }
+
+        return polyline.build();
+    }
+
     /**
      * Slice a {@link State} array at the leg boundaries. Leg switches occur when:
      * 1. A LEG_SWITCH mode (which itself isn't part of any leg) is seen
@@ -382,10 +399,7 @@ public abstract class GraphPathToTripPlanConverter {
 
         addPlaces(leg, states, edges, showIntermediateStops, requestedLocale);
 
-        CoordinateArrayListSequence coordinates = makeCoordinates(edges);
-        Geometry geometry = GeometryUtils.getGeometryFactory().createLineString(coordinates);
-
-        leg.legGeometry = PolylineEncoder.createEncodings(geometry);
+        leg.legGeometry = makeLegGeometry(edges);
 
         leg.interlineWithPreviousLeg = states[0].getBackEdge() instanceof PatternInterlineDwell;
 
@@ -1060,7 +1074,7 @@ public abstract class GraphPathToTripPlanConverter {
         }
         // Sets the name as the connecting stop in case the leg starts/ends at a splitter vertex
         if (vertex instanceof SplitterVertex || vertex instanceof OsmVertex) {
-            for (Edge outgoing : vertex.getOutgoing()) {
+            for (Edge outgoing : state.getContext().getOutgoing(vertex)) {
                 if (outgoing.getToVertex() instanceof TransitStop) {
                     name = outgoing.getToVertex().getName();
                     break;
@@ -1159,6 +1173,10 @@ public abstract class GraphPathToTripPlanConverter {
 
         State onBikeRentalState = null, offBikeRentalState = null;
 
+        // The coordinates of the current edge and of the alternatives to it, reused for all the edges
+        CoordinateBuffer geom = new CoordinateBuffer();
+        CoordinateBuffer alternativeGeom = new CoordinateBuffer();
+
         // Check if this leg is a SimpleTransfer; if so, rebuild state array based on stored transfer edges
         if (states.length == 2 && states[1].getBackEdge() instanceof SimpleTransfer) {
             SimpleTransfer transferEdge = ((SimpleTransfer) states[1].getBackEdge());
@@ -1198,8 +1216,8 @@ public abstract class GraphPathToTripPlanConverter {
             if (forwardState.getBackMode() == null || !forwardState.getBackMode().isOnStreetNonTransit()) {
                 continue; // ignore STLs and the like
             }
-            Geometry geom = edge.getGeometry();
-            if (geom == null) {
+            geom.clear();
+            if (!edge.forEachCoordinate(false, geom)) {
                 continue;
             }
 
@@ -1208,7 +1226,7 @@ public abstract class GraphPathToTripPlanConverter {
             // before or will come after
             if (edge instanceof ElevatorAlightEdge) {
                 // don't care what came before or comes after
-                step = createWalkStep(graph, forwardState, requestedLocale);
+                step = createWalkStep(graph, forwardState, geom, requestedLocale);
                 createdNewStep = true;
                 disableZagRemovalForThisStep = true;
 
@@ -1236,7 +1254,7 @@ public abstract class GraphPathToTripPlanConverter {
 
             if (step == null) {
                 // first step
-                step = createWalkStep(graph, forwardState, requestedLocale);
+                step = createWalkStep(graph, forwardState, geom, requestedLocale);
                 createdNewStep = true;
 
                 steps.add(step);
@@ -1264,7 +1282,7 @@ public abstract class GraphPathToTripPlanConverter {
                     roundaboutExit = 0;
                 }
                 /* start a new step */
-                step = createWalkStep(graph, forwardState, requestedLocale);
+                step = createWalkStep(graph, forwardState, geom, requestedLocale);
                 createdNewStep = true;
 
                 steps.add(step);
@@ -1308,14 +1326,17 @@ public abstract class GraphPathToTripPlanConverter {
                     if (edge instanceof StreetEdge) {
                         // the next edges will be PlainStreetEdges, we hope
                         double angleDiff = getAbsoluteAngleDiff(thisAngle, lastAngle);
-                        for (Edge alternative : backState.getVertex().getOutgoingStreetEdges()) {
+                        for (Edge alternative : backState.getContext().getOutgoingStreetEdges(backState.getVertex())) {
                             if (alternative.getName(requestedLocale).equals(streetName)) {
                                 // alternatives that have the same name
                                 // are usually caused by street splits
                                 continue;
                             }
-                            double altAngle = DirectionUtils.getFirstAngle(alternative
-                                                                                   .getGeometry());
+                            alternativeGeom.clear();
+                            if (!alternative.forEachCoordinate(false, alternativeGeom)) {
+                                continue;
+                            }
+                            double altAngle = DirectionUtils.getFirstAngle(alternativeGeom);
                             double altAngleDiff = getAbsoluteAngleDiff(altAngle, lastAngle);
                             if (angleDiff > Math.PI / 4 || altAngleDiff - angleDiff < Math.PI / 16) {
                                 shouldGenerateContinue = true;
@@ -1327,9 +1348,9 @@ public abstract class GraphPathToTripPlanConverter {
                         // FIXME: this code might be wrong with the removal of the edge-based graph
                         State twoStatesBack = backState.getBackState();
                         Vertex backVertex = twoStatesBack.getVertex();
-                        for (Edge alternative : backVertex.getOutgoingStreetEdges()) {
-                            List<Edge> alternatives = alternative.getToVertex()
-                                                              .getOutgoingStreetEdges();
+                        RoutingContext rctx = backState.getContext();
+                        for (Edge alternative : rctx.getOutgoingStreetEdges(backVertex)) {
+                            List<Edge> alternatives = rctx.getOutgoingStreetEdges(alternative.getToVertex());
                             if (alternatives.size() == 0) {
                                 continue; // this is not an alternative
                             }
@@ -1339,8 +1360,11 @@ public abstract class GraphPathToTripPlanConverter {
                                 // are usually caused by street splits
                                 continue;
                             }
-                            double altAngle = DirectionUtils.getFirstAngle(alternative
-                                                                                   .getGeometry());
+                            alternativeGeom.clear();
+                            if (!alternative.forEachCoordinate(false, alternativeGeom)) {
+                                continue;
+                            }
+                            double altAngle = DirectionUtils.getFirstAngle(alternativeGeom);
                             double altAngleDiff = getAbsoluteAngleDiff(altAngle, lastAngle);
                             if (angleDiff > Math.PI / 4 || altAngleDiff - angleDiff < Math.PI / 16) {
                                 shouldGenerateContinue = true;
@@ -1351,7 +1375,7 @@ public abstract class GraphPathToTripPlanConverter {
 
                     if (shouldGenerateContinue) {
                         // turn to stay on same-named street
-                        step = createWalkStep(graph, forwardState, requestedLocale);
+                        step = createWalkStep(graph, forwardState, geom, requestedLocale);
                         createdNewStep = true;
                         steps.add(step);
                         step.setDirections(lastAngle, thisAngle, false);
@@ -1488,7 +1512,7 @@ public abstract class GraphPathToTripPlanConverter {
         return angleDiff;
     }
 
-    private static WalkStep createWalkStep(Graph graph, State s, Locale wantedLocale) {
+    private static WalkStep createWalkStep(Graph graph, State s, CoordinateBuffer geometry, Locale wantedLocale) {
         Edge en = s.getBackEdge();
         WalkStep step;
         step = new WalkStep();
@@ -1499,7 +1523,7 @@ public abstract class GraphPathToTripPlanConverter {
                 s.getOptions().geoidElevation ? -graph.ellipsoidToGeoidDifference : 0);
         step.bogusName = en.hasBogusName();
         step.addAlerts(graph.streetNotesService.getNotes(s), wantedLocale);
-        step.angle = DirectionUtils.getFirstAngle(s.getBackEdge().getGeometry());
+        step.angle = DirectionUtils.getFirstAngle(geometry);
         if (s.getBackEdge() instanceof AreaEdge) {
             step.area = true;
         }
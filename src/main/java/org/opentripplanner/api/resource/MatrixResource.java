@@ -0,0 +1,204 @@
+/* This program is free software: you can redistribute it and/or
+ modify it under the terms of the GNU Lesser General Public License
+ as published by the Free Software Foundation, either version 3 of
+ the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>. */
+
+package org.opentripplanner.api.resource;
+
+import org.opentripplanner.api.common.ParameterException;
+import org.opentripplanner.api.common.RoutingResource;
+import org.opentripplanner.common.model.GenericLocation;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.impl.TravelTimeMatrixService;
+import org.opentripplanner.standalone.Router;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Travel times from a list of origins to a list of destinations, computed with one one-to-many search
+ * per origin (see {@link TravelTimeMatrixService}). All the parameters of the plan API except the
+ * places and arriveBy are supported, for instance mode, date, time and maxWalkDistance.
+ *
+ * The matrix is streamed back one origin at a time, in seconds, with -1 for destinations which can
+ * not be reached within maxTravelTime. In CSV format there is one line per origin. In binary format
+ * there are the number of origins and of destinations, followed by the rows, all as big-endian 32 bit
+ * integers.
+ */
+@Path("routers/{routerId}/matrix")
+public class MatrixResource extends RoutingResource {
+
+    public static final String CSV = "text/csv";
+
+    /** Origins as lat,lon pairs separated by semicolons. */
+    @QueryParam("origins")
+    private String origins;
+
+    /** Destinations as lat,lon pairs separated by semicolons. */
+    @QueryParam("destinations")
+    private String destinations;
+
+    /** Maximum travel time in seconds, at most the router's matrix maxTravelTime. */
+    @QueryParam("maxTravelTime")
+    private Integer maxTravelTime;
+
+    /** csv or binary. */
+    @QueryParam("format")
+    @DefaultValue("csv")
+    private String format;
+
+    @GET
+    @Produces({ CSV, MediaType.APPLICATION_OCTET_STREAM })
+    public Response getMatrix() {
+        RoutingRequest request;
+        try {
+            request = super.buildRequest();
+        } catch (ParameterException e) {
+            throw badRequest(e.message.name());
+        }
+        Router router = otpServer.getRouter(request.routerId);
+        TravelTimeMatrixService matrixService = router.travelTimeMatrixService;
+        if (matrixService == null) {
+            throw new WebApplicationException(Response.status(Status.SERVICE_UNAVAILABLE)
+                    .entity("The matrix API is not available on this router.\n").type("text/plain")
+                    .build());
+        }
+        if (request.arriveBy) {
+            throw badRequest("arriveBy is not supported.");
+        }
+        if (request.modes.isTransit() && !router.graph.transitFeedCovers(request.dateTime)) {
+            throw badRequest("The date is outside the period covered by the transit feeds.");
+        }
+        List<GenericLocation> originLocations = parseLocations("origins", origins);
+        List<GenericLocation> destinationLocations = parseLocations("destinations", destinations);
+        if (originLocations.size() > matrixService.maxOrigins) {
+            throw badRequest("At most " + matrixService.maxOrigins + " origins are allowed.");
+        }
+        if (destinationLocations.size() > matrixService.maxDestinations) {
+            throw badRequest("At most " + matrixService.maxDestinations + " destinations are allowed.");
+        }
+        if (!"csv".equals(format) && !"binary".equals(format)) {
+            throw badRequest("Unknown format " + format + ", use csv or binary.");
+        }
+        if (maxTravelTime != null && maxTravelTime <= 0) {
+            throw badRequest("maxTravelTime must be positive.");
+        }
+        int travelTimeLimit = maxTravelTime == null ? matrixService.maxTravelTime : maxTravelTime;
+
+        List<Future<int[]>> rows;
+        try {
+            rows = matrixService.submit(request, originLocations, destinationLocations, travelTimeLimit);
+        } catch (RejectedExecutionException e) {
+            throw new WebApplicationException(Response.status(Status.SERVICE_UNAVAILABLE)
+                    .entity("Too many matrix searches are waiting. The server is overloaded, please retry later.\n")
+                    .type("text/plain").build());
+        }
+        if ("binary".equals(format)) {
+            StreamingOutput output = stream -> {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+                out.writeInt(originLocations.size());
+                out.writeInt(destinationLocations.size());
+                writeRows(rows, row -> {
+                    for (int time : row) {
+                        out.writeInt(time);
+                    }
+                });
+                out.flush();
+            };
+            return Response.ok(output, MediaType.APPLICATION_OCTET_STREAM).build();
+        } else {
+            StreamingOutput output = stream -> {
+                Writer out = new OutputStreamWriter(new BufferedOutputStream(stream), StandardCharsets.UTF_8);
+                writeRows(rows, row -> {
+                    for (int i = 0; i < row.length; i++) {
+                        if (i > 0) {
+                            out.write(',');
+                        }
+                        out.write(Integer.toString(row[i]));
+                    }
+                    out.write('\n');
+                });
+                out.flush();
+            };
+            return Response.ok(output, CSV).build();
+        }
+    }
+
+    private interface RowWriter {
+        void write(int[] row) throws IOException;
+    }
+
+    /** Write the rows in order as their searches complete, cancelling the others on failure. */
+    private static void writeRows(List<Future<int[]>> rows, RowWriter writer) throws IOException {
+        try {
+            for (Future<int[]> row : rows) {
+                writer.write(row.get());
+            }
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            throw new IOException("Travel time matrix search failed.", e.getCause());
+        } finally {
+            cancel(rows);
+        }
+    }
+
+    private static void cancel(List<Future<int[]>> rows) {
+        for (Future<int[]> row : rows) {
+            row.cancel(true);
+        }
+    }
+
+    private static List<GenericLocation> parseLocations(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw badRequest("Parameter " + name + " is required.");
+        }
+        List<GenericLocation> locations = new ArrayList<>();
+        for (String latLon : value.split(";")) {
+            String[] parts = latLon.split(",");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                locations.add(new GenericLocation(Double.parseDouble(parts[0].trim()),
+                        Double.parseDouble(parts[1].trim())));
+            } catch (NumberFormatException e) {
+                throw badRequest("Invalid location '" + latLon + "' in " + name + ", expected lat,lon.");
+            }
+        }
+        return locations;
+    }
+
+    private static WebApplicationException badRequest(String message) {
+        return new WebApplicationException(Response.status(Status.BAD_REQUEST)
+                .entity(message + "\n").type("text/plain").build());
+    }
+}
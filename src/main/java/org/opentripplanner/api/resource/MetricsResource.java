@@ -0,0 +1,23 @@
+package org.opentripplanner.api.resource;
+
+import org.opentripplanner.util.monitoring.Metrics;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Report the metrics of the server in the Prometheus text format: web service latencies, searches, real-time
+ * updaters and JVM memory, garbage collection and threads.
+ */
+@Path("/metrics")
+public class MetricsResource {
+
+    public static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public String getMetrics() {
+        return Metrics.REGISTRY.write();
+    }
+}
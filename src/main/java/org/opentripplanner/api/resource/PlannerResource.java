@@ -14,10 +14,13 @@ package org.opentripplanner.api.resource;
 
 import org.glassfish.grizzly.http.server.Request;
 import org.opentripplanner.api.common.RoutingResource;
+import org.opentripplanner.api.model.Itinerary;
+import org.opentripplanner.api.model.Leg;
 import org.opentripplanner.api.model.TripPlan;
 import org.opentripplanner.api.model.error.PlannerError;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.impl.GraphPathFinder;
+import org.opentripplanner.routing.impl.PlanCache;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.standalone.Router;
 import org.slf4j.Logger;
@@ -26,13 +29,17 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriInfo;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.opentripplanner.api.resource.ServerInfo.Q;
 
@@ -49,12 +56,20 @@ public class PlannerResource extends RoutingResource {
 
     private static final Logger LOG = LoggerFactory.getLogger(PlannerResource.class);
 
+    /** Name of this API in the plan cache, whose plans are not shared with the other APIs. */
+    private static final String PLAN_CACHE_API = "rest";
+
     // We inject info about the incoming request so we can include the incoming query
     // parameters in the outgoing response. This is a TriMet requirement.
     // Jersey uses @Context to inject internal types and @InjectParam or @Resource for DI objects.
     @GET
     @Produces({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML + Q, MediaType.TEXT_XML + Q })
     public Response plan(@Context UriInfo uriInfo, @Context Request grizzlyRequest) {
+        return otpServer.admissionControl.routing.call(() -> planAdmitted(uriInfo, grizzlyRequest));
+    }
+
+    /** Plan a trip once the request was admitted in the routing lane of the admission control. */
+    private Response planAdmitted(UriInfo uriInfo, Request grizzlyRequest) {
 
         /*
          * TODO: add Lang / Locale parameter, and thus get localized content (Messages & more...)
@@ -77,10 +92,18 @@ public class PlannerResource extends RoutingResource {
 
             /* Find some good GraphPaths through the OTP Graph. */
             GraphPathFinder gpFinder = new GraphPathFinder(router); // we could also get a persistent router-scoped GraphPathFinder but there's no setup cost here
-            paths = gpFinder.graphPathFinderEntryPoint(request);
-
-            /* Convert the internal GraphPaths to a TripPlan object that is included in an OTP web service Response. */
-            TripPlan plan = GraphPathToTripPlanConverter.generatePlan(paths, request);
+            RoutingRequest planRequest = request;
+            List<List<GraphPath>> foundPaths = new ArrayList<>(1);
+            Supplier<TripPlan> planner = () -> {
+                List<GraphPath> graphPaths = gpFinder.graphPathFinderEntryPoint(planRequest);
+                foundPaths.add(graphPaths);
+                /* Convert the internal GraphPaths to a TripPlan object that is included in an OTP web service Response. */
+                return GraphPathToTripPlanConverter.generatePlan(graphPaths, planRequest);
+            };
+            TripPlan plan = router.planCache == null ? planner.get() : router.planCache.get(PLAN_CACHE_API, request, planner);
+            if (!foundPaths.isEmpty()) {
+                paths = foundPaths.get(0);
+            }
             response.setPlan(plan);
 
         } catch (Exception e) {
@@ -130,10 +153,30 @@ public class PlannerResource extends RoutingResource {
                     sb.append(path.getTrips().size());
                     sb.append(' ');
                 }
+            } else if (response.getPlan() != null) {
+                // The plan came from the plan cache, without its paths.
+                for (Itinerary itinerary : response.getPlan().itinerary) {
+                    sb.append(itinerary.duration);
+                    sb.append(' ');
+                    sb.append(itinerary.legs.stream().filter(Leg::isTransitLeg).count());
+                    sb.append(' ');
+                }
             }
             router.requestLogger.info(sb.toString());
         }
         return response;
     }
 
+    /** Return the hits, misses and size of the plan cache of the router, if it has one. */
+    @GET
+    @Path("/cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> getPlanCacheStatus() {
+        PlanCache planCache = otpServer.getRouter(routerId).planCache;
+        if (planCache == null) {
+            throw new WebApplicationException(javax.ws.rs.core.Response.Status.NOT_FOUND);
+        }
+        return planCache.getStatus();
+    }
+
 }
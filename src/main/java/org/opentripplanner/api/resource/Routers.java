@@ -19,15 +19,13 @@ import org.opentripplanner.api.model.RouterInfo;
 import org.opentripplanner.api.model.RouterList;
 import org.opentripplanner.graph_builder.GraphBuilder;
 import org.opentripplanner.routing.error.GraphNotFoundException;
-import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.impl.DefaultStreetVertexIndexFactory;
+import org.opentripplanner.routing.impl.InputStreamGraphSource;
 import org.opentripplanner.routing.impl.MemoryGraphSource;
 import org.opentripplanner.routing.services.GraphService;
 import org.opentripplanner.standalone.CommandLineParameters;
 import org.opentripplanner.standalone.OTPServer;
 import org.opentripplanner.standalone.Router;
-import org.opentripplanner.updater.GraphUpdater;
-import org.opentripplanner.updater.ReadinessBlockingUpdater;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,7 +85,8 @@ import static org.opentripplanner.api.resource.ServerInfo.Q;
  * will reload the graphs for all currently registered routerIds from disk.
  * 
  * PUT http://localhost/otp-rest-servlet/ws/routers/paris
- * will load a Graph from a sub-directory called 'paris' and associate it with the routerId 'paris'.
+ * will reload the 'paris' Graph from disk in the background and hot swap it, while the current
+ * 'paris' Graph keeps answering requests.
  * 
  * DELETE http://localhost/otp-rest-servlet/ws/routers/paris
  * will release the Paris Graph and de-register the 'paris' routerId.
@@ -128,29 +127,26 @@ public class Routers {
     }
 
     /**
-     * Checks that graphs are ready, and that blocking Updaters reports as initialized
+     * Checks that graphs are ready, and that blocking Updaters reports as initialized. The phase of
+     * the running hot swaps is appended: the server stays ready with the current graphs meanwhile.
      */
     @GET @Path("/ready")
     @Produces({ MediaType.TEXT_PLAIN})
     public Response isReady() {
         boolean isRouterReady = false;
         List<String> waitingUpdaters = new ArrayList<>();
+        StringBuilder hotSwaps = new StringBuilder();
         for (String id : otpServer.getRouterIds()) {
             Router router = otpServer.getRouter(id);
             if (router != null) {
                 // Router could have been evicted in the meantime
-                Graph graph = router.graph;
-
                 isRouterReady = true;
-                if (graph.updaterManager != null && graph.updaterManager.getUpdaterList() != null) {
-                    for (GraphUpdater updater : graph.updaterManager.getUpdaterList()) {
-                        if (updater instanceof ReadinessBlockingUpdater) {
-                            if (!((ReadinessBlockingUpdater) updater).isReady()) {
-                                waitingUpdaters.add(((ReadinessBlockingUpdater) updater).getType());
-                            }
-                        }
-                    }
-                }
+                waitingUpdaters.addAll(router.getUpdatersNotReady());
+            }
+            String hotSwapStatus = otpServer.getGraphService().getHotSwapStatus(id);
+            if (hotSwapStatus != null) {
+                hotSwaps.append("Hot swap of graph '").append(id).append("': ")
+                        .append(hotSwapStatus).append("\n");
             }
         }
         if (!isRouterReady) {
@@ -162,7 +158,8 @@ public class Routers {
         if (!waitingUpdaters.isEmpty()) {
             LOG.info("Graph ready, waiting for updaters: {}", waitingUpdaters);
             throw new WebApplicationException(Response.status(Status.NOT_FOUND)
-                    .entity("Graph ready, waiting for updaters: " + waitingUpdaters + "\n").type("text/plain")
+                    .entity("Graph ready, waiting for updaters: " + waitingUpdaters + "\n" + hotSwaps)
+                    .type("text/plain")
                     .build());
         }
         if (!flaggedAsReady) {
@@ -170,7 +167,7 @@ public class Routers {
             LOG.info("Graph is now ready.");
         }
         return Response.status(Status.OK)
-                .entity("Ready.\n").type("text/plain")
+                .entity("Ready.\n" + hotSwaps).type("text/plain")
                 .build();
     }
 
@@ -217,19 +214,36 @@ public class Routers {
     }
 
     /** 
-     * Load the graph for the specified routerId from disk.
-     * @param preEvict before reloading each graph, evict the existing graph. This will prevent 
-     * memory usage from increasing during the reload, but routing will be unavailable on this 
-     * routerId for the duration of the operation.
+     * Hot swap the graph of the specified routerId: the graph is loaded again from disk in the
+     * background, and replaces the current graph once its real-time updaters are initialized.
+     * Routing stays available on the current graph meanwhile. The progress is reported by the
+     * readiness endpoint.
+     * @return status code 202 if the hot swap started, 409 if one is already running, 400 if the
+     * graph cannot be reloaded, or 404 if the routerId is not registered.
      */
     @RolesAllowed({ "ROUTERS" })
     @PUT @Path("{routerId}") @Produces({ MediaType.TEXT_PLAIN })
-    public Response putGraphId(@PathParam("routerId") String routerId,
-            @QueryParam("preEvict") @DefaultValue("true") boolean preEvict) {
-        LOG.debug("DISABLED - Attempting to load graph '{}' from server's local filesystem.", routerId);
-        return Response.status(Status.BAD_REQUEST).entity(
-                "This endpoint is not supported any more"
-        ).build();
+    public Response putGraphId(@PathParam("routerId") String routerId) {
+        GraphService graphService = otpServer.getGraphService();
+        boolean started;
+        try {
+            started = graphService.hotSwap(routerId);
+        } catch (GraphNotFoundException e) {
+            return Response.status(Status.NOT_FOUND)
+                    .entity("Graph id '" + routerId + "' not registered.\n").build();
+        }
+        if (started) {
+            return Response.status(Status.ACCEPTED)
+                    .entity("Hot swap of graph '" + routerId + "' started.\n").build();
+        }
+        String status = graphService.getHotSwapStatus(routerId);
+        if (status != null && !status.startsWith(InputStreamGraphSource.HotSwapPhase.FAILED.name())) {
+            return Response.status(Status.CONFLICT)
+                    .entity("Hot swap of graph '" + routerId + "' already running: " + status + "\n")
+                    .build();
+        }
+        return Response.status(Status.BAD_REQUEST)
+                .entity("Graph '" + routerId + "' cannot be hot swapped.\n").build();
     }
 
     /** 
@@ -0,0 +1,87 @@
+/* This program is free software: you can redistribute it and/or
+ modify it under the terms of the GNU Lesser General Public License
+ as published by the Free Software Foundation, either version 3 of
+ the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>. */
+
+package org.opentripplanner.common;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Union-find over the dense integer range [0, size), safe for concurrent unions from several threads.
+ *
+ * Unlike {@link DisjointSet} there is no element-to-index map: callers assign the indices themselves.
+ * A root is always linked below a root with a smaller index, so concurrent links can never form a
+ * cycle, and all updates of the parent array are done with compare-and-set. Find uses path halving.
+ */
+public class IntDisjointSet {
+
+    private final AtomicIntegerArray parent;
+
+    public IntDisjointSet(int size) {
+        parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    /** Copy constructor, used to continue unioning from the state of another set without changing it. */
+    public IntDisjointSet(IntDisjointSet other) {
+        int size = other.size();
+        parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parent.set(i, other.parent.get(i));
+        }
+    }
+
+    /** @return the root of the merged set. */
+    public int union(int element1, int element2) {
+        while (true) {
+            int p1 = find(element1);
+            int p2 = find(element2);
+            if (p1 == p2) {
+                return p1;
+            }
+            if (p1 < p2) {
+                int tmp = p1;
+                p1 = p2;
+                p2 = tmp;
+            }
+            // Only succeeds if p1 is still a root, otherwise another thread linked it in the meantime.
+            if (parent.compareAndSet(p1, p1, p2)) {
+                return p2;
+            }
+        }
+    }
+
+    public int find(int element) {
+        int i = element;
+        while (true) {
+            int p = parent.get(i);
+            if (p == i) {
+                return i;
+            }
+            int gp = parent.get(p);
+            if (p != gp) {
+                parent.compareAndSet(i, p, gp);
+            }
+            i = gp;
+        }
+    }
+
+    public boolean isRoot(int element) {
+        return parent.get(element) == element;
+    }
+
+    public int size() {
+        return parent.length();
+    }
+}
@@ -14,6 +14,16 @@
 
 package org.opentripplanner.common;
 
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Polygon;
 import org.opentripplanner.common.geometry.Subgraph;
@@ -27,12 +37,14 @@ import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.routing.vertextype.TransitVertex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.stream.IntStream;
 
 public class StreetUtils {
 
@@ -48,6 +60,9 @@ public class StreetUtils {
           to noThruTraffic state. Depedestrianize unreachable edges. Removed unconnected edges.
      */
 
+    /** Number of consecutive vertices whose outgoing edges are examined by one parallel task. */
+    private static final int PARTITION_SIZE = 10000;
+
     public static void pruneFloatingIslands(Graph graph, int maxIslandSize,
             int islandWithStopMaxSize, String islandLogName) {
         LOG.debug("pruning");
@@ -62,50 +77,119 @@ public class StreetUtils {
         if (islandLog != null) {
             islandLog.printf("%s\t%s\t%s\t%s\t%s\n","id","stopCount", "streetCount","wkt" ,"hadRemoved");
         }
-        Map<Vertex, Subgraph> subgraphs = new HashMap<Vertex, Subgraph>();
-        Map<Vertex, Subgraph> extgraphs = new HashMap<Vertex, Subgraph>();
-        Map<Vertex, ArrayList<Vertex>> neighborsForVertex = new HashMap<Vertex, ArrayList<Vertex>>();
-        Map<Edge, Boolean> isolated = new HashMap<Edge, Boolean>();
-        ArrayList<Subgraph> islands = new ArrayList<Subgraph>();
+
+        /* give every vertex a dense index, so that connectivity can be kept in primitive arrays */
+        Vertex[] vertices = graph.getVertices().toArray(new Vertex[0]);
+        TObjectIntMap<Vertex> indexForVertex = new TObjectIntHashMap<Vertex>(vertices.length, 0.5f, -1);
+        for (int i = 0; i < vertices.length; i++) {
+            indexForVertex.put(vertices[i], i);
+        }
+        boolean[] connected = new boolean[vertices.length]; // vertex has any walkable neighbour
+        boolean[] anchored = new boolean[vertices.length];  // vertex has a neighbour without noThruTraffic
+        IntDisjointSet subgraphs = new IntDisjointSet(vertices.length);
+        Set<Edge> isolated = new HashSet<Edge>();
         int count;
 
-        /* establish vertex neighbourhood without noThruTrafficEdges */
-        collectNeighbourVertices(graph, neighborsForVertex, false);
+        /* join vertices along edges without noThruTraffic, keep the noThruTraffic edges for the later rounds */
+        TIntList noThruTrafficEdges = collectNeighbourVertices(vertices, indexForVertex, subgraphs, anchored, connected);
 
         /* associate each connected vertex with a subgraph */
-        count = collectSubGraphs(graph, neighborsForVertex, subgraphs, null, null);
-        LOG.info("Islands without noThruTraffic edges: " + count);
-
-        /* Expand vertex neighbourhood with noThruTrafficEdges
-           Note that we can reuse the original neighbour map here
-           and simply process a smaller set of noThruTrafficEdges */
-        collectNeighbourVertices(graph, neighborsForVertex, true);
+        int[] subgraphForVertex = findRoots(subgraphs, anchored);
+        TIntObjectMap<Island> components = collectComponents(vertices, subgraphForVertex);
+        LOG.info("Islands without noThruTraffic edges: " + components.size());
 
         /* Next: generate subgraphs without considering access limitations */
-        count = collectSubGraphs(graph, neighborsForVertex, extgraphs, null, islands);
-        LOG.info("Islands with noThruTraffic edges: " + count);
-
-        /* collect unreachable edges to a map */
-        processIslands(graph, islands, isolated, null, true, maxIslandSize, islandWithStopMaxSize);
+        IntDisjointSet extgraphs = new IntDisjointSet(subgraphs);
+        for (int i = 0; i < noThruTrafficEdges.size(); i += 2) {
+            extgraphs.union(noThruTrafficEdges.get(i), noThruTrafficEdges.get(i + 1));
+        }
+        int[] extgraphForVertex = findRoots(extgraphs, connected);
+        Collection<Island> islands = collectComponents(vertices, extgraphForVertex).valueCollection();
+        LOG.info("Islands with noThruTraffic edges: " + islands.size());
 
-        extgraphs = new HashMap<Vertex, Subgraph>(); // let old map go
-        islands = new ArrayList<Subgraph>(); // reset this too
+        /* collect unreachable edges to a set */
+        processIslands(graph, vertices, extgraphForVertex, islands, isolated, null, true, maxIslandSize, islandWithStopMaxSize);
+        extgraphForVertex = null; // let old array go
 
         /* Recompute expanded subgraphs by accepting noThruTraffic edges in graph expansion.
-           However, expansion is not allowed to jump from an original island to another one
+           However, expansion is not allowed to jump from an original island to another one,
+           so each original island absorbs the purely noThruTraffic components it touches.
          */
-        collectSubGraphs(graph, neighborsForVertex, extgraphs, subgraphs, islands);
+        IntDisjointSet noThruTrafficGraphs = new IntDisjointSet(vertices.length);
+        for (int i = 0; i < noThruTrafficEdges.size(); i += 2) {
+            int v1 = noThruTrafficEdges.get(i);
+            int v2 = noThruTrafficEdges.get(i + 1);
+            if (!anchored[v1] && !anchored[v2]) {
+                noThruTrafficGraphs.union(v1, v2);
+            }
+        }
+        /* Roots of anchored vertices are anchored and the others are not, so both kinds can share one array */
+        int[] componentForVertex = findRoots(noThruTrafficGraphs, connected);
+        for (int i = 0; i < vertices.length; i++) {
+            if (anchored[i]) {
+                componentForVertex[i] = subgraphForVertex[i];
+            }
+        }
+        subgraphForVertex = null;
+        components = collectComponents(vertices, componentForVertex);
+
+        TIntObjectMap<TIntSet> noThruTrafficComponentsForSubgraph = new TIntObjectHashMap<TIntSet>();
+        TIntSet attachedComponents = new TIntHashSet();
+        for (int i = 0; i < noThruTrafficEdges.size(); i += 2) {
+            int v1 = noThruTrafficEdges.get(i);
+            int v2 = noThruTrafficEdges.get(i + 1);
+            if (anchored[v1] == anchored[v2]) {
+                continue;
+            }
+            int subgraph = componentForVertex[anchored[v1] ? v1 : v2];
+            int noThruTrafficComponent = componentForVertex[anchored[v1] ? v2 : v1];
+            TIntSet attached = noThruTrafficComponentsForSubgraph.get(subgraph);
+            if (attached == null) {
+                attached = new TIntHashSet();
+                noThruTrafficComponentsForSubgraph.put(subgraph, attached);
+            }
+            attached.add(noThruTrafficComponent);
+            attachedComponents.add(noThruTrafficComponent);
+        }
+
+        List<Island> expandedIslands = new ArrayList<Island>();
+        for (TIntObjectIterator<Island> it = components.iterator(); it.hasNext();) {
+            it.advance();
+            if (!anchored[it.key()]) {
+                continue;
+            }
+            Island island = new Island(it.value());
+            TIntSet attached = noThruTrafficComponentsForSubgraph.get(it.key());
+            if (attached != null) {
+                for (TIntIterator ait = attached.iterator(); ait.hasNext();) {
+                    island.addAll(components.get(ait.next()));
+                }
+            }
+            expandedIslands.add(island);
+        }
 
         /* Next round: generate purely noThruTraffic islands if such ones exist */
-        count = collectSubGraphs(graph, neighborsForVertex, extgraphs, null, islands);
+        count = 0;
+        for (TIntObjectIterator<Island> it = components.iterator(); it.hasNext();) {
+            it.advance();
+            if (!anchored[it.key()] && !attachedComponents.contains(it.key())) {
+                expandedIslands.add(it.value());
+                count++;
+            }
+        }
         LOG.info("noThruTraffic island count: " + count);
 
-        LOG.info("Total " + islands.size() + " sub graphs found");
+        LOG.info("Total " + expandedIslands.size() + " sub graphs found");
 
         /* remove all tiny subgraphs and large subgraphs without stops */
-        count = processIslands(graph, islands, isolated, islandLog, false, maxIslandSize, islandWithStopMaxSize);
+        count = processIslands(graph, vertices, componentForVertex, expandedIslands, isolated, islandLog, false,
+                maxIslandSize, islandWithStopMaxSize);
         LOG.info("Modified " + count + " islands");
 
+        if (islandLog != null) {
+            islandLog.close();
+        }
+
         int removedEdgeLessVertices = graph.removeEdgelessVertices();
         if (removedEdgeLessVertices > 0) {
             LOG.info("Removed {} edgeless vertices after pruning islands", removedEdgeLessVertices);
@@ -113,8 +197,8 @@ public class StreetUtils {
     }
 
     private static int processIslands(
-        Graph graph, ArrayList<Subgraph> islands,
-        Map<Edge, Boolean> isolated, PrintWriter log,
+        Graph graph, Vertex[] vertices, int[] componentForVertex, Collection<Island> islands,
+        Set<Edge> isolated, PrintWriter log,
         boolean markIsolated, int maxIslandSize, int islandWithStopMaxSize) {
 
         Map<String, Integer> stats = new HashMap<String, Integer>();
@@ -124,26 +208,42 @@ public class StreetUtils {
         stats.put("noThru", 0);
         stats.put("depedestrianized",0);
 
+        /* the member vertices are only needed for the islands which are modified or logged */
+        TIntSet wantedComponents = new TIntHashSet();
+        for (Island island : islands) {
+            if (log != null || island.isPrunable(maxIslandSize, islandWithStopMaxSize)) {
+                wantedComponents.addAll(island.components);
+            }
+        }
+        TIntObjectMap<List<Vertex>> membersForComponent = new TIntObjectHashMap<List<Vertex>>();
+        for (int i = 0; i < vertices.length; i++) {
+            int component = componentForVertex[i];
+            if (component < 0 || !wantedComponents.contains(component)) {
+                continue;
+            }
+            List<Vertex> members = membersForComponent.get(component);
+            if (members == null) {
+                members = new ArrayList<Vertex>();
+                membersForComponent.put(component, members);
+            }
+            members.add(vertices[i]);
+        }
+
         int count = 0;
-        for (Subgraph island : islands) {
+        for (Island island : islands) {
             boolean hadRemoved = false;
-            if(island.stopSize() > 0){
-                //for islands with stops
-                if (island.streetSize() < islandWithStopMaxSize) {
-                    depedestrianizeOrRemove(graph, island, isolated, stats, markIsolated);
-                    hadRemoved = true;
-                    count++;
-                }
-            }else{
-                //for islands without stops
-                if (island.streetSize() < maxIslandSize) {
-                    depedestrianizeOrRemove(graph, island, isolated, stats, markIsolated);
-                    hadRemoved = true;
-                    count++;
-                }
+            boolean prunable = island.isPrunable(maxIslandSize, islandWithStopMaxSize);
+            if (!prunable && log == null) {
+                continue;
+            }
+            Subgraph subgraph = island.toSubgraph(membersForComponent);
+            if (prunable) {
+                depedestrianizeOrRemove(graph, subgraph, isolated, stats, markIsolated);
+                hadRemoved = true;
+                count++;
             }
             if (log != null) {
-                WriteNodesInSubGraph(island, log, hadRemoved);
+                WriteNodesInSubGraph(subgraph, log, hadRemoved);
             }
         }
         if (markIsolated) {
@@ -156,91 +256,89 @@ public class StreetUtils {
         return count;
     }
 
-    private static void collectNeighbourVertices(
-        Graph graph, Map<Vertex, ArrayList<Vertex>> neighborsForVertex, boolean noThruTraffic) {
+    /**
+     * Traverse the outgoing edges of all street vertices in parallel partitions. Vertices connected by an edge
+     * without noThruTraffic are joined in the given subgraphs, noThruTraffic edges are returned as pairs of
+     * vertex indices.
+     */
+    private static TIntList collectNeighbourVertices(
+        Vertex[] vertices, TObjectIntMap<Vertex> indexForVertex, IntDisjointSet subgraphs,
+        boolean[] anchored, boolean[] connected) {
 
         // RoutingRequest options = new RoutingRequest(new TraverseModeSet(TraverseMode.WALK, TraverseMode.TRANSIT));
         RoutingRequest options = new RoutingRequest(new TraverseModeSet(TraverseMode.WALK));
 
-        for (Vertex gv : graph.getVertices()) {
-            if (!(gv instanceof StreetVertex)) {
-                continue;
-            }
-            State s0 = new State(gv, options);
-            for (Edge e : gv.getOutgoing()) {
-                Vertex in = gv;
-                if (!(e instanceof StreetEdge || e instanceof StreetTransitLink ||
-                      e instanceof ElevatorEdge || e instanceof FreeEdge)) {
+        int partitions = (vertices.length + PARTITION_SIZE - 1) / PARTITION_SIZE;
+        return IntStream.range(0, partitions).parallel().mapToObj(partition -> {
+            TIntList noThruTrafficEdges = new TIntArrayList();
+            int end = Math.min(vertices.length, (partition + 1) * PARTITION_SIZE);
+            for (int in = partition * PARTITION_SIZE; in < end; in++) {
+                Vertex gv = vertices[in];
+                if (!(gv instanceof StreetVertex)) {
                     continue;
                 }
-                if ((e instanceof StreetEdge && ((StreetEdge)e).isNoThruTraffic()) != noThruTraffic) {
-                    continue;
-                }
-                State s1 = e.traverse(s0);
-                if (s1 == null) {
-                    continue;
-                }
-                Vertex out = s1.getVertex();
-
-                ArrayList<Vertex> vertexList = neighborsForVertex.get(in);
-                if (vertexList == null) {
-                    vertexList = new ArrayList<Vertex>();
-                    neighborsForVertex.put(in, vertexList);
-                }
-                vertexList.add(out);
-
-                vertexList = neighborsForVertex.get(out);
-                if (vertexList == null) {
-                    vertexList = new ArrayList<Vertex>();
-                    neighborsForVertex.put(out, vertexList);
+                State s0 = new State(gv, options);
+                for (Edge e : gv.getOutgoing()) {
+                    if (!(e instanceof StreetEdge || e instanceof StreetTransitLink ||
+                          e instanceof ElevatorEdge || e instanceof FreeEdge)) {
+                        continue;
+                    }
+                    State s1 = e.traverse(s0);
+                    if (s1 == null) {
+                        continue;
+                    }
+                    int out = indexForVertex.get(s1.getVertex());
+                    if (out < 0) {
+                        continue;
+                    }
+                    connected[in] = true;
+                    connected[out] = true;
+                    if (e instanceof StreetEdge && ((StreetEdge)e).isNoThruTraffic()) {
+                        noThruTrafficEdges.add(in);
+                        noThruTrafficEdges.add(out);
+                    } else {
+                        anchored[in] = true;
+                        anchored[out] = true;
+                        subgraphs.union(in, out);
+                    }
                 }
-                vertexList.add(in);
             }
-        }
+            return noThruTrafficEdges;
+        }).collect(TIntArrayList::new, (all, part) -> all.addAll(part), (all, part) -> all.addAll(part));
     }
 
-    private static int collectSubGraphs(
-        Graph graph,
-        Map<Vertex, ArrayList<Vertex>> neighborsForVertex,
-        Map<Vertex, Subgraph> newgraphs, // put new subgraphs here
-        Map<Vertex, Subgraph> subgraphs, // optional isolation map from a previous round
-        ArrayList<Subgraph> islands) {   // final list of islands or null
-
-        int count=0;
-        for (Vertex gv : graph.getVertices()) {
-            if (!(gv instanceof StreetVertex)) {
-                continue;
-            }
-            Vertex vertex = gv;
+    /** @return the root in the given set of every included vertex, -1 for the others. */
+    private static int[] findRoots(IntDisjointSet set, boolean[] included) {
+        int[] roots = new int[included.length];
+        IntStream.range(0, included.length).parallel().forEach(i -> roots[i] = included[i] ? set.find(i) : -1);
+        return roots;
+    }
 
-            if (subgraphs != null && !subgraphs.containsKey(vertex)) {
-                // do not start new graph generation from non-classified vertex
-                continue;
-            }
-            if (newgraphs.containsKey(vertex)) { // already processed
+    /** Count the street and stop vertices of each component, keyed by the component root. */
+    private static TIntObjectMap<Island> collectComponents(Vertex[] vertices, int[] componentForVertex) {
+        TIntObjectMap<Island> components = new TIntObjectHashMap<Island>();
+        for (int i = 0; i < vertices.length; i++) {
+            int component = componentForVertex[i];
+            if (component < 0) {
                 continue;
             }
-            if (!neighborsForVertex.containsKey(vertex)) {
-                continue;
+            Island island = components.get(component);
+            if (island == null) {
+                island = new Island(component);
+                components.put(component, island);
             }
-            Subgraph subgraph = computeConnectedSubgraph(neighborsForVertex, vertex, subgraphs);
-            if (subgraph != null){
-                for (Iterator<Vertex> vIter = subgraph.streetIterator(); vIter.hasNext();) {
-                    Vertex subnode = vIter.next();
-                    newgraphs.put(subnode, subgraph);
-                }
-                if (islands != null) {
-                    islands.add(subgraph);
-                }
-                count++;
+            if (vertices[i] instanceof TransitVertex) {
+                island.stopSize++;
+            } else {
+                island.streetSize++;
             }
         }
-        return count;
+        return components;
     }
 
     private static void depedestrianizeOrRemove(
         Graph graph, Subgraph island,
-        Map<Edge, Boolean> isolated, Map<String, Integer> stats, boolean markIsolated) {
+        Set<Edge> isolated, Map<String, Integer> stats, boolean markIsolated) {
         //iterate over the street vertex of the subgraph
         for (Iterator<Vertex> vIter = island.streetIterator(); vIter.hasNext();) {
             Vertex v = vIter.next();
@@ -248,11 +346,11 @@ public class StreetUtils {
             for (Edge e : outgoing) {
                 if (e instanceof StreetEdge) {
                     if (markIsolated) {
-                        isolated.put(e, true);
+                        isolated.add(e);
                         stats.put("isolated", stats.get("isolated") + 1);
                     } else {
                         StreetEdge pse = (StreetEdge) e;
-                        if (!isolated.containsKey(e)) {
+                        if (!isolated.contains(e)) {
                             // not a true island edge but has limited access
                             // so convert to noThruTraffic
                             pse.setNoThruTraffic(true);
@@ -296,37 +394,6 @@ public class StreetUtils {
         graph.addBuilderAnnotation(new GraphConnectivity(island.getRepresentativeVertex(), island.streetSize()));
     }
 
-    private static Subgraph computeConnectedSubgraph(
-        Map<Vertex, ArrayList<Vertex>> neighborsForVertex, Vertex startVertex, Map<Vertex, Subgraph> anchors) {
-        Subgraph subgraph = new Subgraph();
-        Queue<Vertex> q = new LinkedList<Vertex>();
-        Subgraph anchor = null;
-
-        if (anchors != null) {
-            // anchor subgraph expansion to this subgraph
-            anchor = anchors.get(startVertex);
-        }
-        q.add(startVertex);
-        while (!q.isEmpty()) {
-            Vertex vertex = q.poll();
-            for (Vertex neighbor : neighborsForVertex.get(vertex)) {
-                if (!subgraph.contains(neighbor)) {
-                    if (anchor != null) {
-                        Subgraph compare = anchors.get(neighbor);
-                        if ( compare != null && compare != anchor) { // do not enter a new island
-                            continue;
-                        }
-                    }
-                    subgraph.addVertex(neighbor);
-                    q.add(neighbor);
-                }
-            }
-        }
-        return subgraph;
-//        if(subgraph.size()>1) return subgraph;
-//        return null;
-    }
-
     private static void WriteNodesInSubGraph(Subgraph subgraph, PrintWriter islandLog, boolean hadRemoved){
         Geometry convexHullGeom = subgraph.getConvexHull();
         if (convexHullGeom != null && !(convexHullGeom instanceof Polygon)) {
@@ -336,4 +403,50 @@ public class StreetUtils {
                 subgraph.streetSize(), convexHullGeom, hadRemoved);
         islandCounter++;
     }
+
+    /**
+     * An island made of one or more union-find components. Only the sizes are known up front, the member
+     * vertices are gathered into a {@link Subgraph} for the islands which are actually modified or logged.
+     */
+    private static class Island {
+
+        private final TIntList components = new TIntArrayList(1);
+
+        private int streetSize = 0;
+
+        private int stopSize = 0;
+
+        Island(int component) {
+            components.add(component);
+        }
+
+        Island(Island other) {
+            addAll(other);
+        }
+
+        void addAll(Island other) {
+            components.addAll(other.components);
+            streetSize += other.streetSize;
+            stopSize += other.stopSize;
+        }
+
+        boolean isPrunable(int maxIslandSize, int islandWithStopMaxSize) {
+            if (stopSize > 0) {
+                //for islands with stops
+                return streetSize < islandWithStopMaxSize;
+            }
+            //for islands without stops
+            return streetSize < maxIslandSize;
+        }
+
+        Subgraph toSubgraph(TIntObjectMap<List<Vertex>> membersForComponent) {
+            Subgraph subgraph = new Subgraph();
+            for (int i = 0; i < components.size(); i++) {
+                for (Vertex vertex : membersForComponent.get(components.get(i))) {
+                    subgraph.addVertex(vertex);
+                }
+            }
+            return subgraph;
+        }
+    }
 }
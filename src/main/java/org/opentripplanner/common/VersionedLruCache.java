@@ -0,0 +1,100 @@
+package org.opentripplanner.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Least-recently-used cache whose entries are all dropped as soon as the version of the data they were computed
+ * from changes, for instance the street graph version (see
+ * {@link org.opentripplanner.routing.graph.Graph#getStreetGraphVersion()}).
+ *
+ * Missing values are computed outside of the lock: two requests for the same missing key may both compute it,
+ * which is cheaper than blocking all requests on one computation. A value computed while the version changed is
+ * returned but not stored, and null values are never stored.
+ */
+public class VersionedLruCache<K, V> {
+
+    private final LongSupplier version;
+
+    private final Map<K, V> entries;
+
+    private long entriesVersion;
+
+    private long hits = 0;
+
+    private long misses = 0;
+
+    private long invalidations = 0;
+
+    /**
+     * @param version the current version of the data the values are computed from. It may only change when the
+     *                values change.
+     */
+    public VersionedLruCache(final int maxSize, LongSupplier version) {
+        this.version = version;
+        this.entriesVersion = version.getAsLong();
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** Return the cached value for the given key, computing and caching it if needed. */
+    public V get(K key, Supplier<V> loader) {
+        long currentVersion = version.getAsLong();
+        synchronized (this) {
+            invalidateIfChanged(currentVersion);
+            V value = entries.get(key);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+        }
+        V value = loader.get();
+        if (value != null) {
+            synchronized (this) {
+                // Do not store values computed from data which changed in the meantime.
+                if (currentVersion == entriesVersion && currentVersion == version.getAsLong()) {
+                    entries.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return the number of times entries were dropped because the version changed. */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    private void invalidateIfChanged(long currentVersion) {
+        if (currentVersion != entriesVersion) {
+            if (!entries.isEmpty()) {
+                invalidations++;
+            }
+            entries.clear();
+            entriesVersion = currentVersion;
+        }
+    }
+}
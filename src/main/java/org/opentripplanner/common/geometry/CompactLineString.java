@@ -201,6 +201,48 @@ public final class CompactLineString implements Serializable {
         return uncompactLineString(x0, y0, x1, y1, DlugoszVarLenIntPacker.unpack(packedCoords), reverse);
     }
 
+    /**
+     * Pass the coordinates of the line string returned by
+     * {@link #uncompackLineString(double, double, double, double, byte[], boolean)} to the given
+     * consumer, without creating the line string and its coordinates.
+     *
+     * @param skipFirst True to leave out the first coordinate.
+     */
+    public static void forEachCoordinate(double xa, double ya, double xb, double yb,
+            byte[] packedCoords, boolean reverse, boolean skipFirst, CoordinateConsumer consumer) {
+        if (!skipFirst)
+            consumer.accept(xa, ya);
+        if (packedCoords != null && packedCoords.length > 0) {
+            int[] coords = DlugoszVarLenIntPacker.unpack(packedCoords);
+            if (!reverse) {
+                int ix = (int) Math.round(xa * FIXED_FLOAT_MULT);
+                int iy = (int) Math.round(ya * FIXED_FLOAT_MULT);
+                for (int i = 0; i < coords.length; i += 2) {
+                    ix += coords[i];
+                    iy += coords[i + 1];
+                    consumer.accept(ix / FIXED_FLOAT_MULT, iy / FIXED_FLOAT_MULT);
+                }
+            } else {
+                /*
+                 * The deltas are coded from B: sum them up to get the last intermediate point, then
+                 * walk back to B by subtracting them.
+                 */
+                int ix = (int) Math.round(xb * FIXED_FLOAT_MULT);
+                int iy = (int) Math.round(yb * FIXED_FLOAT_MULT);
+                for (int i = 0; i < coords.length; i += 2) {
+                    ix += coords[i];
+                    iy += coords[i + 1];
+                }
+                for (int i = coords.length - 2; i >= 0; i -= 2) {
+                    consumer.accept(ix / FIXED_FLOAT_MULT, iy / FIXED_FLOAT_MULT);
+                    ix -= coords[i];
+                    iy -= coords[i + 1];
+                }
+            }
+        }
+        consumer.accept(xb, yb);
+    }
+
     /**
      * Wrapper for the above method in the case where there are no start/end coordinates provided.
      * 0-coordinates are added and then removed in order for the delta encoding to work correctly.
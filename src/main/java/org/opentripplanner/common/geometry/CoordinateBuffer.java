@@ -0,0 +1,40 @@
+package org.opentripplanner.common.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A growable sequence of coordinates stored in a flat array. It is meant to be cleared and reused
+ * for the geometry of one edge after another, see {@link DirectionUtils#getFirstAngle(CoordinateBuffer)}.
+ */
+public final class CoordinateBuffer implements CoordinateConsumer {
+
+    private double[] xy = new double[32];
+
+    private int size = 0;
+
+    @Override
+    public void accept(double x, double y) {
+        if (2 * size == xy.length) {
+            xy = Arrays.copyOf(xy, 2 * xy.length);
+        }
+        xy[2 * size] = x;
+        xy[2 * size + 1] = y;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int index) {
+        return xy[2 * index];
+    }
+
+    public double getY(int index) {
+        return xy[2 * index + 1];
+    }
+}
@@ -0,0 +1,11 @@
+package org.opentripplanner.common.geometry;
+
+/**
+ * Receives the coordinates of a geometry one by one, so that they can be processed without
+ * creating the JTS {@link org.locationtech.jts.geom.Coordinate} and geometry objects.
+ */
+@FunctionalInterface
+public interface CoordinateConsumer {
+
+    void accept(double x, double y);
+}
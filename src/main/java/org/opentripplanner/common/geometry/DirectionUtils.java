@@ -31,10 +31,15 @@ public class DirectionUtils {
      * Returns the approximate azimuth from coordinate A to B in decimal degrees clockwise from North,
      * in the range (-180° to +180°). The computation is exact for small delta between A and B.
      */
-    public static synchronized double getAzimuth(Coordinate a, Coordinate b) {
-        double cosLat = FastMath.cos(FastMath.toRadians((a.y + b.y) / 2.0)); 
-        double dY = (b.y - a.y); // in degrees, we do not care about the units
-        double dX = (b.x - a.x) * cosLat; // same
+    public static double getAzimuth(Coordinate a, Coordinate b) {
+        return getAzimuth(a.x, a.y, b.x, b.y);
+    }
+
+    /** Same as {@link #getAzimuth(Coordinate, Coordinate)}, given the coordinates of A and B. */
+    public static double getAzimuth(double ax, double ay, double bx, double by) {
+        double cosLat = FastMath.cos(FastMath.toRadians((ay + by) / 2.0));
+        double dY = (by - ay); // in degrees, we do not care about the units
+        double dX = (bx - ax) * cosLat; // same
         if (Math.abs(dX) < 1e-10 && Math.abs(dY) < 1e-10)
             return 180;
         double az = FastMath.toDegrees(FastMath.atan2(dX, dY));
@@ -46,7 +51,7 @@ public class DirectionUtils {
      * in the range (-PI, PI).
      * @param geometry a LineString or a MultiLineString
      */
-    public static synchronized double getLastAngle(Geometry geometry) {
+    public static double getLastAngle(Geometry geometry) {
         LineString line;
         if (geometry instanceof MultiLineString) {
             line = (LineString) geometry.getGeometryN(geometry.getNumGeometries() - 1);
@@ -72,7 +77,7 @@ public class DirectionUtils {
      * in the range (-PI, PI).
      * @param geometry a LineString or a MultiLineString
      */
-    public static synchronized double getFirstAngle(Geometry geometry) {
+    public static double getFirstAngle(Geometry geometry) {
         LineString line;
         if (geometry instanceof MultiLineString) {
             line = (LineString) geometry.getGeometryN(0);
@@ -94,4 +99,38 @@ public class DirectionUtils {
         return az * Math.PI / 180;
     }
 
+    /**
+     * Same as {@link #getFirstAngle(Geometry)}, for a line string given by its coordinates.
+     * @param line the coordinates of the line string, at least 2 of them
+     */
+    public static double getFirstAngle(CoordinateBuffer line) {
+        int i = 1;
+        int minDistance = 10;  // Meters
+        while (SphericalDistanceLibrary.fastDistance(
+                line.getY(0), line.getX(0), line.getY(i), line.getX(i)) < minDistance
+                && i < line.size() - 1) {
+            i++;
+        }
+
+        double az = getAzimuth(line.getX(0), line.getY(0), line.getX(i), line.getY(i));
+        return az * Math.PI / 180;
+    }
+
+    /**
+     * Same as {@link #getLastAngle(Geometry)}, for a line string given by its coordinates.
+     * @param line the coordinates of the line string, at least 2 of them
+     */
+    public static double getLastAngle(CoordinateBuffer line) {
+        int last = line.size() - 1;
+        int i = last - 1;
+        int minDistance = 10;  // Meters
+        while (SphericalDistanceLibrary.fastDistance(
+                line.getY(i), line.getX(i), line.getY(last), line.getX(last)) < minDistance
+                && i > 0) {
+            i--;
+        }
+
+        double az = getAzimuth(line.getX(i), line.getY(i), line.getX(last), line.getY(last));
+        return az * Math.PI / 180;
+    }
 }
@@ -14,8 +14,6 @@
 package org.opentripplanner.common.geometry;
 
 import java.io.ByteArrayOutputStream;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Variable-length integer encoding. This optimize integer storage when most of the values are
@@ -77,46 +75,59 @@ public class DlugoszVarLenIntPacker {
     public static int[] unpack(byte[] arr) {
         if (arr == null)
             return null;
-        List<Integer> retval = new ArrayList<Integer>(arr.length);
+        // Count the values first, to decode them without boxing
+        int n = 0;
+        for (int i = 0; i < arr.length; i += length(arr[i])) {
+            n++;
+        }
+        int[] retval = new int[n];
         int i = 0;
+        n = 0;
         while (i < arr.length) {
             int v1 = arr[i] & 0xFF;
             i++;
             if ((v1 & 0x80) == 0x00) {
                 // 0xxx xxxx -> 7 bits value
-                int sv = (v1 & 0x7F) - 64;
-                retval.add(sv);
+                retval[n++] = (v1 & 0x7F) - 64;
             } else if ((v1 & 0xC0) == 0x80) {
                 // 10xx xxxx + 8 -> 14 bits value
-                int sv = ((v1 & 0x3F) << 8) + (arr[i] & 0xFF) - 8192;
+                retval[n++] = ((v1 & 0x3F) << 8) + (arr[i] & 0xFF) - 8192;
                 i++;
-                retval.add(sv);
             } else if ((v1 & 0xE0) == 0xC0) {
                 // 110 xxxx + 2x8 -> 21 bits value
-                int sv = ((v1 & 0x1F) << 16) + ((arr[i] & 0xFF) << 8) + (arr[i + 1] & 0xFF)
+                retval[n++] = ((v1 & 0x1F) << 16) + ((arr[i] & 0xFF) << 8) + (arr[i + 1] & 0xFF)
                         - 1048576;
                 i += 2;
-                retval.add(sv);
             } else if ((v1 & 0xF8) == 0xE0) {
                 // 1110 0xxx + 3x8 -> 27 bits value
-                int sv = ((v1 & 0x1F) << 24) + ((arr[i] & 0xFF) << 16) + ((arr[i + 1] & 0xFF) << 8)
-                        + (arr[i + 2] & 0xFF) - 67108864;
+                retval[n++] = ((v1 & 0x1F) << 24) + ((arr[i] & 0xFF) << 16)
+                        + ((arr[i + 1] & 0xFF) << 8) + (arr[i + 2] & 0xFF) - 67108864;
                 i += 3;
-                retval.add(sv);
             } else {
                 // 1110 1xxx + 4x8 -> 35 bits value
                 long sv = (((long) v1 & 0x1F) << 32) + ((arr[i] & 0xFF) << 24)
                         + ((arr[i + 1] & 0xFF) << 16) + ((arr[i + 2] & 0xFF) << 8)
                         + (arr[i + 3] & 0xFF) - 2147483648L;
                 i += 4;
-                retval.add((int) sv);
+                retval[n++] = (int) sv;
             }
         }
-        int[] bufret = new int[retval.size()];
-        i = 0;
-        for (int v : retval) {
-            bufret[i++] = v;
+        return retval;
+    }
+
+    /** @return the number of bytes of the packed value starting with the given byte. */
+    private static int length(byte first) {
+        int v1 = first & 0xFF;
+        if ((v1 & 0x80) == 0x00) {
+            return 1;
+        } else if ((v1 & 0xC0) == 0x80) {
+            return 2;
+        } else if ((v1 & 0xE0) == 0xC0) {
+            return 3;
+        } else if ((v1 & 0xF8) == 0xE0) {
+            return 4;
+        } else {
+            return 5;
         }
-        return bufret;
     }
 }
@@ -15,13 +15,15 @@ package org.opentripplanner.extra_graph;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import org.opentripplanner.model.Route;
 import org.opentripplanner.routing.graph.Edge;
 
 import java.util.Collection;
 
 public class EdgesForRoute {
-    public Multimap<Route, Edge> edgesForRoute = ArrayListMultimap.create();
+    /** Synchronized, as it is filled by several threads matching routes at once. */
+    public Multimap<Route, Edge> edgesForRoute = Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
 
     public Collection<Edge> get(Route route) {
         return edgesForRoute.get(route);
@@ -1,5 +1,6 @@
 package org.opentripplanner.graph_builder;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import org.opentripplanner.graph_builder.model.GtfsBundle;
@@ -176,7 +177,18 @@ public class GraphBuilder implements Runnable {
         if (cmdLineParams.loadBaseGraph) {
             Graph graph = graphBuilder.loadBaseGraph();
             graph.index(new DefaultStreetVertexIndexFactory());
+            checkBaseGraphIsUpToDate(graph, input, dataStore.graphBuilderParameters());
         }
+        else if (cmdLineParams.skipTransit) {
+            // Record the street inputs in the base graph, to detect stale base graphs later
+            graphBuilder.graph.streetInputsHash = StreetInputsHash.of(
+                    input.get(OSM), input.get(DEM), dataStore.graphBuilderParameters()
+            );
+        }
+        // The streets either come from the base graph or are built from OSM here
+        boolean hasStreets = cmdLineParams.loadBaseGraph
+                ? graphBuilder.graph.hasStreets
+                : input.containsKey(OSM);
 
         if (!cmdLineParams.loadBaseGraph) {
             if (input.containsKey(FileType.OSM)) {
@@ -191,6 +203,7 @@ public class GraphBuilder implements Runnable {
                 osmModule.customNamer = builderParams.customNamer;
                 osmModule.setDefaultWayPropertySetSource(builderParams.wayPropertySet);
                 osmModule.skipVisibility = !builderParams.areaVisibility;
+                osmModule.maxAreaVisibilityDistance = builderParams.maxAreaVisibilityDistance;
                 osmModule.platformEntriesLinking = builderParams.platformEntriesLinking;
                 osmModule.staticBikeRental = builderParams.staticBikeRental;
                 osmModule.staticBikeParkAndRide = builderParams.staticBikeParkAndRide;
@@ -235,7 +248,7 @@ public class GraphBuilder implements Runnable {
                 GtfsModule gtfsModule = new GtfsModule(gtfsBundles);
                 gtfsModule.setFareServiceFactory(builderParams.fareServiceFactory);
                 graphBuilder.addModule(gtfsModule);
-                if (input.containsKey(OSM)) {
+                if (hasStreets) {
                     if (builderParams.matchBusRoutesToStreets) {
                         graphBuilder.addModule(new BusRouteStreetMatcher());
                     }
@@ -253,7 +266,7 @@ public class GraphBuilder implements Runnable {
                 }
                 NetexModule netexModule = new NetexModule(dir, netexBundles);
                 graphBuilder.addModule(netexModule);
-                if (input.containsKey(OSM)) {
+                if (hasStreets) {
                     if (builderParams.matchBusRoutesToStreets) {
                         graphBuilder.addModule(new BusRouteStreetMatcher());
                     }
@@ -298,6 +311,36 @@ public class GraphBuilder implements Runnable {
         return graphBuilder;
     }
 
+    /**
+     * Fail if the street inputs (OSM, elevation and street parameters) changed since the base
+     * graph was built, since the transit would be added to stale streets. The check is skipped if
+     * the street input files are not available to this build.
+     */
+    private static void checkBaseGraphIsUpToDate(
+            Graph baseGraph,
+            Multimap<FileType, DataSource> input,
+            JsonNode builderConfig
+    ) {
+        if (!input.containsKey(OSM) && !input.containsKey(DEM)) {
+            LOG.info("No street input files found, the base graph is used as it is.");
+            return;
+        }
+        if (baseGraph.streetInputsHash == null) {
+            LOG.warn("The base graph has no street inputs hash, unable to check that it is up "
+                    + "to date. Rebuild it with --skipTransit to enable the check.");
+            return;
+        }
+        String hash = StreetInputsHash.of(input.get(OSM), input.get(DEM), builderConfig);
+        if (!hash.equals(baseGraph.streetInputsHash)) {
+            throw new IllegalStateException(
+                    "The street inputs (OSM and elevation files or street parameters in "
+                    + "build-config.json) changed since the base graph was built. Rebuild the "
+                    + "base graph with --skipTransit."
+            );
+        }
+        LOG.info("The base graph is up to date with the street inputs.");
+    }
+
     private static boolean checkThereIsAtLeastOneFileToImport(Set<FileType> fileTypes) {
         if(fileTypes.stream().noneMatch(FileType::isInputDataSource)) {
             LOG.error("No input files found, unable to build graph.");
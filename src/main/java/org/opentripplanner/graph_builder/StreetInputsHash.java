@@ -0,0 +1,137 @@
+package org.opentripplanner.graph_builder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.opentripplanner.standalone.datastore.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Computes a content hash of everything the street-only base graph is built from: the OSM and
+ * elevation files and the build parameters used by the OSM, elevation and island pruning modules.
+ * The hash is stored in the base graph, so a transit-only build ({@code --loadBaseGraph}) can tell
+ * whether the base graph is still up to date with its street inputs.
+ * <p>
+ * The hash only depends on the content of the files, not on their names, locations or order.
+ */
+public class StreetInputsHash {
+    private static final Logger LOG = LoggerFactory.getLogger(StreetInputsHash.class);
+
+    /** The build-config.json parameters used to build the street graph. */
+    static final List<String> STREET_PARAMETERS = Arrays.asList(
+            "streets",
+            "osmNaming",
+            "osmWayPropertySet",
+            "areaVisibility",
+            "maxAreaVisibilityDistance",
+            "platformEntriesLinking",
+            "staticBikeRental",
+            "staticParkAndRide",
+            "staticBikeParkAndRide",
+            "banDiscouragedWalking",
+            "banDiscouragedBiking",
+            "islandWithoutStopsMaxSize",
+            "islandWithStopsMaxSize",
+            "fetchElevationUS",
+            "elevationBucket",
+            "distanceBetweenElevationSamples"
+    );
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** This is a utility class with static methods only; hence this constructor is private */
+    private StreetInputsHash() {}
+
+    /**
+     * @return the hex encoded SHA-256 hash of the given OSM and elevation files and of the street
+     * parameters of the given build configuration.
+     */
+    public static String of(
+            Collection<DataSource> osm,
+            Collection<DataSource> dem,
+            JsonNode builderConfig
+    ) {
+        long startTime = System.currentTimeMillis();
+        MessageDigest digest = newDigest();
+        update(digest, "osm");
+        update(digest, sortedContentHashes(osm));
+        update(digest, "dem");
+        update(digest, sortedContentHashes(dem));
+        for (String parameter : STREET_PARAMETERS) {
+            update(digest, parameter + "=" + builderConfig.path(parameter).toString());
+        }
+        String hash = hex(digest.digest());
+        LOG.info(
+                "Street inputs hash {} computed in {} s.",
+                hash, (System.currentTimeMillis() - startTime) / 1000
+        );
+        return hash;
+    }
+
+
+    /* private methods */
+
+    private static List<String> sortedContentHashes(Collection<DataSource> sources) {
+        List<String> hashes = new ArrayList<>();
+        for (DataSource source : sources) {
+            hashes.add(contentHash(source));
+        }
+        hashes.sort(String::compareTo);
+        return hashes;
+    }
+
+    private static String contentHash(DataSource source) {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = source.asInputStream()) {
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + source.path(), e);
+        }
+        return hex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, Collection<String> values) {
+        update(digest, Integer.toString(values.size()));
+        for (String value : values) {
+            update(digest, value);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separate the values, so that "ab", "c" and "a", "bc" do not hash the same
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[2 * bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
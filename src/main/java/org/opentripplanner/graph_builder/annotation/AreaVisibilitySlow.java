@@ -0,0 +1,28 @@
+package org.opentripplanner.graph_builder.annotation;
+
+public class AreaVisibilitySlow extends GraphBuilderAnnotation {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String FMT = "Visibility graph of area %s took %d ms: %d visibility nodes, "
+            + "%d edges created, %d kept";
+
+    final long areaId;
+    final int nbNodes;
+    final long millis;
+    final int createdEdges;
+    final int keptEdges;
+
+    public AreaVisibilitySlow(long areaId, int nbNodes, long millis, int createdEdges, int keptEdges) {
+        this.areaId = areaId;
+        this.nbNodes = nbNodes;
+        this.millis = millis;
+        this.createdEdges = createdEdges;
+        this.keptEdges = keptEdges;
+    }
+
+    @Override
+    public String getMessage() {
+        return String.format(FMT, areaId, millis, nbNodes, createdEdges, keptEdges);
+    }
+}
@@ -0,0 +1,92 @@
+package org.opentripplanner.graph_builder.linking;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.common.VersionedLruCache;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.TransitStop;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Least-recently-used cache of the street edges (or, far from any street, the transit stops) which origins and
+ * destinations are linked to, keyed by coordinate rounded to 1e-6 degrees (about 10 cm) and by traverse mode.
+ *
+ * Only the result of the spatial search is cached. The temporary vertices and edges are still created for each
+ * request, by projecting the exact coordinate on the cached edges. All entries are dropped as soon as the street
+ * graph version changes (see {@link Graph#getStreetGraphVersion()}), so cached edges are always part of the graph.
+ */
+public class LinkCache {
+
+    private static final double PRECISION = 1e6;
+
+    /** The result of a search for the closest edges or stops. At most one of the two lists is not empty. */
+    static class Link {
+
+        static final Link NONE = new Link(Collections.emptyList(), Collections.emptyList());
+
+        final List<StreetEdge> edges;
+
+        final List<TransitStop> stops;
+
+        Link(List<StreetEdge> edges, List<TransitStop> stops) {
+            this.edges = edges;
+            this.stops = stops;
+        }
+    }
+
+    private final VersionedLruCache<Key, Link> links;
+
+    LinkCache(Graph graph, int maxSize) {
+        this.links = new VersionedLruCache<>(maxSize, graph::getStreetGraphVersion);
+    }
+
+    /** @return the cached link for the coordinate and mode, found and cached with the given finder if needed. */
+    Link get(Coordinate coordinate, TraverseMode mode, Supplier<Link> finder) {
+        return links.get(new Key(coordinate, mode), finder);
+    }
+
+    public int size() {
+        return links.size();
+    }
+
+    public long getHits() {
+        return links.getHits();
+    }
+
+    public long getMisses() {
+        return links.getMisses();
+    }
+
+    private static class Key {
+
+        private final int lat;
+
+        private final int lon;
+
+        private final TraverseMode mode;
+
+        Key(Coordinate coordinate, TraverseMode mode) {
+            this.lat = (int) Math.round(coordinate.y * PRECISION);
+            this.lon = (int) Math.round(coordinate.x * PRECISION);
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return lat == other.lat && lon == other.lon && mode == other.mode;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * lat + lon) * 31 + mode.hashCode();
+        }
+    }
+}
@@ -106,6 +106,12 @@ public class SimpleStreetSplitter {
     //If false new temporary edges are created and no edges are deleted (Used when searching for origin/destination)
     private final boolean destructiveSplitting;
 
+    /** Number of origin and destination links which are cached when splitting is not destructive. */
+    public static final int DEFAULT_LINK_CACHE_SIZE = 10000;
+
+    /** Caches the closest edges of origins and destinations, null when splitting is destructive. */
+    private volatile LinkCache linkCache;
+
     /**
      * Construct a new SimpleStreetSplitter. Be aware that only one SimpleStreetSplitter should be
      * active on a graph at any given time.
@@ -120,6 +126,7 @@ public class SimpleStreetSplitter {
         this.transitStopIndex = transitStopIndex;
         this.destructiveSplitting = destructiveSplitting;
         this.edgeFactory = new DefaultStreetEdgeFactory();
+        this.linkCache = destructiveSplitting ? null : new LinkCache(graph, DEFAULT_LINK_CACHE_SIZE);
 
         //We build a spatial index if it isn't provided
         if (hashGridSpatialIndex == null) {
@@ -135,6 +142,21 @@ public class SimpleStreetSplitter {
 
     }
 
+    /**
+     * Replace the cache of origin and destination links by an empty one of the given size, or remove it when the
+     * size is not positive. Splitting which is destructive never caches links.
+     */
+    public void setLinkCacheSize(int size) {
+        if (!destructiveSplitting) {
+            linkCache = size > 0 ? new LinkCache(graph, size) : null;
+        }
+    }
+
+    /** @return the cache of origin and destination links, or null if links are not cached. */
+    public LinkCache getLinkCache() {
+        return linkCache;
+    }
+
     /**
      * Construct a new SimpleStreetSplitter. Be aware that only one SimpleStreetSplitter should be
      * active on a graph at any given time.
@@ -179,6 +201,34 @@ public class SimpleStreetSplitter {
 
     /** Link this vertex into the graph */
     public boolean link(Vertex vertex, TraverseMode traverseMode, RoutingRequest options) {
+        LinkCache linkCache = this.linkCache;
+        LinkCache.Link link = linkCache == null ? findLink(vertex, traverseMode)
+                : linkCache.get(vertex.getCoordinate(), traverseMode, () -> findLink(vertex, traverseMode));
+
+        if (!link.stops.isEmpty()) {
+            for (TransitStop stop : link.stops) {
+                LOG.debug("Linking vertex to stop: {}", stop.getName());
+                makeTemporaryEdges((TemporaryStreetLocation) vertex, stop);
+            }
+            return true;
+        }
+        if (link.edges.isEmpty()) {
+            return false;
+        }
+        // Perform a simple local equirectangular projection, so distances are expressed in degrees latitude.
+        final double xscale = Math.cos(vertex.getLat() * Math.PI / 180);
+        for (StreetEdge edge : link.edges) {
+            link(vertex, edge, xscale, options);
+        }
+        if (destructiveSplitting) {
+            // The link and split edges were added to the street network.
+            graph.incrementStreetGraphVersion();
+        }
+        return true;
+    }
+
+    /** Find the closest street edges to a vertex or, when linking origins and destinations, the closest stops. */
+    private LinkCache.Link findLink(Vertex vertex, TraverseMode traverseMode) {
         // find nearby street edges
         // TODO: we used to use an expanding-envelope search, which is more efficient in
         // dense areas. but first let's see how inefficient this is. I suspect it's not too
@@ -242,7 +292,7 @@ public class SimpleStreetSplitter {
         if (candidateEdges.isEmpty() || distances.get(candidateEdges.get(0)) > radiusDeg) {
             //We only link to stops if we are searching for origin/destination and for that we need transitStopIndex
             if (destructiveSplitting || transitStopIndex == null) {
-                return false;
+                return LinkCache.Link.NONE;
             }
             LOG.debug("No street edge was found for {}", vertex);
             //we search for closest stops (since this is only used in origin/destination linking if no edges were found)
@@ -268,7 +318,7 @@ public class SimpleStreetSplitter {
             });
             if (candidateStops.isEmpty() || stopDistances.get(candidateStops.get(0)) > radiusDeg) {
                 LOG.debug("Stops aren't close either!");
-                return false;
+                return LinkCache.Link.NONE;
             } else {
                 List<TransitStop> bestStops = new ArrayList<>();
                 // Add stops until there is a break of epsilon meters.
@@ -282,11 +332,7 @@ public class SimpleStreetSplitter {
                     stopDistances.get(candidateStops.get(i)) - stopDistances
                         .get(candidateStops.get(i - 1)) < DUPLICATE_WAY_EPSILON_DEGREES);
 
-                for (TransitStop stop: bestStops) {
-                    LOG.debug("Linking vertex to stop: {}", stop.getName());
-                    makeTemporaryEdges((TemporaryStreetLocation)vertex, stop);
-                }
-                return true;
+                return new LinkCache.Link(Collections.emptyList(), bestStops);
             }
         } else {
 
@@ -304,11 +350,7 @@ public class SimpleStreetSplitter {
                 distances.get(candidateEdges.get(i)) - distances
                     .get(candidateEdges.get(i - 1)) < DUPLICATE_WAY_EPSILON_DEGREES);
 
-            for (StreetEdge edge : bestEdges) {
-                link(vertex, edge, xscale, options);
-            }
-
-            return true;
+            return new LinkCache.Link(bestEdges, Collections.emptyList());
         }
     }
 
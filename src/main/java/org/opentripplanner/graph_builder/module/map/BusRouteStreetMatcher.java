@@ -13,10 +13,11 @@
 
 package org.opentripplanner.graph_builder.module.map;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.model.Route;
-import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.extra_graph.EdgesForRoute;
 import org.opentripplanner.graph_builder.services.GraphBuilderModule;
 import org.opentripplanner.routing.core.TraverseMode;
@@ -26,10 +27,15 @@ import org.opentripplanner.routing.graph.Graph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.opentripplanner.routing.impl.DefaultStreetVertexIndexFactory;
 
 /**
@@ -66,36 +72,52 @@ public class BusRouteStreetMatcher implements GraphBuilderModule {
         EdgesForRoute edgesForRoute = new EdgesForRoute();
         extra.put(EdgesForRoute.class, edgesForRoute);
         log.info("Finding corresponding street edges for trip patterns...");
+        // Many patterns of a route, and sometimes patterns of several routes, have the same shape. Each shape is
+        // matched only once.
+        Map<List<Coordinate>, LineString> shapes = new LinkedHashMap<>();
+        ListMultimap<List<Coordinate>, TripPattern> patternsForShape = ArrayListMultimap.create();
         // Why do we need to iterate over the routes? Why not just patterns?
         for (Route route : graph.index.routeForId.values()) {
             for (TripPattern pattern : graph.index.patternsForRoute.get(route)) {
                 if (pattern.mode == TraverseMode.BUS) {
                     /* we can only match geometry to streets on bus routes */
-                    log.debug("Matching {}", pattern);
                     //If there are no shapes in GTFS pattern geometry is generated
                     //generated geometry is useless for street matching
                     //that is why pattern.geometry is null in that case
-                    if (pattern.getGeometry() == null) {
-                        continue;
-                    }
-                    List<Edge> edges = matcher.match(pattern.getGeometry());
-                    if (edges == null || edges.isEmpty()) {
-                        log.warn("Could not match to street network: {}", pattern);
+                    LineString geometry = pattern.getGeometry();
+                    if (geometry == null) {
                         continue;
                     }
-                    List<Coordinate> coordinates = new ArrayList<Coordinate>();
-                    for (Edge e : edges) {
-                        coordinates.addAll(Arrays.asList(e.getGeometry().getCoordinates()));
-                        edgesForRoute.edgesForRoute.put(route, e);
-                    }
-                    Coordinate[] coordinateArray = new Coordinate[coordinates.size()];
-                    LineString ls = GeometryUtils.getGeometryFactory().createLineString(coordinates.toArray(coordinateArray));
-                    // Replace the pattern's geometry from GTFS with that of the equivalent OSM edges.
-                    // TODO This won't work anymore, when geometries are not stored in trip patterns
-                    //pattern.getGeometry() = ls;
+                    List<Coordinate> shape = Arrays.asList(geometry.getCoordinates());
+                    shapes.putIfAbsent(shape, geometry);
+                    patternsForShape.put(shape, pattern);
                 }
             }
         }
+        log.info("Matching {} distinct shapes of {} bus patterns to the street network...", shapes.size(),
+                patternsForShape.size());
+
+        // The matcher only reads its edge index and the graph, so the shapes are matched concurrently.
+        AtomicInteger unmatched = new AtomicInteger();
+        shapes.entrySet().parallelStream().forEach(entry -> {
+            List<TripPattern> patterns = patternsForShape.get(entry.getKey());
+            log.debug("Matching {}", patterns);
+            List<Edge> edges = matcher.match(entry.getValue());
+            if (edges == null || edges.isEmpty()) {
+                log.warn("Could not match to street network: {}", patterns);
+                unmatched.incrementAndGet();
+                return;
+            }
+            Set<Route> routes = new HashSet<>();
+            for (TripPattern pattern : patterns) {
+                if (routes.add(pattern.route)) {
+                    edgesForRoute.edgesForRoute.putAll(pattern.route, edges);
+                }
+            }
+            // Replacing the pattern's geometry from GTFS with that of the equivalent OSM edges is not possible
+            // anymore, as geometries are not stored in trip patterns.
+        });
+        log.info("Done matching shapes, {} could not be matched.", unmatched.get());
     }
 
     @Override
@@ -29,7 +29,9 @@ import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.linearref.LinearLocation;
 
 public abstract class MatchState {
-    private static final RoutingRequest traverseOptions = new RoutingRequest(TraverseMode.CAR);
+    /** One request per thread, as the street matcher matches several shapes at once. */
+    private static final ThreadLocal<RoutingRequest> traverseOptions =
+            ThreadLocal.withInitial(() -> new RoutingRequest(TraverseMode.CAR));
 
     protected static final double NEW_SEGMENT_PENALTY = 0.1;
 
@@ -67,7 +69,7 @@ public abstract class MatchState {
 
     protected boolean carsCanTraverse(Edge edge) {
         // should be done with a method on edge (canTraverse already exists on turnEdge) 
-        State s0 = new State(edge.getFromVertex(), traverseOptions);
+        State s0 = new State(edge.getFromVertex(), traverseOptions.get());
         State s1 = edge.traverse(s0);
         return s1 != null;
     }
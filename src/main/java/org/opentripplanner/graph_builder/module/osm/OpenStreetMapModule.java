@@ -75,6 +75,9 @@ public class OpenStreetMapModule implements GraphBuilderModule {
 
     public boolean platformEntriesLinking = false;
 
+    /** Maximum length in meters of the visibility edges across walkable areas, see WalkableAreaBuilder. */
+    public double maxAreaVisibilityDistance = Double.POSITIVE_INFINITY;
+
     // Members that can be set by clients.
 
     /**
@@ -199,7 +202,7 @@ public class OpenStreetMapModule implements GraphBuilderModule {
 
     protected class Handler {
 
-        private static final String nodeLabelFormat = "osm:node:%d";
+        private static final String nodeLabelFormat = OsmVertex.NODE_LABEL_PREFIX + "%d";
 
         private static final String levelnodeLabelFormat = nodeLabelFormat + ":level:%s";
 
@@ -412,14 +415,13 @@ public class OpenStreetMapModule implements GraphBuilderModule {
             List<AreaGroup> areaGroups = groupAreas(osmdb.getWalkableAreas());
             WalkableAreaBuilder walkableAreaBuilder = new WalkableAreaBuilder(graph, osmdb,
                     wayPropertySet, edgeFactory, this);
+            walkableAreaBuilder.maxVisibilityDistance = maxAreaVisibilityDistance;
             if (skipVisibility) {
                 for (AreaGroup group : areaGroups) {
                     walkableAreaBuilder.buildWithoutVisibility(group);
                 }
             } else {
-                for (AreaGroup group : areaGroups) {
-                    walkableAreaBuilder.buildWithVisibility(group, platformEntriesLinking);
-                }
+                walkableAreaBuilder.buildWithVisibility(areaGroups, platformEntriesLinking);
 
                 if(platformEntriesLinking){
                     List<Area> platforms = osmdb.getWalkableAreas().stream().
@@ -1190,7 +1192,7 @@ public class OpenStreetMapModule implements GraphBuilderModule {
                 Coordinate coordinate = getCoordinate(node);
                 String label = this.getLevelNodeLabel(node, level);
                 OsmVertex vertex = new OsmVertex(graph, label, coordinate.x,
-                         coordinate.y, node.getId(), new NonLocalizedString(label));
+                         coordinate.y, node.getId());
                 vertices.put(level, vertex);
                 // multilevel nodes should also undergo turn-conversion
                 endpoints.add(vertex);
@@ -1250,7 +1252,7 @@ public class OpenStreetMapModule implements GraphBuilderModule {
                 }
 
                 if (iv == null) {
-                    iv = new OsmVertex(graph, label, coordinate.x, coordinate.y, node.getId(), new NonLocalizedString(label));
+                    iv = new OsmVertex(graph, label, coordinate.x, coordinate.y, node.getId());
                     if (node.hasTrafficLight()) {
                         iv.trafficLight = (true);
                     }
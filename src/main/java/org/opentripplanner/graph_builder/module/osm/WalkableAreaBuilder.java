@@ -16,16 +16,21 @@ package org.opentripplanner.graph_builder.module.osm;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.common.model.P2;
 import org.opentripplanner.graph_builder.annotation.AreaNotEpsilonValid;
 import org.opentripplanner.graph_builder.annotation.AreaTooComplicated;
+import org.opentripplanner.graph_builder.annotation.AreaVisibilitySlow;
 import org.opentripplanner.graph_builder.module.osm.OpenStreetMapModule.Handler;
 import org.opentripplanner.graph_builder.services.StreetEdgeFactory;
 import org.opentripplanner.openstreetmap.model.OSMNode;
@@ -55,6 +60,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
@@ -63,6 +69,9 @@ import org.locationtech.jts.geom.MultiLineString;
 import org.locationtech.jts.geom.MultiPolygon;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.opentripplanner.util.I18NString;
 
 /**
@@ -87,6 +96,18 @@ public class WalkableAreaBuilder {
 
     public static final double VISIBILITY_EPSILON = 0.000000001;
 
+    /** Area groups taking at least this long are reported in the builder annotations. */
+    public static final long SLOW_AREA_MILLIS = 1000;
+
+    /** Number of area groups whose visibility is computed at once, per thread. */
+    private static final int BATCH_SIZE_PER_THREAD = 4;
+
+    /**
+     * Maximum length in meters of the edges linking visibility nodes across an area. By default nodes are linked
+     * whatever their distance.
+     */
+    public double maxVisibilityDistance = Double.POSITIVE_INFINITY;
+
     private Graph graph;
 
     private OSMDatabase osmdb;
@@ -149,26 +170,87 @@ public class WalkableAreaBuilder {
         }
     }
 
+    /**
+     * Build the visibility graphs of the given area groups. Finding which nodes see each other, which is the
+     * expensive part, only reads the OSM data and runs on several threads. The edges are then added to the graph
+     * one group after the other in the order of the groups, so the graph does not depend on the number of threads.
+     * Groups are handled in batches so that the visible pairs of only a few groups are kept at once.
+     */
+    public void buildWithVisibility(List<AreaGroup> groups, boolean platformEntriesLinking) {
+        int batchSize = BATCH_SIZE_PER_THREAD * ForkJoinPool.getCommonPoolParallelism();
+        for (int from = 0; from < groups.size(); from += batchSize) {
+            List<GroupVisibility> batch = groups.subList(from, Math.min(groups.size(), from + batchSize))
+                    .parallelStream()
+                    .map(group -> computeVisibility(group, platformEntriesLinking))
+                    .collect(Collectors.toList());
+            for (GroupVisibility visibility : batch) {
+                buildWithVisibility(visibility);
+            }
+        }
+    }
+
     public void buildWithVisibility(AreaGroup group, boolean platformEntriesLinking) {
-        Set<OSMNode> startingNodes = new HashSet<OSMNode>();
-        Set<Vertex> startingVertices = new HashSet<Vertex>();
-        Set<Edge> edges = new HashSet<Edge>();
+        buildWithVisibility(computeVisibility(group, platformEntriesLinking));
+    }
+
+    /** The areas and visible node pairs of each outermost ring of an area group. */
+    static class GroupVisibility {
+
+        final AreaGroup group;
+
+        final List<RingVisibility> rings = new ArrayList<>();
+
+        final Set<OSMNode> startingNodes = new HashSet<>();
+
+        long nanos;
+
+        GroupVisibility(AreaGroup group) {
+            this.group = group;
+        }
+    }
+
+    static class RingVisibility {
+
+        final Ring ring;
+
+        /** The areas of the group within the ring, whose edges are created around the ring. */
+        final List<Area> areas = new ArrayList<>();
+
+        final List<OSMNode> visibilityNodes = new ArrayList<>();
+
+        /** Pairs of visibility nodes which see each other, once for each pair. */
+        final List<P2<OSMNode>> visiblePairs = new ArrayList<>();
+
+        boolean tooComplicated = false;
+
+        boolean notEpsilonValid = false;
+
+        RingVisibility(Ring ring) {
+            this.ring = ring;
+        }
+    }
+
+    /**
+     * Find the visibility nodes of each ring of the group and the pairs of them which see each other. This does not
+     * modify the graph nor the handler, so it may run for several groups at once.
+     */
+    GroupVisibility computeVisibility(AreaGroup group, boolean platformEntriesLinking) {
+        long start = System.nanoTime();
+        GroupVisibility groupVisibility = new GroupVisibility(group);
+        Set<OSMNode> startingNodes = groupVisibility.startingNodes;
 
         // create polygon and accumulate nodes for area
         for (Ring ring : group.outermostRings) {
+            RingVisibility ringVisibility = new RingVisibility(ring);
+            groupVisibility.rings.add(ringVisibility);
 
-            AreaEdgeList edgeList = new AreaEdgeList();
             // the points corresponding to concave or hole vertices
             // or those linked to ways
             ArrayList<VLPoint> visibilityPoints = new ArrayList<VLPoint>();
-            ArrayList<OSMNode> visibilityNodes = new ArrayList<OSMNode>();
-            HashSet<P2<OSMNode>> alreadyAddedEdges = new HashSet<P2<OSMNode>>();
+            List<OSMNode> visibilityNodes = ringVisibility.visibilityNodes;
             // we need to accumulate visibility points from all contained areas
             // inside this ring, but only for shared nodes; we don't care about
             // convexity, which we'll handle for the grouped area only.
-
-            // we also want to fill in the edges of this area anyway, because we can,
-            // and to avoid the numerical problems that they tend to cause
             for (Area area : group.areas) {
 
                 // public transform platforms will be handled separately if platformEntriesLinking
@@ -181,6 +263,7 @@ public class WalkableAreaBuilder {
                 if (!ring.toJtsPolygon().contains(area.toJTSMultiPolygon())) {
                     continue;
                 }
+                ringVisibility.areas.add(area);
 
                 // Add stops from public transit relations into the area
                 Collection<OSMNode> nodes = osmdb.getStopsInArea(area.parent);
@@ -192,18 +275,12 @@ public class WalkableAreaBuilder {
                 }
 
                 for (Ring outerRing : area.outermostRings) {
-                    for (int i = 0; i < outerRing.nodes.size(); ++i) {
-                        OSMNode node = outerRing.nodes.get(i);
-                        createEdgesForRingSegment(edges, edgeList, area, outerRing, i,
-                                alreadyAddedEdges);
+                    for (OSMNode node : outerRing.nodes) {
                         addtoVisibilityAndStartSets(startingNodes, visibilityPoints,
                                 visibilityNodes, node);
                     }
                     for (Ring innerRing : outerRing.holes) {
-                        for (int j = 0; j < innerRing.nodes.size(); ++j) {
-                            OSMNode node = innerRing.nodes.get(j);
-                            createEdgesForRingSegment(edges, edgeList, area, innerRing, j,
-                                    alreadyAddedEdges);
+                        for (OSMNode node : innerRing.nodes) {
                             addtoVisibilityAndStartSets(startingNodes, visibilityPoints,
                                     visibilityNodes, node);
                         }
@@ -235,56 +312,153 @@ public class WalkableAreaBuilder {
             // FIXME: temporary hard limit on size of
             // areas to prevent way explosion
             if (visibilityPoints.size() > MAX_AREA_NODES) {
-                graph.addBuilderAnnotation(new AreaTooComplicated(group.getSomeOSMObject().getId(), visibilityPoints.size()));
+                ringVisibility.tooComplicated = true;
                 continue;
             }
 
             if (!areaEnv.is_valid(VISIBILITY_EPSILON)) {
-                graph.addBuilderAnnotation(new AreaNotEpsilonValid(group.getSomeOSMObject().getId()));
+                ringVisibility.notEpsilonValid = true;
                 continue;
             }
 
-            edgeList.setOriginalEdges(ring.toJtsPolygon());
+            findVisiblePairs(visibilityPoints, areaEnv, ringVisibility);
+        }
+        groupVisibility.nanos = System.nanoTime() - start;
+        return groupVisibility;
+    }
 
-            createNamedAreas(edgeList, ring, group.areas);
+    /**
+     * Find the pairs of visibility points which see each other. The candidates of each point are the points within
+     * the envelope of its visibility polygon, and within the maximum visibility distance, found with a spatial
+     * index. They are then tested against the prepared visibility polygon. A pair is visible as soon as one of its
+     * points sees the other one, and is only tested again from the other point when it was not.
+     */
+    private void findVisiblePairs(List<VLPoint> visibilityPoints, Environment areaEnv,
+            RingVisibility ringVisibility) {
+        int n = visibilityPoints.size();
+        GeometryFactory geometryFactory = GeometryUtils.getGeometryFactory();
+        Coordinate[] coordinates = new Coordinate[n];
+        STRtree pointIndex = new STRtree();
+        for (int i = 0; i < n; ++i) {
+            coordinates[i] = new Coordinate(visibilityPoints.get(i).x, visibilityPoints.get(i).y);
+            pointIndex.insert(new Envelope(coordinates[i]), i);
+        }
+        boolean[][] visible = new boolean[n][n];
+        for (int i = 0; i < n; ++i) {
+            VisibilityPolygon visibilityPolygon = new VisibilityPolygon(
+                    visibilityPoints.get(i), areaEnv, VISIBILITY_EPSILON);
+            Polygon poly = toJTSPolygon(visibilityPolygon);
+            if (poly == null) {
+                continue;
+            }
+            PreparedGeometry preparedPoly = PreparedGeometryFactory.prepare(poly);
+            Envelope searchEnvelope = poly.getEnvelopeInternal();
+            if (maxVisibilityDistance < Double.POSITIVE_INFINITY) {
+                Envelope distanceEnvelope = new Envelope(coordinates[i]);
+                distanceEnvelope.expandBy(
+                        SphericalDistanceLibrary.metersToLonDegrees(maxVisibilityDistance, coordinates[i].y),
+                        SphericalDistanceLibrary.metersToDegrees(maxVisibilityDistance));
+                searchEnvelope = searchEnvelope.intersection(distanceEnvelope);
+            }
+            List<Integer> candidates = pointIndex.query(searchEnvelope);
+            // Keep the pairs in the same order whatever the order of the index.
+            Collections.sort(candidates);
+            for (int j : candidates) {
+                if (i == j || visible[j][i]) {
+                    continue;
+                }
+                if (maxVisibilityDistance < Double.POSITIVE_INFINITY && SphericalDistanceLibrary
+                        .fastDistance(coordinates[i], coordinates[j]) > maxVisibilityDistance) {
+                    continue;
+                }
+                LineString line = geometryFactory.createLineString(
+                        new Coordinate[] { coordinates[i], coordinates[j] });
+                if (preparedPoly.contains(line)) {
+                    visible[i][j] = true;
+                    ringVisibility.visiblePairs.add(new P2<OSMNode>(
+                            ringVisibility.visibilityNodes.get(i), ringVisibility.visibilityNodes.get(j)));
+                }
+            }
+        }
+    }
 
-            OSMWithTags areaEntity = group.getSomeOSMObject();
-
-            for (int i = 0; i < visibilityNodes.size(); ++i) {
-                OSMNode nodeI = visibilityNodes.get(i);
-                VisibilityPolygon visibilityPolygon = new VisibilityPolygon(
-                        visibilityPoints.get(i), areaEnv, VISIBILITY_EPSILON);
-                Polygon poly = toJTSPolygon(visibilityPolygon);
-                for (int j = 0; j < visibilityNodes.size(); ++j) {
-                    OSMNode nodeJ = visibilityNodes.get(j);
-                    P2<OSMNode> nodePair = new P2<OSMNode>(nodeI, nodeJ);
-                    if (alreadyAddedEdges.contains(nodePair))
-                        continue;
+    /** Create the edges of an area group, whose visibility was computed beforehand. */
+    private void buildWithVisibility(GroupVisibility groupVisibility) {
+        long start = System.nanoTime();
+        AreaGroup group = groupVisibility.group;
+        Set<Vertex> startingVertices = new HashSet<Vertex>();
+        Set<Edge> edges = new HashSet<Edge>();
+        int visibilityNodes = 0;
+        OSMWithTags areaEntity = group.getSomeOSMObject();
 
-                    IntersectionVertex startEndpoint = __handler.getVertexForOsmNode(nodeI,
-                            areaEntity);
-                    IntersectionVertex endEndpoint = __handler.getVertexForOsmNode(nodeJ,
-                            areaEntity);
-
-                    Coordinate[] coordinates = new Coordinate[] { startEndpoint.getCoordinate(),
-                            endEndpoint.getCoordinate() };
-                    GeometryFactory geometryFactory = GeometryUtils.getGeometryFactory();
-                    LineString line = geometryFactory.createLineString(coordinates);
-                    if (poly != null && poly.contains(line)) {
-
-                        createSegments(nodeI, nodeJ, startEndpoint, endEndpoint, group.areas,
-                                edgeList, edges);
-                        if (startingNodes.contains(nodeI)) {
-                            startingVertices.add(startEndpoint);
-                        }
-                        if (startingNodes.contains(nodeJ)) {
-                            startingVertices.add(endEndpoint);
+        for (RingVisibility ringVisibility : groupVisibility.rings) {
+            Ring ring = ringVisibility.ring;
+            visibilityNodes += ringVisibility.visibilityNodes.size();
+
+            AreaEdgeList edgeList = new AreaEdgeList();
+            HashSet<P2<OSMNode>> alreadyAddedEdges = new HashSet<P2<OSMNode>>();
+
+            // we also want to fill in the edges of this area anyway, because we can,
+            // and to avoid the numerical problems that they tend to cause
+            for (Area area : ringVisibility.areas) {
+                for (Ring outerRing : area.outermostRings) {
+                    for (int i = 0; i < outerRing.nodes.size(); ++i) {
+                        createEdgesForRingSegment(edges, edgeList, area, outerRing, i,
+                                alreadyAddedEdges);
+                    }
+                    for (Ring innerRing : outerRing.holes) {
+                        for (int j = 0; j < innerRing.nodes.size(); ++j) {
+                            createEdgesForRingSegment(edges, edgeList, area, innerRing, j,
+                                    alreadyAddedEdges);
                         }
                     }
                 }
             }
+
+            if (ringVisibility.tooComplicated) {
+                graph.addBuilderAnnotation(new AreaTooComplicated(areaEntity.getId(),
+                        ringVisibility.visibilityNodes.size()));
+                continue;
+            }
+
+            if (ringVisibility.notEpsilonValid) {
+                graph.addBuilderAnnotation(new AreaNotEpsilonValid(areaEntity.getId()));
+                continue;
+            }
+
+            edgeList.setOriginalEdges(ring.toJtsPolygon());
+
+            createNamedAreas(edgeList, ring, group.areas);
+
+            for (P2<OSMNode> nodePair : ringVisibility.visiblePairs) {
+                OSMNode nodeI = nodePair.first;
+                OSMNode nodeJ = nodePair.second;
+                IntersectionVertex startEndpoint = __handler.getVertexForOsmNode(nodeI,
+                        areaEntity);
+                IntersectionVertex endEndpoint = __handler.getVertexForOsmNode(nodeJ,
+                        areaEntity);
+
+                // Segments of the rings already have their edges, in both directions.
+                if (!alreadyAddedEdges.contains(nodePair)
+                        && !alreadyAddedEdges.contains(new P2<OSMNode>(nodeJ, nodeI))) {
+                    createSegments(nodeI, nodeJ, startEndpoint, endEndpoint, group.areas,
+                            edgeList, edges);
+                }
+                if (groupVisibility.startingNodes.contains(nodeI)) {
+                    startingVertices.add(startEndpoint);
+                }
+                if (groupVisibility.startingNodes.contains(nodeJ)) {
+                    startingVertices.add(endEndpoint);
+                }
+            }
+        }
+        int createdEdges = edges.size();
+        int keptEdges = pruneAreaEdges(startingVertices, edges);
+        long millis = TimeUnit.NANOSECONDS.toMillis(groupVisibility.nanos + System.nanoTime() - start);
+        if (millis >= SLOW_AREA_MILLIS) {
+            graph.addBuilderAnnotation(new AreaVisibilitySlow(areaEntity.getId(), visibilityNodes, millis,
+                    createdEdges, keptEdges));
         }
-        pruneAreaEdges(startingVertices, edges);
     }
 
     class ListedEdgesOnly implements SkipEdgeStrategy {
@@ -307,10 +481,11 @@ public class WalkableAreaBuilder {
      * 
      * @param startingVertices
      * @param edges
+     * @return the number of edges which were kept
      */
-    private void pruneAreaEdges(Collection<Vertex> startingVertices, Set<Edge> edges) {
+    private int pruneAreaEdges(Collection<Vertex> startingVertices, Set<Edge> edges) {
         if (edges.size() == 0)
-            return;
+            return 0;
         TraverseMode mode;
         StreetEdge firstEdge = (StreetEdge) edges.iterator().next();
 
@@ -344,10 +519,11 @@ public class WalkableAreaBuilder {
                 graph.removeEdge(edge);
             }
         }
+        return usedEdges.size();
     }
 
     private void addtoVisibilityAndStartSets(Set<OSMNode> startingNodes,
-            ArrayList<VLPoint> visibilityPoints, ArrayList<OSMNode> visibilityNodes, OSMNode node) {
+            ArrayList<VLPoint> visibilityPoints, List<OSMNode> visibilityNodes, OSMNode node) {
         if (osmdb.isNodeBelongsToWay(node.getId())
                 || osmdb.isNodeSharedByMultipleAreas(node.getId()) || node.isStop()) {
             startingNodes.add(node);
@@ -0,0 +1,118 @@
+package org.opentripplanner.index;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLObjectType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size thread pool for GraphQL work, which counts the tasks it rejects and reports its queue
+ * depth and active threads (see {@link #getStatus()}). Idle threads are stopped after a minute.
+ *
+ * There are two flavours. A {@link #bounded(String, int, int)} pool queues a limited number of tasks
+ * and then throws a {@link java.util.concurrent.RejectedExecutionException}, which is used to turn
+ * away batch queries when the server is overloaded. A {@link #callerRuns(String, int)} pool never
+ * queues nor rejects: when all threads are busy the task runs in the submitting thread. Its tasks may
+ * therefore wait for other tasks of the same pool without any risk of deadlock, which is what nested
+ * GraphQL field fetching needs.
+ */
+public class GraphQLThreadPool extends ThreadPoolExecutor {
+
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private GraphQLThreadPool(String name, int threads, BlockingQueue<Runnable> queue,
+            RejectedExecutionHandler handler) {
+        super(threads, threads, 60, TimeUnit.SECONDS, queue,
+                new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build());
+        allowCoreThreadTimeOut(true);
+        setRejectedExecutionHandler((task, executor) -> {
+            rejected.incrementAndGet();
+            handler.rejectedExecution(task, executor);
+        });
+    }
+
+    /** A pool which queues at most queueSize tasks and rejects the following ones. */
+    public static GraphQLThreadPool bounded(String name, int threads, int queueSize) {
+        return new GraphQLThreadPool(name, threads, new ArrayBlockingQueue<>(queueSize),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /** A pool which runs tasks in the submitting thread when all its threads are busy. */
+    public static GraphQLThreadPool callerRuns(String name, int threads) {
+        return new GraphQLThreadPool(name, threads, new SynchronousQueue<>(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Return a copy of the given query type whose fields are fetched on this pool. The default
+     * asynchronous execution strategy of GraphQL then resolves independent top-level fields of one
+     * document, for instance several trip plans, concurrently rather than one after the other.
+     * Nested fields are still resolved in the thread which fetched their parent.
+     */
+    public GraphQLObjectType fetchFieldsConcurrently(GraphQLObjectType queryType) {
+        GraphQLObjectType.Builder builder = GraphQLObjectType.newObject()
+                .name(queryType.getName())
+                .description(queryType.getDescription());
+        for (GraphQLFieldDefinition field : queryType.getFieldDefinitions()) {
+            DataFetcher<?> fetcher = field.getDataFetcher();
+            builder.field(GraphQLFieldDefinition.newFieldDefinition()
+                    .name(field.getName())
+                    .description(field.getDescription())
+                    .type(field.getType())
+                    .argument(field.getArguments())
+                    .deprecate(field.getDeprecationReason())
+                    .dataFetcher(environment -> fetchAsync(fetcher, environment))
+                    .build());
+        }
+        return builder.build();
+    }
+
+    private CompletableFuture<Object> fetchAsync(DataFetcher<?> fetcher, DataFetchingEnvironment environment) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                result.complete(fetcher.get(environment));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result;
+    }
+
+    /** @return the number of tasks which were rejected, or run by their caller, because the pool was full. */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("threads", getPoolSize());
+        status.put("maxThreads", getMaximumPoolSize());
+        status.put("activeThreads", getActiveCount());
+        status.put("queueDepth", getQueueDepth());
+        status.put("queueCapacity", getQueueDepth() + getQueue().remainingCapacity());
+        status.put("rejected", getRejectedCount());
+        status.put("completed", getCompletedTaskCount());
+        return status;
+    }
+}
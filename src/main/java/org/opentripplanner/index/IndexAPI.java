@@ -39,6 +39,7 @@ import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.GraphIndex;
 import org.opentripplanner.routing.services.StreetVertexIndexService;
 import org.opentripplanner.routing.vertextype.TransitStop;
+import org.opentripplanner.standalone.AdmissionControl;
 import org.opentripplanner.standalone.OTPServer;
 import org.opentripplanner.standalone.Router;
 import org.opentripplanner.util.PolylineEncoder;
@@ -55,6 +56,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -65,6 +67,7 @@ import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +76,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.DoubleStream;
 
 // TODO move to org.opentripplanner.api.resource, this is a Jersey resource class
@@ -87,6 +91,9 @@ public class IndexAPI {
     private static final String MSG_404 = "FOUR ZERO FOUR";
     private static final String MSG_400 = "FOUR HUNDRED";
 
+    /** Top-level GraphQL fields which search for trips, and go through the routing lane of the admission control. */
+    private static final Set<String> ROUTING_FIELDS = Collections.singleton("plan");
+
     /** Choose short or long form of results. */
     @QueryParam("detail") private boolean detail = false;
 
@@ -96,9 +103,11 @@ public class IndexAPI {
     private final GraphIndex index;
     private final StreetVertexIndexService streetIndex;
     private final ObjectMapper deserializer = new ObjectMapper();
+    private final AdmissionControl admissionControl;
 
     public IndexAPI (@Context OTPServer otpServer, @PathParam("routerId") String routerId) {
         router = otpServer.getRouter(routerId);
+        admissionControl = otpServer.admissionControl;
         index = router.graph.index;
         streetIndex = router.graph.streetIndex;
     }
@@ -618,7 +627,8 @@ public class IndexAPI {
         } else {
             variables = new HashMap<>();
         }
-        return index.getGraphQLResponse(query, router, variables, operationName, finalTimeout, maxResolves);
+        return admissionControl.graphQLLane(query, ROUTING_FIELDS).call(() ->
+                index.getGraphQLResponse(query, router, variables, operationName, finalTimeout, maxResolves));
     }
 
     @POST
@@ -626,7 +636,8 @@ public class IndexAPI {
     @Consumes("application/graphql")
     public Response getGraphQL (String query, @HeaderParam("OTPTimeout") @DefaultValue("10000") int timeout, @HeaderParam("OTPMaxResolves") @DefaultValue("1000000") long maxResolves) {
         int finalTimeout = checkTimeout(timeout);
-        return index.getGraphQLResponse(query, router, null, null, finalTimeout, maxResolves);
+        return admissionControl.graphQLLane(query, ROUTING_FIELDS).call(() ->
+                index.getGraphQLResponse(query, router, null, null, finalTimeout, maxResolves));
     }
 
 //    @GET
@@ -660,12 +671,13 @@ public class IndexAPI {
             }
             String operationName = (String) query.getOrDefault("operationName", null);
 
-            futures.add(() -> index.getGraphQLExecutionResult((String) query.get("query"), router,
-                variables, operationName, finalTimeout, maxResolves));
+            AdmissionControl.Lane lane = admissionControl.graphQLLane((String) query.get("query"), ROUTING_FIELDS);
+            futures.add(lane.admit(() -> index.getGraphQLExecutionResult((String) query.get("query"), router,
+                variables, operationName, finalTimeout, maxResolves)));
         }
 
         try {
-            List<Future<Map>> results = index.threadPool.invokeAll(futures);
+            List<Future<Map>> results = index.batchThreadPool.invokeAll(futures);
 
             for (int i = 0; i < queries.size(); i++) {
                 HashMap<String, Object> response = new HashMap<>();
@@ -673,12 +685,34 @@ public class IndexAPI {
                 response.put("payload", results.get(i).get());
                 responses.add(response);
             }
-        } catch (CancellationException | ExecutionException |InterruptedException e) {
+        } catch (RejectedExecutionException e) {
+            LOG.warn("GraphQL batch of {} queries rejected, the executor queue is full", queries.size());
+            return Response.status(Status.SERVICE_UNAVAILABLE).build();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WebApplicationException) {
+                // A query of the batch was shed by the admission control
+                return ((WebApplicationException) e.getCause()).getResponse();
+            }
+            return Response.status(Status.INTERNAL_SERVER_ERROR).build();
+        } catch (CancellationException | InterruptedException e) {
             return Response.status(Status.INTERNAL_SERVER_ERROR).build();
         }
         return Response.status(Status.OK).entity(responses).build();
     }
 
+    /**
+     * Return the state of the GraphQL thread pools: the pool fetching the top-level fields of queries
+     * and the pool running batch queries, with their active threads, queue depth and rejected tasks.
+     */
+    @GET
+    @Path("/graphql/status")
+    public Response getGraphQLStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("fetcher", index.threadPool.getStatus());
+        status.put("batch", index.batchThreadPool.getStatus());
+        return Response.status(Status.OK).entity(status).build();
+    }
+
     /** Represents a transfer from a stop */
     private static class Transfer {
         /** The stop we are connecting to */
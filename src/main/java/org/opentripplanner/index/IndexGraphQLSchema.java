@@ -2752,7 +2752,7 @@ public class IndexGraphQLSchema {
         dictionary.add(placeInterface);
 
         indexSchema = GraphQLSchema.newSchema()
-            .query(queryType)
+            .query(index.threadPool.fetchFieldsConcurrently(queryType))
             .build(dictionary);
     }
 
@@ -1,12 +1,12 @@
 package org.opentripplanner.index.transmodel;
 
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import graphql.ExecutionInput;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
 import graphql.GraphQLError;
 import graphql.analysis.MaxQueryComplexityInstrumentation;
 import graphql.schema.GraphQLSchema;
+import org.opentripplanner.index.GraphQLThreadPool;
 import org.opentripplanner.standalone.Router;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,8 +17,6 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 public class TransmodelGraphIndex {
@@ -27,13 +25,15 @@ public class TransmodelGraphIndex {
 
     public final GraphQLSchema indexSchema;
 
-    public final ExecutorService threadPool;
+    /**
+     * Runs the queries of GraphQL batch requests, rejecting them when its queue is full. Fields are
+     * fetched on the thread pool of the graph index, which is shared with the index API.
+     */
+    public final GraphQLThreadPool threadPool;
 
     public TransmodelGraphIndex(Router router) {
-        threadPool = Executors.newCachedThreadPool(
-                new ThreadFactoryBuilder().setNameFormat("GraphQLExecutor-" + router.id + "-%d")
-                        .build()
-        );
+        threadPool = GraphQLThreadPool.bounded("TransmodelGraphQLExecutor-" + router.id,
+                GraphQLThreadPool.DEFAULT_THREADS, GraphQLThreadPool.DEFAULT_QUEUE_SIZE);
 
         indexSchema = new TransmodelIndexGraphQLSchema(router).indexSchema;
     }
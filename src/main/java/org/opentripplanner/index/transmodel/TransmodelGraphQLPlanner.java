@@ -21,7 +21,7 @@ import org.opentripplanner.routing.core.OptimizeType;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.edgetype.StationStopEdge;
-import org.opentripplanner.routing.graph.GraphIndex;
+import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.impl.GraphPathFinder;
 import org.opentripplanner.routing.request.BannedStopSet;
@@ -44,6 +44,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.opentripplanner.index.transmodel.RemoveAccessEgressFootPathsStationFilter.removeAccessAndEgressFootPathsAtStation;
@@ -52,6 +53,12 @@ public class TransmodelGraphQLPlanner {
 
     private static final Logger LOG = LoggerFactory.getLogger(TransmodelGraphQLPlanner.class);
 
+    /**
+     * Name of this API in the plan cache. Its plans are not shared with the other APIs, as the access and egress
+     * foot paths at stations are removed from them.
+     */
+    private static final String PLAN_CACHE_API = "transmodel";
+
     private TransmodelMappingUtil mappingUtil;
 
     public TransmodelGraphQLPlanner(TransmodelMappingUtil mappingUtil) {
@@ -73,9 +80,12 @@ public class TransmodelGraphQLPlanner {
         DebugOutput debugOutput = new DebugOutput();
 
         try {
-            List<GraphPath> paths = gpFinder.graphPathFinderEntryPoint(request);
-            removeAccessAndEgressFootPathsAtStation(paths, sourceStopId(request.from), sourceStopId(request.to));
-            plan = GraphPathToTripPlanConverter.generatePlan(paths, request);
+            Supplier<TripPlan> planner = () -> {
+                List<GraphPath> paths = gpFinder.graphPathFinderEntryPoint(request);
+                removeAccessAndEgressFootPathsAtStation(paths, sourceStopId(request.from), sourceStopId(request.to));
+                return GraphPathToTripPlanConverter.generatePlan(paths, request);
+            };
+            plan = router.planCache == null ? planner.get() : router.planCache.get(PLAN_CACHE_API, request, planner);
         } catch (Exception e) {
             PlannerError error = new PlannerError(e);
             if (!PlannerError.isPlanningError(e.getClass()))
@@ -309,14 +319,14 @@ public class TransmodelGraphQLPlanner {
         callWith.argument("ignoreInterchanges", (Boolean v) -> request.ignoreInterchanges = v);
 
         if (!request.modes.isTransit() && request.modes.getCar()) {
-            getLocationOfFirstQuay(request.from, router.graph.index);
-            getLocationOfFirstQuay(request.to, router.graph.index);
+            getLocationOfFirstQuay(request.from, router.graph);
+            getLocationOfFirstQuay(request.to, router.graph);
         } else if (request.kissAndRide) {
-            getLocationOfFirstQuay(request.from, router.graph.index);
+            getLocationOfFirstQuay(request.from, router.graph);
         } else if (request.rideAndKiss) {
-            getLocationOfFirstQuay(request.to, router.graph.index);
+            getLocationOfFirstQuay(request.to, router.graph);
         } else if (request.parkAndRide) {
-            getLocationOfFirstQuay(request.from, router.graph.index);
+            getLocationOfFirstQuay(request.from, router.graph);
         }
 
         return request;
@@ -327,9 +337,9 @@ public class TransmodelGraphQLPlanner {
         return new HashMap<>(bannedTrips);
     }
 
-    private void getLocationOfFirstQuay(GenericLocation location, GraphIndex graphIndex) {
+    private void getLocationOfFirstQuay(GenericLocation location, Graph graph) {
         // TODO - This is a hack, the request object is changed!!! What if the original info is needed?
-        Vertex vertex = graphIndex.vertexForId.get(location.vertexId);
+        Vertex vertex = graph.getVertex(location.vertexId);
         if (vertex instanceof TransitStation) {
             TransitStop stopVertex = ((TransitStop)vertex.getOutgoing().stream()
                     .filter(t -> t instanceof StationStopEdge).findFirst().get().getToVertex());
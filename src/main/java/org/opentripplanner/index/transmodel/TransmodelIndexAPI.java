@@ -2,6 +2,7 @@ package org.opentripplanner.index.transmodel;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.opentripplanner.routing.graph.GraphIndex;
+import org.opentripplanner.standalone.AdmissionControl;
 import org.opentripplanner.standalone.OTPServer;
 import org.opentripplanner.standalone.Router;
 import org.slf4j.Logger;
@@ -16,6 +17,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
@@ -23,13 +25,16 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.DoubleStream;
 // TODO move to org.opentripplanner.api.resource, this is a Jersey resource class
 
@@ -39,11 +44,16 @@ public class TransmodelIndexAPI {
     @SuppressWarnings("unused")
     private static final Logger LOG = LoggerFactory.getLogger(TransmodelIndexAPI.class);
 
+    /** Top-level GraphQL fields which search for trips, and go through the routing lane of the admission control. */
+    private static final Set<String> ROUTING_FIELDS = Collections.singleton("trip");
+
     private final TransmodelGraphIndex index;
     private final ObjectMapper deserializer = new ObjectMapper();
+    private final AdmissionControl admissionControl;
 
     public TransmodelIndexAPI(@Context OTPServer otpServer, @PathParam("routerId") String routerId) {
         router = otpServer.getRouter(routerId);
+        admissionControl = otpServer.admissionControl;
         index = TransmodelGraphIndexFactory.getTransmodelGraphIndexForRouter(router);
     }
 
@@ -91,7 +101,8 @@ public class TransmodelIndexAPI {
         }
         TransmodelApiContext context = new TransmodelApiContext(router, clientName);
 
-        return index.getGraphQLResponse(query, context, variables, operationName, finalTimeout, maxResolves);
+        return admissionControl.graphQLLane(query, ROUTING_FIELDS).call(() ->
+                index.getGraphQLResponse(query, context, variables, operationName, finalTimeout, maxResolves));
     }
 
     @POST
@@ -101,7 +112,8 @@ public class TransmodelIndexAPI {
             @HeaderParam("ET-Client-Name") @DefaultValue("") String clientName) {
         int finalTimeout = checkTimeout(timeout);
         TransmodelApiContext context = new TransmodelApiContext(router, clientName);
-        return index.getGraphQLResponse(query, context, null, null, finalTimeout, maxResolves);
+        return admissionControl.graphQLLane(query, ROUTING_FIELDS).call(() ->
+                index.getGraphQLResponse(query, context, null, null, finalTimeout, maxResolves));
     }
 
     @POST
@@ -129,8 +141,9 @@ public class TransmodelIndexAPI {
             String operationName = (String) query.getOrDefault("operationName", null);
             TransmodelApiContext context = new TransmodelApiContext(router, clientName);
 
-            futures.add(() -> index.getGraphQLExecutionResult((String) query.get("query"), context,
-                    variables, operationName, finalTimeout, maxResolves));
+            AdmissionControl.Lane lane = admissionControl.graphQLLane((String) query.get("query"), ROUTING_FIELDS);
+            futures.add(lane.admit(() -> index.getGraphQLExecutionResult((String) query.get("query"), context,
+                    variables, operationName, finalTimeout, maxResolves)));
         }
 
         try {
@@ -142,12 +155,34 @@ public class TransmodelIndexAPI {
                 response.put("payload", results.get(i).get());
                 responses.add(response);
             }
-        } catch (CancellationException | ExecutionException | InterruptedException e) {
+        } catch (RejectedExecutionException e) {
+            LOG.warn("GraphQL batch of {} queries rejected, the executor queue is full", queries.size());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE).build();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WebApplicationException) {
+                // A query of the batch was shed by the admission control
+                return ((WebApplicationException) e.getCause()).getResponse();
+            }
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        } catch (CancellationException | InterruptedException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
         }
         return Response.status(Response.Status.OK).entity(responses).build();
     }
 
+    /**
+     * Return the state of the GraphQL thread pools: the pool fetching the top-level fields of queries
+     * and the pool running batch queries, with their active threads, queue depth and rejected tasks.
+     */
+    @GET
+    @Path("/graphql/status")
+    public Response getGraphQLStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("fetcher", router.graph.index.threadPool.getStatus());
+        status.put("batch", index.threadPool.getStatus());
+        return Response.status(Response.Status.OK).entity(status).build();
+    }
+
     private int checkTimeout(int timeout) {
         if (router.timeouts.length > 0) {
             int newTimeout = (int) Math.floor(DoubleStream.of(router.timeouts).sum() + 5) * 1000;
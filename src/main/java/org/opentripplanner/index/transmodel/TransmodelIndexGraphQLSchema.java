@@ -3582,7 +3582,7 @@ public class TransmodelIndexGraphQLSchema {
         dictionary.add(placeInterface);
 
         indexSchema = GraphQLSchema.newSchema()
-                .query(queryType)
+                .query(index.threadPool.fetchFieldsConcurrently(queryType))
                 .build(dictionary);
     }
 
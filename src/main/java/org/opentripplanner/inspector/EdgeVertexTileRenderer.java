@@ -107,6 +107,10 @@ public class EdgeVertexTileRenderer implements TileRenderer {
         return evRenderer.getName();
     }
 
+    public EdgeVertexRenderer getEdgeVertexRenderer() {
+        return evRenderer;
+    }
+
     @Override
     public void renderTile(TileRenderContext context) {
 
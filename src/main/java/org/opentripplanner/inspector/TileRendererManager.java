@@ -13,20 +13,39 @@
 
 package org.opentripplanner.inspector;
 
+import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
 
 import org.geotools.geometry.Envelope2D;
+import org.opentripplanner.analyst.core.SlippyTile;
 import org.opentripplanner.analyst.request.TileRequest;
+import org.opentripplanner.api.parameter.MIMEImageFormat;
 import org.opentripplanner.api.resource.GraphInspectorTileResource;
+import org.opentripplanner.common.VersionedLruCache;
+import org.opentripplanner.inspector.EdgeVertexTileRenderer.EdgeVertexRenderer;
+import org.opentripplanner.inspector.EdgeVertexTileRenderer.EdgeVisualAttributes;
+import org.opentripplanner.inspector.EdgeVertexTileRenderer.VertexVisualAttributes;
 import org.opentripplanner.inspector.TileRenderer.TileRenderContext;
+import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.services.GraphService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.util.AffineTransformation;
 
 /**
@@ -34,6 +53,11 @@ import org.locationtech.jts.geom.util.AffineTransformation;
  * tile rendering context (bounding box, image graphic context, affine transform, etc...) and call
  * the renderer to paint the tile.
  * 
+ * Encoded tiles are kept in a cache until the street graph changes. Besides the raster
+ * layers, a single Mapbox Vector Tile per z/x/y can be requested: it contains all edges and vertices
+ * of the tile, with the color and label of every edge/vertex layer as properties, so that the client
+ * can style any layer from the same tile.
+ * 
  * @see GraphInspectorTileResource
  * @see TileRenderer
  * 
@@ -44,12 +68,28 @@ public class TileRendererManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(TileRendererManager.class);
 
+    /** Number of encoded tiles kept in memory when not configured otherwise. */
+    public static final int DEFAULT_TILE_CACHE_SIZE = 2000;
+
+    /** Name of the vector tile layers containing the edges and the vertices. */
+    public static final String EDGES_LAYER = "edges", VERTICES_LAYER = "vertices";
+
+    /** Margin around vector tiles, in tile units, so that lines do not end abruptly at tile borders. */
+    private static final int VECTOR_TILE_BUFFER = 64;
+
     private Map<String, TileRenderer> renderers = new HashMap<String, TileRenderer>();
 
     private Graph graph;
 
+    private final VersionedLruCache<String, byte[]> tileCache;
+
     public TileRendererManager(Graph graph) {
+        this(graph, DEFAULT_TILE_CACHE_SIZE);
+    }
+
+    public TileRendererManager(Graph graph, int tileCacheSize) {
         this.graph = graph;
+        this.tileCache = new VersionedLruCache<>(tileCacheSize, graph::getStreetGraphVersion);
 
         // Register layers.
         renderers.put("bike-safety", new EdgeVertexTileRenderer(new BikeSafetyEdgeRenderer()));
@@ -60,6 +100,38 @@ public class TileRendererManager {
 
     public void registerRenderer(String layer, TileRenderer tileRenderer) {
         renderers.put(layer, tileRenderer);
+        tileCache.clear();
+    }
+
+    /** Return the given raster tile encoded in the given format, from the cache if possible. */
+    public byte[] getTile(int x, int y, int z, String layer, MIMEImageFormat format) {
+        if (!renderers.containsKey(layer))
+            throw new IllegalArgumentException("Unknown layer: " + layer);
+        String key = tileKey(layer, z, x, y, format.type);
+        return tileCache.get(key, () -> {
+            Envelope2D env = SlippyTile.tile2Envelope(x, y, z);
+            BufferedImage image = renderTile(new TileRequest(env, 256, 256), layer);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
+            try {
+                ImageIO.write(image, format.type, baos);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return baos.toByteArray();
+        });
+    }
+
+    /** Return the given tile as a Mapbox Vector Tile containing all edge/vertex layers, from the cache if possible. */
+    public byte[] getVectorTile(int x, int y, int z) {
+        return tileCache.get(tileKey("all", z, x, y, "pbf"), () -> renderVectorTile(x, y, z));
+    }
+
+    public VersionedLruCache<String, byte[]> getTileCache() {
+        return tileCache;
+    }
+
+    private static String tileKey(String layer, int z, int x, int y, String format) {
+        return layer + "/" + z + "/" + x + "/" + y + "." + format;
     }
 
     public BufferedImage renderTile(final TileRequest tileRequest, String layer) {
@@ -81,7 +153,6 @@ public class TileRendererManager {
         if (renderer == null)
             throw new IllegalArgumentException("Unknown layer: " + layer);
 
-        // The best place for caching tiles may be here
         BufferedImage image = new BufferedImage(tileRequest.width, tileRequest.height,
                 renderer.getColorModel());
         context.graphics = image.createGraphics();
@@ -114,4 +185,99 @@ public class TileRendererManager {
     public Map<String, TileRenderer> getRenderers() {
         return renderers;
     }
-}
\ No newline at end of file
+
+    private byte[] renderVectorTile(int x, int y, int z) {
+        long start = System.currentTimeMillis();
+        VectorTileEncoder encoder = new VectorTileEncoder();
+        int extent = encoder.getExtent();
+        double scale = extent * Math.pow(2.0, z);
+
+        Envelope2D env = SlippyTile.tile2Envelope(x, y, z);
+        Envelope bbox = new Envelope(env.x, env.x + env.width, env.y, env.y + env.height);
+        bbox.expandBy(env.width * VECTOR_TILE_BUFFER / extent, env.height * VECTOR_TILE_BUFFER / extent);
+
+        Collection<Vertex> vertices = graph.streetIndex.getVerticesForEnvelope(bbox);
+        Set<Edge> edges = new HashSet<>(graph.streetIndex.getEdgesForEnvelope(bbox));
+        // Edges without geometry are not spatially indexed, see EdgeVertexTileRenderer
+        for (Vertex vertex : vertices) {
+            edges.addAll(vertex.getIncoming());
+            edges.addAll(vertex.getOutgoing());
+        }
+
+        Map<String, EdgeVertexTileRenderer> layers = new LinkedHashMap<>();
+        for (Map.Entry<String, TileRenderer> entry : renderers.entrySet()) {
+            if (entry.getValue() instanceof EdgeVertexTileRenderer) {
+                layers.put(entry.getKey(), (EdgeVertexTileRenderer) entry.getValue());
+            }
+        }
+
+        for (Edge edge : edges) {
+            Map<String, String> properties = new LinkedHashMap<>();
+            properties.put("class", edge.getClass().getSimpleName());
+            for (Map.Entry<String, EdgeVertexTileRenderer> layer : layers.entrySet()) {
+                EdgeVisualAttributes attrs = layer.getValue().new EdgeVisualAttributes();
+                if (layer.getValue().getEdgeVertexRenderer().renderEdge(edge, attrs)) {
+                    addStyleProperties(properties, layer.getKey(), attrs.color, attrs.label);
+                }
+            }
+            Coordinate[] coordinates;
+            Geometry geometry = edge.getGeometry();
+            if (geometry != null) {
+                coordinates = geometry.getCoordinates();
+            } else {
+                coordinates = new Coordinate[] { edge.getFromVertex().getCoordinate(),
+                        edge.getToVertex().getCoordinate() };
+                properties.put("hasGeometry", "false");
+            }
+            int[] xy = new int[coordinates.length * 2];
+            for (int i = 0; i < coordinates.length; i++) {
+                xy[2 * i] = tileX(coordinates[i].x, scale, (long) x * extent);
+                xy[2 * i + 1] = tileY(coordinates[i].y, scale, (long) y * extent);
+            }
+            encoder.addLineString(EDGES_LAYER, xy, properties);
+        }
+
+        for (Vertex vertex : vertices) {
+            Map<String, String> properties = new LinkedHashMap<>();
+            properties.put("label", vertex.getLabel());
+            for (Map.Entry<String, EdgeVertexTileRenderer> layer : layers.entrySet()) {
+                VertexVisualAttributes attrs = layer.getValue().new VertexVisualAttributes();
+                if (layer.getValue().getEdgeVertexRenderer().renderVertex(vertex, attrs)) {
+                    addStyleProperties(properties, layer.getKey(), attrs.color, attrs.label);
+                }
+            }
+            encoder.addPoint(VERTICES_LAYER, tileX(vertex.getLon(), scale, (long) x * extent),
+                    tileY(vertex.getLat(), scale, (long) y * extent), properties);
+        }
+
+        byte[] tile = encoder.encode();
+        LOG.debug("Rendered vector tile {}/{}/{} with {} edges in {} ms", z, x, y, edges.size(),
+                System.currentTimeMillis() - start);
+        return tile;
+    }
+
+    /** Store the color of a layer as a CSS hex string, and its label if any. */
+    private static void addStyleProperties(Map<String, String> properties, String layer, Color color, String label) {
+        if (color != null) {
+            properties.put(layer, color.getAlpha() == 255
+                    ? String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue())
+                    : String.format("#%02x%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue(),
+                            color.getAlpha()));
+        }
+        if (label != null) {
+            properties.put(layer + ":label", label);
+        }
+    }
+
+    /** Web Mercator projection of a longitude into tile units, relative to the tile origin. */
+    private static int tileX(double lon, double scale, long origin) {
+        return (int) (Math.round((lon + 180.0) / 360.0 * scale) - origin);
+    }
+
+    /** Web Mercator projection of a latitude into tile units, relative to the tile origin. */
+    private static int tileY(double lat, double scale, long origin) {
+        double latRad = Math.toRadians(lat);
+        double y = (1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0;
+        return (int) (Math.round(y * scale) - origin);
+    }
+}
@@ -0,0 +1,228 @@
+/* This program is free software: you can redistribute it and/or
+ modify it under the terms of the GNU Lesser General Public License
+ as published by the Free Software Foundation, either version 3 of
+ the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>. */
+
+package org.opentripplanner.inspector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.protobuf.CodedOutputStream;
+
+/**
+ * Minimal writer for Mapbox Vector Tiles (version 2 of the specification), supporting point and
+ * line string features with string properties, which is all the graph inspector needs.
+ *
+ * Coordinates are given in tile space, (0, 0) being the top left corner and (extent, extent) the
+ * bottom right one. Coordinates outside of this range are allowed and are clipped by the client.
+ *
+ * See https://github.com/mapbox/vector-tile-spec/tree/master/2.1 for the protobuf layout.
+ */
+public class VectorTileEncoder {
+
+    public static final int DEFAULT_EXTENT = 4096;
+
+    private static final int TILE_LAYERS = 3;
+
+    private static final int LAYER_NAME = 1, LAYER_FEATURES = 2, LAYER_KEYS = 3, LAYER_VALUES = 4,
+            LAYER_EXTENT = 5, LAYER_VERSION = 15;
+
+    private static final int FEATURE_TAGS = 2, FEATURE_TYPE = 3, FEATURE_GEOMETRY = 4;
+
+    private static final int VALUE_STRING = 1;
+
+    private static final int GEOM_POINT = 1, GEOM_LINESTRING = 2;
+
+    private static final int CMD_MOVE_TO = 1, CMD_LINE_TO = 2;
+
+    private final int extent;
+
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+
+    public VectorTileEncoder() {
+        this(DEFAULT_EXTENT);
+    }
+
+    public VectorTileEncoder(int extent) {
+        this.extent = extent;
+    }
+
+    public int getExtent() {
+        return extent;
+    }
+
+    public void addPoint(String layerName, int x, int y, Map<String, String> properties) {
+        int[] geometry = new int[] { command(CMD_MOVE_TO, 1), zigZag(x), zigZag(y) };
+        layer(layerName).addFeature(GEOM_POINT, geometry, properties);
+    }
+
+    /**
+     * Add a line string given as consecutive x, y pairs. Repeated points are dropped, and the line is
+     * skipped if less than two distinct points remain.
+     *
+     * @return true if the line was added.
+     */
+    public boolean addLineString(String layerName, int[] xy, Map<String, String> properties) {
+        int nPoints = xy.length / 2;
+        if (nPoints < 2) {
+            return false;
+        }
+        // Worst case: move-to command and point, line-to command and all the remaining points.
+        int[] geometry = new int[3 + 1 + 2 * (nPoints - 1)];
+        geometry[0] = command(CMD_MOVE_TO, 1);
+        geometry[1] = zigZag(xy[0]);
+        geometry[2] = zigZag(xy[1]);
+        int n = 4;
+        int lastX = xy[0], lastY = xy[1];
+        int lineTos = 0;
+        for (int i = 1; i < nPoints; i++) {
+            int dx = xy[2 * i] - lastX;
+            int dy = xy[2 * i + 1] - lastY;
+            if (dx == 0 && dy == 0) {
+                continue;
+            }
+            geometry[n++] = zigZag(dx);
+            geometry[n++] = zigZag(dy);
+            lastX += dx;
+            lastY += dy;
+            lineTos++;
+        }
+        if (lineTos == 0) {
+            return false;
+        }
+        geometry[3] = command(CMD_LINE_TO, lineTos);
+        int[] trimmed = new int[n];
+        System.arraycopy(geometry, 0, trimmed, 0, n);
+        layer(layerName).addFeature(GEOM_LINESTRING, trimmed, properties);
+        return true;
+    }
+
+    /** @return the encoded tile, an empty array if no feature was added. */
+    public byte[] encode() {
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            CodedOutputStream out = CodedOutputStream.newInstance(baos);
+            for (Map.Entry<String, Layer> entry : layers.entrySet()) {
+                out.writeByteArray(TILE_LAYERS, entry.getValue().encode(entry.getKey()));
+            }
+            out.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            // Only writing to memory, this should not happen.
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Layer layer(String name) {
+        Layer layer = layers.get(name);
+        if (layer == null) {
+            layer = new Layer();
+            layers.put(name, layer);
+        }
+        return layer;
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private class Layer {
+
+        private final List<String> keys = new ArrayList<>();
+
+        private final Map<String, Integer> keyIndex = new HashMap<>();
+
+        private final List<String> values = new ArrayList<>();
+
+        private final Map<String, Integer> valueIndex = new HashMap<>();
+
+        private final List<byte[]> features = new ArrayList<>();
+
+        void addFeature(int type, int[] geometry, Map<String, String> properties) {
+            int[] tags = new int[properties.size() * 2];
+            int i = 0;
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                tags[i++] = index(property.getKey(), keys, keyIndex);
+                tags[i++] = index(property.getValue(), values, valueIndex);
+            }
+            features.add(encodeFeature(type, tags, geometry));
+        }
+
+        byte[] encode(String name) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            CodedOutputStream out = CodedOutputStream.newInstance(baos);
+            out.writeUInt32(LAYER_VERSION, 2);
+            out.writeString(LAYER_NAME, name);
+            for (byte[] feature : features) {
+                out.writeByteArray(LAYER_FEATURES, feature);
+            }
+            for (String key : keys) {
+                out.writeString(LAYER_KEYS, key);
+            }
+            for (String value : values) {
+                ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+                CodedOutputStream valueOut = CodedOutputStream.newInstance(valueBytes);
+                valueOut.writeString(VALUE_STRING, value);
+                valueOut.flush();
+                out.writeByteArray(LAYER_VALUES, valueBytes.toByteArray());
+            }
+            out.writeUInt32(LAYER_EXTENT, extent);
+            out.flush();
+            return baos.toByteArray();
+        }
+
+        private byte[] encodeFeature(int type, int[] tags, int[] geometry) {
+            try {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                CodedOutputStream out = CodedOutputStream.newInstance(baos);
+                if (tags.length > 0) {
+                    out.writeByteArray(FEATURE_TAGS, packed(tags));
+                }
+                out.writeEnum(FEATURE_TYPE, type);
+                out.writeByteArray(FEATURE_GEOMETRY, packed(geometry));
+                out.flush();
+                return baos.toByteArray();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private byte[] packed(int[] values) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(values.length * 2);
+            CodedOutputStream out = CodedOutputStream.newInstance(baos);
+            for (int value : values) {
+                out.writeUInt32NoTag(value);
+            }
+            out.flush();
+            return baos.toByteArray();
+        }
+
+        private int index(String s, List<String> list, Map<String, Integer> index) {
+            Integer i = index.get(s);
+            if (i == null) {
+                i = list.size();
+                list.add(s);
+                index.put(s, i);
+            }
+            return i;
+        }
+    }
+}
@@ -293,6 +293,24 @@ public class AlertPatch implements Serializable {
         timePeriods = periods;
     }
 
+    /**
+     * @return the end of the last time period of this patch in seconds since the epoch, or
+     * Long.MAX_VALUE if one of its periods has no end.
+     */
+    public long getEndTime() {
+        if (timePeriods == null || timePeriods.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        long endTime = 0;
+        for (TimePeriod timePeriod : timePeriods) {
+            if (timePeriod.endTime <= 0) {
+                return Long.MAX_VALUE;
+            }
+            endTime = Math.max(endTime, timePeriod.endTime);
+        }
+        return endTime;
+    }
+
     public String getAgency() {
         return agency;
     }
@@ -26,8 +26,7 @@ import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.spt.GraphPath;
 import org.opentripplanner.routing.spt.ShortestPathTree;
 import org.opentripplanner.util.DateUtils;
-import org.opentripplanner.util.monitoring.MonitoringStore;
-import org.opentripplanner.util.monitoring.MonitoringStoreFactory;
+import org.opentripplanner.util.monitoring.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,8 +45,6 @@ import java.util.List;
 public class AStar {
 
     private static final Logger LOG = LoggerFactory.getLogger(AStar.class);
-    // FIXME this is not really a factory, it's a way to fake a global variable. This should be stored at the OTPServer level.
-    private static final MonitoringStore store = MonitoringStoreFactory.getStore();
     private static final double OVERSEARCH_MULTIPLIER = 4.0;
 
     private boolean verbose = false;
@@ -121,9 +118,12 @@ public class AStar {
         // Since initial states can be multiple, heuristic cannot depend on the initial state.
         // Initializing the bidirectional heuristic is a pretty complicated operation that involves searching through
         // the streets around the origin and destination.
+        long heuristicStart = System.nanoTime();
         runState.heuristic.initialize(runState.options, abortTime);
+        Metrics.ASTAR_HEURISTIC_INIT_SECONDS.observeNanos(System.nanoTime() - heuristicStart);
         if (abortTime < Long.MAX_VALUE  && System.currentTimeMillis() > abortTime) {
             LOG.warn("Timeout during initialization of goal direction heuristic.");
+            Metrics.ASTAR_TIMEOUTS.increment();
             options.rctx.debugOutput.timedOut = true;
             runState = null; // Search timed out
             return;
@@ -178,7 +178,7 @@ public class AStar {
 
         runState.nVisited += 1;
         
-        Collection<Edge> edges = runState.options.arriveBy ? runState.u_vertex.getIncoming() : runState.u_vertex.getOutgoing();
+        Collection<Edge> edges = runState.options.arriveBy ? runState.rctx.getIncoming(runState.u_vertex) : runState.rctx.getOutgoing(runState.u_vertex);
         for (Edge edge : edges) {
 
             if (runState.options.edgeIsBanned(edge)) {
@@ -254,7 +254,7 @@ public class AStar {
                 // allows returning a partial list results even when a timeout occurs.
                 runState.options.rctx.aborted = true; // signal search cancellation up to higher stack frames
                 runState.options.rctx.debugOutput.timedOut = true; // signal timeout in debug output object
-
+                Metrics.ASTAR_TIMEOUTS.increment();
                 break;
             }
             
@@ -304,6 +304,7 @@ public class AStar {
             }
 
         }
+        Metrics.ASTAR_VISITED_VERTICES.observe(runState.nVisited);
     }
 
     /** @return the shortest path, or null if none is found */
@@ -318,8 +319,6 @@ public class AStar {
             runSearch(abortTime);
             spt = runState.spt;
         }
-        
-        storeMemory();
         return spt;
     }
     
@@ -347,15 +346,6 @@ public class AStar {
         return spt;
     }
 
-    private void storeMemory() {
-        if (store.isMonitoring("memoryUsed")) {
-            System.gc();
-            long memoryUsed = Runtime.getRuntime().totalMemory() -
-                    Runtime.getRuntime().freeMemory();
-            store.setLongMax("memoryUsed", memoryUsed);
-        }
-    }
-
     private boolean isWorstTimeExceeded(State v, RoutingRequest opt) {
         if (opt.arriveBy)
             return v.getTimeSeconds() < opt.worstTime;
@@ -26,6 +26,8 @@ import org.opentripplanner.common.pqueue.BinHeap;
 import org.opentripplanner.routing.spt.DominanceFunction;
 import org.opentripplanner.routing.spt.ShortestPathTree;
 
+import java.util.Collection;
+
 /**
  * Find the shortest path between graph vertices using Dijkstra's algorithm.
  *
@@ -100,7 +102,13 @@ public class GenericDijkstra {
                 break;
             }
 
-            for (Edge edge : options.arriveBy ? u_vertex.getIncoming() : u_vertex.getOutgoing()) {
+            Collection<Edge> edges;
+            if (options.rctx == null) {
+                edges = options.arriveBy ? u_vertex.getIncoming() : u_vertex.getOutgoing();
+            } else {
+                edges = options.arriveBy ? options.rctx.getIncoming(u_vertex) : options.rctx.getOutgoing(u_vertex);
+            }
+            for (Edge edge : edges) {
                 if (skipEdgeStrategy != null &&
                     skipEdgeStrategy.shouldSkipEdge(initialState.getVertex(), null, u, edge, spt, options)) {
                     continue;
@@ -223,7 +223,7 @@ public class InterleavedBidirectionalHeuristic implements RemainingWeightHeurist
             }
             // This search is proceeding backward relative to the main search.
             // When the main search is arriveBy the heuristic search looks at OUTgoing edges.
-            for (Edge e : routingRequest.arriveBy ? u.getOutgoing() : u.getIncoming()) {
+            for (Edge e : routingRequest.arriveBy ? routingRequest.rctx.getOutgoing(u) : routingRequest.rctx.getIncoming(u)) {
                 // Do not enter streets in this phase, which should only touch transit.
                 if (e instanceof StreetTransitLink) {
                     continue;
@@ -337,7 +337,7 @@ public class InterleavedBidirectionalHeuristic implements RemainingWeightHeurist
             if (!vertices.containsKey(v) && !(v instanceof TransitStop)) {
                 vertices.put(v, (int) s.getWeight()); // FIXME time or weight? is RR using right mode?
             }
-            for (Edge e : rr.arriveBy ? v.getIncoming() : v.getOutgoing()) {
+            for (Edge e : rr.arriveBy ? rr.rctx.getIncoming(v) : rr.rctx.getOutgoing(v)) {
                 if (v instanceof TransitStop && !(e instanceof StreetTransitLink)) {
                     continue;
                 }
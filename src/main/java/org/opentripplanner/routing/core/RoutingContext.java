@@ -114,10 +114,19 @@ public class RoutingContext implements Cloneable {
     /** Indicates that a maximum slope constraint was specified but was removed during routing to produce a result. */
     public boolean slopeRestrictionRemoved = false;
 
+    /** Temporary edges added by graph modifiers, use {@link #addTemporaryEdge(TemporaryEdge)} to add edges. */
     public Collection<TemporaryEdge> temporaryEdges = new ArrayList<>();
 
     public Collection<Vertex> temporaryVertices = new ArrayList<>();
 
+    /**
+     * The temporary edges of this request which start or end at a vertex of the main graph. Temporary edges are
+     * not added to the edge lists of permanent vertices (see {@link Edge}), so that routing never modifies the
+     * graph shared by all requests: the searches find them here instead, through {@link #getOutgoing(Vertex)}
+     * and {@link #getIncoming(Vertex)}.
+     */
+    private OverlayGraph temporaryEdgeOverlay = new OverlayGraph();
+
     /* CONSTRUCTORS */
 
     /**
@@ -278,6 +287,9 @@ public class RoutingContext implements Cloneable {
             }
         }
 
+        addTemporarySubgraph(fromVertex);
+        addTemporarySubgraph(toVertex);
+
         if (opt.startingTransitStopId != null) {
             Stop stop = graph.index.stopForId.get(opt.startingTransitStopId);
             TransitStop tstop = graph.index.stopVertexForStop.get(stop);
@@ -306,6 +318,104 @@ public class RoutingContext implements Cloneable {
 
     /* INSTANCE METHODS */
 
+    /** @return the outgoing edges of the vertex, including the temporary edges of this request. */
+    public Collection<Edge> getOutgoing(Vertex v) {
+        Collection<Edge> edges = v.getOutgoing();
+        List<Edge> temporary = temporaryEdgeOverlay.getOutgoing(v);
+        if (temporary.isEmpty()) {
+            return edges;
+        }
+        List<Edge> ret = new ArrayList<>(edges.size() + temporary.size());
+        ret.addAll(edges);
+        ret.addAll(temporary);
+        return ret;
+    }
+
+    /** @return the incoming edges of the vertex, including the temporary edges of this request. */
+    public Collection<Edge> getIncoming(Vertex v) {
+        Collection<Edge> edges = v.getIncoming();
+        List<Edge> temporary = temporaryEdgeOverlay.getIncoming(v);
+        if (temporary.isEmpty()) {
+            return edges;
+        }
+        List<Edge> ret = new ArrayList<>(edges.size() + temporary.size());
+        ret.addAll(edges);
+        ret.addAll(temporary);
+        return ret;
+    }
+
+    /** @return the outgoing street edges of the vertex, including the temporary edges of this request. */
+    public List<Edge> getOutgoingStreetEdges(Vertex v) {
+        List<Edge> result = new ArrayList<>();
+        for (Edge out : getOutgoing(v)) {
+            if (out instanceof StreetEdge) {
+                result.add(out);
+            }
+        }
+        return result;
+    }
+
+    /** Add a temporary edge created for this request, making it visible from the permanent vertices it touches. */
+    public void addTemporaryEdge(TemporaryEdge temporaryEdge) {
+        temporaryEdges.add(temporaryEdge);
+        addToOverlay((Edge) temporaryEdge);
+    }
+
+    /**
+     * Use the temporary edges and vertices of another routing context on the same graph, for instance when a
+     * graph modifier replaces the routing context of a request. Temporary edges added to either context are then
+     * visible from both.
+     */
+    public void shareTemporaryElements(RoutingContext other) {
+        other.addTemporarySubgraph(fromVertex);
+        other.addTemporarySubgraph(toVertex);
+        temporaryEdges = other.temporaryEdges;
+        temporaryVertices = other.temporaryVertices;
+        temporaryEdgeOverlay = other.temporaryEdgeOverlay;
+    }
+
+    /**
+     * Walk the temporary subgraph around a temporary vertex, adding the temporary edges which connect it to the
+     * main graph to the overlay. This mirrors {@link TemporaryVertex#dispose(Vertex)}.
+     */
+    private void addTemporarySubgraph(Vertex vertex) {
+        if (!(vertex instanceof TemporaryVertex)) {
+            return;
+        }
+        Set<Vertex> done = new HashSet<>();
+        Deque<Vertex> todo = new ArrayDeque<>();
+        todo.add(vertex);
+        while (!todo.isEmpty()) {
+            Vertex current = todo.poll();
+            if (!done.add(current)) {
+                continue;
+            }
+            for (Edge e : current.getOutgoing()) {
+                if (e.getToVertex() instanceof TemporaryVertex) {
+                    todo.add(e.getToVertex());
+                } else if (e instanceof TemporaryEdge) {
+                    temporaryEdgeOverlay.addIncoming(e.getToVertex(), e);
+                }
+            }
+            for (Edge e : current.getIncoming()) {
+                if (e.getFromVertex() instanceof TemporaryVertex) {
+                    todo.add(e.getFromVertex());
+                } else if (e instanceof TemporaryEdge) {
+                    temporaryEdgeOverlay.addOutgoing(e.getFromVertex(), e);
+                }
+            }
+        }
+    }
+
+    private void addToOverlay(Edge edge) {
+        if (!(edge.getFromVertex() instanceof TemporaryVertex)) {
+            temporaryEdgeOverlay.addOutgoing(edge.getFromVertex(), edge);
+        }
+        if (!(edge.getToVertex() instanceof TemporaryVertex)) {
+            temporaryEdgeOverlay.addIncoming(edge.getToVertex(), edge);
+        }
+    }
+
     public void check() {
         ArrayList<String> notFound = new ArrayList<String>();
 
@@ -398,8 +508,9 @@ public class RoutingContext implements Cloneable {
 
     /**
      * Tear down this routing context, removing any temporary edges from
-     * the "permanent" graph objects. This enables all temporary objects
-     * for garbage collection.
+     * the temporary vertices. Temporary edges are never added to the "permanent"
+     * graph objects, this only makes all temporary objects available for garbage
+     * collection sooner.
      */
     public void destroy() {
         TemporaryVertex.dispose(fromVertex);
@@ -591,7 +591,7 @@ public class State implements Cloneable {
     public boolean multipleOptionsBefore() {
         boolean foundAlternatePaths = false;
         TraverseMode requestedMode = getNonTransitMode();
-        for (Edge out : backState.vertex.getOutgoing()) {
+        for (Edge out : getContext().getOutgoing(backState.vertex)) {
             if (out == backEdge) {
                 continue;
             }
@@ -613,7 +613,7 @@ public class State implements Cloneable {
             //now, from here, try a continuing path.
             Vertex tov = outState.getVertex();
             boolean found = false;
-            for (Edge out2 : tov.getOutgoing()) {
+            for (Edge out2 : getContext().getOutgoing(tov)) {
                 State outState2 = out2.traverse(outState);
                 if (outState2 != null && !outState2.getBackMode().equals(requestedMode)) {
                     // walking a bike, so, not really an exit
@@ -139,10 +139,18 @@ public class StateEditor {
     }
 
     public boolean weHaveWalkedTooFar(RoutingRequest options) {
+        return weHaveWalkedTooFar(child.walkDistance, options);
+    }
+
+    /**
+     * Same check as {@link #weHaveWalkedTooFar(RoutingRequest)} for a walk distance computed before
+     * creating an editor, so that traversals can be rejected without allocating a new state.
+     */
+    public static boolean weHaveWalkedTooFar(double walkDistance, RoutingRequest options) {
         // Only apply limit in transit-only case, unless this is a one-to-many request with hard
         // walk limiting, in which case we want to cut off the search.
         if (options.modes.isTransit()) {
-            return child.walkDistance >= options.maxWalkDistance;
+            return walkDistance >= options.maxWalkDistance;
         } else {
             return false;
         }
@@ -259,21 +267,35 @@ public class StateEditor {
     /* Basic Setters */
 
     public void setTripTimes(TripTimes tripTimes) {
+        if (tripTimes == child.stateData.tripTimes)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.tripTimes = tripTimes;
     }
 
     public void setTripId(AgencyAndId tripId) {
+        if (tripId == child.stateData.tripId)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.tripId = tripId;
     }
 
     public void setPreviousTrip(Trip previousTrip) {
+        if (previousTrip == child.stateData.previousTrip)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.previousTrip = previousTrip;
     }
 
     public void setEnteredNoThroughTrafficArea() {
+        if (child.stateData.enteredNoThroughTrafficArea)
+            return;
+
+        // The StateData may still be shared with the parent state, which must not enter the area.
+        cloneStateDataAsNeeded();
         child.stateData.enteredNoThroughTrafficArea = true;
     }
     
@@ -347,23 +369,30 @@ public class StateEditor {
     }
 
     public void setNumBoardings(int numBoardings) {
+        if (numBoardings == child.stateData.numBoardings)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.numBoardings = numBoardings;
     }
 
     public void setEverBoarded(boolean everBoarded) {
+        if (child.stateData.everBoarded)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.everBoarded = true;
     }
 
     public void setBikeRenting(boolean bikeRenting) {
+        TraverseMode nonTransitMode = bikeRenting ? TraverseMode.BICYCLE : TraverseMode.WALK;
+        if (bikeRenting == child.stateData.usingRentedBike
+                && nonTransitMode == child.stateData.nonTransitMode)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.usingRentedBike = bikeRenting;
-        if (bikeRenting) {
-            child.stateData.nonTransitMode = TraverseMode.BICYCLE;
-        } else {
-            child.stateData.nonTransitMode = TraverseMode.WALK;
-        }
+        child.stateData.nonTransitMode = nonTransitMode;
     }
 
     /**
@@ -371,32 +400,40 @@ public class StateEditor {
      * Marking the car parked is important for allowing co-dominance of walking and driving states.
      */
     public void setCarParked(boolean carParked) {
+        // We do not handle mixed-mode P+BIKE...
+        TraverseMode nonTransitMode = carParked ? TraverseMode.WALK : TraverseMode.CAR;
+        if (carParked == child.stateData.carParked
+                && nonTransitMode == child.stateData.nonTransitMode)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.carParked = carParked;
-        if (carParked) {
-            // We do not handle mixed-mode P+BIKE...
-            child.stateData.nonTransitMode = TraverseMode.WALK;
-        } else {
-            child.stateData.nonTransitMode = TraverseMode.CAR;
-        }
+        child.stateData.nonTransitMode = nonTransitMode;
     }
 
     public void setBikeParked(boolean bikeParked) {
+        TraverseMode nonTransitMode = bikeParked ? TraverseMode.WALK : TraverseMode.BICYCLE;
+        if (bikeParked == child.stateData.bikeParked
+                && nonTransitMode == child.stateData.nonTransitMode)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.bikeParked = bikeParked;
-        if (bikeParked) {
-            child.stateData.nonTransitMode = TraverseMode.WALK;
-        } else {
-            child.stateData.nonTransitMode = TraverseMode.BICYCLE;
-        }
+        child.stateData.nonTransitMode = nonTransitMode;
     }
 
     public void setPreviousStop(Stop previousStop) {
+        if (previousStop == child.stateData.previousStop)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.previousStop = previousStop;
     }
 
     public void setLastAlightedTimeSeconds(long lastAlightedTimeSeconds) {
+        if (lastAlightedTimeSeconds == child.stateData.lastAlightedTime)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.lastAlightedTime = lastAlightedTimeSeconds;
     }
@@ -511,7 +548,8 @@ public class StateEditor {
     /**
      * To be called before modifying anything in the child's StateData. Makes sure that changes are
      * applied to a copy of StateData rather than the same one that is still referenced in existing,
-     * older states.
+     * older states. Setters return early when the value does not change, so that street traversals,
+     * which rarely touch the StateData, keep sharing it with their parent.
      */
     private void cloneStateDataAsNeeded() {
         if (child.backState != null && child.stateData == child.backState.stateData)
@@ -524,12 +562,18 @@ public class StateEditor {
     }
 
     public void setLastPattern(TripPattern pattern) {
+        if (pattern == child.stateData.lastPattern)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.lastPattern = pattern;
     }
 
 
     public void setIsLastBoardAlightDeviated(boolean isLastBoardAlightDeviated) {
+        if (isLastBoardAlightDeviated == child.stateData.isLastBoardAlightDeviated)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.isLastBoardAlightDeviated = isLastBoardAlightDeviated;
     }
@@ -540,11 +584,17 @@ public class StateEditor {
     }
 
     public void setServiceDay(ServiceDay day) {
+        if (day == child.stateData.serviceDay)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.serviceDay = day;
     }
 
     public void setBikeRentalNetwork(Set<String> networks) {
+        if (networks == child.stateData.bikeRentalNetworks)
+            return;
+
         cloneStateDataAsNeeded();
         child.stateData.bikeRentalNetworks = networks;
     }
@@ -169,6 +169,6 @@ public class OnBoardDepartPatternHop extends Edge implements OnboardEdge, Tempor
 
     @Override
     public void dispose() {
-        tov.removeIncoming(this);
+        TemporaryEdge.disconnect(this);
     }
 }
@@ -29,8 +29,7 @@ public class SampleEdge extends Edge implements TemporaryEdge {
 
     @Override
     public void dispose() {
-        tov.removeIncoming(this);
-        fromv.removeOutgoing(this);
+        TemporaryEdge.disconnect(this);
     }
 
     @Override
@@ -23,6 +23,7 @@ import org.opentripplanner.common.model.P2;
 import org.opentripplanner.routing.core.*;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
 import org.opentripplanner.routing.util.ElevationUtils;
 import org.opentripplanner.routing.vertextype.BarrierVertex;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
@@ -40,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 
@@ -78,6 +80,7 @@ public class StreetEdge extends Edge implements Cloneable {
     private static final int STAIRS_FLAG_INDEX = 4;
     private static final int SLOPEOVERRIDE_FLAG_INDEX = 5;
     private static final int WHEELCHAIR_ACCESSIBLE_FLAG_INDEX = 6;
+    private static final int TURN_RESTRICTIONS_FLAG_INDEX = 7;
 
     /** back, roundabout, stairs, ... */
     private byte flags;
@@ -105,7 +108,11 @@ public class StreetEdge extends Edge implements Cloneable {
     /** The OSM way ID from whence this came - needed to reference traffic data */
     public long wayId;
 
-    private int streetClass = CLASS_OTHERPATH;
+    /**
+     * One of the CLASS_ constants above, possibly combined with a platform class. Stored as a byte,
+     * which keeps the street edges, the most numerous objects of a graph, 8 bytes smaller.
+     */
+    private byte streetClass = CLASS_OTHERPATH;
     
     /**
      * The speed (meters / sec) at which an automobile can traverse
@@ -400,21 +407,24 @@ public class StreetEdge extends Edge implements Cloneable {
             weight *= options.walkReluctance;
         }
 
-        StateEditor s1 = s0.edit(this);
-        s1.setBackMode(traverseMode);
-        s1.setBackWalkingBike(walkingBike);
+        /*
+         * All the checks which may reject this traversal are done before the state editor is created,
+         * so that rejected traversals do not allocate a new State.
+         */
 
         /* Handle no through traffic areas. */
+        boolean enteringNoThruTrafficArea = false;
         if (this.isNoThruTraffic()) {
             // Record transition into no-through-traffic area.
-            if (backEdge instanceof StreetEdge && !((StreetEdge)backEdge).isNoThruTraffic()) {
-                s1.setEnteredNoThroughTrafficArea();
-            }
+            enteringNoThruTrafficArea = backEdge instanceof StreetEdge && !((StreetEdge)backEdge).isNoThruTraffic();
             // If we transitioned into a no-through-traffic area at some point, check if we are exiting it.
-            if (s1.hasEnteredNoThroughTrafficArea()) {
+            if (enteringNoThruTrafficArea || s0.hasEnteredNoThruTrafficArea()) {
                 // Only Edges are marked as no-thru, but really we need to avoid creating dominant, pruned states
                 // on thru _Vertices_. This could certainly be improved somehow.
-                for (StreetEdge se : Iterables.filter(s1.getVertex().getOutgoing(), StreetEdge.class)) {
+                Vertex toVertex = options.arriveBy ? fromv : tov;
+                RoutingContext rctx = s0.getContext();
+                Collection<Edge> outgoing = rctx == null ? toVertex.getOutgoing() : rctx.getOutgoing(toVertex);
+                for (StreetEdge se : Iterables.filter(outgoing, StreetEdge.class)) {
                     if (!se.isNoThruTraffic()) {
                         // This vertex has at least one through-traffic edge. We can't dominate it with a no-thru state.
                         return null;
@@ -424,6 +434,7 @@ public class StreetEdge extends Edge implements Cloneable {
         }
 
         int roundedTime = (int) Math.ceil(time);
+        double turnWalkDistance = 0;
 
         /* Compute turn cost. */
         StreetEdge backPSE;
@@ -471,36 +482,30 @@ public class StreetEdge extends Edge implements Cloneable {
             }
 
             if (!traverseMode.isDriving()) {
-                s1.incrementWalkDistance(realTurnCost / 100);  // just a tie-breaker
+                turnWalkDistance = realTurnCost / 100;  // just a tie-breaker
             }
 
             int turnTime = (int) Math.ceil(realTurnCost);
             roundedTime += turnTime;
             weight += options.turnReluctance * realTurnCost;
         }
-        
-
-        if (walkingBike || TraverseMode.BICYCLE.equals(traverseMode)) {
-            if (!(backWalkingBike || TraverseMode.BICYCLE.equals(backMode))) {
-                s1.incrementTimeInSeconds(options.bikeSwitchTime);
-                s1.incrementWeight(options.bikeSwitchCost);
-            }
-        }
 
+        double walkDistance = s0.getWalkDistance() + turnWalkDistance;
         if (!traverseMode.isDriving()) {
-            s1.incrementWalkDistance(getDistance());
+            walkDistance += getDistance();
         }
 
         /* On the pre-kiss/pre-park leg, limit both walking and driving, either soft or hard. */
+        int preTransitTime = 0;
         if (options.kissAndRide || options.parkAndRide || options.rideAndKiss) {
             if (options.arriveBy) {
-                if (!s0.isCarParked()) s1.incrementPreTransitTime(roundedTime);
+                if (!s0.isCarParked()) preTransitTime = roundedTime;
             } else {
-                if (!s0.isEverBoarded()) s1.incrementPreTransitTime(roundedTime);
+                if (!s0.isEverBoarded()) preTransitTime = roundedTime;
             }
-            if (s1.isMaxPreTransitTimeExceeded(options)) {
+            if (s0.getPreTransitTime() + preTransitTime > options.maxPreTransitTime) {
                 if (options.softPreTransitLimiting) {
-                    weight += calculateOverageWeight(s0.getPreTransitTime(), s1.getPreTransitTime(),
+                    weight += calculateOverageWeight(s0.getPreTransitTime(), s0.getPreTransitTime() + preTransitTime,
                             options.maxPreTransitTime, options.preTransitPenalty,
                                     options.preTransitOverageRate);
                 } else return null;
@@ -509,12 +514,12 @@ public class StreetEdge extends Edge implements Cloneable {
         }
         
         /* Apply a strategy for avoiding walking too far, either soft (weight increases) or hard limiting (pruning). */
-        if (s1.weHaveWalkedTooFar(options)) {
+        if (StateEditor.weHaveWalkedTooFar(walkDistance, options)) {
 
             // if we're using a soft walk-limit
             if( options.softWalkLimiting ){
                 // just slap a penalty for the overage onto s1
-                weight += calculateOverageWeight(s0.getWalkDistance(), s1.getWalkDistance(),
+                weight += calculateOverageWeight(s0.getWalkDistance(), walkDistance,
                         options.getMaxWalkDistance(), options.softWalkPenalty,
                                 options.softWalkOverageRate);
             } else {
@@ -524,6 +529,32 @@ public class StreetEdge extends Edge implements Cloneable {
             }
         }
 
+        StateEditor s1 = s0.edit(this);
+        s1.setBackMode(traverseMode);
+        s1.setBackWalkingBike(walkingBike);
+        if (enteringNoThruTrafficArea) {
+            s1.setEnteredNoThroughTrafficArea();
+        }
+
+        if (turnWalkDistance != 0) {
+            s1.incrementWalkDistance(turnWalkDistance);
+        }
+
+        if (walkingBike || TraverseMode.BICYCLE.equals(traverseMode)) {
+            if (!(backWalkingBike || TraverseMode.BICYCLE.equals(backMode))) {
+                s1.incrementTimeInSeconds(options.bikeSwitchTime);
+                s1.incrementWeight(options.bikeSwitchCost);
+            }
+        }
+
+        if (!traverseMode.isDriving()) {
+            s1.incrementWalkDistance(getDistance());
+        }
+
+        if (preTransitTime != 0) {
+            s1.incrementPreTransitTime(preTransitTime);
+        }
+
         s1.incrementTimeInSeconds(roundedTime);
         
         s1.incrementWeight(weight);
@@ -680,6 +711,12 @@ public class StreetEdge extends Edge implements Cloneable {
 		return CompactLineString.uncompackLineString(fromv.getLon(), fromv.getLat(), tov.getLon(), tov.getLat(), compactGeometry, isBack());
 	}
 
+	@Override
+	public boolean forEachCoordinate(boolean skipFirst, CoordinateConsumer consumer) {
+		CompactLineString.forEachCoordinate(fromv.getLon(), fromv.getLat(), tov.getLon(), tov.getLat(), compactGeometry, isBack(), skipFirst, consumer);
+		return true;
+	}
+
 	private void setGeometry(LineString geometry) {
 		this.compactGeometry = CompactLineString.compackLineString(fromv.getLon(), fromv.getLat(), tov.getLon(), tov.getLat(), isBack() ? (LineString)geometry.reverse() : geometry, isBack());
 	}
@@ -713,7 +750,10 @@ public class StreetEdge extends Edge implements Cloneable {
 	}
 
 	public void setStreetClass(int streetClass) {
-		this.streetClass = streetClass;
+		if (streetClass != (byte) streetClass) {
+			throw new IllegalArgumentException("Invalid street class: " + streetClass);
+		}
+		this.streetClass = (byte) streetClass;
 	}
 
 	/**
@@ -763,6 +803,20 @@ public class StreetEdge extends Edge implements Cloneable {
 	    flags = BitSetUtils.set(flags, STAIRS_FLAG_INDEX, stairs);
 	}
 
+	/**
+	 * Whether turn restrictions from this edge were added to the graph. This is checked before
+	 * looking up the turn restrictions in the graph, since most edges have none.
+	 * @see Graph#getTurnRestrictions(Edge)
+	 */
+	public boolean hasTurnRestrictions() {
+	    return BitSetUtils.get(flags, TURN_RESTRICTIONS_FLAG_INDEX);
+	}
+
+	/** Only to be called by the graph, when it adds or removes turn restrictions. */
+	public void setHasTurnRestrictions(boolean hasTurnRestrictions) {
+	    flags = BitSetUtils.set(flags, TURN_RESTRICTIONS_FLAG_INDEX, hasTurnRestrictions);
+	}
+
 	public float getCarSpeed() {
 		return carSpeed;
 	}
@@ -13,7 +13,29 @@
 
 package org.opentripplanner.routing.edgetype;
 
-/** Marker interface for temporary edges */
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
+
+/**
+ * Marker interface for temporary edges.
+ * <p/>
+ * Temporary edges are only added to the edge lists of their temporary vertices. Where they start or end at a
+ * vertex of the main graph they are found through the routing context, see
+ * {@link org.opentripplanner.routing.core.RoutingContext#getOutgoing(Vertex)}.
+ */
 public interface TemporaryEdge {
     void dispose();
+
+    /** Remove a temporary edge from the edge lists of its temporary vertices. */
+    static void disconnect(Edge edge) {
+        Vertex fromv = edge.getFromVertex();
+        Vertex tov = edge.getToVertex();
+        if (fromv instanceof TemporaryVertex) {
+            fromv.removeOutgoing(edge);
+        }
+        if (tov instanceof TemporaryVertex) {
+            tov.removeIncoming(edge);
+        }
+    }
 }
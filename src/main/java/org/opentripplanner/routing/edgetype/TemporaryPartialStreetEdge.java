@@ -80,9 +80,7 @@ final public class TemporaryPartialStreetEdge extends PartialStreetEdge implemen
 
     @Override
     public void dispose() {
-        // TODO: Reintroduced endEdge here when merging. Not sure if it's a good idea
-        fromv.removeIncoming(this);
-        tov.removeIncoming(this);
+        TemporaryEdge.disconnect(this);
     }
 
     @Override
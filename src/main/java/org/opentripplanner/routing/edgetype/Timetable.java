@@ -110,6 +110,14 @@ public class Timetable implements Serializable {
      */
     private transient int minTime, maxTime;
 
+    /**
+     * For each stop, the trips sorted on their departure time from that stop, see
+     * {@link #getDepartures(int)}. Slots are built lazily for departure boards and dropped whenever
+     * the trips change. Timetables shared between timetable snapshots keep their departures, so a
+     * commit only causes the timetables which were updated in real time to be sorted again.
+     */
+    private transient volatile StopDepartures[] departures;
+
     /**
      * Construct an empty Timetable.
      */
@@ -373,6 +381,7 @@ public class Timetable implements Serializable {
      * actions to compact the data structure such as trimming and deduplicating arrays.
      */
     public void finish() {
+        departures = null;
         int nStops = pattern.stopPattern.size;
         int nHops = nStops - 1;
         /* Find lower bounds on dwell and running times at each stop. */
@@ -475,6 +484,7 @@ public class Timetable implements Serializable {
      * @return old trip times of trip
      */
     public TripTimes setTripTimes(int tripIndex, TripTimes tt) {
+        departures = null;
         return tripTimes.set(tripIndex, tt);
     }
 
@@ -1312,6 +1322,7 @@ public class Timetable implements Serializable {
      * Here we don't know if it's a scheduled trip or a realtime-added trip.
      */
     public void addTripTimes(TripTimes tt) {
+        departures = null;
         tripTimes.add(tt);
     }
 
@@ -1353,6 +1364,79 @@ public class Timetable implements Serializable {
         return minDwellTimes[stopIndex];
     }
 
+    /**
+     * @return the trips of this timetable sorted on their departure time from the given stop, built
+     * on first use. Frequency entries are not included.
+     */
+    public StopDepartures getDepartures(int stopIndex) {
+        StopDepartures[] departures = this.departures;
+        if (departures == null) {
+            departures = new StopDepartures[pattern.stopPattern.size];
+            this.departures = departures;
+        }
+        StopDepartures stopDepartures = departures[stopIndex];
+        // The list of trips is sometimes modified directly, in which case the departures are stale.
+        if (stopDepartures == null || stopDepartures.tripTimes.length != tripTimes.size()) {
+            stopDepartures = new StopDepartures(tripTimes.toArray(new TripTimes[0]), stopIndex);
+            departures[stopIndex] = stopDepartures;
+        }
+        return stopDepartures;
+    }
+
+    /**
+     * The trips of a timetable sorted on their departure time from one stop. The departure time of a
+     * cancelled stop is the scheduled one, trips which do not reach the stop are sorted last.
+     */
+    public static class StopDepartures {
+
+        /** Departure times in seconds since midnight of the service day, in increasing order. */
+        public final int[] times;
+
+        /** The trip departing at each of the times. */
+        public final TripTimes[] tripTimes;
+
+        StopDepartures(TripTimes[] trips, int stopIndex) {
+            long[] sortKeys = new long[trips.length];
+            for (int i = 0; i < trips.length; i++) {
+                TripTimes tt = trips[i];
+                int time;
+                if (stopIndex >= tt.getNumStops()) {
+                    time = Integer.MAX_VALUE;
+                } else if (tt.isCancelledStop(stopIndex)) {
+                    time = tt.getScheduledDepartureTime(stopIndex);
+                } else {
+                    time = tt.getDepartureTime(stopIndex);
+                }
+                sortKeys[i] = ((long) time << 32) | i;
+            }
+            Arrays.sort(sortKeys);
+            times = new int[trips.length];
+            tripTimes = new TripTimes[trips.length];
+            for (int i = 0; i < trips.length; i++) {
+                times[i] = (int) (sortKeys[i] >> 32);
+                tripTimes[i] = trips[(int) sortKeys[i]];
+            }
+        }
+
+        /** @return the index of the first departure at or after the given time, or the number of departures. */
+        public int firstAtOrAfter(int time) {
+            int low = 0, high = times.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        public int size() {
+            return times.length;
+        }
+    }
+
     public boolean isValidFor(ServiceDate serviceDate) {
         return this.serviceDate == null || this.serviceDate.equals(serviceDate);
     }
@@ -15,6 +15,8 @@ package org.opentripplanner.routing.edgetype;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.opentripplanner.model.calendar.ServiceDate;
 import org.opentripplanner.routing.trippattern.TripTimes;
@@ -99,6 +101,11 @@ public class TimetableSnapshot {
     }
 
     private static final Logger LOG = LoggerFactory.getLogger(TimetableSnapshot.class);
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /** Increases with each snapshot, so a commit has a higher version than the snapshots committed before it. */
+    private final long version = VERSIONS.incrementAndGet();
     
     // Use HashMap not Map so we can clone.
     // if this turns out to be slow/spacious we can use an array with integer pattern indexes
@@ -118,6 +125,13 @@ public class TimetableSnapshot {
      * </p>
      */
     private HashMap<TripIdAndServiceDate, TripPattern> lastAddedTripPattern = new HashMap<>();
+
+    /**
+     * The timetables of the last added trips merged by {@link #resolve(TripPattern, ServiceDate)},
+     * per pattern and service date. Only read-only snapshots keep them, as their trips no longer
+     * change.
+     */
+    private final Map<TripPattern, Map<ServiceDate, Timetable>> mergedLastAdded = new ConcurrentHashMap<>();
     
     /**
      * Boolean value indicating that timetable snapshot is read only if true. Once it is true, it shouldn't
@@ -137,6 +151,10 @@ public class TimetableSnapshot {
      */
     private Set<Timetable> dirtyTimetables = new HashSet<Timetable>();
 
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Returns an updated timetable for the specified pattern if one is available in this snapshot,
      * or the originally scheduled timetable if there are no updates in this snapshot.
@@ -146,20 +164,16 @@ public class TimetableSnapshot {
         SortedSet<Timetable> sortedTimetables = timetables.get(pattern);
 
         if (sortedTimetables != null && serviceDate != null) {
-            Timetable lastAdded = resolveLastAdded(pattern, serviceDate);
+            Timetable lastAdded;
+            if (readOnly) {
+                // A read-only snapshot merges the added trips once, so that the merged timetable
+                // keeps its bounds and departures between requests.
+                lastAdded = mergedLastAdded.computeIfAbsent(pattern, p -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(serviceDate, date -> mergeLastAdded(pattern, date, sortedTimetables));
+            } else {
+                lastAdded = mergeLastAdded(pattern, serviceDate, sortedTimetables);
+            }
             if (lastAdded != null) {
-                for (Timetable timetable : sortedTimetables) {
-
-                    if (timetable != null && timetable.tripTimes != null && timetable.isValidFor(serviceDate)) {
-
-                        for (TripTimes tripTime : timetable.tripTimes) {
-                            if (!lastAdded.tripTimes.contains(tripTime)) {
-                                lastAdded.tripTimes.add(tripTime);
-                            }
-                        }
-                    }
-                }
-                lastAdded.finish();
                 return lastAdded;
             } else {
                 for (Timetable timetable : sortedTimetables) {
@@ -174,6 +188,31 @@ public class TimetableSnapshot {
         return pattern.scheduledTimetable;
     }
 
+    /**
+     * @return the timetable of the trips last added to the given pattern, merged with its updated
+     * timetables valid on the given date, or null if no trip was added to the pattern.
+     */
+    private Timetable mergeLastAdded(TripPattern pattern, ServiceDate serviceDate,
+            SortedSet<Timetable> sortedTimetables) {
+        Timetable lastAdded = resolveLastAdded(pattern, serviceDate);
+        if (lastAdded == null) {
+            return null;
+        }
+        for (Timetable timetable : sortedTimetables) {
+
+            if (timetable != null && timetable.tripTimes != null && timetable.isValidFor(serviceDate)) {
+
+                for (TripTimes tripTime : timetable.tripTimes) {
+                    if (!lastAdded.tripTimes.contains(tripTime)) {
+                        lastAdded.tripTimes.add(tripTime);
+                    }
+                }
+            }
+        }
+        lastAdded.finish();
+        return lastAdded;
+    }
+
     /**
      * Returns an updated timetable for the specified pattern if one is available in this snapshot,
      * or the originally scheduled timetable if there are no updates in this snapshot.
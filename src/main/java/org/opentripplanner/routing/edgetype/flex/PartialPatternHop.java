@@ -5,6 +5,7 @@ import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.linearref.LengthIndexedLine;
 import org.opentripplanner.api.resource.CoordinateArrayListSequence;
+import org.opentripplanner.common.geometry.CoordinateConsumer;
 import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
 import org.opentripplanner.model.Stop;
@@ -161,6 +162,11 @@ public class PartialPatternHop extends PatternHop {
         return getGeometry();
     }
 
+    @Override
+    public boolean forEachDisplayCoordinate(boolean skipFirst, CoordinateConsumer consumer) {
+        return forEachCoordinate(getDisplayGeometry(), skipFirst, consumer);
+    }
+
     // is this hop too not-different to care about? for now lets say should be > 50 m shorter than original hop
     public boolean isTrivial(RoutingRequest options) {
         if ((isDeviatedRouteBoard() && getStartVehicleTime() < 5) || (isDeviatedRouteAlight() && getEndVehicleTime() < 5))
@@ -67,8 +67,7 @@ public class TemporaryDirectPatternHop extends TemporaryPartialPatternHop implem
 
     @Override
     public void dispose() {
-        fromv.removeOutgoing(this);
-        tov.removeIncoming(this);
+        TemporaryEdge.disconnect(this);
     }
 
     @Override
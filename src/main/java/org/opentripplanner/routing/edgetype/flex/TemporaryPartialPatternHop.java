@@ -23,8 +23,7 @@ public class TemporaryPartialPatternHop extends PartialPatternHop implements Tem
 
     @Override
     public void dispose() {
-        fromv.removeOutgoing(this);
-        tov.removeIncoming(this);
+        TemporaryEdge.disconnect(this);
     }
 
 }
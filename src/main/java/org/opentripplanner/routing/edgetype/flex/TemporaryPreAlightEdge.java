@@ -16,7 +16,6 @@ public class TemporaryPreAlightEdge extends PreAlightEdge implements StationEdge
 
     @Override
     public void dispose() {
-        fromv.removeOutgoing(this);
-        tov.removeIncoming(this);
+        TemporaryEdge.disconnect(this);
     }
 }
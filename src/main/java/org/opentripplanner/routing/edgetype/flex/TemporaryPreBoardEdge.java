@@ -23,7 +23,6 @@ public class TemporaryPreBoardEdge extends PreBoardEdge implements StationEdge,
 
     @Override
     public void dispose() {
-        fromv.removeOutgoing(this);
-        tov.removeIncoming(this);
+        TemporaryEdge.disconnect(this);
     }
 }
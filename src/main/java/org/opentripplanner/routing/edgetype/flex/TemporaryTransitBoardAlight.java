@@ -19,7 +19,6 @@ public class TemporaryTransitBoardAlight extends FlexTransitBoardAlight implemen
 
     @Override
     public void dispose() {
-        fromv.removeOutgoing(this);
-        tov.removeIncoming(this);
+        TemporaryEdge.disconnect(this);
     }
 }
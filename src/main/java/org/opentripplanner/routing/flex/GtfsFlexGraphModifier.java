@@ -208,7 +208,7 @@ public abstract class GtfsFlexGraphModifier {
 
     protected TemporaryTransitStop getTemporaryStop(StreetVertex streetVertex, State s, RoutingContext rctx, RoutingRequest options, boolean forwards) {
         if (temporaryTransitStopsForLocation.get(streetVertex) == null) {
-            String name = findName(s, streetVertex, options.locale, forwards);
+            String name = findName(s, streetVertex, rctx, options.locale, forwards);
             TemporaryTransitStop stop = createTemporaryTransitStop(name, streetVertex, rctx);
             temporaryTransitStopsForLocation.put(streetVertex, stop);
             return stop;
@@ -216,8 +216,9 @@ public abstract class GtfsFlexGraphModifier {
         return temporaryTransitStopsForLocation.get(streetVertex);
     }
 
-    // Return a reasonable name for a vertex.
-    private String findName(State state, StreetVertex vertex, Locale locale, boolean forwards) {
+    // Return a reasonable name for a vertex. The edges are read through the routing context, which also holds the
+    // temporary edges of the request.
+    private String findName(State state, StreetVertex vertex, RoutingContext rctx, Locale locale, boolean forwards) {
         I18NString unnamed = new LocalizedString("unnamedStreet", (String[]) null);
         if (vertex == null) {
             return unnamed.toString();
@@ -232,7 +233,13 @@ public abstract class GtfsFlexGraphModifier {
         int n = 0;
         while (!queue.isEmpty() && n < 3) {
             Vertex v = queue.poll();
-            for (Edge e : (forwards ? v.getOutgoing() : v.getIncoming())) {
+            Collection<Edge> edges;
+            if (rctx == null) {
+                edges = forwards ? v.getOutgoing() : v.getIncoming();
+            } else {
+                edges = forwards ? rctx.getOutgoing(v) : rctx.getIncoming(v);
+            }
+            for (Edge e : edges) {
                 if (e instanceof StreetEdge) {
                     return e.getName(locale);
                 } else {
@@ -306,7 +313,7 @@ public abstract class GtfsFlexGraphModifier {
                     newHop.dispose();
                 continue;
             }
-            rr.rctx.temporaryEdges.add(newHop);
+            rr.rctx.addTemporaryEdge(newHop);
 
             createAlightEdge(rr, transitStopArrive,  patternArriveVertex, newHop);
         }
@@ -320,7 +327,7 @@ public abstract class GtfsFlexGraphModifier {
             }
             return;
         }
-        rr.rctx.temporaryEdges.add(hop);
+        rr.rctx.addTemporaryEdge(hop);
 
         // todo - david's code has this comment. why don't I need it?
         //  flex point far away or is very close to the beginning or end of the hop.  Leave this hop unchanged;
@@ -342,7 +349,7 @@ public abstract class GtfsFlexGraphModifier {
             }
             return;
         }
-        rr.rctx.temporaryEdges.add(hop);
+        rr.rctx.addTemporaryEdge(hop);
 
         createBoardEdge(rr, transitStopDepart, patternDepartVertex, hop);
     }
@@ -361,7 +368,7 @@ public abstract class GtfsFlexGraphModifier {
         // direct hop
         TemporaryDirectPatternHop newHop = new TemporaryDirectPatternHop(originalPatternHop, patternDepartVertex, patternArriveVertex, fromStop.getStop(), toStop.getStop(),
                 path.getGeometry(), path.getDuration());
-        rr.rctx.temporaryEdges.add(newHop);
+        rr.rctx.addTemporaryEdge(newHop);
 
         createBoardEdge(rr, fromStop.departVertex, patternDepartVertex, newHop);
         createAlightEdge(rr, toStop.arriveVertex, patternArriveVertex, newHop);
@@ -386,12 +393,12 @@ public abstract class GtfsFlexGraphModifier {
         TransitStopDepart transitStopDepart;
         if (transitStop.departVertex == null) {
             TemporaryStreetTransitLink streetTransitLink = new TemporaryStreetTransitLink(transitStop.getStreetVertex(), transitStop, true);
-            rr.rctx.temporaryEdges.add(streetTransitLink);
+            rr.rctx.addTemporaryEdge(streetTransitLink);
 
             transitStopDepart = new TemporaryTransitStopDepart(graph, transitStop.getStop(), transitStop);
             rr.rctx.temporaryVertices.add(transitStopDepart);
             TemporaryPreBoardEdge temporaryPreBoardEdge = new TemporaryPreBoardEdge(transitStop, transitStopDepart);
-            rr.rctx.temporaryEdges.add(temporaryPreBoardEdge);
+            rr.rctx.addTemporaryEdge(temporaryPreBoardEdge);
 
             transitStop.departVertex = transitStopDepart;
         } else {
@@ -411,14 +418,14 @@ public abstract class GtfsFlexGraphModifier {
                                                         TemporaryPartialPatternHop hop) {
         TemporaryTransitBoardAlight transitBoardAlight =
                 new TemporaryTransitBoardAlight(transitStopDepart, patternDepartVertex, hop.getStopIndex(), hop);
-        rr.rctx.temporaryEdges.add(transitBoardAlight);
+        rr.rctx.addTemporaryEdge(transitBoardAlight);
         return transitBoardAlight;
     }
 
     private TemporaryTransitBoardAlight createAlightEdge(RoutingRequest rr, TransitStopArrive transitStopArrive, PatternArriveVertex patternArriveVertex, TemporaryPartialPatternHop hop) {
         TemporaryTransitBoardAlight transitBoardAlight =
                 new TemporaryTransitBoardAlight(patternArriveVertex, transitStopArrive, hop.getStopIndex() + 1, hop);
-        rr.rctx.temporaryEdges.add(transitBoardAlight);
+        rr.rctx.addTemporaryEdge(transitBoardAlight);
         return transitBoardAlight;
     }
 
@@ -426,12 +433,12 @@ public abstract class GtfsFlexGraphModifier {
         TransitStopArrive transitStopArrive;
         if (transitStop.arriveVertex == null) {
             TemporaryStreetTransitLink streetTransitLink = new TemporaryStreetTransitLink(transitStop, transitStop.getStreetVertex(), true);
-            rr.rctx.temporaryEdges.add(streetTransitLink);
+            rr.rctx.addTemporaryEdge(streetTransitLink);
 
             transitStopArrive = new TemporaryTransitStopArrive(graph, transitStop.getStop(), transitStop);
             rr.rctx.temporaryVertices.add(transitStopArrive);
             TemporaryPreAlightEdge preAlightEdge = new TemporaryPreAlightEdge(transitStopArrive, transitStop);
-            rr.rctx.temporaryEdges.add(preAlightEdge);
+            rr.rctx.addTemporaryEdge(preAlightEdge);
 
             transitStop.arriveVertex = transitStopArrive;
         } else {
@@ -462,11 +469,9 @@ public abstract class GtfsFlexGraphModifier {
     private void modifyRequestForCarAccess(RoutingRequest opt) {
         Vertex fromVertex = findCarAccessibleVertex(opt, opt.rctx.fromVertex, false);
         Vertex toVertex = findCarAccessibleVertex(opt, opt.rctx.toVertex, true);
-        Collection<TemporaryEdge> temporaryEdges = opt.rctx.temporaryEdges;
-        Collection<Vertex> temporaryVertices = opt.rctx.temporaryVertices;
-        opt.setRoutingContext(opt.rctx.graph, fromVertex, toVertex);
-        opt.rctx.temporaryEdges = temporaryEdges;
-        opt.rctx.temporaryVertices = temporaryVertices;
+        RoutingContext rctx = opt.rctx;
+        opt.setRoutingContext(rctx.graph, fromVertex, toVertex);
+        opt.rctx.shareTemporaryElements(rctx);
     }
 
     private Vertex findCarAccessibleVertex(RoutingRequest opt, Vertex vertex, boolean arriveBy) {
@@ -0,0 +1,130 @@
+package org.opentripplanner.routing.graph;
+
+import org.opentripplanner.util.ReadAheadInputStream;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.opentripplanner.routing.graph.CompressedGraphOutputStream.FORMAT_VERSION;
+import static org.opentripplanner.routing.graph.CompressedGraphOutputStream.MAGIC;
+
+/**
+ * Reads a graph written by {@link CompressedGraphOutputStream}. The compressed blocks are read
+ * ahead and decompressed in parallel, while the graph is deserialized from the blocks already
+ * decompressed. The checksum of each block is verified, so a corrupt or truncated graph file fails
+ * with an {@link IOException} instead of a puzzling deserialization error.
+ */
+class CompressedGraphInputStream extends ReadAheadInputStream {
+
+    private final DataInputStream in;
+    private final ExecutorService executor;
+
+    private int blockIndex = 0;
+
+    /**
+     * @param in          the input, positioned after the {@link CompressedGraphOutputStream#MAGIC}
+     *                    bytes and closed with this stream.
+     * @param parallelism the maximum number of blocks decompressed at once.
+     * @param executor    the executor decompressing the blocks.
+     */
+    CompressedGraphInputStream(InputStream in, int parallelism, ExecutorService executor)
+            throws IOException {
+        super(parallelism);
+        this.in = new DataInputStream(in);
+        this.executor = executor;
+        int version = this.in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(
+                    "Unsupported graph file format version " + version + ", expected "
+                            + FORMAT_VERSION + ". Please rebuild the graph."
+            );
+        }
+    }
+
+    /**
+     * @return true if the given input starts with {@link CompressedGraphOutputStream#MAGIC}. The
+     * magic bytes are consumed when they match, otherwise the stream is reset.
+     * @param in an input supporting {@link InputStream#mark(int)}.
+     */
+    static boolean readMagic(InputStream in) throws IOException {
+        in.mark(MAGIC.length);
+        byte[] bytes = new byte[MAGIC.length];
+        int n = 0;
+        while (n < bytes.length) {
+            int read = in.read(bytes, n, bytes.length - n);
+            if (read < 0) { break; }
+            n += read;
+        }
+        if (n == MAGIC.length && Arrays.equals(bytes, MAGIC)) {
+            return true;
+        }
+        in.reset();
+        return false;
+    }
+
+    /** Read the next compressed block and submit it for decompression. */
+    @Override
+    protected Future<byte[]> requestBlock() throws IOException {
+        final int length = in.readInt();
+        final int compressedLength = in.readInt();
+        final int checksum = in.readInt();
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0 || compressedLength < 0) {
+            throw new IOException("Corrupt graph file, invalid block " + blockIndex + ".");
+        }
+        final byte[] compressed = new byte[compressedLength];
+        in.readFully(compressed);
+        final int index = blockIndex++;
+        return executor.submit(() -> decompress(index, compressed, length, checksum));
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        in.close();
+    }
+
+
+    /* private methods */
+
+    private static byte[] decompress(int index, byte[] compressed, int length, int checksum)
+            throws IOException {
+        byte[] data = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int inflated = inflater.inflate(data, n, length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != length) {
+                throw new IOException("Corrupt graph file, block " + index + " is truncated.");
+            }
+        }
+        catch (DataFormatException e) {
+            throw new IOException("Corrupt graph file, block " + index + ": " + e.getMessage(), e);
+        }
+        finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Corrupt graph file, checksum mismatch in block " + index + ".");
+        }
+        return data;
+    }
+}
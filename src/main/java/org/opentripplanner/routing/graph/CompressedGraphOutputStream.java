@@ -0,0 +1,199 @@
+package org.opentripplanner.routing.graph;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the serialized graph as a sequence of independently compressed blocks, so that the
+ * blocks are compressed in parallel here and decompressed in parallel by
+ * {@link CompressedGraphInputStream}.
+ * <p>
+ * The format is a header ({@link #MAGIC} and {@link #FORMAT_VERSION}) followed by blocks, each
+ * one made of its uncompressed length, its compressed length and the CRC-32 of its uncompressed
+ * bytes (three big-endian ints) followed by the deflated bytes. A block of length zero ends the
+ * stream.
+ * <p>
+ * The graph is still serialized as a single Kryo stream: the edges, patterns and timetables
+ * reference each other (and the vertices), and splitting them into separately serialized
+ * sections would duplicate the shared objects.
+ */
+class CompressedGraphOutputStream extends OutputStream {
+
+    static final byte[] MAGIC = "OTPG".getBytes(StandardCharsets.US_ASCII);
+
+    static final int FORMAT_VERSION = 1;
+
+    static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Fast compression: on a large graph, level 1 makes files about 4 times smaller, the higher
+     * levels are much slower for a few more percent.
+     */
+    private static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
+
+    private final DataOutputStream out;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+    private final ExecutorService executor;
+
+    /** Blocks being compressed, in file order. */
+    private final ArrayDeque<Future<Block>> pending = new ArrayDeque<>();
+
+    private byte[] buffer;
+    private int count = 0;
+    private boolean closed = false;
+
+    /**
+     * @param out         the output, closed with this stream.
+     * @param blockSize   the number of uncompressed bytes in each block.
+     * @param parallelism the maximum number of blocks compressed at once.
+     * @param executor    the executor compressing the blocks.
+     */
+    CompressedGraphOutputStream(
+            OutputStream out,
+            int blockSize,
+            int parallelism,
+            ExecutorService executor
+    ) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = parallelism;
+        this.executor = executor;
+        this.buffer = new byte[blockSize];
+        this.out.write(MAGIC);
+        this.out.writeInt(FORMAT_VERSION);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == blockSize) {
+            submitBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == blockSize) {
+                submitBlock();
+            }
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** Write all blocks compressed so far, the last block is only written when it is full. */
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty()) {
+            writeBlock(pending.poll());
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (count > 0) {
+                submitBlock();
+            }
+            flush();
+            // End of stream
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+        }
+        finally {
+            for (Future<Block> block : pending) {
+                block.cancel(true);
+            }
+            out.close();
+        }
+    }
+
+
+    /* private methods */
+
+    private void submitBlock() throws IOException {
+        while (pending.size() >= maxPendingBlocks) {
+            writeBlock(pending.poll());
+        }
+        final byte[] data = buffer;
+        final int length = count;
+        pending.add(executor.submit(() -> Block.compress(data, length)));
+        buffer = new byte[blockSize];
+        count = 0;
+    }
+
+    private void writeBlock(Future<Block> future) throws IOException {
+        Block block;
+        try {
+            block = future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing the graph.");
+        }
+        catch (ExecutionException e) {
+            throw new IOException(e.getCause().getLocalizedMessage(), e.getCause());
+        }
+        out.writeInt(block.length);
+        out.writeInt(block.compressed.length);
+        out.writeInt(block.checksum);
+        out.write(block.compressed);
+    }
+
+    private static class Block {
+        final int length;
+        final int checksum;
+        final byte[] compressed;
+
+        private Block(int length, int checksum, byte[] compressed) {
+            this.length = length;
+            this.checksum = checksum;
+            this.compressed = compressed;
+        }
+
+        static Block compress(byte[] data, int length) {
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+
+            Deflater deflater = new Deflater(COMPRESSION_LEVEL, true);
+            try {
+                deflater.setInput(data, 0, length);
+                deflater.finish();
+                // Incompressible data grows by a few bytes per 16 KiB
+                byte[] compressed = new byte[length + length / 1000 + 64];
+                int size = 0;
+                while (!deflater.finished()) {
+                    if (size == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, 2 * compressed.length);
+                    }
+                    size += deflater.deflate(compressed, size, compressed.length - size);
+                }
+                return new Block(length, (int) crc.getValue(), Arrays.copyOf(compressed, size));
+            }
+            finally {
+                deflater.end();
+            }
+        }
+    }
+}
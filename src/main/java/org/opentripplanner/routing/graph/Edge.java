@@ -13,11 +13,15 @@
 
 package org.opentripplanner.routing.graph;
 
+import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.model.Trip;
 import org.opentripplanner.common.MavenVersion;
+import org.opentripplanner.common.geometry.CoordinateConsumer;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
+import org.opentripplanner.routing.vertextype.TemporaryVertex;
 
 import javax.xml.bind.annotation.XmlTransient;
 import java.io.IOException;
@@ -46,8 +50,16 @@ public abstract class Edge implements Serializable {
         }
         this.fromv = v1;
         this.tov = v2;
-        fromv.addOutgoing(this);
-        tov.addIncoming(this);
+        // Temporary edges are only added to temporary vertices, so that routing requests never modify the
+        // shared graph. Where they touch a permanent vertex, they are found through the overlay of the routing
+        // context instead (see RoutingContext#getOutgoing and RoutingContext#getIncoming).
+        boolean temporary = this instanceof TemporaryEdge;
+        if (!temporary || fromv instanceof TemporaryVertex) {
+            fromv.addOutgoing(this);
+        }
+        if (!temporary || tov instanceof TemporaryVertex) {
+            tov.addIncoming(this);
+        }
     }
 
     public Vertex getFromVertex() {
@@ -185,6 +197,34 @@ public abstract class Edge implements Serializable {
         return getGeometry();
     }
 
+    /**
+     * Pass the coordinates of {@link #getGeometry()} to the given consumer. The edges storing their
+     * geometry in a compact form override this to do it without creating the geometry.
+     *
+     * @param skipFirst true to leave out the first coordinate, usually the last one of the previous edge
+     * @return false if this edge has no geometry
+     */
+    public boolean forEachCoordinate(boolean skipFirst, CoordinateConsumer consumer) {
+        return forEachCoordinate(getGeometry(), skipFirst, consumer);
+    }
+
+    /** Same as {@link #forEachCoordinate(boolean, CoordinateConsumer)} for {@link #getDisplayGeometry()}. */
+    public boolean forEachDisplayCoordinate(boolean skipFirst, CoordinateConsumer consumer) {
+        return forEachCoordinate(skipFirst, consumer);
+    }
+
+    protected static boolean forEachCoordinate(LineString geometry, boolean skipFirst,
+            CoordinateConsumer consumer) {
+        if (geometry == null) {
+            return false;
+        }
+        CoordinateSequence coordinates = geometry.getCoordinateSequence();
+        for (int i = skipFirst ? 1 : 0; i < coordinates.size(); i++) {
+            consumer.accept(coordinates.getX(i), coordinates.getY(i));
+        }
+        return true;
+    }
+
     /**
      * Returns the azimuth of this edge from head to tail.
      * 
@@ -20,7 +20,6 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.ExternalizableSerializer;
 import com.esotericsoftware.kryo.serializers.JavaSerializer;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
@@ -86,12 +85,15 @@ import org.opentripplanner.util.WorldEnvelope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
@@ -105,7 +107,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.prefs.Preferences;
 /**
  * A graph is really just one or more indexes into a set of vertexes. It used to keep edgelists for each vertex, but those are in the vertex now.
@@ -118,6 +121,9 @@ public class Graph implements Serializable, AddBuilderAnnotation {
 
     private static final long serialVersionUID = MavenVersion.VERSION.getUID();
 
+    /** The number of graph file blocks compressed or decompressed at once. */
+    private static final int SERIALIZATION_PARALLELISM = Runtime.getRuntime().availableProcessors() + 1;
+
     private final MavenVersion mavenVersion = MavenVersion.VERSION;
 
     // TODO Remove this field, use Router.routerId ?
@@ -160,8 +166,8 @@ public class Graph implements Serializable, AddBuilderAnnotation {
 
     private GraphBundle bundle;
 
-    /* Vertex index by name is reconstructed from edges. TODO Is this actually needed? */
-    private transient Map<String, Vertex> vertices;
+    /* The vertices by index and by label, reconstructed from edges. */
+    private transient VertexTable vertices;
 
     private transient CalendarService calendarService;
 
@@ -240,6 +246,13 @@ public class Graph implements Serializable, AddBuilderAnnotation {
     /** True if OSM data was loaded into this Graph. */
     public boolean hasStreets = false;
 
+    /**
+     * The hash of the street inputs of a base graph, used to check that a base graph is still up
+     * to date when transit is added to it. Null if the graph was not built as a base graph.
+     * @see org.opentripplanner.graph_builder.StreetInputsHash
+     */
+    public String streetInputsHash = null;
+
     /** True if GTFS data was loaded into this Graph. */
     public boolean hasTransit = false;
 
@@ -279,13 +292,25 @@ public class Graph implements Serializable, AddBuilderAnnotation {
 
     private SynchronisedSimpleStreetSplitter synchronisedSimpleStreetSplitter;
 
+    /**
+     * Incremented whenever vertices are added to or removed from the graph, edges are removed or linked into the
+     * street network by the street splitter, or the street index is rebuilt. Edges are added by their constructors,
+     * which do not know the graph, so code creating edges in a live graph otherwise must call
+     * {@link #incrementStreetGraphVersion()}. Caches derived from the street network compare it to detect that
+     * they are stale.
+     */
+    private final transient AtomicLong streetGraphVersion = new AtomicLong();
+
+    /** Incremented whenever an alert patch is added to or removed from an edge, see {@link #getAlertPatchesVersion()}. */
+    private final transient AtomicLong alertPatchesVersion = new AtomicLong();
+
     public Graph(Graph basedOn) {
         this();
         this.bundle = basedOn.getBundle();
     }
 
     public Graph() {
-        this.vertices = new ConcurrentHashMap<>();
+        this.vertices = new VertexTable();
     }
 
     /**
@@ -301,7 +326,8 @@ public class Graph implements Serializable, AddBuilderAnnotation {
             );
         }
 
-        Vertex old = vertices.put(v.getLabel(), v);
+        Vertex old = vertices.add(v);
+        streetGraphVersion.incrementAndGet();
         if (old != null) {
             if (old == v)
                 LOG.error("repeatedly added the same vertex: {}", v);
@@ -318,7 +344,8 @@ public class Graph implements Serializable, AddBuilderAnnotation {
      * @param v
      */
     public void removeVertex(Vertex v) {
-        if (vertices.remove(v.getLabel()) != v) {
+        streetGraphVersion.incrementAndGet();
+        if (!vertices.remove(v)) {
             LOG.error(
                     "attempting to remove vertex that is not in graph (or mapping value was null): {}",
                     v);
@@ -331,6 +358,7 @@ public class Graph implements Serializable, AddBuilderAnnotation {
      */
     public void removeEdge(Edge e) {
         if (e != null) {
+            streetGraphVersion.incrementAndGet();
             synchronized (alertPatches) {   // This synchronization is somewhat silly because this
                 alertPatches.remove(e);     // method isn't thread-safe anyway, but it is consistent
             }
@@ -361,12 +389,24 @@ public class Graph implements Serializable, AddBuilderAnnotation {
         }
     }
 
-    /* Fetching vertices by label is convenient in tests and such, but avoid using in general. */
-    @VisibleForTesting
+    /**
+     * Fetching vertices by label is convenient in tests and such, but avoid using in general: the
+     * labels of some vertices are derived again on each lookup.
+     */
     public Vertex getVertex(String label) {
         return vertices.get(label);
     }
 
+    /** @return the vertex with the given index, or null if it was removed. See {@link Vertex#getIndex()}. */
+    public Vertex getVertex(int index) {
+        return vertices.get(index);
+    }
+
+    /** @return an upper bound of the vertex indexes, to size the arrays indexed by them. */
+    public int getVertexIndexLimit() {
+        return vertices.indexLimit();
+    }
+
     /**
      * Get all the vertices in the graph.
      * @return
@@ -406,6 +446,7 @@ public class Graph implements Serializable, AddBuilderAnnotation {
                     this.alertPatches.put(edge, alertPatches);
                 }
             }
+            alertPatchesVersion.incrementAndGet();
         }
     }
 
@@ -425,6 +466,7 @@ public class Graph implements Serializable, AddBuilderAnnotation {
                 } else {
                     alertPatches.remove(alertPatch);
                 }
+                alertPatchesVersion.incrementAndGet();
             }
         }
     }
@@ -460,6 +502,9 @@ public class Graph implements Serializable, AddBuilderAnnotation {
             this.turnRestrictions.put(edge, turnRestrictions);
         }
         turnRestrictions.add(turnRestriction);
+        if (edge instanceof StreetEdge) {
+            ((StreetEdge) edge).setHasTurnRestrictions(true);
+        }
     }
 
     /**
@@ -474,6 +519,9 @@ public class Graph implements Serializable, AddBuilderAnnotation {
         if (turnRestrictions != null && turnRestrictions.contains(turnRestriction)) {
             if (turnRestrictions.size() < 2) {
                 this.turnRestrictions.remove(edge);
+                if (edge instanceof StreetEdge) {
+                    ((StreetEdge) edge).setHasTurnRestrictions(false);
+                }
             } else {
                 turnRestrictions.remove(turnRestriction);
             }
@@ -483,11 +531,15 @@ public class Graph implements Serializable, AddBuilderAnnotation {
     /**
      * Get the {@link TurnRestriction} {@link List} that belongs to an {@link Edge} and return an
      * immutable copy. This method is thread-safe when used by itself, but not if addTurnRestriction
-     * or removeTurnRestriction is called concurrently.
+     * or removeTurnRestriction is called concurrently. This is called for each traversal of a
+     * street edge, the lookup is skipped for the street edges flagged without turn restrictions.
      * @param edge
      * @return The {@link TurnRestriction} {@link List} that belongs to the {@link Edge}
      */
     public List<TurnRestriction> getTurnRestrictions(Edge edge) {
+        if (edge instanceof StreetEdge && !((StreetEdge) edge).hasTurnRestrictions()) {
+            return Collections.emptyList();
+        }
         if (edge != null) {
             List<TurnRestriction> turnRestrictions = this.turnRestrictions.get(edge);
             if (turnRestrictions != null) {
@@ -507,7 +559,7 @@ public class Graph implements Serializable, AddBuilderAnnotation {
     }    
     
     public boolean containsVertex(Vertex v) {
-        return (v != null) && vertices.get(v.getLabel()) == v;
+        return (v != null) && vertices.contains(v);
     }
 
     @SuppressWarnings("unchecked")
@@ -541,7 +593,29 @@ public class Graph implements Serializable, AddBuilderAnnotation {
     }
 
     public void remove(Vertex vertex) {
-        vertices.remove(vertex.getLabel());
+        streetGraphVersion.incrementAndGet();
+        vertices.remove(vertex);
+    }
+
+    /**
+     * @return a number which changes whenever the street network is modified. Only equality between two
+     * values is meaningful.
+     */
+    public long getStreetGraphVersion() {
+        return streetGraphVersion.get();
+    }
+
+    /** Mark the street network as modified, dropping the caches derived from it. */
+    public void incrementStreetGraphVersion() {
+        streetGraphVersion.incrementAndGet();
+    }
+
+    /**
+     * @return a number which changes whenever the alert patches of the edges are modified, so whenever the alerts
+     * of a newly planned itinerary may differ. Only equality between two values is meaningful.
+     */
+    public long getAlertPatchesVersion() {
+        return alertPatchesVersion.get();
     }
 
     public void removeVertexAndEdges(Vertex vertex) {
@@ -691,6 +765,7 @@ public class Graph implements Serializable, AddBuilderAnnotation {
     public void index (StreetVertexIndexFactory indexFactory) {
         LOG.info("Building street index.");
         streetIndex = indexFactory.newIndex(this);
+        streetGraphVersion.incrementAndGet();
         LOG.info("Rebuilding edge and vertex indices.");
         Set<TripPattern> tableTripPatterns = Sets.newHashSet();
         for (PatternArriveVertex pav : Iterables.filter(this.getVertices(), PatternArriveVertex.class)) {
@@ -707,9 +782,36 @@ public class Graph implements Serializable, AddBuilderAnnotation {
         }
     }
     
+    /**
+     * Load a graph saved by {@link #save(DataSource)}. Graphs saved in the block-compressed format
+     * are decompressed in parallel, graphs saved as a plain Kryo stream by older versions are
+     * still read.
+     */
     public static Graph load(InputStream in) {
+        InputStream bufferedIn = in.markSupported() ? in : new BufferedInputStream(in);
+        try {
+            if (CompressedGraphInputStream.readMagic(bufferedIn)) {
+                LOG.debug("Reading block-compressed graph.");
+                try (Input input = new Input(new CompressedGraphInputStream(
+                        bufferedIn, SERIALIZATION_PARALLELISM, ForkJoinPool.commonPool()
+                ))) {
+                    return load(input, true);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         // TODO store version information, halt load if versions mismatch
-        Input input = new Input(in);
+        return load(new Input(bufferedIn), false);
+    }
+
+    /**
+     * @param edgeByEdge true if the edges are written one by one after their count, false if they
+     *                   are written as a single list (the legacy uncompressed format).
+     */
+    @SuppressWarnings("unchecked")
+    private static Graph load(Input input, boolean edgeByEdge) {
         Kryo kryo = makeKryo();
         Graph graph = (Graph) kryo.readClassAndObject(input);
         LOG.debug("Basic graph info read.");
@@ -719,19 +821,19 @@ public class Graph implements Serializable, AddBuilderAnnotation {
         // Vertex edge lists are transient to avoid excessive recursion depth during serialization.
         // vertex list is transient because it can be reconstructed from edges.
         LOG.debug("Loading edges...");
-        List<Edge> edges = (ArrayList<Edge>) kryo.readClassAndObject(input);
-        graph.vertices = new ConcurrentHashMap<>(); // why is this concurrent?
-
-        for (Edge e : edges) {
-            Vertex fromVertex = e.getFromVertex();
-            Vertex toVertex = e.getToVertex();
-            graph.vertices.put(fromVertex.getLabel(), fromVertex);
-            graph.vertices.put(toVertex.getLabel(), toVertex);
-            // Compensating for the fact that we're not using the standard Java de/serialization methods.
-            fromVertex.initEdgeListsIfNeeded();
-            toVertex.initEdgeListsIfNeeded();
-            fromVertex.addOutgoing(e);
-            toVertex.addIncoming(e);
+        graph.vertices = new VertexTable();
+
+        if (edgeByEdge) {
+            int nEdges = input.readInt(true);
+            for (int i = 0; i < nEdges; i++) {
+                graph.addLoadedEdge((Edge) kryo.readClassAndObject(input));
+            }
+        }
+        else {
+            List<Edge> edges = (ArrayList<Edge>) kryo.readClassAndObject(input);
+            for (Edge e : edges) {
+                graph.addLoadedEdge(e);
+            }
         }
 
         LOG.info("Main graph read. |V|={} |E|={}", graph.countVertices(), graph.countEdges());
@@ -739,6 +841,22 @@ public class Graph implements Serializable, AddBuilderAnnotation {
         return graph;
     }
 
+    private void addLoadedEdge(Edge e) {
+        Vertex fromVertex = e.getFromVertex();
+        Vertex toVertex = e.getToVertex();
+        if (!vertices.contains(fromVertex)) {
+            vertices.add(fromVertex);
+        }
+        if (!vertices.contains(toVertex)) {
+            vertices.add(toVertex);
+        }
+        // Compensating for the fact that we're not using the standard Java de/serialization methods.
+        fromVertex.initEdgeListsIfNeeded();
+        toVertex.initEdgeListsIfNeeded();
+        fromVertex.addOutgoing(e);
+        toVertex.addIncoming(e);
+    }
+
     /**
      * Compares the OTP version number stored in the graph with that of the currently running instance. Logs warnings explaining that mismatched
      * versions can cause problems.
@@ -818,25 +936,40 @@ public class Graph implements Serializable, AddBuilderAnnotation {
         return kryo;
     }
 
+    /**
+     * Save the graph in the block-compressed format: the Kryo stream is cut into blocks which are
+     * compressed in parallel, each with its own checksum (see {@link CompressedGraphOutputStream}).
+     * The edges are written one by one after the rest of the graph.
+     */
     public void save(DataSource graphSource) {
         LOG.info("Main graph size: |V|={} |E|={}", this.countVertices(), this.countEdges());
         LOG.info("Writing graph " + graphSource.path() + " ...");
         Kryo kryo = makeKryo();
-        LOG.debug("Consolidating edges...");
-        Output output = new Output(graphSource.asOutputStream());
-        // this is not space efficient
-        List<Edge> edges = new ArrayList<Edge>(this.countEdges());
-        for (Vertex v : getVertices()) {
-            // there are assumed to be no edges in an incoming list that are not
-            // in an outgoing list
-            edges.addAll(v.getOutgoing());
-            if (v.getDegreeOut() + v.getDegreeIn() == 0)
-                LOG.debug("vertex {} has no edges, it will not survive serialization.", v);
+        try (
+                OutputStream out = new CompressedGraphOutputStream(
+                        graphSource.asOutputStream(),
+                        CompressedGraphOutputStream.DEFAULT_BLOCK_SIZE,
+                        SERIALIZATION_PARALLELISM,
+                        ForkJoinPool.commonPool()
+                );
+                Output output = new Output(out)
+        ) {
+            kryo.writeClassAndObject(output, this);
+            LOG.debug("Writing edges...");
+            output.writeInt(this.countEdges(), true);
+            for (Vertex v : getVertices()) {
+                // there are assumed to be no edges in an incoming list that are not
+                // in an outgoing list
+                for (Edge e : v.getOutgoing()) {
+                    kryo.writeClassAndObject(output, e);
+                }
+                if (v.getDegreeOut() + v.getDegreeIn() == 0)
+                    LOG.debug("vertex {} has no edges, it will not survive serialization.", v);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        LOG.debug("Writing edges...");
-        kryo.writeClassAndObject(output, this);
-        kryo.writeClassAndObject(output, edges);
-        output.close();
         LOG.info("Graph written.");
         // Summarize serialized classes and associated serializers:
         // ((InstanceCountingClassResolver) kryo.getClassResolver()).summarize();
@@ -3,8 +3,6 @@ package org.opentripplanner.routing.graph;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import graphql.ExceptionWhileDataFetching;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
@@ -18,6 +16,7 @@ import org.opentripplanner.common.LuceneIndex;
 import org.opentripplanner.common.geometry.HashGridSpatialIndex;
 import org.opentripplanner.common.model.GenericLocation;
 import org.opentripplanner.gtfs.GtfsLibrary;
+import org.opentripplanner.index.GraphQLThreadPool;
 import org.opentripplanner.index.IndexGraphQLSchema;
 import org.opentripplanner.index.model.StopTimesInPattern;
 import org.opentripplanner.index.model.TripTimeShort;
@@ -62,6 +61,7 @@ import org.opentripplanner.routing.vertextype.ParkAndRideVertex;
 import org.opentripplanner.routing.vertextype.TransitStation;
 import org.opentripplanner.routing.vertextype.TransitStop;
 import org.opentripplanner.standalone.Router;
+import org.opentripplanner.updater.SiriTripIndex;
 import org.opentripplanner.updater.alerts.GtfsRealtimeAlertsUpdater;
 import org.opentripplanner.updater.alerts.SiriSXUpdater;
 import org.slf4j.Logger;
@@ -86,8 +86,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -104,7 +102,6 @@ public class GraphIndex {
     private static final Logger LOG = LoggerFactory.getLogger(GraphIndex.class);
 
     // TODO: consistently key on model object or id string
-    public final Map<String, Vertex> vertexForId = Maps.newHashMap();
     public final Map<String, Map<String, Agency>> agenciesForFeedId = Maps.newHashMap();
     public final Map<AgencyAndId, Operator> operatorForId = Maps.newHashMap();
     public final Map<String, FeedInfo> feedInfoForId = Maps.newHashMap();
@@ -134,6 +131,9 @@ public class GraphIndex {
     /* Full-text search extensions */
     public LuceneIndex luceneIndex;
 
+    /** Lookup tables for matching SIRI deliveries to trips, built by the first SIRI updater. */
+    private SiriTripIndex siriTripIndex;
+
     /* This is a workaround, and should probably eventually be removed. */
     public Graph graph;
 
@@ -144,7 +144,14 @@ public class GraphIndex {
 
     final GraphQLSchema indexSchema;
 
-    public final ExecutorService threadPool;
+    /**
+     * Fetches the top-level fields of GraphQL queries concurrently. When all its threads are busy
+     * fields are fetched in the thread running the query, so it can be shared by nested executions.
+     */
+    public final GraphQLThreadPool threadPool;
+
+    /** Runs the queries of GraphQL batch requests, rejecting them when its queue is full. */
+    public final GraphQLThreadPool batchThreadPool;
 
     public GraphIndex (Graph graph) {
         LOG.info("Indexing graph...");
@@ -164,20 +171,15 @@ public class GraphIndex {
 
 
         Collection<Edge> edges = graph.getEdges();
-        /* We will keep a separate set of all vertices in case some have the same label.
-         * Maybe we should just guarantee unique labels. */
-        Set<Vertex> vertices = Sets.newHashSet();
         for (Edge edge : edges) {
-            vertices.add(edge.getFromVertex());
-            vertices.add(edge.getToVertex());
             if (edge instanceof TablePatternEdge) {
                 TablePatternEdge patternEdge = (TablePatternEdge) edge;
                 TripPattern pattern = patternEdge.getPattern();
                 patternForId.put(pattern.code, pattern);
             }
         }
-        for (Vertex vertex : vertices) {
-            vertexForId.put(vertex.getLabel(), vertex);
+        /* The vertices are looked up by label in the graph itself, see Graph.getVertex(). */
+        for (Vertex vertex : graph.getVertices()) {
             if (vertex instanceof TransitStop) {
                 TransitStop transitStop = (TransitStop) vertex;
                 Stop stop = transitStop.getStop();
@@ -229,10 +231,10 @@ public class GraphIndex {
         calendarService = graph.getCalendarService();
         serviceCodes = graph.serviceCodes;
         this.graph = graph;
-        threadPool = Executors.newCachedThreadPool(
-            new ThreadFactoryBuilder().setNameFormat("GraphQLExecutor-" + graph.routerId + "-%d")
-                .build()
-        );
+        threadPool = GraphQLThreadPool.callerRuns("GraphQLFetcher-" + graph.routerId,
+            GraphQLThreadPool.DEFAULT_THREADS);
+        batchThreadPool = GraphQLThreadPool.bounded("GraphQLExecutor-" + graph.routerId,
+            GraphQLThreadPool.DEFAULT_THREADS, GraphQLThreadPool.DEFAULT_QUEUE_SIZE);
 
         indexSchema = new IndexGraphQLSchema(this).indexSchema;
         getLuceneIndex();
@@ -338,6 +340,18 @@ public class GraphIndex {
         return results.subList(0, min(results.size(), maxResults));
     }
 
+    /**
+     * Return the immutable lookup tables of the SIRI fuzzy trip matchers of this graph, building them
+     * if needed. Matchers are created when the updaters are set up, so this happens at startup rather
+     * than on the first delivery.
+     */
+    public synchronized SiriTripIndex getSiriTripIndex() {
+        if (siriTripIndex == null) {
+            siriTripIndex = new SiriTripIndex(this);
+        }
+        return siriTripIndex;
+    }
+
     public LuceneIndex getLuceneIndex() {
         synchronized (this) {
             if (luceneIndex == null) {
@@ -796,7 +810,18 @@ public class GraphIndex {
                         }
                     }
 
-                    for (final TripTimes triptimes : tt.tripTimes) {
+                    // Scan the trips in order of departure from the start time, until enough
+                    // departures are found. Cancelled stops are sorted on their scheduled time, but the
+                    // queue keeps the earliest realtime departures, so their scan can not stop early.
+                    final Timetable.StopDepartures departures = tt.getDepartures(stopIndex);
+                    final boolean stopAtNumberOfDepartures = !includePlannedCancellations && !includeRealtimeCancellations;
+                    int accepted = 0;
+                    for (int i = departures.firstAtOrAfter(starttimeSecondsSinceMidnight); i < departures.size(); i++) {
+                        if (departures.times[i] >= starttimeSecondsSinceMidnight + timeRange
+                                || (stopAtNumberOfDepartures && accepted >= numberOfDepartures)) {
+                            break;
+                        }
+                        final TripTimes triptimes = departures.tripTimes[i];
 
                         if (!includeRealtimeCancellations && !sd.serviceRunning(triptimes.serviceCode)) {
                             continue;
@@ -838,6 +863,7 @@ public class GraphIndex {
 
                             if (includeByCancellation & includeByDepartureTime) {
                                 tripTimesQueue.insertWithOverflow(new TripTimeShort(triptimes, stopIndex, currStop, sd));
+                                accepted++;
                             }
                         }
                     }
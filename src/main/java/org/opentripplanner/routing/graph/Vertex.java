@@ -43,12 +43,17 @@ public abstract class Vertex implements Serializable, Cloneable {
 
     private static final Logger LOG = LoggerFactory.getLogger(Vertex.class);
 
-    /** @see #getLabel */
-    private final String label;
+    private static final I18NString NO_NAME = new NonLocalizedString("(no name provided)");
+
+    /** @see #getLabel, null when the label is derived from the other fields, see #deriveLabel */
+    private String label;
     
-    /* Longer human-readable name for the client */
+    /* Longer human-readable name for the client, the label when null */
     private I18NString name;
 
+    /** @see #getIndex */
+    private transient int indexInGraph = -1;
+
     private final double x;
 
     private final double y;
@@ -68,7 +73,7 @@ public abstract class Vertex implements Serializable, Cloneable {
         if (g != null) {
             g.addVertex(this);
         }
-        this.name = new NonLocalizedString("(no name provided)");
+        this.name = NO_NAME;
     }
 
     protected Vertex(Graph g, String label, double x, double y, I18NString name) {
@@ -225,26 +230,62 @@ public abstract class Vertex implements Serializable, Cloneable {
     /** If this vertex is located on only one street, get that street's name
      * in english localization */
     public String getName() {
-        return this.name.toString();
+        return name != null ? name.toString() : getLabel();
     }
 
     /** If this vertex is located on only one street, get that street's name
      * in provided localization
      * @param locale wanted localization */
     public String getName(Locale locale) {
-        return this.name.toString(locale);
+        return name != null ? name.toString(locale) : getLabel();
     }
 
 
     /* FIELD ACCESSOR METHODS : READ ONLY */
 
     /**
-     * Every vertex has a label which is globally unique.
+     * Every vertex has a label which is globally unique. The labels of the vertices created by
+     * the millions, like the OSM vertices, are not stored but derived again on each call (see
+     * {@link #deriveLabel()}).
      * Implementation detail: The method must be <b>final</b>, because it is used indirectly by
      * the constructor in the {@link Graph#addVertex(Vertex)} method.
      */
     public final String getLabel() {
-        return label;
+        return label != null ? label : deriveLabel();
+    }
+
+    /**
+     * The index of this vertex in its graph. The indexes are dense, from 0 to
+     * {@link Graph#getVertexIndexLimit()}, so that they can be used to keep data about the
+     * vertices in arrays. The index of a temporary vertex, or of a vertex removed from the graph,
+     * is -1. The indexes are assigned again when the graph is loaded.
+     */
+    @XmlTransient
+    public int getIndex() {
+        return indexInGraph;
+    }
+
+    void setIndex(int index) {
+        this.indexInGraph = index;
+    }
+
+    /**
+     * @return the label of this vertex computed from its own final fields, or null if the label
+     * has to be stored.
+     */
+    protected String deriveLabel() {
+        return null;
+    }
+
+    /**
+     * Stop storing the label of this vertex if {@link #deriveLabel()} gives it back. To be called
+     * at the end of the constructors of the subclasses deriving their labels: the label is needed
+     * to add the vertex to the graph before their own fields are set.
+     */
+    protected final void dropDerivableLabel() {
+        if (label != null && label.equals(deriveLabel())) {
+            label = null;
+        }
     }
 
     @XmlTransient
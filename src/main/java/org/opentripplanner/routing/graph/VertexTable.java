@@ -0,0 +1,224 @@
+package org.opentripplanner.routing.graph;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The vertices of a graph, numbered with dense indexes and looked up by label.
+ * <p>
+ * The vertices are kept in an array at their index (see {@link Vertex#getIndex()}), and the label
+ * lookup is an open addressing table of indexes with the hash of each label next to it, so that
+ * the labels derived on demand (see {@link Vertex#getLabel()}) are only computed for the vertices
+ * with a matching hash. This takes about 16 bytes per vertex, where a hash map keyed by label
+ * takes about 40 bytes, not counting the label strings.
+ * <p>
+ * The index of a removed vertex is not reused, the indexes are only compacted when the graph is
+ * loaded again. The changes and the lookups by label are synchronized. The iteration over
+ * {@link #values()} does not lock: like the iterators of a concurrent map, it may or may not see
+ * the changes made meanwhile.
+ */
+final class VertexTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The vertices at their index, null for the removed vertices. */
+    private volatile Vertex[] vertices = new Vertex[INITIAL_CAPACITY];
+
+    /** The index of the next vertex added. */
+    private int end = 0;
+
+    private volatile int size = 0;
+
+    /** The index + 1 of the vertex with a label hashing to each slot, 0 for an empty slot. */
+    private int[] slots = new int[2 * INITIAL_CAPACITY];
+
+    /** The hash of the label of the vertex in each slot. */
+    private int[] hashes = new int[2 * INITIAL_CAPACITY];
+
+    /**
+     * Add the given vertex with a new index, replacing any other vertex with the same label.
+     * @return the vertex previously registered with the label of the given vertex, which is the
+     * given vertex itself if it was already added, or null.
+     */
+    synchronized Vertex add(Vertex vertex) {
+        String label = vertex.getLabel();
+        int hash = hash(label);
+        if (2 * (size + 1) > slots.length) {
+            rehash(2 * slots.length);
+        }
+        int slot = find(label, hash);
+        Vertex old = null;
+        if (slots[slot] != 0) {
+            old = vertices[slots[slot] - 1];
+            if (old == vertex) {
+                return vertex;
+            }
+            vertices[old.getIndex()] = null;
+            old.setIndex(-1);
+            size--;
+        }
+        if (end == vertices.length) {
+            vertices = Arrays.copyOf(vertices, end + (end >> 1));
+        }
+        vertex.setIndex(end);
+        vertices[end] = vertex;
+        end++;
+        size++;
+        slots[slot] = end;
+        hashes[slot] = hash;
+        return old;
+    }
+
+    /** @return true if the given vertex was in this table and is removed. */
+    synchronized boolean remove(Vertex vertex) {
+        if (!contains(vertex)) {
+            return false;
+        }
+        deleteSlot(find(vertex.getLabel(), hash(vertex.getLabel())));
+        vertices[vertex.getIndex()] = null;
+        vertex.setIndex(-1);
+        size--;
+        return true;
+    }
+
+    /** @return the vertex with the given label, or null. */
+    synchronized Vertex get(String label) {
+        if (label == null) {
+            return null;
+        }
+        int slot = find(label, hash(label));
+        return slots[slot] == 0 ? null : vertices[slots[slot] - 1];
+    }
+
+    /** @return the vertex with the given index, or null if there is none. */
+    Vertex get(int index) {
+        Vertex[] vertices = this.vertices;
+        return index >= 0 && index < vertices.length ? vertices[index] : null;
+    }
+
+    boolean contains(Vertex vertex) {
+        return get(vertex.getIndex()) == vertex;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** @return an upper bound of the indexes of the vertices, to size the arrays indexed by them. */
+    synchronized int indexLimit() {
+        return end;
+    }
+
+    /** @return a view of the vertices, in the order they were added. */
+    Collection<Vertex> values() {
+        return new AbstractCollection<Vertex>() {
+            @Override
+            public Iterator<Vertex> iterator() {
+                return new VertexIterator(vertices);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+
+    /* private methods */
+
+    /** @return the slot of the vertex with the given label, or the empty slot where it belongs. */
+    private int find(String label, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            if (slots[slot] == 0
+                    || (hashes[slot] == hash && label.equals(vertices[slots[slot] - 1].getLabel()))) {
+                return slot;
+            }
+        }
+    }
+
+    /** Empty the given slot, moving back the following entries which would not be found anymore. */
+    private void deleteSlot(int slot) {
+        int mask = slots.length - 1;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (slots[next] == 0) {
+                break;
+            }
+            int home = hashes[next] & mask;
+            // Move the entry unless its home slot is cyclically within (slot, next]
+            boolean reachable = slot <= next
+                    ? slot < home && home <= next
+                    : slot < home || home <= next;
+            if (!reachable) {
+                slots[slot] = slots[next];
+                hashes[slot] = hashes[next];
+                slot = next;
+            }
+        }
+        slots[slot] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        slots = new int[capacity];
+        hashes = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int slot = oldHashes[i] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    /** Spread the bits of the label hash code, the labels often differ in their last digits only. */
+    private static int hash(String label) {
+        int h = label.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static class VertexIterator implements Iterator<Vertex> {
+        private final Vertex[] vertices;
+        private int index = 0;
+        private Vertex next;
+
+        VertexIterator(Vertex[] vertices) {
+            this.vertices = vertices;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Vertex next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Vertex vertex = next;
+            advance();
+            return vertex;
+        }
+
+        /** Skip the removed vertices. */
+        private void advance() {
+            next = null;
+            while (next == null && index < vertices.length) {
+                next = vertices[index++];
+            }
+        }
+    }
+}
@@ -19,23 +19,55 @@ import org.opentripplanner.routing.alertpatch.AlertPatch;
 import org.opentripplanner.routing.edgetype.TripPattern;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.services.AlertPatchService;
-
-import java.util.*;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
-
+import org.opentripplanner.util.monitoring.Gauge;
+import org.opentripplanner.util.monitoring.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the alert patches of one updater, indexed by the entities they apply to.
+ *
+ * Readers, such as itinerary generation, use the current {@link AlertIndex} without locking. An
+ * index is never modified once published: each change (one call to apply, applyAll or one of the
+ * expire methods) copies the maps and sets it touches, leaving the rest shared with the previous
+ * index, and then replaces the current index atomically. Changes are serialized.
+ *
+ * The end times of the patches are kept in a set ordered on them, so that
+ * {@link #expireEndedBefore(long)} removes the ended patches without scanning all the patches.
+ */
 public class AlertPatchServiceImpl implements AlertPatchService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AlertPatchServiceImpl.class);
+
     private Graph graph;
 
-    private Map<String, AlertPatch> alertPatches = new ConcurrentHashMap<>();
-    private Map<AgencyAndId, Set<AlertPatch>> patchesByRoute = new ConcurrentHashMap<>();
-    private Map<AgencyAndId, Set<AlertPatch>> patchesByStop = new ConcurrentHashMap<>();
-    private Map<StopAndRouteOrTripKey, Set<AlertPatch>> patchesByStopAndRoute = new ConcurrentHashMap<>();
-    private Map<StopAndRouteOrTripKey, Set<AlertPatch>> patchesByStopAndTrip = new ConcurrentHashMap<>();
-    private Map<AgencyAndId, Set<AlertPatch>> patchesByTrip = new ConcurrentHashMap<>();
-    private Map<String, Set<AlertPatch>> patchesByAgency = new ConcurrentHashMap<>();
-    private Map<String, Set<AlertPatch>> patchesByTripPattern = new ConcurrentHashMap<>();
+    private volatile AlertIndex index = new AlertIndex();
+
+    /** The end times of the current patches which have one, ordered on them. */
+    private final NavigableSet<EndTime> endTimes = new TreeSet<>();
+
+    /** The entries of {@link #endTimes} by patch id. */
+    private final Map<String, EndTime> endTimesById = new HashMap<>();
+
+    private final List<Gauge> gauges = new ArrayList<>();
+
+    private long updateCount = 0;
+
+    private long totalUpdateNanos = 0;
+
+    private long lastUpdateNanos = 0;
 
     public AlertPatchServiceImpl(Graph graph) {
         this.graph = graph;
@@ -43,30 +75,30 @@ public class AlertPatchServiceImpl implements AlertPatchService {
 
     @Override
     public Collection<AlertPatch> getAllAlertPatches() {
-        return alertPatches.values();
+        return Collections.unmodifiableCollection(index.patches.values());
     }
 
     @Override
     public AlertPatch getPatchById(String id) {
-        return alertPatches.get(id);
+        return index.patches.get(id);
     }
 
     @Override
     public Collection<AlertPatch> getStopPatches(AgencyAndId stop) {
-        Set<AlertPatch> result = patchesByStop.get(stop);
-        if (result == null || result.isEmpty()) {
-            result = new HashSet<>();
+        AlertIndex index = this.index;
+        Set<AlertPatch> result = copy(index.patchesByStop.get(stop));
+        if (result.isEmpty()) {
             // Search for alerts on parent-stop
             if (graph != null && graph.index != null) {
                 Stop quay = graph.index.stopForId.get(stop);
                 if (quay != null) {
                     if ( quay.getParentStation() != null) {
                         // Add alerts for parent-station
-                        result.addAll(patchesByStop.getOrDefault(quay.getParentStationAgencyAndId(), Collections.emptySet()));
+                        result.addAll(index.patchesByStop.getOrDefault(quay.getParentStationAgencyAndId(), Collections.emptySet()));
                     }
                     if (quay.getMultiModalStation() != null) {
                         // Add alerts for multimodal-station
-                        result.addAll(patchesByStop.getOrDefault(new AgencyAndId(stop.getAgencyId(), quay.getMultiModalStation()), Collections.emptySet()));
+                        result.addAll(index.patchesByStop.getOrDefault(new AgencyAndId(stop.getAgencyId(), quay.getMultiModalStation()), Collections.emptySet()));
                     }
                 }
             }
@@ -76,212 +108,398 @@ public class AlertPatchServiceImpl implements AlertPatchService {
 
     @Override
     public Collection<AlertPatch> getRoutePatches(AgencyAndId route) {
-        Set<AlertPatch> result = new HashSet<>();
-        if (route != null && patchesByRoute.containsKey(route)) {
-            result.addAll(patchesByRoute.get(route));
-        }
-
-        return result;
-
+        return route == null ? new HashSet<>() : copy(index.patchesByRoute.get(route));
     }
 
     @Override
     public Collection<AlertPatch> getTripPatches(AgencyAndId trip) {
-        Set<AlertPatch> result = new HashSet<>();
-        if (trip != null && patchesByTrip.containsKey(trip)) {
-            result.addAll(patchesByTrip.get(trip));
-        }
-        return result;
+        return trip == null ? new HashSet<>() : copy(index.patchesByTrip.get(trip));
     }
 
-
     @Override
     public Collection<AlertPatch> getAgencyPatches(String agency) {
-        Set<AlertPatch> result = new HashSet<>();
-        if (agency != null && patchesByAgency.containsKey(agency)) {
-            result.addAll(patchesByAgency.get(agency));
-        }
-        return result;
+        return agency == null ? new HashSet<>() : copy(index.patchesByAgency.get(agency));
     }
 
     @Override
     public Collection<AlertPatch> getStopAndRoutePatches(AgencyAndId stop, AgencyAndId route) {
-        Set<AlertPatch> result = new HashSet<>();
-        StopAndRouteOrTripKey key = new StopAndRouteOrTripKey(stop, route);
-        if (patchesByStopAndRoute.containsKey(key)) {
-            result.addAll(patchesByStopAndRoute.get(key));
-        }
-        return result;
+        return copy(index.patchesByStopAndRoute.get(new StopAndRouteOrTripKey(stop, route)));
     }
 
     @Override
     public Collection<AlertPatch> getStopAndTripPatches(AgencyAndId stop, AgencyAndId trip) {
-        Set<AlertPatch> result = new HashSet<>();
-        StopAndRouteOrTripKey key = new StopAndRouteOrTripKey(stop, trip);
-        if (patchesByStopAndTrip.containsKey(key)) {
-            result.addAll(patchesByStopAndTrip.get(key));
-        }
-        return result;
+        return copy(index.patchesByStopAndTrip.get(new StopAndRouteOrTripKey(stop, trip)));
     }
 
     @Override
     public Collection<AlertPatch> getTripPatternPatches(TripPattern pattern) {
-        Set<AlertPatch> result = new HashSet<>();
-        if (pattern != null && pattern.code != null && patchesByTripPattern.containsKey(pattern.code)) {
-            result.addAll(patchesByTripPattern.get(pattern.code));
+        if (pattern == null || pattern.code == null) {
+            return new HashSet<>();
         }
-        return result;
+        return copy(index.patchesByTripPattern.get(pattern.code));
     }
 
     @Override
-    public synchronized void applyAll(Set<AlertPatch> alertPatches) {
-        for (AlertPatch alertPatch : alertPatches) {
-            apply(alertPatch);
-        }
+    public Collection<AlertPatch> getSituationPatches(String situationNumber) {
+        return situationNumber == null ? new HashSet<>() : copy(index.patchesBySituation.get(situationNumber));
     }
 
     @Override
-    public synchronized void apply(AlertPatch alertPatch) {
-        if (alertPatches.containsKey(alertPatch.getId())) {
-            expire(alertPatches.get(alertPatch.getId()));
-        }
-
-        alertPatch.apply(graph);
-        alertPatches.put(alertPatch.getId(), alertPatch);
-
-        AgencyAndId stop = alertPatch.getStop();
-        AgencyAndId route = alertPatch.getRoute();
-        AgencyAndId trip = alertPatch.getTrip();
-
-        if (stop != null && trip != null) {
-            StopAndRouteOrTripKey key = new StopAndRouteOrTripKey(stop, trip);
-            Set<AlertPatch> set = patchesByStopAndTrip.getOrDefault(key, new HashSet());
-            set.add(alertPatch);
-            patchesByStopAndTrip.put(key, set);
-        } else if (stop != null && route != null) {
-            StopAndRouteOrTripKey key = new StopAndRouteOrTripKey(stop, route);
-            Set<AlertPatch> set = patchesByStopAndRoute.getOrDefault(key, new HashSet());
-            set.add(alertPatch);
-            patchesByStopAndRoute.put(key, set);
-        } else {
-            if (stop != null) {
-                Set<AlertPatch> set = patchesByStop.getOrDefault(stop, new HashSet());
-                set.add(alertPatch);
-                patchesByStop.put(stop, set);
+    public void applyAll(Set<AlertPatch> alertPatches) {
+        update(update -> {
+            for (AlertPatch alertPatch : alertPatches) {
+                update.apply(alertPatch);
             }
+        });
+    }
 
-            if (route != null) {
-                Set<AlertPatch> set = patchesByRoute.getOrDefault(route, new HashSet());
-                set.add(alertPatch);
-                patchesByRoute.put(route, set);
+    @Override
+    public void apply(AlertPatch alertPatch) {
+        update(update -> update.apply(alertPatch));
+    }
+
+    @Override
+    public void expire(Set<String> purge) {
+        update(update -> {
+            for (String patchId : purge) {
+                update.expire(patchId);
             }
+        });
+    }
 
-            if (trip != null) {
-                Set<AlertPatch> set = patchesByTrip.getOrDefault(trip, new HashSet());
-                set.add(alertPatch);
-                patchesByTrip.put(trip, set);
+    @Override
+    public void expireAll() {
+        update(update -> {
+            for (String patchId : new ArrayList<>(index.patches.keySet())) {
+                update.expire(patchId);
             }
-        }
+        });
+    }
 
-        String agency = alertPatch.getAgency();
-        if (agency != null && !agency.isEmpty()) {
-            Set<AlertPatch> set = (Set) patchesByAgency.getOrDefault(agency, new HashSet());
-            set.add(alertPatch);
-            patchesByAgency.put(agency, set);
-        }
+    @Override
+    public void expireAllExcept(Set<String> retain) {
+        update(update -> {
+            for (String patchId : new ArrayList<>(index.patches.keySet())) {
+                if (!retain.contains(patchId)) {
+                    update.expire(patchId);
+                }
+            }
+        });
+    }
 
-        List<TripPattern> tripPatterns = alertPatch.getTripPatterns();
-        if (tripPatterns != null) {
-            for (TripPattern pattern : tripPatterns) {
-                Set<AlertPatch> set = patchesByTripPattern.getOrDefault(pattern.code, new HashSet());
-                set.add(alertPatch);
-                patchesByTripPattern.put(pattern.code, set);
+    @Override
+    public void expireEndedBefore(long time) {
+        update(update -> {
+            while (!endTimes.isEmpty() && endTimes.first().endTime < time) {
+                EndTime ended = endTimes.pollFirst();
+                endTimesById.remove(ended.patchId);
+                update.expire(ended.patchId);
             }
-        }
+        });
+    }
 
+    /** @return the version of the alert index, incremented by each change. */
+    public long getIndexVersion() {
+        return index.version;
     }
 
+    /** @return the number of patches in the alert index. */
+    public int getIndexSize() {
+        return index.patches.size();
+    }
 
-    @Override
-    public void expire(Set<String> purge) {
-        for (String patchId : purge) {
-            if (alertPatches.containsKey(patchId)) {
-                expire(alertPatches.get(patchId));
-            }
-        }
+    /** @return the number of patches with an end time, for testing. */
+    synchronized int getEndTimeCount() {
+        return endTimes.size();
+    }
 
-        alertPatches.keySet().removeAll(purge);
+    public synchronized long getUpdateCount() {
+        return updateCount;
     }
 
-    @Override
-    public void expireAll() {
-        for (AlertPatch alertPatch : alertPatches.values()) {
-            expire(alertPatch);
+    /** @return the average time spent applying one change to the alert index, in milliseconds. */
+    public synchronized double getAverageUpdateMillis() {
+        return updateCount == 0 ? 0 : totalUpdateNanos / 1e6 / updateCount;
+    }
+
+    public synchronized double getLastUpdateMillis() {
+        return lastUpdateNanos / 1e6;
+    }
+
+    /**
+     * Report the version and size of the alert index and the time taken by its updates, under the
+     * given labels, until {@link #unregisterMetrics()} is called.
+     */
+    public synchronized void registerMetrics(String... labels) {
+        gauges.add(Metrics.REGISTRY.gauge("otp_alert_index_version",
+                "Version of the alert index, incremented by each change.", this::getIndexVersion, labels));
+        gauges.add(Metrics.REGISTRY.gauge("otp_alert_index_size",
+                "Number of alert patches in the alert index.", this::getIndexSize, labels));
+        gauges.add(Metrics.REGISTRY.gauge("otp_alert_index_update_average_millis",
+                "Average time spent applying one change to the alert index.", this::getAverageUpdateMillis,
+                labels));
+        gauges.add(Metrics.REGISTRY.gauge("otp_alert_index_update_last_millis",
+                "Time spent applying the last change to the alert index.", this::getLastUpdateMillis, labels));
+    }
+
+    public synchronized void unregisterMetrics() {
+        for (Gauge gauge : gauges) {
+            Metrics.REGISTRY.remove(gauge);
         }
-        alertPatches.clear();
+        gauges.clear();
     }
 
-    @Override
-    public void expireAllExcept(Set<String> retain) {
-        ArrayList<String> toRemove = new ArrayList<String>();
+    private synchronized void update(Consumer<Update> changes) {
+        long start = System.nanoTime();
+        Update update = new Update(index);
+        changes.accept(update);
+        index = update.build();
+        lastUpdateNanos = System.nanoTime() - start;
+        totalUpdateNanos += lastUpdateNanos;
+        updateCount++;
+        LOG.debug("Alert index version {} has {} patches, updated in {} ms.", index.version,
+                index.patches.size(), lastUpdateNanos / 1e6);
+    }
 
-        for (Entry<String, AlertPatch> entry : alertPatches.entrySet()) {
-            final String key = entry.getKey();
-            if (!retain.contains(key)) {
-                toRemove.add(key);
-                expire(entry.getValue());
-            }
+    private static Set<AlertPatch> copy(Set<AlertPatch> alertPatches) {
+        return alertPatches == null ? new HashSet<>() : new HashSet<>(alertPatches);
+    }
+
+    /** The alert patches and their secondary indexes, never modified once published. */
+    private static class AlertIndex {
+        final long version;
+        final Map<String, AlertPatch> patches;
+        final Map<AgencyAndId, Set<AlertPatch>> patchesByRoute;
+        final Map<AgencyAndId, Set<AlertPatch>> patchesByStop;
+        final Map<StopAndRouteOrTripKey, Set<AlertPatch>> patchesByStopAndRoute;
+        final Map<StopAndRouteOrTripKey, Set<AlertPatch>> patchesByStopAndTrip;
+        final Map<AgencyAndId, Set<AlertPatch>> patchesByTrip;
+        final Map<String, Set<AlertPatch>> patchesByAgency;
+        final Map<String, Set<AlertPatch>> patchesByTripPattern;
+        final Map<String, Set<AlertPatch>> patchesBySituation;
+
+        AlertIndex() {
+            this(0, new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>(),
+                    new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashMap<>());
+        }
+
+        AlertIndex(long version, Map<String, AlertPatch> patches,
+                Map<AgencyAndId, Set<AlertPatch>> patchesByRoute,
+                Map<AgencyAndId, Set<AlertPatch>> patchesByStop,
+                Map<StopAndRouteOrTripKey, Set<AlertPatch>> patchesByStopAndRoute,
+                Map<StopAndRouteOrTripKey, Set<AlertPatch>> patchesByStopAndTrip,
+                Map<AgencyAndId, Set<AlertPatch>> patchesByTrip,
+                Map<String, Set<AlertPatch>> patchesByAgency,
+                Map<String, Set<AlertPatch>> patchesByTripPattern,
+                Map<String, Set<AlertPatch>> patchesBySituation) {
+            this.version = version;
+            this.patches = patches;
+            this.patchesByRoute = patchesByRoute;
+            this.patchesByStop = patchesByStop;
+            this.patchesByStopAndRoute = patchesByStopAndRoute;
+            this.patchesByStopAndTrip = patchesByStopAndTrip;
+            this.patchesByTrip = patchesByTrip;
+            this.patchesByAgency = patchesByAgency;
+            this.patchesByTripPattern = patchesByTripPattern;
+            this.patchesBySituation = patchesBySituation;
         }
-        alertPatches.keySet().removeAll(toRemove);
     }
 
-    private void expire(AlertPatch alertPatch) {
-        AgencyAndId stop = alertPatch.getStop();
-        AgencyAndId route = alertPatch.getRoute();
-        AgencyAndId trip = alertPatch.getTrip();
+    /**
+     * A map of sets of patches which copies the map of an index on its first change, and each of its
+     * sets on their first change, so that the index is left untouched.
+     */
+    private static class SetMapUpdate<K> {
+        private final Map<K, Set<AlertPatch>> original;
+        private Map<K, Set<AlertPatch>> copy;
+        private final Set<K> copiedKeys = new HashSet<>();
+
+        SetMapUpdate(Map<K, Set<AlertPatch>> original) {
+            this.original = original;
+        }
 
-        if (stop != null) {
-            removeAlertPatch(patchesByStop.get(stop), alertPatch);
+        void add(K key, AlertPatch alertPatch) {
+            set(key).add(alertPatch);
         }
 
-        if (route != null) {
-            removeAlertPatch(patchesByRoute.get(route), alertPatch);
+        void remove(K key, AlertPatch alertPatch) {
+            Set<AlertPatch> current = copy == null ? original.get(key) : copy.get(key);
+            if (current == null || !current.contains(alertPatch)) {
+                return;
+            }
+            Set<AlertPatch> set = set(key);
+            set.remove(alertPatch);
+            if (set.isEmpty()) {
+                copy.remove(key);
+                // A patch added later on under the same key needs a new set
+                copiedKeys.remove(key);
+            }
         }
 
-        if (trip != null) {
-            removeAlertPatch(patchesByTrip.get(trip), alertPatch);
+        private Set<AlertPatch> set(K key) {
+            if (copy == null) {
+                copy = new HashMap<>(original);
+            }
+            if (copiedKeys.add(key)) {
+                Set<AlertPatch> set = copy.get(key);
+                copy.put(key, set == null ? new HashSet<>() : new HashSet<>(set));
+            }
+            return copy.get(key);
         }
 
-        if (stop != null && route != null) {
-            removeAlertPatch(patchesByStopAndRoute.get(new StopAndRouteOrTripKey(stop, route)), alertPatch);
+        Map<K, Set<AlertPatch>> build() {
+            return copy == null ? original : copy;
         }
+    }
 
-        if (stop != null && trip != null) {
-            removeAlertPatch(patchesByStopAndTrip.get(new StopAndRouteOrTripKey(stop, trip)), alertPatch);
+    /** The changes to the current index, only used by the thread applying them. */
+    private class Update {
+        private final AlertIndex base;
+        private Map<String, AlertPatch> patches;
+        private boolean patchesCopied = false;
+        private final SetMapUpdate<AgencyAndId> patchesByRoute;
+        private final SetMapUpdate<AgencyAndId> patchesByStop;
+        private final SetMapUpdate<StopAndRouteOrTripKey> patchesByStopAndRoute;
+        private final SetMapUpdate<StopAndRouteOrTripKey> patchesByStopAndTrip;
+        private final SetMapUpdate<AgencyAndId> patchesByTrip;
+        private final SetMapUpdate<String> patchesByAgency;
+        private final SetMapUpdate<String> patchesByTripPattern;
+        private final SetMapUpdate<String> patchesBySituation;
+
+        Update(AlertIndex base) {
+            this.base = base;
+            patches = base.patches;
+            patchesByRoute = new SetMapUpdate<>(base.patchesByRoute);
+            patchesByStop = new SetMapUpdate<>(base.patchesByStop);
+            patchesByStopAndRoute = new SetMapUpdate<>(base.patchesByStopAndRoute);
+            patchesByStopAndTrip = new SetMapUpdate<>(base.patchesByStopAndTrip);
+            patchesByTrip = new SetMapUpdate<>(base.patchesByTrip);
+            patchesByAgency = new SetMapUpdate<>(base.patchesByAgency);
+            patchesByTripPattern = new SetMapUpdate<>(base.patchesByTripPattern);
+            patchesBySituation = new SetMapUpdate<>(base.patchesBySituation);
         }
 
-        String agency = alertPatch.getAgency();
-        if (agency != null) {
-            removeAlertPatch(patchesByAgency.get(agency), alertPatch);
+        void apply(AlertPatch alertPatch) {
+            expire(alertPatch.getId());
+
+            alertPatch.apply(graph);
+            copyPatches();
+            patches.put(alertPatch.getId(), alertPatch);
+            long endTime = alertPatch.getEndTime();
+            if (endTime != Long.MAX_VALUE) {
+                EndTime entry = new EndTime(endTime, alertPatch.getId());
+                endTimes.add(entry);
+                endTimesById.put(entry.patchId, entry);
+            }
+
+            AgencyAndId stop = alertPatch.getStop();
+            AgencyAndId route = alertPatch.getRoute();
+            AgencyAndId trip = alertPatch.getTrip();
+
+            if (stop != null && trip != null) {
+                patchesByStopAndTrip.add(new StopAndRouteOrTripKey(stop, trip), alertPatch);
+            } else if (stop != null && route != null) {
+                patchesByStopAndRoute.add(new StopAndRouteOrTripKey(stop, route), alertPatch);
+            } else {
+                if (stop != null) {
+                    patchesByStop.add(stop, alertPatch);
+                }
+                if (route != null) {
+                    patchesByRoute.add(route, alertPatch);
+                }
+                if (trip != null) {
+                    patchesByTrip.add(trip, alertPatch);
+                }
+            }
+
+            String agency = alertPatch.getAgency();
+            if (agency != null && !agency.isEmpty()) {
+                patchesByAgency.add(agency, alertPatch);
+            }
+
+            for (TripPattern pattern : alertPatch.getTripPatterns()) {
+                patchesByTripPattern.add(pattern.code, alertPatch);
+            }
+
+            if (alertPatch.getSituationNumber() != null) {
+                patchesBySituation.add(alertPatch.getSituationNumber(), alertPatch);
+            }
         }
 
-        List<TripPattern> tripPatterns = alertPatch.getTripPatterns();
-        if (tripPatterns != null) {
-            for (TripPattern pattern : tripPatterns) {
-                removeAlertPatch(patchesByTripPattern.get(pattern), alertPatch);
+        void expire(String patchId) {
+            if (!patches.containsKey(patchId)) {
+                return;
+            }
+            copyPatches();
+            AlertPatch alertPatch = patches.remove(patchId);
+            EndTime endTime = endTimesById.remove(patchId);
+            if (endTime != null) {
+                endTimes.remove(endTime);
+            }
+            AgencyAndId stop = alertPatch.getStop();
+            AgencyAndId route = alertPatch.getRoute();
+            AgencyAndId trip = alertPatch.getTrip();
+
+            if (stop != null) {
+                patchesByStop.remove(stop, alertPatch);
+            }
+            if (route != null) {
+                patchesByRoute.remove(route, alertPatch);
+            }
+            if (trip != null) {
+                patchesByTrip.remove(trip, alertPatch);
             }
+            if (stop != null && route != null) {
+                patchesByStopAndRoute.remove(new StopAndRouteOrTripKey(stop, route), alertPatch);
+            }
+            if (stop != null && trip != null) {
+                patchesByStopAndTrip.remove(new StopAndRouteOrTripKey(stop, trip), alertPatch);
+            }
+            String agency = alertPatch.getAgency();
+            if (agency != null) {
+                patchesByAgency.remove(agency, alertPatch);
+            }
+            for (TripPattern pattern : alertPatch.getTripPatterns()) {
+                patchesByTripPattern.remove(pattern.code, alertPatch);
+            }
+            if (alertPatch.getSituationNumber() != null) {
+                patchesBySituation.remove(alertPatch.getSituationNumber(), alertPatch);
+            }
+            alertPatch.remove(graph);
+        }
+
+        private void copyPatches() {
+            if (!patchesCopied) {
+                patches = new HashMap<>(patches);
+                patchesCopied = true;
+            }
+        }
+
+        AlertIndex build() {
+            return new AlertIndex(base.version + 1, patches, patchesByRoute.build(), patchesByStop.build(),
+                    patchesByStopAndRoute.build(), patchesByStopAndTrip.build(), patchesByTrip.build(),
+                    patchesByAgency.build(), patchesByTripPattern.build(), patchesBySituation.build());
         }
-        alertPatch.remove(graph);
     }
 
-    private void removeAlertPatch(Set<AlertPatch> alertPatches, AlertPatch alertPatch) {
+    /** The end time of a patch, as it was when the patch was applied. */
+    private static class EndTime implements Comparable<EndTime> {
+        final long endTime;
+        final String patchId;
 
-        if (alertPatches != null) {
-            alertPatches.remove(alertPatch);
+        EndTime(long endTime, String patchId) {
+            this.endTime = endTime;
+            this.patchId = patchId;
+        }
+
+        @Override
+        public int compareTo(EndTime other) {
+            int result = Long.compare(endTime, other.endTime);
+            return result != 0 ? result : patchId.compareTo(other.patchId);
         }
     }
 
-    private class StopAndRouteOrTripKey {
+    private static class StopAndRouteOrTripKey {
         private final AgencyAndId stop;
         private final AgencyAndId routeOrTrip;
         private transient int hash = 0;
@@ -42,6 +42,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -111,22 +115,8 @@ public class GraphPathFinder {
         LOG.debug("rreq={}", options);
 
         // Choose an appropriate heuristic for goal direction.
-        RemainingWeightHeuristic heuristic;
-        RemainingWeightHeuristic reversedSearchHeuristic;
-        if (options.disableRemainingWeightHeuristic) {
-            heuristic = new TrivialRemainingWeightHeuristic();
-            reversedSearchHeuristic = new TrivialRemainingWeightHeuristic();
-        } else if (options.modes.isTransit()) {
-            // Only use the BiDi heuristic for transit. It is not very useful for on-street modes.
-            // heuristic = new InterleavedBidirectionalHeuristic(options.rctx.graph);
-            // Use a simplistic heuristic until BiDi heuristic is improved, see #2153
-            heuristic = new InterleavedBidirectionalHeuristic(options.heuristicStepsPerMainStep);
-            reversedSearchHeuristic = new InterleavedBidirectionalHeuristic(options.heuristicStepsPerMainStep);
-        } else {
-            heuristic = new EuclideanRemainingWeightHeuristic();
-            reversedSearchHeuristic = new EuclideanRemainingWeightHeuristic();
-        }
-        options.rctx.remainingWeightHeuristic = heuristic;
+        RemainingWeightHeuristic reversedSearchHeuristic = createHeuristic(options);
+        options.rctx.remainingWeightHeuristic = createHeuristic(options);
 
         // Now we always use what used to be called longDistance mode. Non-longDistance mode is no longer supported.
         options.longDistance = true;
@@ -154,6 +144,16 @@ public class GraphPathFinder {
         LOG.debug("BEGIN SEARCH");
         List<GraphPath> paths = Lists.newArrayList();
         double totalTimeout = searchBeginTime + router.totalTimeout * 1000;
+        if (useParallelSearch(options)) {
+            paths.addAll(getPathsInParallel(aStar, originalReq, options, searchBeginTime, reversedSearchHeuristic));
+            // Continue sequentially from the parallel results, as if they had been found by the first searches.
+            for (GraphPath path : paths) {
+                banTrips(options, path.getTrips());
+                if (path.getTrips().isEmpty()) {
+                    options.onlyTransitTrips = true;
+                }
+            }
+        }
         while (paths.size() < options.numItineraries) {
             // TODO pull all this timeout logic into a function near org.opentripplanner.util.DateUtils.absoluteTimeout()
             int timeoutIndex = paths.size();
@@ -212,14 +212,7 @@ public class GraphPathFinder {
             }
 
             paths.addAll(newPaths.stream()
-                    .filter(path -> {
-                        double duration = options.useRequestedDateTimeInMaxHours
-                            ? options.arriveBy
-                                ? options.dateTime - path.getStartTime()
-                                : path.getEndTime() - options.dateTime
-                            : path.getDuration();
-                        return duration < options.maxHours * 60 * 60;
-                    })
+                    .filter(path -> isWithinMaxHours(options, path))
                     .collect(Collectors.toList()));
 
             LOG.debug("we have {} paths", paths.size());
@@ -229,6 +222,133 @@ public class GraphPathFinder {
         return paths;
     }
 
+    private static RemainingWeightHeuristic createHeuristic(RoutingRequest options) {
+        if (options.disableRemainingWeightHeuristic) {
+            return new TrivialRemainingWeightHeuristic();
+        } else if (options.modes.isTransit()) {
+            // Only use the BiDi heuristic for transit. It is not very useful for on-street modes.
+            // heuristic = new InterleavedBidirectionalHeuristic(options.rctx.graph);
+            // Use a simplistic heuristic until BiDi heuristic is improved, see #2153
+            return new InterleavedBidirectionalHeuristic(options.heuristicStepsPerMainStep);
+        } else {
+            return new EuclideanRemainingWeightHeuristic();
+        }
+    }
+
+    private static boolean isWithinMaxHours(RoutingRequest options, GraphPath path) {
+        double duration = options.useRequestedDateTimeInMaxHours
+            ? options.arriveBy
+                ? options.dateTime - path.getStartTime()
+                : path.getEndTime() - options.dateTime
+            : path.getDuration();
+        return duration < options.maxHours * 60 * 60;
+    }
+
+    /**
+     * The parallel mode is only worth it when several transit itineraries are requested. It is left out when
+     * a visualizer follows the search, which expects a single search at a time.
+     */
+    private boolean useParallelSearch(RoutingRequest options) {
+        return router.parallelPathSearch != null && router.graphVisualizer == null
+                && options.numItineraries > 1 && options.modes.isTransit();
+    }
+
+    /**
+     * Run the first round of searches in parallel, see {@link ParallelPathSearch}. Each search gets the first
+     * timeout, capped to the total timeout, and a routing context of its own on the same origin and destination
+     * vertices as the original request. The original request is searched in the calling thread with the given
+     * AStar, so that the following sequential searches reuse its heuristic as usual.
+     *
+     * @return the merged paths, without duplicates, in the order of the searches.
+     */
+    private List<GraphPath> getPathsInParallel(AStar aStar, RoutingRequest originalReq, RoutingRequest options,
+                                               long searchBeginTime, RemainingWeightHeuristic reversedSearchHeuristic) {
+        ParallelPathSearch parallelPathSearch = router.parallelPathSearch;
+        long deadline = searchBeginTime + (long) (Double.min(router.timeouts[0], router.totalTimeout) * 1000);
+        double timeout = (deadline - System.currentTimeMillis()) / 1000.0;
+        if (timeout <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Routing contexts are built here rather than in the searches, as they may add temporary edges to the
+        // shared origin and destination vertices.
+        List<ParallelPathSearch.Variant> variants = parallelPathSearch.createVariants(options);
+        List<Future<List<GraphPath>>> futures = new ArrayList<>();
+        for (ParallelPathSearch.Variant variant : variants.subList(1, variants.size())) {
+            RoutingRequest request = variant.request;
+            request.setRoutingContext(router.graph, options.rctx.fromVertex, options.rctx.toVertex);
+            request.rctx.remainingWeightHeuristic = createHeuristic(request);
+            futures.add(parallelPathSearch.submit(() -> searchOnce(new AStar(), originalReq, request, timeout,
+                    createHeuristic(request))));
+        }
+
+        List<List<GraphPath>> results = new ArrayList<>();
+        results.add(searchOnce(aStar, originalReq, options, timeout, reversedSearchHeuristic));
+        boolean timedOut = options.rctx.aborted;
+        // The searches stop by themselves at the deadline, allow them a little more to return their paths.
+        long grace = 1000;
+        for (Future<List<GraphPath>> future : futures) {
+            try {
+                long wait = Math.max(0, deadline + grace - System.currentTimeMillis());
+                results.add(future.get(wait, TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.add(Collections.emptyList());
+                timedOut = true;
+            } catch (ExecutionException e) {
+                LOG.warn("Parallel search failed on request: " + originalReq, e.getCause());
+                results.add(Collections.emptyList());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                break;
+            }
+        }
+        for (int i = 1; i < results.size(); i++) {
+            timedOut |= variants.get(i).request.rctx.aborted;
+        }
+
+        int[] contributions = new int[variants.size()];
+        List<GraphPath> paths = ParallelPathSearch.merge(results, contributions);
+        int contributingSearches = 0;
+        for (int contribution : contributions) {
+            if (contribution > 0) {
+                contributingSearches++;
+            }
+        }
+        // The sequential searches which may follow use the state of the original request again.
+        options.rctx.aborted = false;
+        options.rctx.debugOutput.parallelSearches = variants.size();
+        options.rctx.debugOutput.contributingSearches = contributingSearches;
+        if (paths.isEmpty() && timedOut) {
+            options.rctx.debugOutput.timedOut = true;
+        }
+        LOG.debug("{} parallel searches found {} paths, {} searches contributed", variants.size(), paths.size(),
+                contributingSearches);
+        return paths;
+    }
+
+    /** One search of the parallel round, with the compaction of its legs and the max hours filter. */
+    private List<GraphPath> searchOnce(AStar aStar, RoutingRequest originalReq, RoutingRequest options,
+                                       double timeout, RemainingWeightHeuristic reversedSearchHeuristic) {
+        aStar.getShortestPathTree(options, timeout);
+        if (options.rctx.aborted) {
+            return Collections.emptyList();
+        }
+        List<GraphPath> newPaths = aStar.getPathsToTarget();
+        if (!newPaths.isEmpty() && options.compactLegsByReversedSearch) {
+            try {
+                newPaths = compactLegsByReversedSearch(aStar, originalReq, options, newPaths, timeout + 2,
+                        reversedSearchHeuristic);
+            } catch (Exception e) {
+                LOG.warn("CompactLegsByReversedSearch failed on request: " + originalReq.toString(), e);
+            }
+        }
+        return newPaths.stream()
+                .filter(path -> isWithinMaxHours(originalReq, path))
+                .collect(Collectors.toList());
+    }
+
     private void banTrips(RoutingRequest options, List<AgencyAndId> tripIds) {
         List<AgencyAndId> orderedTripIds=new ArrayList<>(tripIds);
         if (options.arriveBy) {
@@ -26,47 +26,80 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
  * The primary implementation of the GraphSource interface. The graph is loaded from a serialized
  * graph from a given source.
+ * <p>
+ * The graph can be hot swapped: the new graph is loaded and its real-time updaters are started
+ * on a background thread while the current router keeps answering requests. Once the updaters of
+ * the new router applied their first batch of data, e.g. the full SIRI dataset, the routers are
+ * swapped. Requests which already got the old router
+ * finish with it, and it is shut down after a drain time. The hot swap is abandoned, keeping the
+ * current router, if the heap has not enough room for a second graph, if the new graph cannot be
+ * loaded or if its updaters are not ready in time. See the {@code hotSwap} router configuration.
  */
 public class InputStreamGraphSource implements GraphSource {
     private static final Logger LOG = LoggerFactory.getLogger(InputStreamGraphSource.class);
 
     /**
-     * Delay before starting to load a graph after the last modification time. In case of writing,
-     * we expect graph last modification time to be updated at at least that frequency. If not, you
-     * can either increase this value, or use an atomic move when copying the file.
-     * */
-    private Router router;
+     * The new graph is expected to need as much heap as is in use now, mostly by the current
+     * graph, times this factor.
+     */
+    public static final double DEFAULT_MEMORY_HEADROOM_FACTOR = 1.0;
+
+    /** Seconds to wait for the updaters of the new graph to apply their first batch of data. */
+    public static final int DEFAULT_WARM_UP_TIMEOUT = 600;
+
+    /** Seconds during which requests may still use the old router after the swap. */
+    public static final int DEFAULT_DRAIN_TIME = 60;
+
+    private static final long WARM_UP_POLL_MILLIS = 1000;
+
+    /** The phases of a hot swap, reported by the readiness endpoint. */
+    public enum HotSwapPhase { CHECKING_MEMORY, LOADING, WARMING_UP, DRAINING, FAILED }
+
+    private volatile Router router;
 
     private String routerId;
 
+    /** The base directory of the graph and its configuration, reopened for each hot swap. */
+    private final File path;
+
     private OtpDataStore store;
 
+    private final AtomicBoolean hotSwapRunning = new AtomicBoolean(false);
+
+    private volatile String hotSwapStatus = null;
+
     /**
      * @return A GraphSource loading graph from the file system under a base path.
      */
     public static InputStreamGraphSource newFileGraphSource(String routerId, File path) {
         return new InputStreamGraphSource(
                 routerId,
+                path,
                 new DataStoreConfig(path).open()
         );
     }
 
-    private InputStreamGraphSource(String routerId, OtpDataStore store) {
+    private InputStreamGraphSource(String routerId, File path, OtpDataStore store) {
         this.routerId = routerId;
+        this.path = path;
         this.store = store;
     }
 
     @Override
     public Router getRouter() {
-        // We synchronize on pre-evict mutex in case we are in the middle of reloading in pre-evict
-        // mode. In that case we must make the client wait until the new graph is loaded, because
-        // the old one is gone to the GC. Performance hit should be low as getGraph() is not called
-        // often.
+        // The router is replaced atomically by hot swaps, callers keep the router they got for the
+        // whole request.
         return router;
     }
 
@@ -75,6 +108,124 @@ public class InputStreamGraphSource implements GraphSource {
         // We synchronize on 'this' to prevent multiple reloads from being called at the same time
         synchronized (this) {
             router = loadGraph();
+            if (router != null) {
+                router.registerMetrics();
+            }
+        }
+    }
+
+    @Override
+    public boolean hotSwap() {
+        if (router == null || !hotSwapRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(this::runHotSwap, "GraphHotSwap-" + routerId);
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    @Override
+    public String getHotSwapStatus() {
+        return hotSwapStatus;
+    }
+
+    boolean isHotSwapRunning() {
+        return hotSwapRunning.get();
+    }
+
+    private void runHotSwap() {
+        long startTime = System.currentTimeMillis();
+        Router newRouter = null;
+        try {
+            setHotSwapPhase(HotSwapPhase.CHECKING_MEMORY);
+            // Reopen the data store, to read the new graph and router configuration
+            OtpDataStore newStore = new DataStoreConfig(path).open();
+            JsonNode config = newStore.routerConfigParameters().path("hotSwap");
+            checkMemoryHeadroom(config.path("memoryHeadroomFactor")
+                    .asDouble(DEFAULT_MEMORY_HEADROOM_FACTOR));
+
+            setHotSwapPhase(HotSwapPhase.LOADING);
+            synchronized (this) {
+                store = newStore;
+                newRouter = loadGraph();
+            }
+            if (newRouter == null) {
+                throw new IllegalStateException("The graph could not be loaded.");
+            }
+
+            setHotSwapPhase(HotSwapPhase.WARMING_UP);
+            waitForUpdaters(newRouter, config.path("warmUpTimeout").asInt(DEFAULT_WARM_UP_TIMEOUT));
+
+            Router oldRouter = router;
+            router = newRouter;
+            newRouter.registerMetrics();
+            LOG.info("Graph '{}' hot swapped in {} s.", routerId,
+                    (System.currentTimeMillis() - startTime) / 1000);
+
+            setHotSwapPhase(HotSwapPhase.DRAINING);
+            Thread.sleep(1000L * config.path("drainTime").asInt(DEFAULT_DRAIN_TIME));
+            oldRouter.shutdown();
+            hotSwapStatus = null;
+        }
+        catch (Exception | OutOfMemoryError e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (newRouter != null && newRouter != router) {
+                newRouter.shutdown();
+            }
+            LOG.error("Hot swap of graph '{}' failed, the current graph is kept.", routerId, e);
+            hotSwapStatus = HotSwapPhase.FAILED + ": " + e.getMessage();
+        }
+        finally {
+            hotSwapRunning.set(false);
+        }
+    }
+
+    private void setHotSwapPhase(HotSwapPhase phase) {
+        LOG.info("Hot swap of graph '{}': {}", routerId, phase);
+        hotSwapStatus = phase.name();
+    }
+
+    /**
+     * Fail if the heap has not room enough for a second graph. The heap in use is measured after
+     * the last garbage collection when it is known, since the current usage includes garbage.
+     * A factor of zero disables the check.
+     */
+    static void checkMemoryHeadroom(double factor) {
+        long live = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            live += afterGc != null && afterGc.getUsed() > 0
+                    ? afterGc.getUsed()
+                    : pool.getUsage().getUsed();
+        }
+        long max = Runtime.getRuntime().maxMemory();
+        long needed = (long) (live * factor);
+        LOG.info("Heap: {} MB in use of {} MB, {} MB needed for the new graph.",
+                live >> 20, max >> 20, needed >> 20);
+        if (max - live < needed) {
+            throw new IllegalStateException(String.format(
+                    "Not enough memory for a second graph: %d MB in use of %d MB, %d MB needed.",
+                    live >> 20, max >> 20, needed >> 20));
+        }
+    }
+
+    private void waitForUpdaters(Router newRouter, int timeoutSeconds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000L * timeoutSeconds;
+        List<String> waitingUpdaters = newRouter.getUpdatersNotInitialized();
+        while (!waitingUpdaters.isEmpty()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException(
+                        "The updaters " + waitingUpdaters + " were not initialized in time.");
+            }
+            LOG.debug("Hot swap of graph '{}' waiting for updaters: {}", routerId, waitingUpdaters);
+            Thread.sleep(WARM_UP_POLL_MILLIS);
+            waitingUpdaters = newRouter.getUpdatersNotInitialized();
         }
     }
 
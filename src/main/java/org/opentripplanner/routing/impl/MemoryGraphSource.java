@@ -57,6 +57,7 @@ public class MemoryGraphSource implements GraphSource {
                     router.graph.routerConfig,
                     "memory:router.graph.routerConfig"
             ));
+            router.registerMetrics();
         } catch (RuntimeException e) {
             LOG.error("Can't startup graph: error with embed config (" + router.graph.routerConfig + ")", e);
         }
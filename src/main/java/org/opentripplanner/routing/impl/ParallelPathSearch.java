@@ -0,0 +1,152 @@
+/* This program is free software: you can redistribute it and/or
+ modify it under the terms of the GNU Lesser General Public License
+ as published by the Free Software Foundation, either version 3 of
+ the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>. */
+
+package org.opentripplanner.routing.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opentripplanner.model.AgencyAndId;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.spt.GraphPath;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Optional parallel mode of {@link GraphPathFinder}. Instead of finding the itineraries one after the other,
+ * each search banning the trips of the previous ones, the first round runs several searches at once, each
+ * made different from the original request by a {@link Strategy}. Their results are merged and duplicates are
+ * removed. If they do not add up to the requested number of itineraries, the usual sequential searches fill
+ * in the rest within the remaining time.
+ *
+ * The searches run on a fixed size pool shared by all the requests of a router, the original request itself
+ * runs in the calling thread so that it is never delayed by a busy pool.
+ */
+public class ParallelPathSearch {
+
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    public static final int DEFAULT_MAX_SEARCHES = 4;
+
+    public static final int DEFAULT_DEPARTURE_STEP = 10 * 60;
+
+    /** Transfer penalty added by each step of {@link Strategy#FEWER_TRANSFERS}, in seconds. */
+    static final int TRANSFER_PENALTY_STEP = 10 * 60;
+
+    /** Factor applied to the walk reluctance by each step of {@link Strategy#LESS_WALKING}. */
+    static final double WALK_RELUCTANCE_FACTOR = 2;
+
+    /** The ways a search is made to find something else than the original request. */
+    public enum Strategy {
+        /** The original request. */
+        ORIGINAL,
+        /** Depart later, or arrive earlier for arriveBy searches, by some departure steps. */
+        SHIFTED_DEPARTURE,
+        /** A higher transfer penalty, which favours direct trips. */
+        FEWER_TRANSFERS,
+        /** A higher walk reluctance, which favours other stops and other modes than the original one. */
+        LESS_WALKING
+    }
+
+    private final ExecutorService executor;
+
+    /** Maximum number of searches of the parallel round, including the original request. */
+    public final int maxSearches;
+
+    /** Departure time shift of {@link Strategy#SHIFTED_DEPARTURE}, in seconds. */
+    public final int departureStep;
+
+    public ParallelPathSearch(int threads, int maxSearches, int departureStep) {
+        this.executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("ParallelPathSearch-%d").setDaemon(true).build());
+        this.maxSearches = maxSearches;
+        this.departureStep = departureStep;
+    }
+
+    /** A search of the parallel round. */
+    static class Variant {
+
+        final Strategy strategy;
+
+        final RoutingRequest request;
+
+        Variant(Strategy strategy, RoutingRequest request) {
+            this.strategy = strategy;
+            this.request = request;
+        }
+    }
+
+    /**
+     * Create the searches for the given request, the original request first. The other strategies are used in
+     * turn, each time a bit further from the original request, until there is one search per itinerary or the
+     * maximum number of searches is reached. The routing contexts of the copies are left to the caller.
+     */
+    List<Variant> createVariants(RoutingRequest request) {
+        int searches = Math.min(request.numItineraries, maxSearches);
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant(Strategy.ORIGINAL, request));
+        Strategy[] strategies = { Strategy.SHIFTED_DEPARTURE, Strategy.FEWER_TRANSFERS, Strategy.LESS_WALKING };
+        for (int i = 0; variants.size() < searches; i++) {
+            Strategy strategy = strategies[i % strategies.length];
+            int step = i / strategies.length + 1;
+            RoutingRequest copy = request.clone();
+            copy.rctx = null;
+            switch (strategy) {
+                case SHIFTED_DEPARTURE:
+                    copy.dateTime += (request.arriveBy ? -1 : 1) * step * departureStep;
+                    break;
+                case FEWER_TRANSFERS:
+                    copy.transferPenalty += step * TRANSFER_PENALTY_STEP;
+                    break;
+                case LESS_WALKING:
+                    copy.setWalkReluctance(request.walkReluctance * Math.pow(WALK_RELUCTANCE_FACTOR, step));
+                    break;
+            }
+            variants.add(new Variant(strategy, copy));
+        }
+        return variants;
+    }
+
+    /**
+     * Merge the paths of the searches, in order, leaving out the paths using the same trips as an earlier path.
+     * Only one path without transit is kept, as the sequential searches do.
+     *
+     * @param contributions filled with the number of paths kept from each search
+     */
+    static List<GraphPath> merge(List<List<GraphPath>> results, int[] contributions) {
+        List<GraphPath> paths = new ArrayList<>();
+        Set<List<AgencyAndId>> seenTrips = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            for (GraphPath path : results.get(i)) {
+                if (seenTrips.add(path.getTrips())) {
+                    paths.add(path);
+                    contributions[i]++;
+                }
+            }
+        }
+        return paths;
+    }
+
+    <T> Future<T> submit(Callable<T> search) {
+        return executor.submit(search);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,201 @@
+/* This program is free software: you can redistribute it and/or
+ modify it under the terms of the GNU Lesser General Public License
+ as published by the Free Software Foundation, either version 3 of
+ the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>. */
+
+package org.opentripplanner.routing.impl;
+
+import org.opentripplanner.api.model.TripPlan;
+import org.opentripplanner.common.VersionedLruCache;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.edgetype.TimetableSnapshot;
+import org.opentripplanner.routing.graph.Graph;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Least-recently-used cache of trip plans, so that bursts of identical plan requests are only searched once.
+ *
+ * Requests are keyed by the API they came from and a canonical form of all their parameters, with the departure
+ * or arrival time rounded down to a bucket of a configurable number of seconds: the plan found for the first
+ * request of a bucket is returned to the following ones. The API is part of the key because each API may
+ * post-process the paths differently before building the plan. All entries are dropped as soon as the timetable
+ * snapshot, the alert patches of the graph (see {@link Graph#getAlertPatchesVersion()}) or the street graph
+ * change, so a cached plan never hides a real-time update.
+ */
+public class PlanCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    public static final int DEFAULT_TIME_BUCKET = 60;
+
+    /** Fields which are not parameters of the request, or are derived from the other ones. */
+    private static final Set<String> IGNORED_FIELDS = new HashSet<>(Arrays.asList(
+            "rctx", "dateTime", "serviceDate", "bikeWalkingOptions", "splitEdge"));
+
+    private static final Field[] KEY_FIELDS = keyFields();
+
+    private final Graph graph;
+
+    private final VersionedLruCache<String, TripPlan> plans;
+
+    /** Width of the time buckets, in seconds. */
+    public final int timeBucket;
+
+    public PlanCache(Graph graph, int maxEntries, int timeBucket) {
+        this.graph = graph;
+        this.timeBucket = timeBucket;
+        this.plans = new VersionedLruCache<>(maxEntries, this::realTimeVersion);
+    }
+
+    /**
+     * Return the cached plan for the given request, planning and caching it if needed. The planner may return
+     * null, for instance when no path was found, which is not cached.
+     *
+     * @param api name of the API planning the request, plans are only shared between requests of the same API.
+     */
+    public TripPlan get(String api, RoutingRequest request, Supplier<TripPlan> planner) {
+        return plans.get(key(api, request), planner);
+    }
+
+    /**
+     * @return the API followed by the canonical form of the given request: the value of each parameter in the order
+     * of their names, with the elements of sets and maps sorted and the time replaced by its bucket.
+     */
+    String key(String api, RoutingRequest request) {
+        StringBuilder key = new StringBuilder(api);
+        key.append('|').append(Math.floorDiv(request.dateTime, timeBucket));
+        try {
+            for (Field field : KEY_FIELDS) {
+                key.append('|').append(field.getName()).append('=');
+                appendCanonical(key, field.get(request));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        return key.toString();
+    }
+
+    public void clear() {
+        plans.clear();
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    public long getHits() {
+        return plans.getHits();
+    }
+
+    public long getMisses() {
+        return plans.getMisses();
+    }
+
+    /** @return the number of times all entries were dropped because the real-time data changed. */
+    public long getInvalidations() {
+        return plans.getInvalidations();
+    }
+
+    public Map<String, Object> getStatus() {
+        long hits = plans.getHits();
+        long misses = plans.getMisses();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("size", plans.size());
+        status.put("timeBucket", timeBucket);
+        status.put("hits", hits);
+        status.put("misses", misses);
+        status.put("hitRatio", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        status.put("invalidations", plans.getInvalidations());
+        return status;
+    }
+
+    /**
+     * @return the sum of the versions of the timetable snapshot, of the alert patches and of the street graph. None
+     * of them ever decreases, so the sum changes whenever any of them changes.
+     */
+    private long realTimeVersion() {
+        TimetableSnapshot snapshot = graph.timetableSnapshotSource == null
+                ? null : graph.timetableSnapshotSource.getTimetableSnapshot();
+        return (snapshot == null ? 0 : snapshot.getVersion()) + graph.getAlertPatchesVersion()
+                + graph.getStreetGraphVersion();
+    }
+
+    private static void appendCanonical(StringBuilder key, Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                StringBuilder entryValue = new StringBuilder();
+                appendCanonical(entryValue, entry.getValue());
+                sorted.put(String.valueOf(entry.getKey()), entryValue);
+            }
+            key.append(sorted);
+        } else if (value instanceof Set) {
+            List<String> sorted = new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                StringBuilder elementValue = new StringBuilder();
+                appendCanonical(elementValue, element);
+                sorted.add(elementValue.toString());
+            }
+            sorted.sort(Comparator.naturalOrder());
+            key.append(sorted);
+        } else if (value instanceof Collection) {
+            key.append('[');
+            for (Object element : (Collection<?>) value) {
+                appendCanonical(key, element);
+                key.append(',');
+            }
+            key.append(']');
+        } else if (value != null && value.getClass().isArray()) {
+            key.append(Arrays.deepToString(new Object[] { value }));
+        } else if (value != null && hasIdentityToString(value.getClass())) {
+            // Strategy objects such as the dominance function are only told apart by their class.
+            key.append(value.getClass().getName());
+        } else {
+            key.append(value);
+        }
+    }
+
+    private static boolean hasIdentityToString(Class<?> type) {
+        try {
+            return type.getMethod("toString").getDeclaringClass() == Object.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    private static Field[] keyFields() {
+        List<Field> fields = new ArrayList<>();
+        for (Field field : RoutingRequest.class.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)
+                    || IGNORED_FIELDS.contains(field.getName())) {
+                continue;
+            }
+            field.setAccessible(true);
+            fields.add(field);
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        return fields.toArray(new Field[0]);
+    }
+}
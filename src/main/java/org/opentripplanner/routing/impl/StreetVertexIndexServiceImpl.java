@@ -398,4 +398,9 @@ public class StreetVertexIndexServiceImpl implements StreetVertexIndexService {
 
         return v;
     }
+
+    @Override
+    public SimpleStreetSplitter getSimpleStreetSplitter() {
+        return simpleStreetSplitter;
+    }
 }
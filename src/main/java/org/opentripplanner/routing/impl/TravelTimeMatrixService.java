@@ -0,0 +1,205 @@
+/* This program is free software: you can redistribute it and/or
+ modify it under the terms of the GNU Lesser General Public License
+ as published by the Free Software Foundation, either version 3 of
+ the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program.  If not, see <http://www.gnu.org/licenses/>. */
+
+package org.opentripplanner.routing.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.opentripplanner.analyst.core.Sample;
+import org.opentripplanner.common.model.GenericLocation;
+import org.opentripplanner.routing.algorithm.AStar;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.error.VertexNotFoundException;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.spt.ShortestPathTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes travel times from a list of origins to a list of destinations, with one batch (one-to-many)
+ * shortest path tree search per origin rather than one point-to-point search per pair.
+ *
+ * The searches run on a fixed size pool shared by all the matrix requests of a router, so that large
+ * matrices queue up instead of taking all the threads of the server. The queue is bounded: when it is
+ * full, the request is rejected with a {@link RejectedExecutionException}. Destinations are linked to the
+ * street network once per request in the same way batch searches link their origin (see
+ * {@link org.opentripplanner.analyst.request.SampleFactory}): the travel time to a destination is the
+ * best time at one of its two sample vertices plus the walk from there.
+ */
+public class TravelTimeMatrixService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TravelTimeMatrixService.class);
+
+    /** Travel time of destinations which can not be reached within the maximum travel time. */
+    public static final int UNREACHABLE = -1;
+
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    public static final int DEFAULT_MAX_ORIGINS = 100;
+
+    public static final int DEFAULT_MAX_DESTINATIONS = 2000;
+
+    public static final int DEFAULT_MAX_TRAVEL_TIME = 2 * 60 * 60;
+
+    public static final double DEFAULT_SEARCH_TIMEOUT = 10;
+
+    private final Graph graph;
+
+    private final ThreadPoolExecutor executor;
+
+    /** Maximum number of origins of one request. */
+    public final int maxOrigins;
+
+    /** Maximum number of destinations of one request. */
+    public final int maxDestinations;
+
+    /** Maximum travel time in seconds, which bounds each search. Requests may only lower it. */
+    public final int maxTravelTime;
+
+    /** Time limit of each single search, in seconds. */
+    public final double searchTimeout;
+
+    /**
+     * @param queueSize maximum number of searches waiting for a thread, from all the requests.
+     */
+    public TravelTimeMatrixService(Graph graph, int threads, int queueSize, int maxOrigins,
+            int maxDestinations, int maxTravelTime, double searchTimeout) {
+        if (maxTravelTime <= 0) {
+            throw new IllegalArgumentException("The maximum travel time of matrices must be positive.");
+        }
+        this.graph = graph;
+        this.maxOrigins = maxOrigins;
+        this.maxDestinations = maxDestinations;
+        this.maxTravelTime = maxTravelTime;
+        this.searchTimeout = searchTimeout;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new ThreadFactoryBuilder().setNameFormat("TravelTimeMatrix-" + graph.routerId + "-%d")
+                        .setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Start the searches of a matrix request. The request is used as a template for the search
+     * from each origin; its origin and destination are ignored, and it must not be arrive-by.
+     *
+     * @param maxTravelTime maximum travel time in seconds, positive and at most {@link #maxTravelTime}.
+     * @return one row of travel times in seconds per origin, in the order of the origins, with
+     *         {@link #UNREACHABLE} for destinations which can not be reached.
+     * @throws RejectedExecutionException when the queue of the pool has no room for all the searches of the
+     *         request, none of which is then run.
+     */
+    public List<Future<int[]>> submit(RoutingRequest template, List<GenericLocation> origins,
+            List<GenericLocation> destinations, int maxTravelTime) {
+        if (template.arriveBy) {
+            throw new IllegalArgumentException("Travel time matrices are only available for departure times.");
+        }
+        if (origins.size() > maxOrigins || destinations.size() > maxDestinations) {
+            throw new IllegalArgumentException(String.format(
+                    "At most %d origins and %d destinations are allowed.", maxOrigins, maxDestinations));
+        }
+        if (maxTravelTime <= 0) {
+            throw new IllegalArgumentException("The maximum travel time must be positive.");
+        }
+        int travelTimeLimit = Math.min(maxTravelTime, this.maxTravelTime);
+        Sample[] samples = new Sample[destinations.size()];
+        for (int i = 0; i < samples.length; i++) {
+            GenericLocation destination = destinations.get(i);
+            samples[i] = graph.getSampleFactory().getSample(destination.lng, destination.lat);
+        }
+        List<Future<int[]>> rows = new ArrayList<>(origins.size());
+        try {
+            for (GenericLocation origin : origins) {
+                rows.add(executor.submit(() -> travelTimes(template, origin, samples, travelTimeLimit)));
+            }
+        } catch (RejectedExecutionException e) {
+            for (Future<int[]> row : rows) {
+                row.cancel(true);
+            }
+            throw e;
+        }
+        return rows;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private int[] travelTimes(RoutingRequest template, GenericLocation origin, Sample[] samples,
+            int travelTimeLimit) {
+        int[] times = new int[samples.length];
+        Arrays.fill(times, UNREACHABLE);
+        RoutingRequest request = template.clone();
+        request.batch = true;
+        request.from = origin;
+        request.to = null;
+        request.worstTime = request.dateTime + travelTimeLimit;
+        request.setNumItineraries(1);
+        try {
+            request.setRoutingContext(graph);
+            ShortestPathTree spt = new AStar().getShortestPathTree(request, searchTimeout);
+            if (spt == null) {
+                return times;
+            }
+            for (int i = 0; i < samples.length; i++) {
+                Sample sample = samples[i];
+                if (sample == null) {
+                    continue;
+                }
+                int time = Math.min(travelTime(spt, sample.v0, sample.d0, request.walkSpeed),
+                        travelTime(spt, sample.v1, sample.d1, request.walkSpeed));
+                if (time <= travelTimeLimit) {
+                    times[i] = time;
+                }
+            }
+        } catch (VertexNotFoundException e) {
+            LOG.debug("Matrix origin {} is not near the street network.", origin);
+        } finally {
+            request.cleanup();
+        }
+        return times;
+    }
+
+    /** @return the travel time to a point at the given distance from the vertex, or MAX_VALUE. */
+    private static int travelTime(ShortestPathTree spt, Vertex vertex, int distance, double walkSpeed) {
+        if (vertex == null) {
+            return Integer.MAX_VALUE;
+        }
+        List<State> states = spt.getStates(vertex);
+        if (states == null) {
+            return Integer.MAX_VALUE;
+        }
+        long best = Long.MAX_VALUE;
+        for (State state : states) {
+            if (state.isFinal()) {
+                best = Math.min(best, state.getElapsedTimeSeconds());
+            }
+        }
+        if (best == Long.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) (best + Math.round(distance / walkSpeed));
+    }
+}
@@ -39,6 +39,8 @@ public interface AlertPatchService {
 
     Collection<AlertPatch> getTripPatternPatches(TripPattern tripPattern);
 
+    Collection<AlertPatch> getSituationPatches(String situationNumber);
+
     void apply(AlertPatch alertPatch);
 
     void expire(Set<String> ids);
@@ -47,5 +49,8 @@ public interface AlertPatchService {
 
     void expireAllExcept(Set<String> ids);
 
+    /** Expire the patches whose time periods all ended before the given time, in seconds since the epoch. */
+    void expireEndedBefore(long time);
+
     void applyAll(Set<AlertPatch> alertPatches);
 }
@@ -100,6 +100,26 @@ public class GraphService {
         return router;
     }
 
+    /**
+     * Start a hot swap of the graph of the given router, see {@link GraphSource#hotSwap()}.
+     *
+     * @return false if the graph source does not support hot swaps or one is already running.
+     */
+    public boolean hotSwap(String routerId) throws GraphNotFoundException {
+        GraphSource graphSource = graphSources.get(routerId);
+        if (graphSource == null) {
+            throw new GraphNotFoundException();
+        }
+        LOG.info("Hot swap of router '{}' requested.", routerId);
+        return graphSource.hotSwap();
+    }
+
+    /** @return the status of the hot swap of the given router, null if there is nothing to report. */
+    public String getHotSwapStatus(String routerId) {
+        GraphSource graphSource = graphSources.get(routerId);
+        return graphSource == null ? null : graphSource.getHotSwapStatus();
+    }
+
     /** @return a collection of all valid router IDs for this server */
     public Collection<String> getRouterIds() {
         return new ArrayList<>(graphSources.keySet());
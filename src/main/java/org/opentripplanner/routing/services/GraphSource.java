@@ -17,4 +17,22 @@ public interface GraphSource {
      * Looad the graph from it's source.
      */
     void load();
+
+    /**
+     * Load the graph again in the background while the current router keeps answering requests,
+     * then replace the router. Optional operation.
+     *
+     * @return false if this source does not support hot swaps or a hot swap is already running.
+     */
+    default boolean hotSwap() {
+        return false;
+    }
+
+    /**
+     * @return the phase of the running hot swap, or the reason of the last one if it failed, null
+     * if there is nothing to report.
+     */
+    default String getHotSwapStatus() {
+        return null;
+    }
 }
@@ -16,6 +16,7 @@ package org.opentripplanner.routing.services;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
 import org.opentripplanner.common.model.GenericLocation;
+import org.opentripplanner.graph_builder.linking.SimpleStreetSplitter;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Vertex;
@@ -82,4 +83,7 @@ public interface StreetVertexIndexService {
      * TODO - Should this be replaced by the using the same logic as a regular search by location?
      */
 	Vertex getSampleVertexAt(Coordinate coordinate, boolean dest);
+
+    /** @return the splitter linking the origins and destinations of searches to the street network. */
+    SimpleStreetSplitter getSimpleStreetSplitter();
 }
@@ -16,6 +16,7 @@ package org.opentripplanner.routing.spt;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
 import org.opentripplanner.common.geometry.SphericalDistanceLibrary;
+import org.opentripplanner.routing.core.RoutingContext;
 import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.edgetype.StreetEdge;
@@ -82,7 +83,9 @@ public class SPTWalker {
             State s0 = spt.getState(v);
             if (s0 == null || !s0.isFinal())
                 continue;
-            for (Edge e : s0.getVertex().getIncoming()) {
+            // Temporary edges reaching permanent vertices are only known to the routing context.
+            RoutingContext rctx = spt.getOptions().rctx;
+            for (Edge e : rctx == null ? v.getIncoming() : rctx.getIncoming(v)) {
                 // Take only street
                 if (e != null && visitor.accept(e)) {
                     State s1 = spt.getState(e.getFromVertex());
@@ -0,0 +1,113 @@
+package org.opentripplanner.routing.trippattern;
+
+import org.opentripplanner.common.MavenVersion;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The real-time arrival or departure times of a {@link TripTimes}, stored as offsets from its
+ * shared zero-based scheduled times. A delay usually applies to many consecutive stops, so the
+ * offsets are run-length encoded: each run of consecutive stops with the same offset is stored
+ * once. A trip delayed by a constant amount takes a single run whatever its number of stops.
+ * <p>
+ * The {@link TripTimes#UNAVAILABLE} times are stored as a special offset, so that the stops which
+ * are unavailable, usually at the beginning of the trip, take a single run as well.
+ */
+final class TimeOffsets implements Serializable {
+
+    private static final long serialVersionUID = MavenVersion.VERSION.getUID();
+
+    /** The offset of the stops with an {@link TripTimes#UNAVAILABLE} time. */
+    private static final int UNAVAILABLE_OFFSET = Integer.MIN_VALUE;
+
+    private final int nStops;
+
+    /** The first stop of each run, in increasing order. The first run starts at stop 0. */
+    private int[] starts;
+
+    /** The offset of the stops of each run. Two consecutive runs never have the same offset. */
+    private int[] offsets;
+
+    /** The number of runs. */
+    private int size;
+
+    /** Creates the offsets of a trip with the given number of stops, all with the given offset. */
+    TimeOffsets(int nStops, int offset) {
+        this.nStops = nStops;
+        this.starts = new int[] { 0 };
+        this.offsets = new int[] { offset };
+        this.size = 1;
+    }
+
+    /** Creates the offsets of a trip with the given number of stops, all with an unavailable time. */
+    static TimeOffsets unavailable(int nStops) {
+        return new TimeOffsets(nStops, UNAVAILABLE_OFFSET);
+    }
+
+    /** @return the time at the given stop, given its zero-based scheduled time. */
+    int getTime(int stop, int scheduledTime) {
+        int offset = offsets[size == 1 ? 0 : run(stop)];
+        return offset == UNAVAILABLE_OFFSET ? TripTimes.UNAVAILABLE : scheduledTime + offset;
+    }
+
+    /** Sets the time at the given stop, given its zero-based scheduled time. */
+    void setTime(int stop, int scheduledTime, int time) {
+        int offset = time == TripTimes.UNAVAILABLE ? UNAVAILABLE_OFFSET : time - scheduledTime;
+        int r = run(stop);
+        if (offsets[r] == offset) {
+            return;
+        }
+        int start = starts[r];
+        int end = r + 1 < size ? starts[r + 1] : nStops;
+        if (stop + 1 < end) {
+            // The following stops of the run keep their offset
+            insert(r + 1, stop + 1, offsets[r]);
+        }
+        if (stop > start) {
+            // So do the previous ones
+            insert(r + 1, stop, offset);
+            r++;
+        } else {
+            offsets[r] = offset;
+        }
+        if (r + 1 < size && offsets[r + 1] == offset) {
+            remove(r + 1);
+        }
+        if (r > 0 && offsets[r - 1] == offset) {
+            remove(r);
+        }
+    }
+
+    /** @return the number of runs, for testing. */
+    int size() {
+        return size;
+    }
+
+    /** @return the index of the run containing the given stop. */
+    private int run(int stop) {
+        if (stop < 0 || stop >= nStops) {
+            throw new ArrayIndexOutOfBoundsException(stop);
+        }
+        int r = Arrays.binarySearch(starts, 0, size, stop);
+        return r >= 0 ? r : -r - 2;
+    }
+
+    private void insert(int r, int start, int offset) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * size);
+            offsets = Arrays.copyOf(offsets, 2 * size);
+        }
+        System.arraycopy(starts, r, starts, r + 1, size - r);
+        System.arraycopy(offsets, r, offsets, r + 1, size - r);
+        starts[r] = start;
+        offsets[r] = offset;
+        size++;
+    }
+
+    private void remove(int r) {
+        System.arraycopy(starts, r + 1, starts, r, size - r - 1);
+        System.arraycopy(offsets, r + 1, offsets, r, size - r - 1);
+        size--;
+    }
+}
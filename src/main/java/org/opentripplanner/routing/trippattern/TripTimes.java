@@ -89,34 +89,35 @@ public class TripTimes implements Serializable, Comparable<TripTimes>, Cloneable
     final int[] scheduledDepartureTimes;
 
     /**
-     * The time in seconds after midnight at which the vehicle arrives at each stop, accounting for
-     * any real-time updates. Non-final to allow updates.
+     * The time at which the vehicle arrives at each stop, accounting for any real-time updates.
+     * It is stored as offsets from the zero-based scheduled arrival times, so that an update
+     * shares the scheduled times instead of copying them. Non-final to allow updates.
      */
-    int[] arrivalTimes;
+    TimeOffsets arrivalTimes;
 
     /**
-     * The time in seconds after midnight at which the vehicle leaves each stop, accounting for
-     * any real-time updates. Non-final to allow updates.
+     * The time at which the vehicle leaves each stop, accounting for any real-time updates.
+     * Stored like {@link #arrivalTimes}. Non-final to allow updates.
      */
-    int[] departureTimes;
+    TimeOffsets departureTimes;
 
     /**
-     * Flag to indicate that the stop has been passed without removing arrival/departure-times - i.e. "estimates" are
-     * actual times, no longer estimates.
+     * The stops which have been passed without removing arrival/departure-times - i.e. "estimates" are
+     * actual times, no longer estimates. Null when no stop is flagged.
      *
      * Non-final to allow updates.
      */
-    boolean[] isRecordedStop;
+    BitSet isRecordedStop;
 
     /**
-     * Flag tho indicate cancellations on each stop. Non-final to allow updates.
+     * The cancelled stops. Null when no stop is flagged. Non-final to allow updates.
      */
-    boolean[] isCancelledStop;
+    BitSet isCancelledStop;
 
     /**
-     * Flag tho indicate inaccurate predictions on each stop. Non-final to allow updates, transient for backwards graph-compatibility.
+     * The stops with inaccurate predictions. Null when no stop is flagged. Non-final to allow updates, transient for backwards graph-compatibility.
      */
-    transient boolean[] isPredictionInaccurate;
+    transient BitSet isPredictionInaccurate;
 
     /**
      * Flag tho indicate cancellations on each stop. Non-final to allow updates.
@@ -379,13 +380,13 @@ public class TripTimes implements Serializable, Comparable<TripTimes>, Cloneable
     /** @return the time in seconds after midnight that the vehicle arrives at the stop. */
     public int getArrivalTime(final int stop) {
         if (arrivalTimes == null) return getScheduledArrivalTime(stop);
-        else return arrivalTimes[stop]; // updated times are not time shifted.
+        else return arrivalTimes.getTime(stop, scheduledArrivalTimes[stop]); // updated times are not time shifted.
     }
 
     /** @return the amount of time in seconds that the vehicle waits at the stop. */
     public int getDepartureTime(final int stop) {
         if (departureTimes == null) return getScheduledDepartureTime(stop);
-        else return departureTimes[stop]; // updated times are not time shifted.
+        else return departureTimes.getTime(stop, scheduledDepartureTimes[stop]); // updated times are not time shifted.
     }
 
     public AgencyAndId getStopTimeIdByIndex(int i) {
@@ -463,27 +464,27 @@ public class TripTimes implements Serializable, Comparable<TripTimes>, Cloneable
 
     public void setRecorded(int stop, boolean recorded) {
         checkCreateTimesArrays();
-        isRecordedStop[stop] = recorded;
+        isRecordedStop = setFlag(isRecordedStop, stop, recorded);
     }
 
     public boolean isRecordedStop(int stop) {
         if (isRecordedStop == null) {
             return false;
         }
-        return isRecordedStop[stop];
+        return isRecordedStop.get(stop);
     }
 
     //Is single stop cancelled
     public void setCancelledStop(int stop, boolean isCancelled) {
         checkCreateTimesArrays();
-        isCancelledStop[stop] = isCancelled;
+        isCancelledStop = setFlag(isCancelledStop, stop, isCancelled);
     }
 
     public boolean isCancelledStop(int stop) {
         if (isCancelledStop == null) {
             return false;
         }
-        return isCancelledStop[stop];
+        return isCancelledStop.get(stop);
     }
 
     public void setPickupType(int stop, int pickupType) {
@@ -543,14 +544,14 @@ public class TripTimes implements Serializable, Comparable<TripTimes>, Cloneable
     //Is prediction for single stop inaccurate
     public void setPredictionInaccurate(int stop, boolean predictionInaccurate) {
         checkCreateTimesArrays();
-        isPredictionInaccurate[stop] = predictionInaccurate;
+        isPredictionInaccurate = setFlag(isPredictionInaccurate, stop, predictionInaccurate);
     }
 
     public boolean isPredictionInaccurate(int stop) {
         if (isPredictionInaccurate == null) {
             return false;
         }
-        return isPredictionInaccurate[stop];
+        return isPredictionInaccurate.get(stop);
     }
 
     /** Returns whether this stop allows continuous pickup */
@@ -639,8 +640,7 @@ public class TripTimes implements Serializable, Comparable<TripTimes>, Cloneable
 
     /** Cancel this entire trip */
     public void cancel() {
-        arrivalTimes = new int[getNumStops()];
-        Arrays.fill(arrivalTimes, UNAVAILABLE);
+        arrivalTimes = TimeOffsets.unavailable(getNumStops());
         departureTimes = arrivalTimes;
 
         cancelAllStops();
@@ -655,55 +655,63 @@ public class TripTimes implements Serializable, Comparable<TripTimes>, Cloneable
 
     public void cancelAllStops() {
         // Flag all stops as cancelled
-        isCancelledStop = new boolean[getNumStops()];
-        Arrays.fill(isCancelledStop, true);
+        isCancelledStop = new BitSet(getNumStops());
+        isCancelledStop.set(0, getNumStops());
     }
 
 
     public void updateDepartureTime(final int stop, final int time) {
         checkCreateTimesArrays();
-        departureTimes[stop] = time;
+        departureTimes.setTime(stop, scheduledDepartureTimes[stop], time);
     }
 
     public void updateDepartureDelay(final int stop, final int delay) {
         checkCreateTimesArrays();
-        departureTimes[stop] = scheduledDepartureTimes[stop] + timeShift + delay;
+        departureTimes.setTime(stop, scheduledDepartureTimes[stop], scheduledDepartureTimes[stop] + timeShift + delay);
     }
 
     public void updateArrivalTime(final int stop, final int time) {
         checkCreateTimesArrays();
-        arrivalTimes[stop] = time;
+        arrivalTimes.setTime(stop, scheduledArrivalTimes[stop], time);
     }
 
     public void updateArrivalDelay(final int stop, final int delay) {
         checkCreateTimesArrays();
-        arrivalTimes[stop] = scheduledArrivalTimes[stop] + timeShift + delay;
+        arrivalTimes.setTime(stop, scheduledArrivalTimes[stop], scheduledArrivalTimes[stop] + timeShift + delay);
     }
 
     /**
-     * If they don't already exist, create arrays for updated arrival and departure times
-     * that are just time-shifted copies of the zero-based scheduled departure times.
+     * If they don't already exist, create the updated arrival and departure times, equal to the
+     * time-shifted zero-based scheduled times, and clear the stop flags.
      */
     private void checkCreateTimesArrays() {
         if (arrivalTimes == null) {
-            arrivalTimes = Arrays.copyOf(scheduledArrivalTimes, scheduledArrivalTimes.length);
-            departureTimes = Arrays.copyOf(scheduledDepartureTimes, scheduledDepartureTimes.length);
-            isRecordedStop = new boolean[arrivalTimes.length];
-            isCancelledStop = new boolean[arrivalTimes.length];
-            isPredictionInaccurate = new boolean[arrivalTimes.length];
-            for (int i = 0; i < arrivalTimes.length; i++) {
-                arrivalTimes[i] += timeShift;
-                departureTimes[i] += timeShift;
-                isRecordedStop[i] = false;
-                isCancelledStop[i] = false;
-                isPredictionInaccurate[i] = false;
-            }
+            arrivalTimes = new TimeOffsets(getNumStops(), timeShift);
+            departureTimes = new TimeOffsets(getNumStops(), timeShift);
+            isRecordedStop = null;
+            isCancelledStop = null;
+            isPredictionInaccurate = null;
 
             // Update the real-time state
             realTimeState = RealTimeState.UPDATED;
         }
     }
 
+    /** @return the given stop flags with the flag of the given stop set, created if needed. */
+    private BitSet setFlag(BitSet flags, int stop, boolean value) {
+        if (stop < 0 || stop >= getNumStops()) {
+            throw new ArrayIndexOutOfBoundsException(stop);
+        }
+        if (flags == null) {
+            if (!value) {
+                return null;
+            }
+            flags = new BitSet(getNumStops());
+        }
+        flags.set(stop, value);
+        return flags;
+    }
+
     public int getNumStops () {
         return scheduledArrivalTimes.length;
     }
@@ -54,8 +54,9 @@ public class IntersectionVertex extends StreetVertex {
         trafficLight = false;
     }
 
+    /** The name of the vertex is its label. */
     public IntersectionVertex(Graph g, String label, double x, double y) {
-        this(g, label, x, y, new NonLocalizedString(label));
+        this(g, label, x, y, (I18NString) null);
     }
 
 }
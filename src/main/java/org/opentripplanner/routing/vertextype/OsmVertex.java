@@ -13,16 +13,27 @@ import org.opentripplanner.util.I18NString;
 public class OsmVertex extends IntersectionVertex {
     private static final long serialVersionUID = 1L;
 
+    /** The label of the vertex of an OSM node is this prefix followed by the node ID. */
+    public static final String NODE_LABEL_PREFIX = "osm:node:";
+
     /** The OSM node ID from whence this came */
     public final long nodeId;
 
     public OsmVertex(Graph g, String label, double x, double y, long nodeId) {
         super(g, label, x, y);
         this.nodeId = nodeId;
+        dropDerivableLabel();
     }
 
     public OsmVertex(Graph g, String label, double x, double y, long nodeId, I18NString name) {
         super(g, label, x, y, name);
         this.nodeId = nodeId;
+        dropDerivableLabel();
+    }
+
+    /** There are tens of millions of OSM vertices in a large graph, their labels are not stored. */
+    @Override
+    protected String deriveLabel() {
+        return NODE_LABEL_PREFIX + nodeId;
     }
 }
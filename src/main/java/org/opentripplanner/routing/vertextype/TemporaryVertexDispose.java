@@ -1,5 +1,6 @@
 package org.opentripplanner.routing.vertextype;
 
+import org.opentripplanner.routing.edgetype.TemporaryEdge;
 import org.opentripplanner.routing.graph.Edge;
 import org.opentripplanner.routing.graph.Vertex;
 
@@ -79,7 +80,8 @@ class TemporaryVertexDispose {
         if(v instanceof TemporaryVertex) {
             addVertexToProcessTodoList(v);
         }
-        else {
+        else if (!(connectedEdge instanceof TemporaryEdge)) {
+            // Temporary edges are never added to main graph vertexes, only other edges need to be removed.
             removeEdgeFromMainGraphVertex(v, connectedEdge, incoming);
         }
     }
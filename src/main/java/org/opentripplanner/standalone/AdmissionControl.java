@@ -0,0 +1,268 @@
+package org.opentripplanner.standalone;
+
+import graphql.language.Definition;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.parser.Parser;
+import org.opentripplanner.util.monitoring.Counter;
+import org.opentripplanner.util.monitoring.Histogram;
+import org.opentripplanner.util.monitoring.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of requests handled at once, so that an overloaded server answers some requests quickly and
+ * turns the others away rather than answering all of them too late.
+ *
+ * Requests go through one of two lanes: the {@link #routing} lane for trip planning, whether through the plan API
+ * or a GraphQL query selecting a plan, and the {@link #lookup} lane for the other GraphQL queries, such as
+ * departure boards. Each lane runs a limited number of requests at once and lets a limited number of requests wait
+ * for their turn. A request is shed with a 503 response when the queue of its lane is full, or when it waited
+ * longer than the queue timeout. As the lanes are independent, a burst of trip planning requests does not delay
+ * the lookups.
+ *
+ * Waiting requests hold a worker thread of the HTTP server, so the server has enough threads for both lanes and
+ * their queues (see {@link #getMaxThreads()}).
+ */
+public class AdmissionControl {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AdmissionControl.class);
+
+    public static final int DEFAULT_ROUTING_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
+    public static final int DEFAULT_LOOKUP_CONCURRENCY = 2 * Runtime.getRuntime().availableProcessors();
+
+    public static final int DEFAULT_QUEUE_TIMEOUT = 2000;
+
+    /** Number of requests which may wait in each lane, as a multiple of the number of requests it runs at once. */
+    public static final int QUEUE_FACTOR = 2;
+
+    public final Lane routing;
+
+    public final Lane lookup;
+
+    public AdmissionControl(int routingConcurrency, int lookupConcurrency, int queueTimeoutMillis) {
+        this.routing = new Lane("routing", routingConcurrency, QUEUE_FACTOR * routingConcurrency,
+                queueTimeoutMillis);
+        this.lookup = new Lane("lookup", lookupConcurrency, QUEUE_FACTOR * lookupConcurrency, queueTimeoutMillis);
+    }
+
+    /** Create the admission control from the command line parameters, with the defaults for missing ones. */
+    public static AdmissionControl fromParameters(CommandLineParameters params) {
+        return new AdmissionControl(
+                params.maxConcurrentRouting == null ? DEFAULT_ROUTING_CONCURRENCY : params.maxConcurrentRouting,
+                params.maxConcurrentLookups == null ? DEFAULT_LOOKUP_CONCURRENCY : params.maxConcurrentLookups,
+                params.admissionQueueTimeout == null ? DEFAULT_QUEUE_TIMEOUT : params.admissionQueueTimeout);
+    }
+
+    /**
+     * @return the routing lane if the given GraphQL query selects one of the given routing fields, else the lookup
+     * lane.
+     */
+    public Lane graphQLLane(String query, Set<String> routingFields) {
+        return selectsAnyField(query, routingFields) ? routing : lookup;
+    }
+
+    /** @return the number of requests which may be running or waiting at once in both lanes. */
+    public int getMaxThreads() {
+        return routing.concurrency + routing.maxQueue + lookup.concurrency + lookup.maxQueue;
+    }
+
+    /**
+     * @return true if a top-level field of any operation of the given GraphQL document, directly or through
+     * fragments, has one of the given names. Documents which cannot be parsed select nothing: they are rejected by
+     * GraphQL without any work.
+     */
+    static boolean selectsAnyField(String query, Set<String> fields) {
+        if (query == null) {
+            return false;
+        }
+        Document document;
+        try {
+            document = new Parser().parseDocument(query);
+        } catch (Exception e) {
+            return false;
+        }
+        Map<String, FragmentDefinition> fragments = new HashMap<>();
+        for (Definition definition : document.getDefinitions()) {
+            if (definition instanceof FragmentDefinition) {
+                fragments.put(((FragmentDefinition) definition).getName(), (FragmentDefinition) definition);
+            }
+        }
+        for (Definition definition : document.getDefinitions()) {
+            if (definition instanceof OperationDefinition
+                    && selectsAnyField(((OperationDefinition) definition).getSelectionSet(), fields, fragments, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean selectsAnyField(SelectionSet selectionSet, Set<String> fields,
+            Map<String, FragmentDefinition> fragments, int depth) {
+        // Fragments may not spread themselves, the depth only guards against invalid documents.
+        if (selectionSet == null || depth > fragments.size()) {
+            return false;
+        }
+        for (Selection selection : selectionSet.getSelections()) {
+            if (selection instanceof Field) {
+                if (fields.contains(((Field) selection).getName())) {
+                    return true;
+                }
+            } else if (selection instanceof InlineFragment) {
+                if (selectsAnyField(((InlineFragment) selection).getSelectionSet(), fields, fragments, depth)) {
+                    return true;
+                }
+            } else if (selection instanceof FragmentSpread) {
+                FragmentDefinition fragment = fragments.get(((FragmentSpread) selection).getName());
+                if (fragment != null && selectsAnyField(fragment.getSelectionSet(), fields, fragments, depth + 1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Requests running at once and waiting for their turn, with their own limits. */
+    public static class Lane {
+
+        final String name;
+
+        final int concurrency;
+
+        final int maxQueue;
+
+        final int queueTimeoutMillis;
+
+        private final Semaphore permits;
+
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private final Counter admitted;
+
+        private final Counter shedQueueFull;
+
+        private final Counter shedQueueTimeout;
+
+        private final Histogram queueWait;
+
+        Lane(String name, int concurrency, int maxQueue, int queueTimeoutMillis) {
+            this.name = name;
+            this.concurrency = concurrency;
+            this.maxQueue = maxQueue;
+            this.queueTimeoutMillis = queueTimeoutMillis;
+            this.permits = new Semaphore(concurrency, true);
+            this.admitted = Metrics.REGISTRY.counter("otp_admission_admitted_total",
+                    "Number of requests admitted, per lane.", "lane", name);
+            this.shedQueueFull = Metrics.REGISTRY.counter("otp_admission_shed_total",
+                    "Number of requests turned away, per lane and reason.", "lane", name, "reason", "queue_full");
+            this.shedQueueTimeout = Metrics.REGISTRY.counter("otp_admission_shed_total",
+                    "Number of requests turned away, per lane and reason.", "lane", name, "reason", "queue_timeout");
+            this.queueWait = Metrics.REGISTRY.histogram("otp_admission_queue_wait_seconds",
+                    "Time requests waited for their turn, per lane.", Histogram.LATENCY_BUCKETS, "lane", name);
+            Metrics.REGISTRY.gauge("otp_admission_active", "Number of requests running, per lane.",
+                    this::getActive, "lane", name);
+            Metrics.REGISTRY.gauge("otp_admission_waiting", "Number of requests waiting for their turn, per lane.",
+                    this::getWaiting, "lane", name);
+        }
+
+        /**
+         * Handle a request in this lane, waiting for its turn if needed.
+         * @throws WebApplicationException with a 503 status when the request is shed
+         */
+        public <T> T call(Supplier<T> request) {
+            enter();
+            try {
+                return request.get();
+            } finally {
+                exit();
+            }
+        }
+
+        /**
+         * Wrap a request so that it waits for its turn in this lane when it is called. The queries of a GraphQL
+         * batch are wrapped one by one, so that each of them holds its own permit while it runs.
+         */
+        public <T> Callable<T> admit(Callable<T> request) {
+            return () -> {
+                enter();
+                try {
+                    return request.call();
+                } finally {
+                    exit();
+                }
+            };
+        }
+
+        /**
+         * Wait for the turn of a request in this lane. Each call which returns must be followed by a call to
+         * {@link #exit()} once the request is handled.
+         * @throws WebApplicationException with a 503 status when the request is shed
+         */
+        public void enter() {
+            if (permits.tryAcquire()) {
+                admitted.increment();
+                queueWait.observe(0);
+                return;
+            }
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                shedQueueFull.increment();
+                throw serviceUnavailable("Too many requests are waiting.");
+            }
+            long start = System.nanoTime();
+            try {
+                if (!permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    shedQueueTimeout.increment();
+                    throw serviceUnavailable("The request waited too long for its turn.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw serviceUnavailable("The request was interrupted while waiting for its turn.");
+            } finally {
+                waiting.decrementAndGet();
+            }
+            admitted.increment();
+            queueWait.observeNanos(System.nanoTime() - start);
+        }
+
+        public void exit() {
+            permits.release();
+        }
+
+        private WebApplicationException serviceUnavailable(String message) {
+            LOG.debug("Request shed from the {} lane: {}", name, message);
+            return new WebApplicationException(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", Math.max(1, queueTimeoutMillis / 1000))
+                    .type(MediaType.TEXT_PLAIN_TYPE)
+                    .entity(message + " The server is overloaded, please retry later.\n")
+                    .build());
+        }
+
+        public int getActive() {
+            return concurrency - permits.availablePermits();
+        }
+
+        public int getWaiting() {
+            return waiting.get();
+        }
+    }
+}
@@ -104,6 +104,18 @@ public class CommandLineParameters implements Cloneable {
     @Parameter(names = {"--disableFileCache"}, description = "Disable http server static file cache. Handy for development.")
     public boolean disableFileCache = false;
 
+    @Parameter(names = {"--maxConcurrentRouting"}, validateWith = PositiveInteger.class,
+            description = "Number of trip planning requests handled at once. Defaults to the number of cores.")
+    public Integer maxConcurrentRouting;
+
+    @Parameter(names = {"--maxConcurrentLookups"}, validateWith = PositiveInteger.class,
+            description = "Number of other GraphQL requests handled at once. Defaults to twice the number of cores.")
+    public Integer maxConcurrentLookups;
+
+    @Parameter(names = {"--admissionQueueTimeout"}, validateWith = PositiveInteger.class,
+            description = "Milliseconds a request may wait for its turn before it is turned away.")
+    public Integer admissionQueueTimeout;
+
     @Parameter(names = {"--router"}, validateWith = RouterId.class,
             description = "One or more router IDs to build and/or serve, first one being the default.")
     public List<String> routerIds;
@@ -128,10 +140,10 @@ public class CommandLineParameters implements Cloneable {
     @Parameter(names = { "--script" }, description = "run the specified OTP script (groovy, python)")
     public File scriptFile = null;
 
-    @Parameter(names = { "--skipTransit" }, description = "Only build graph from OSM data and elevation module. All transit data is skipped.")
+    @Parameter(names = { "--skipTransit" }, description = "Only build graph from OSM data and elevation module. All transit data is skipped. The result is saved as the base graph, with a hash of its street inputs.")
     public boolean skipTransit = false;
 
-    @Parameter(names = { "--loadBaseGraph" }, description = "Load baseGraph.obj and build transit data on top.")
+    @Parameter(names = { "--loadBaseGraph" }, description = "Load baseGraph.obj and build transit data on top. Fails if the OSM or elevation files or the street parameters changed since the base graph was built.")
     public boolean loadBaseGraph = false;
 
     /** Set some convenience parameters based on other parameters' values. */
@@ -57,10 +57,16 @@ public class GrizzlyServer {
         sslConfig.setKeyStoreFile(new File(params.basePath, "keystore").getAbsolutePath());
         sslConfig.setKeyStorePass("opentrip");
 
-        /* OTP is CPU-bound, so we want only as many worker threads as we have cores. */
+        /*
+         * OTP is CPU-bound, but the number of requests doing actual work is limited by the admission control, the
+         * other worker threads only wait for their turn. There is one worker thread for each request which may be
+         * running or waiting in the admission control lanes, so that waiting requests do not hold up the others.
+         */
+        int workerThreads = Math.max(Runtime.getRuntime().availableProcessors(),
+                server.admissionControl.getMaxThreads());
         ThreadPoolConfig threadPoolConfig = ThreadPoolConfig.defaultConfig()
-            .setCorePoolSize(Runtime.getRuntime().availableProcessors())
-            .setMaxPoolSize(Runtime.getRuntime().availableProcessors());
+            .setCorePoolSize(workerThreads)
+            .setMaxPoolSize(workerThreads);
 
         /* HTTP (non-encrypted) listener */
         NetworkListener httpListener = new NetworkListener("otp_insecure", params.bindAddress, params.port);
@@ -0,0 +1,51 @@
+package org.opentripplanner.standalone;
+
+import org.opentripplanner.util.monitoring.Metrics;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import java.io.IOException;
+
+/**
+ * Measure the time taken to answer each request, per web service (see {@link Metrics#httpRequestSeconds(String)}).
+ * The time is measured until the response entity is handed over to be written, so streamed responses are only
+ * partly counted.
+ */
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String START_PROPERTY = MetricsFilter.class.getName() + ".start";
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        request.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) throws IOException {
+        Object start = request.getProperty(START_PROPERTY);
+        if (start instanceof Long) {
+            String api = api(request.getUriInfo().getPath());
+            Metrics.httpRequestSeconds(api).observeNanos(System.nanoTime() - (Long) start);
+        }
+    }
+
+    /** @return the web service of a request path relative to the application, for instance "plan". */
+    static String api(String path) {
+        if (path.contains("/transmodel/index/graphql")) {
+            return "transmodel_graphql";
+        } else if (path.contains("/index/graphql")) {
+            return "graphql";
+        } else if (path.contains("/index/")) {
+            return "index";
+        } else if (path.endsWith("/plan")) {
+            return "plan";
+        } else if (path.endsWith("/matrix")) {
+            return "matrix";
+        } else if (path.endsWith("metrics")) {
+            return "metrics";
+        }
+        return "other";
+    }
+}
@@ -74,6 +74,7 @@ public class OTPApplication extends Application {
             TransmodelIndexAPI.class,
             ExternalGeocoderResource.class,
             BikeRental.class,
+            MatrixResource.class,
             ExternalGeocoderResource.class,
             AlertPatcher.class,
             PlannerResource.class,
@@ -82,8 +83,10 @@ public class OTPApplication extends Application {
             ServerInfo.class,
             GraphInspectorTileResource.class,
             UpdaterStatusResource.class,
+            MetricsResource.class,
             /* Features and Filters: extend Jersey, manipulate requests and responses. */
             CorsFilter.class,
+            MetricsFilter.class,
             MultiPartFeature.class
         ));
         
@@ -25,6 +25,9 @@ public class OTPServer {
 
     public CommandLineParameters params;
 
+    /** Limits the number of trip planning and lookup requests handled at once. */
+    public final AdmissionControl admissionControl;
+
     public OTPServer (CommandLineParameters params, GraphService gs) {
         LOG.info("Wiring up and configuring server.");
 
@@ -32,6 +35,7 @@ public class OTPServer {
 
         // Core OTP modules
         this.graphService = gs;
+        this.admissionControl = AdmissionControl.fromParameters(params);
     }
 
     /**
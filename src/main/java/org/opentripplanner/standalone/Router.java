@@ -7,19 +7,33 @@ import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.FileAppender;
 import com.fasterxml.jackson.databind.JsonNode;
+import org.opentripplanner.graph_builder.linking.LinkCache;
+import org.opentripplanner.index.GraphQLThreadPool;
 import org.opentripplanner.inspector.TileRendererManager;
 import org.opentripplanner.model.TransmodelTransportSubmode;
 import org.opentripplanner.reflect.ReflectiveInitializer;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.impl.ParallelPathSearch;
+import org.opentripplanner.routing.impl.PlanCache;
+import org.opentripplanner.routing.impl.TravelTimeMatrixService;
+import org.opentripplanner.updater.GraphUpdater;
 import org.opentripplanner.updater.GraphUpdaterConfigurator;
+import org.opentripplanner.updater.ReadinessBlockingUpdater;
+import org.opentripplanner.updater.stoptime.TimetableSnapshotSource;
 import org.opentripplanner.util.ElevationUtils;
 import org.opentripplanner.util.WorldEnvelope;
+import org.opentripplanner.util.monitoring.Gauge;
+import org.opentripplanner.util.monitoring.Metrics;
 import org.opentripplanner.visualizer.GraphVisualizer;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
 
 /**
  * Represents the configuration of a single router (a single graph for a specific geographic area)
@@ -29,6 +43,9 @@ public class Router {
 
     private static final Logger LOG = (Logger) LoggerFactory.getLogger(Router.class);
 
+    /** The gauges registered for this router, with its id as label. */
+    private final List<Gauge> gauges = new ArrayList<>();
+
     public String id;
     public Graph graph;
     public double[] timeouts = {5, 4, 2};
@@ -53,6 +70,15 @@ public class Router {
 
     public String kartverketToken;
 
+    /** Computes the travel time matrices of the matrix API, on a thread pool of its own. */
+    public TravelTimeMatrixService travelTimeMatrixService;
+
+    /** Runs the first searches of multiple itinerary requests at once, null unless configured. */
+    public ParallelPathSearch parallelPathSearch;
+
+    /** Trip plans of recent requests, returned again to identical requests. Null unless configured. */
+    public PlanCache planCache;
+
     public Router(String id, Graph graph) {
         this.id = id;
         this.graph = graph;
@@ -70,7 +96,15 @@ public class Router {
      */
     public void startup(JsonNode config) {
 
-        this.tileRendererManager = new TileRendererManager(this.graph);
+        /* Number of encoded inspector tiles kept in memory. */
+        int inspectorTileCacheSize = config.path("inspectorTileCacheSize")
+                .asInt(TileRendererManager.DEFAULT_TILE_CACHE_SIZE);
+        this.tileRendererManager = new TileRendererManager(this.graph, inspectorTileCacheSize);
+
+        /* Number of origin and destination links kept in memory. */
+        if (config.has("linkCacheSize") && graph.streetIndex != null) {
+            graph.streetIndex.getSimpleStreetSplitter().setLinkCacheSize(config.get("linkCacheSize").asInt());
+        }
 
         /* Create the default router parameters from the JSON router config. */
         JsonNode routingDefaultsNode = config.get("routingDefaults");
@@ -161,6 +195,37 @@ public class Router {
             graph.setUseFlexService(useFlexService.asBoolean(false));
         }
 
+        /* Limits of the travel time matrix API. */
+        JsonNode matrix = config.path("matrix");
+        this.travelTimeMatrixService = new TravelTimeMatrixService(this.graph,
+                matrix.path("threads").asInt(TravelTimeMatrixService.DEFAULT_THREADS),
+                matrix.path("queueSize").asInt(TravelTimeMatrixService.DEFAULT_QUEUE_SIZE),
+                matrix.path("maxOrigins").asInt(TravelTimeMatrixService.DEFAULT_MAX_ORIGINS),
+                matrix.path("maxDestinations").asInt(TravelTimeMatrixService.DEFAULT_MAX_DESTINATIONS),
+                matrix.path("maxTravelTime").asInt(TravelTimeMatrixService.DEFAULT_MAX_TRAVEL_TIME),
+                matrix.path("searchTimeout").asDouble(TravelTimeMatrixService.DEFAULT_SEARCH_TIMEOUT));
+
+        /* Optional parallel mode of the path finder when several itineraries are requested. */
+        JsonNode parallelSearch = config.get("parallelSearch");
+        if (parallelSearch != null && parallelSearch.path("enabled").asBoolean(true)) {
+            this.parallelPathSearch = new ParallelPathSearch(
+                    parallelSearch.path("threads").asInt(ParallelPathSearch.DEFAULT_THREADS),
+                    parallelSearch.path("maxSearches").asInt(ParallelPathSearch.DEFAULT_MAX_SEARCHES),
+                    parallelSearch.path("departureStep").asInt(ParallelPathSearch.DEFAULT_DEPARTURE_STEP));
+            LOG.info("Parallel path searches for router '{}': at most {} per request.", this.id,
+                    this.parallelPathSearch.maxSearches);
+        }
+
+        /* Optional cache of trip plans, for bursts of identical requests. */
+        JsonNode planCacheConfig = config.get("planCache");
+        if (planCacheConfig != null && planCacheConfig.path("enabled").asBoolean(true)) {
+            this.planCache = new PlanCache(this.graph,
+                    planCacheConfig.path("maxEntries").asInt(PlanCache.DEFAULT_MAX_ENTRIES),
+                    planCacheConfig.path("timeBucket").asInt(PlanCache.DEFAULT_TIME_BUCKET));
+            LOG.info("Plan cache for router '{}': requests within {} seconds share their plans.", this.id,
+                    this.planCache.timeBucket);
+        }
+
         JsonNode tokenUrl = config.get("kartverketTokenUrl");
         if (tokenUrl != null && tokenUrl.has("url")) {
             this.kartverketToken = tokenUrl.get("url").asText();
@@ -184,6 +249,92 @@ public class Router {
     /** Shut down this router when evicted or (auto-)reloaded. Stop any real-time updater threads. */
     public void shutdown() {
         GraphUpdaterConfigurator.shutdownGraph(this.graph);
+        // A router replacing this one during a hot swap registered gauges of the same names, which are kept.
+        for (Gauge gauge : gauges) {
+            Metrics.REGISTRY.remove(gauge);
+        }
+        gauges.clear();
+        if (travelTimeMatrixService != null) {
+            travelTimeMatrixService.shutdown();
+        }
+        if (parallelPathSearch != null) {
+            parallelPathSearch.shutdown();
+        }
+    }
+
+    /**
+     * @return the types of the real-time updaters which block readiness until they are initialized and are not
+     * initialized yet, empty when the router is ready to answer requests.
+     */
+    public List<String> getUpdatersNotReady() {
+        return updaterTypes(updater -> !updater.isReady());
+    }
+
+    /**
+     * @return the types of the real-time updaters which did not apply their first batch of data yet, whether they
+     * block readiness or not. A router replacing another one waits for them, so that it starts with the same
+     * real-time data.
+     */
+    public List<String> getUpdatersNotInitialized() {
+        return updaterTypes(updater -> !updater.isInitialized());
+    }
+
+    private List<String> updaterTypes(Predicate<ReadinessBlockingUpdater> filter) {
+        List<String> types = new ArrayList<>();
+        if (graph.updaterManager != null && graph.updaterManager.getUpdaterList() != null) {
+            for (GraphUpdater updater : graph.updaterManager.getUpdaterList()) {
+                if (updater instanceof ReadinessBlockingUpdater && filter.test((ReadinessBlockingUpdater) updater)) {
+                    types.add(((ReadinessBlockingUpdater) updater).getType());
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Report the age of the timetable snapshot, the plan and link caches and the GraphQL batch pool. The snapshot
+     * source is created by the updaters, possibly later on, so it is looked up on each report.
+     *
+     * This is not part of {@link #startup(JsonNode)}: the gauges replace those of the same names, so they are only
+     * registered once this router serves the requests, and a router whose hot swap failed leaves the gauges of the
+     * router it was meant to replace in place.
+     */
+    public void registerMetrics() {
+        gauge("otp_timetable_snapshot_age_seconds", "Time since the timetable snapshot in use was committed.", () -> {
+            TimetableSnapshotSource source = graph.timetableSnapshotSource;
+            if (source == null || source.getSnapshotCommitTime() < 0) {
+                return Double.NaN;
+            }
+            return (System.currentTimeMillis() - source.getSnapshotCommitTime()) / 1000.0;
+        });
+        if (planCache != null) {
+            gauge("otp_plan_cache_hits", "Number of plans returned from the plan cache.", planCache::getHits);
+            gauge("otp_plan_cache_misses", "Number of plans searched because they were not in the cache.",
+                    planCache::getMisses);
+            gauge("otp_plan_cache_size", "Number of plans in the plan cache.", planCache::size);
+        }
+        LinkCache linkCache = graph.streetIndex == null ? null
+                : graph.streetIndex.getSimpleStreetSplitter().getLinkCache();
+        if (linkCache != null) {
+            gauge("otp_link_cache_hits", "Number of origins and destinations linked from the link cache.",
+                    linkCache::getHits);
+            gauge("otp_link_cache_misses", "Number of origins and destinations linked by a search of the streets.",
+                    linkCache::getMisses);
+            gauge("otp_link_cache_size", "Number of links in the link cache.", linkCache::size);
+        }
+        if (graph.index != null) {
+            GraphQLThreadPool pool = graph.index.batchThreadPool;
+            gauge("otp_graphql_queue_depth", "Number of GraphQL batch queries waiting for a thread.",
+                    pool::getQueueDepth);
+            gauge("otp_graphql_active_threads", "Number of threads running GraphQL batch queries.",
+                    pool::getActiveCount);
+            gauge("otp_graphql_rejected", "Number of GraphQL batch queries rejected because of overload.",
+                    pool::getRejectedCount);
+        }
+    }
+
+    private void gauge(String name, String help, DoubleSupplier value) {
+        gauges.add(Metrics.REGISTRY.gauge(name, help, value, "router", this.id));
     }
 
     /**
@@ -69,6 +69,12 @@ public class GraphBuilderParameters {
      */
     public final boolean areaVisibility;
 
+    /**
+     * Maximum length in meters of the edges linking the nodes of an area when areaVisibility is on. Capping it
+     * speeds up the visibility calculations of large areas. By default nodes are linked whatever their distance.
+     */
+    public final double maxAreaVisibilityDistance;
+
     /**
      * Link unconnected entries to public transport platforms.
      */
@@ -216,6 +222,7 @@ public class GraphBuilderParameters {
         streets = config.path("streets").asBoolean(true);
         embedRouterConfig = config.path("embedRouterConfig").asBoolean(true);
         areaVisibility = config.path("areaVisibility").asBoolean(false);
+        maxAreaVisibilityDistance = config.path("maxAreaVisibilityDistance").asDouble(Double.POSITIVE_INFINITY);
         platformEntriesLinking = config.path("platformEntriesLinking").asBoolean(false);
         matchBusRoutesToStreets = config.path("matchBusRoutesToStreets").asBoolean(false);
         fetchElevationUS = config.path("fetchElevationUS").asBoolean(false);
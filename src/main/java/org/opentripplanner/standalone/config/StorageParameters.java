@@ -28,6 +28,8 @@ import java.util.List;
  *     htmlAnnotations: true,
  *     storage: {
  *         gsCredentials: "${OTP_GOOGLE_SERVICE_ACCOUNT}",
+ *         gsReadChunkSize: 16777216,
+ *         gsReadConcurrency: 8,
  *         osm: [ "gs://otp-test-bucket/a/b/osm-oslo-mini.pbf" ],
  *         dem: [ "file:/public/dem/norway.dem.tif" ],
  *         gtfs: ["gs://otp-bucket/rut-gtfs.zip", "gs://otp-bucket/vy-gtfs.zip"],
@@ -43,6 +45,10 @@ import java.util.List;
  */
 public class StorageParameters {
 
+    public static final int DEFAULT_GS_READ_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    public static final int DEFAULT_GS_READ_CONCURRENCY = 8;
+
     /**
      * Local file system path to Google Cloud Platform service accounts credentials file. The
      * credentials is used to access GCS urls. When using GCS from outside of the bucket cluster you
@@ -58,6 +64,34 @@ public class StorageParameters {
      */
     public final String gsCredentials;
 
+    /**
+     * The Google Cloud Storage endpoint. Set it to the URL of a local fake GCS server to test
+     * without a Google Cloud project, no credentials are needed in that case.
+     * <p>
+     * Example: {@code "gsHost" : "http://localhost:4443"}
+     * <p>
+     * This parameter is optional, the default is the Google Cloud Storage endpoint.
+     */
+    public final String gsHost;
+
+    /**
+     * Blobs larger than this number of bytes, like the graph, are downloaded from Google Cloud
+     * Storage in chunks of this size, several chunks at once. The chunks are handed over in order
+     * to the reader, so the graph is deserialized while it is downloaded.
+     * <p>
+     * This parameter is optional, the default is 16 MiB.
+     */
+    public final int gsReadChunkSize;
+
+    /**
+     * The maximum number of chunks downloaded at once from Google Cloud Storage, see
+     * {@link #gsReadChunkSize}. The memory used to download a blob is bounded by one more chunk
+     * than this. Set it to 1 to download blobs sequentially.
+     * <p>
+     * This parameter is optional, the default is 8.
+     */
+    public final int gsReadConcurrency;
+
 
     /**
      * URI to the baseGraph for reading and writing. The file is created or overwritten if OTP
@@ -151,6 +185,9 @@ public class StorageParameters {
 
     StorageParameters(JsonNode node) {
         this.gsCredentials = node.path("gsCredentials").asText(null);
+        this.gsHost = node.path("gsHost").asText(null);
+        this.gsReadChunkSize = node.path("gsReadChunkSize").asInt(DEFAULT_GS_READ_CHUNK_SIZE);
+        this.gsReadConcurrency = node.path("gsReadConcurrency").asInt(DEFAULT_GS_READ_CONCURRENCY);
         this.baseGraph = uriFromJson("baseGraph", node);
         this.graph = uriFromJson("graph", node);
         this.osm.addAll(uris("osm", node));
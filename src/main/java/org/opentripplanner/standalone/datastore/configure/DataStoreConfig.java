@@ -77,7 +77,12 @@ public class DataStoreConfig {
         // Adding Google Cloud Storage, if the config file contains URIs with prefix "gs:"
         if (storageConfig.isGoogleCloudStorageEnabled()) {
             LOG.info("Google Cloud Store Repository enabled - GCS resources detected.");
-            repositories.add(new GsDataSourceRepository(storageConfig.gsCredentials));
+            repositories.add(new GsDataSourceRepository(
+                    storageConfig.gsCredentials,
+                    storageConfig.gsHost,
+                    storageConfig.gsReadChunkSize,
+                    storageConfig.gsReadConcurrency
+            ));
         }
         // The file data storage repository should be last, to allow
         // other repositories to "override" and grab files analyzing the
@@ -2,10 +2,12 @@ package org.opentripplanner.standalone.datastore.gs;
 
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.NoCredentials;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.opentripplanner.standalone.datastore.CompositeDataSource;
 import org.opentripplanner.standalone.datastore.DataSource;
 import org.opentripplanner.standalone.datastore.FileType;
@@ -16,21 +18,59 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * This data store uses the local file system to access in-/out- data files.
+ * This data store uses Google Cloud Storage to access in-/out- data files.
+ * <p>
+ * Large blobs are downloaded with concurrent range reads. The range reads of all blobs share one
+ * pool of {@code readConcurrency} daemon threads.
  */
 public class GsDataSourceRepository implements DataSourceRepository {
     private final String credentialsFilename;
+    private final String host;
+    private final int readChunkSize;
+    private final int readConcurrency;
     private Storage storage;
+    private ExecutorService readExecutor;
 
+    /**
+     * Create a repository connected to Google Cloud Storage, reading blobs sequentially.
+     */
     public GsDataSourceRepository(String credentialsFilename) {
+        this(credentialsFilename, null, Integer.MAX_VALUE, 1);
+    }
+
+    /**
+     * @param credentialsFilename the service credentials file, or {@code null} for the default
+     *                            credentials.
+     * @param host                the storage endpoint, e.g. {@code "http://localhost:4443"} for
+     *                            a local fake GCS server, or {@code null} for Google Cloud Storage.
+     * @param readChunkSize       the size in bytes of each range read.
+     * @param readConcurrency     the maximum number of range reads run at once.
+     */
+    public GsDataSourceRepository(
+            String credentialsFilename,
+            String host,
+            int readChunkSize,
+            int readConcurrency
+    ) {
         this.credentialsFilename = credentialsFilename;
+        this.host = host;
+        this.readChunkSize = readChunkSize;
+        this.readConcurrency = readConcurrency;
     }
 
     @Override
     public void open() {
         this.storage = connectToStorage();
+        if (readConcurrency > 1) {
+            this.readExecutor = Executors.newFixedThreadPool(
+                    readConcurrency,
+                    new ThreadFactoryBuilder().setNameFormat("GsRead-%d").setDaemon(true).build()
+            );
+        }
     }
 
     @Override
@@ -61,13 +101,17 @@ public class GsDataSourceRepository implements DataSourceRepository {
         Blob blob = storage.get(blobId);
 
         if(blob != null) {
-            return new GsFileDataSource(blob, type);
+            return newFileSource(blob, type);
         }
         else {
             return new GsOutFileDataSource(storage, blobId, type);
         }
     }
 
+    private GsFileDataSource newFileSource(Blob blob, FileType type) {
+        return new GsFileDataSource(blob, type, readExecutor, readChunkSize, readConcurrency);
+    }
+
     private CompositeDataSource createCompositeSource(BlobId blobId, FileType type) {
         if(GsHelper.isRoot(blobId)) {
             return new GsDirectoryDataSource(storage, blobId, type);
@@ -81,7 +125,7 @@ public class GsDataSourceRepository implements DataSourceRepository {
                         type.text() +  " not found: " + GsHelper.toUriString(blobId)
                 );
             }
-            DataSource gsSource = new GsFileDataSource(blob, type);
+            DataSource gsSource = newFileSource(blob, type);
             return new ZipStreamDataSource(gsSource);
         }
         return new GsDirectoryDataSource(storage, blobId, type);
@@ -98,6 +142,13 @@ public class GsDataSourceRepository implements DataSourceRepository {
                                 "https://www.googleapis.com/auth/cloud-platform"));
                 builder.setCredentials(credentials);
             }
+            else if(host != null) {
+                // A local fake server does not authenticate
+                builder.setCredentials(NoCredentials.getInstance());
+            }
+            if(host != null) {
+                builder.setHost(host);
+            }
             return builder.build().getService();
         }
         catch (IOException e) {
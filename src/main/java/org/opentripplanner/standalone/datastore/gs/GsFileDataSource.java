@@ -1,5 +1,6 @@
 package org.opentripplanner.standalone.datastore.gs;
 
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.Blob;
 import org.opentripplanner.standalone.datastore.DataSource;
 import org.opentripplanner.standalone.datastore.FileType;
@@ -9,6 +10,9 @@ import org.opentripplanner.standalone.datastore.file.ZipFileDataSource;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.GZIPInputStream;
 
 import static java.nio.channels.Channels.newInputStream;
@@ -19,19 +23,44 @@ import static java.nio.channels.Channels.newOutputStream;
  * be read and overwritten.
  * <p>
  * Reading compressed blobs is supported. The only format supported is gzip (extension .gz).
+ * <p>
+ * Blobs larger than the read chunk size are downloaded with concurrent range reads, see
+ * {@link ParallelRangeInputStream}.
  */
 class GsFileDataSource extends AbstractGsDataSource implements DataSource {
     private final Blob blob;
+    private final ExecutorService readExecutor;
+    private final int readChunkSize;
+    private final int readConcurrency;
 
 
     /**
      * Create a data source wrapper around a file. This wrapper handles GZIP(.gz) compressed files
      * as well as normal files. It does not handle directories({@link DirectoryDataSource}) or
      * zip-files {@link ZipFileDataSource} witch contain multiple files.
+     * <p>
+     * The blob is read sequentially, see the other constructor to read it in parallel.
      */
     GsFileDataSource(Blob blob, FileType type) {
+        this(blob, type, null, Integer.MAX_VALUE, 1);
+    }
+
+    /**
+     * Create a data source wrapper around a file, reading blobs larger than {@code readChunkSize}
+     * bytes with up to {@code readConcurrency} concurrent range reads run by the given executor.
+     */
+    GsFileDataSource(
+            Blob blob,
+            FileType type,
+            ExecutorService readExecutor,
+            int readChunkSize,
+            int readConcurrency
+    ) {
         super(blob.getBlobId(), type);
         this.blob = blob;
+        this.readExecutor = readExecutor;
+        this.readChunkSize = readChunkSize;
+        this.readConcurrency = readConcurrency;
     }
 
     @Override
@@ -57,7 +86,11 @@ class GsFileDataSource extends AbstractGsDataSource implements DataSource {
     @Override
     public InputStream asInputStream() {
         // We support both gzip and unzipped files when reading.
-        InputStream in = newInputStream(blob.reader());
+        InputStream in = isReadInParallel()
+                ? new ParallelRangeInputStream(
+                        this::readRange, blob.getSize(), readChunkSize, readConcurrency, readExecutor
+                )
+                : newInputStream(reader());
 
         if (blob.getName().endsWith(".gz")) {
             try {
@@ -76,4 +109,39 @@ class GsFileDataSource extends AbstractGsDataSource implements DataSource {
     public OutputStream asOutputStream() {
         return newOutputStream(blob.writer());
     }
-}
\ No newline at end of file
+
+    /* private methods */
+
+    private boolean isReadInParallel() {
+        // Blobs stored with "Content-Encoding: gzip" are decompressed by the server on download,
+        // byte ranges of those do not add up to the content.
+        return readExecutor != null
+                && readConcurrency > 1
+                && blob.getSize() != null
+                && blob.getSize() > readChunkSize
+                && blob.getContentEncoding() == null;
+    }
+
+    /**
+     * Read the generation of the blob this data source was created with. If the blob is replaced
+     * while it is read, the reads fail instead of mixing the bytes of both generations.
+     */
+    private ReadChannel reader() {
+        return blob.reader(Blob.BlobSourceOption.generationMatch());
+    }
+
+    private byte[] readRange(long offset, int length) throws IOException {
+        try (ReadChannel channel = reader()) {
+            // Fetch the whole range with a single request
+            channel.setChunkSize(length);
+            channel.seek(offset);
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the range is complete or the blob ends
+            }
+            return buffer.hasRemaining()
+                    ? Arrays.copyOf(buffer.array(), buffer.position())
+                    : buffer.array();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.opentripplanner.standalone.datastore.gs;
+
+import org.opentripplanner.util.ReadAheadInputStream;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * An input stream over a remote file which downloads consecutive byte ranges (chunks) of the file
+ * concurrently, and returns them in order. At most {@code concurrency} chunks are downloaded at
+ * once, so the memory used is bounded by {@code (concurrency + 1) * chunkSize} bytes whatever the
+ * size of the file, and the reader of the stream (e.g. the graph deserializer) starts as soon as
+ * the first chunk is downloaded.
+ * <p>
+ * This is a lot faster than a single sequential download for large files, like the graph, since
+ * the throughput of a single connection to the cloud storage is limited.
+ */
+class ParallelRangeInputStream extends ReadAheadInputStream {
+
+    /** Read a byte range of the remote file. */
+    @FunctionalInterface
+    interface RangeReader {
+        /**
+         * @return the {@code length} bytes starting at {@code offset}, fewer only if the file is
+         * shorter than expected.
+         */
+        byte[] read(long offset, int length) throws IOException;
+    }
+
+    private final RangeReader reader;
+    private final long size;
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    /** The offset of the next chunk to request. */
+    private long nextOffset = 0;
+
+    /**
+     * @param reader      read the byte ranges, called from the threads of the executor.
+     * @param size        the size of the file in bytes.
+     * @param chunkSize   the size of each byte range requested.
+     * @param concurrency the maximum number of byte ranges downloaded at once.
+     * @param executor    the executor downloading the byte ranges, it may be shared by many
+     *                    streams.
+     */
+    ParallelRangeInputStream(
+            RangeReader reader,
+            long size,
+            int chunkSize,
+            int concurrency,
+            ExecutorService executor
+    ) {
+        super(concurrency);
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.reader = reader;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+    }
+
+    @Override
+    protected Future<byte[]> requestBlock() {
+        if (nextOffset >= size) {
+            return null;
+        }
+        final long offset = nextOffset;
+        final int length = (int) Math.min(chunkSize, size - offset);
+        nextOffset += length;
+        return executor.submit(() -> readChunk(offset, length));
+    }
+
+
+    /* private methods */
+
+    private byte[] readChunk(long offset, int length) throws IOException {
+        byte[] data = reader.read(offset, length);
+        // A short chunk would silently corrupt the stream, e.g. if the file is replaced while
+        // it is read.
+        if (data.length != length) {
+            throw new IOException(
+                    "Expected " + length + " bytes at offset " + offset + ", but got "
+                            + data.length + ". Has the file changed while reading it?"
+            );
+        }
+        return data;
+    }
+}
@@ -19,6 +19,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -26,8 +27,10 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.util.monitoring.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +54,8 @@ public class GraphUpdaterManager {
      * Text used for naming threads when the graph lacks a routerId.
      */
     private static String DEFAULT_ROUTER_ID = "(default)";
+
+    private static final String LAST_APPLIED_AGE = "otp_realtime_last_applied_age_seconds";
     
     /**
      * Thread factory used to create new threads.
@@ -81,6 +86,12 @@ public class GraphUpdaterManager {
      */
     Graph graph;
 
+    /** Router id of the graph, used to name the threads and label the metrics. */
+    private final String routerId;
+
+    /** Time the last graph writer of each updater finished, in milliseconds since the epoch. */
+    private final Map<String, AtomicLong> lastAppliedTimes = new ConcurrentHashMap<>();
+
     /**
      * Constructor
      * 
@@ -92,6 +103,7 @@ public class GraphUpdaterManager {
         String routerId = graph.routerId;
         if(routerId == null || routerId.isEmpty())
             routerId = DEFAULT_ROUTER_ID;
+        this.routerId = routerId;
         
         threadFactory = new ThreadFactoryBuilder().setNameFormat("GraphUpdater-" + routerId + "-%d").build();
         scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
@@ -113,6 +125,10 @@ public class GraphUpdaterManager {
             LOG.warn("Interrupted while waiting for updaters to finish.");
         }
 
+        for (String updater : lastAppliedTimes.keySet()) {
+            Metrics.REGISTRY.remove(LAST_APPLIED_AGE, "router", routerId, "updater", updater);
+        }
+
         // Clean up updaters
         for (GraphUpdater updater : updaterList) {
             updater.teardown();
@@ -203,8 +219,10 @@ public class GraphUpdaterManager {
         Future<?> future = scheduler.submit(new Runnable() {
             @Override
             public void run() {
+                long start = System.nanoTime();
                 try {
                     runnable.run(graph);
+                    recordApplied(runnable, System.nanoTime() - start);
                 } catch (Exception e) {
                     LOG.error("Error while running graph writer {}:", runnable.getClass().getName(),
                             e);
@@ -214,6 +232,26 @@ public class GraphUpdaterManager {
         return future;
     }
 
+    /**
+     * Report the time taken by a graph writer and the time it finished, under the name of the updater which
+     * created it: the outer class of lambdas and of anonymous or inner classes.
+     */
+    private void recordApplied(GraphWriterRunnable runnable, long nanos) {
+        String className = runnable.getClass().getName();
+        String updater = className.substring(className.lastIndexOf('.') + 1);
+        if (updater.indexOf('$') > 0) {
+            updater = updater.substring(0, updater.indexOf('$'));
+        }
+        Metrics.realtimeApplySeconds(routerId, updater).observeNanos(nanos);
+        lastAppliedTimes.computeIfAbsent(updater, name -> {
+            AtomicLong lastApplied = new AtomicLong();
+            Metrics.REGISTRY.gauge(LAST_APPLIED_AGE, "Time since the last real-time update was applied, per updater.",
+                    () -> (System.currentTimeMillis() - lastApplied.get()) / 1000.0, "router", routerId,
+                    "updater", name);
+            return lastApplied;
+        }).set(System.currentTimeMillis());
+    }
+
     public int size() {
         return updaterList.size();
     }
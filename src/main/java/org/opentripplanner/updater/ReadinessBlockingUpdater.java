@@ -15,6 +15,14 @@ public class ReadinessBlockingUpdater {
         return true;
     }
 
+    /**
+     * @return true once the updater applied its first batch of data, whether it blocks readiness
+     * or not.
+     */
+    public boolean isInitialized() {
+        return isInitialized;
+    }
+
     public String getType() {
         return type;
     }
@@ -22,10 +22,8 @@ import uk.org.siri.siri20.VehicleModesEnumeration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -38,29 +36,18 @@ public class SiriFuzzyTripMatcher {
 
     private GraphIndex index;
 
-    private static Map<String, Set<Trip>> mappedTripsCache = new HashMap<>();
-    private static Map<String, Set<Trip>> mappedVehicleRefCache = new HashMap<>();
-    private static Map<String, Set<Route>> mappedRoutesCache = new HashMap<>();
-    private static Map<String, Set<Trip>> start_stop_tripCache = new HashMap<>();
-
-    private static Map<String, Trip> vehicleJourneyTripCache = new HashMap<>();
-
-    private static Set<String> nonExistingStops = new HashSet<>();
+    private final SiriTripIndex tripIndex;
 
     public SiriFuzzyTripMatcher(GraphIndex index) {
         this.index = index;
-        initCache(this.index);
+        this.tripIndex = index.getSiriTripIndex();
     }
 
     //For testing only
     protected SiriFuzzyTripMatcher(GraphIndex index, boolean forceCacheRebuild) {
         LOG.error("For testing only");
         this.index = index;
-
-        if (forceCacheRebuild) {
-            mappedTripsCache.clear();
-        }
-        initCache(this.index);
+        this.tripIndex = forceCacheRebuild ? new SiriTripIndex(index) : index.getSiriTripIndex();
     }
 
     /**
@@ -75,7 +62,7 @@ public class SiriFuzzyTripMatcher {
             if (monitoredVehicleJourney.getFramedVehicleJourneyRef() != null) {
                 datedVehicleRef = monitoredVehicleJourney.getFramedVehicleJourneyRef().getDatedVehicleJourneyRef();
                 if (datedVehicleRef != null) {
-                    trips = mappedTripsCache.get(datedVehicleRef);
+                    trips = tripIndex.getTripsBySiriId(datedVehicleRef);
                 }
             }
             if (monitoredVehicleJourney.getDestinationRef() != null) {
@@ -164,11 +151,11 @@ public class SiriFuzzyTripMatcher {
 
     private Set<Trip> getMatchingTripsOnStopOrSiblings(String lastStopPoint, ZonedDateTime arrivalTime) {
 
-        Set<Trip> trips = start_stop_tripCache.get(createStartStopKey(lastStopPoint, arrivalTime.toLocalTime().toSecondOfDay()));
+        int lastStopArrivalTime = arrivalTime.toLocalTime().toSecondOfDay();
+        Set<Trip> trips = tripIndex.getTripsByLastStop(lastStopPoint, lastStopArrivalTime);
         if (trips == null) {
             //Attempt to fetch trips that started yesterday - i.e. add 24 hours to arrival-time
-            int lastStopArrivalTime = arrivalTime.toLocalTime().toSecondOfDay() + (24 * 60 * 60);
-            trips = start_stop_tripCache.get(createStartStopKey(lastStopPoint, lastStopArrivalTime));
+            trips = tripIndex.getTripsByLastStop(lastStopPoint, lastStopArrivalTime + (24 * 60 * 60));
         }
 
         if (trips == null || trips.isEmpty()) {
@@ -178,11 +165,13 @@ public class SiriFuzzyTripMatcher {
             if (stop != null && stop.getParentStation() != null) {
                 Collection<Stop> allQuays = index.stopsForParentStation.get(stop.getParentStationAgencyAndId());
                 for (Stop quay : allQuays) {
-                    Set<Trip> tripSet = start_stop_tripCache.get(createStartStopKey(quay.getId().getId(), arrivalTime.toLocalTime().toSecondOfDay()));
+                    Set<Trip> tripSet = tripIndex.getTripsByLastStop(quay.getId().getId(), lastStopArrivalTime);
                     if (tripSet != null) {
                         if (trips == null) {
                             trips = tripSet;
                         } else {
+                            // The sets of the index are immutable
+                            trips = new HashSet<>(trips);
                             trips.addAll(tripSet);
                         }
                     }
@@ -194,96 +183,12 @@ public class SiriFuzzyTripMatcher {
 
     private Set<Trip> getCachedTripsByVehicleRef(String vehicleRef) {
         if (vehicleRef == null) {return null;}
-        return mappedVehicleRefCache.getOrDefault(vehicleRef, new HashSet<>());
+        return tripIndex.getTripsByVehicleRef(vehicleRef);
     }
 
     private Set<Trip> getCachedTripsBySiriId(String tripId) {
         if (tripId == null) {return null;}
-        return mappedTripsCache.getOrDefault(tripId, new HashSet<>());
-    }
-
-    private static void initCache(GraphIndex index) {
-        if (mappedTripsCache.isEmpty()) {
-
-            Set<Trip> trips = index.patternForTrip.keySet();
-            for (Trip trip : trips) {
-
-                TripPattern tripPattern = index.patternForTrip.get(trip);
-
-                    String currentTripId = getUnpaddedTripId(trip.getId().getId());
-
-                    if (mappedTripsCache.containsKey(currentTripId)) {
-                        mappedTripsCache.get(currentTripId).add(trip);
-                    } else {
-                        Set<Trip> initialSet = new HashSet<>();
-                        initialSet.add(trip);
-                        mappedTripsCache.put(currentTripId, initialSet);
-                    }
-
-                if (tripPattern != null && (tripPattern.mode.equals(TraverseMode.RAIL) ||
-                                                    (trip.getTransportSubmode() != null &&
-                                                            trip.getTransportSubmode().equals(TransmodelTransportSubmode.RAIL_REPLACEMENT_BUS))) ){
-                    if (trip.getTripShortName() != null) {
-                        String tripShortName = trip.getTripShortName();
-                        if (mappedVehicleRefCache.containsKey(tripShortName)) {
-                            mappedVehicleRefCache.get(tripShortName).add(trip);
-                        } else {
-                            Set<Trip> initialSet = new HashSet<>();
-                            initialSet.add(trip);
-                            mappedVehicleRefCache.put(tripShortName, initialSet);
-                        }
-                    }
-                }
-                String lastStopId = tripPattern.getStops().get(tripPattern.getStops().size()-1).getId().getId();
-
-                TripTimes tripTimes = tripPattern.scheduledTimetable.getTripTimes(trip);
-                if (tripTimes != null) {
-                    int arrivalTime = tripTimes.getArrivalTime(tripTimes.getNumStops() - 1);
-
-                    String key = createStartStopKey(lastStopId, arrivalTime);
-                    if (start_stop_tripCache.containsKey(key)) {
-                        start_stop_tripCache.get(key).add(trip);
-                    } else {
-                        Set<Trip> initialSet = new HashSet<>();
-                        initialSet.add(trip);
-                        start_stop_tripCache.put(key, initialSet);
-                    }
-                }
-            }
-            Set<Route> routes = index.patternsForRoute.keySet();
-            for (Route route : routes) {
-
-                String currentRouteId = getUnpaddedTripId(route.getId().getId());
-                if (mappedRoutesCache.containsKey(currentRouteId)) {
-                    mappedRoutesCache.get(currentRouteId).add(route);
-                } else {
-                    Set<Route> initialSet = new HashSet<>();
-                    initialSet.add(route);
-                    mappedRoutesCache.put(currentRouteId, initialSet);
-                }
-            }
-
-            LOG.info("Built route-cache [{}].", mappedRoutesCache.size());
-            LOG.info("Built vehicleRef-cache [{}].", mappedVehicleRefCache.size());
-            LOG.info("Built trips-cache [{}].", mappedTripsCache.size());
-            LOG.info("Built start-stop-cache [{}].", start_stop_tripCache.size());
-        }
-
-        if (vehicleJourneyTripCache.isEmpty()) {
-            index.tripForId.values().forEach(trip -> vehicleJourneyTripCache.put(trip.getId().getId(), trip));
-        }
-    }
-
-    private static String createStartStopKey(String lastStopId, int lastStopArrivalTime) {
-        return lastStopId + ":" + lastStopArrivalTime;
-    }
-
-    private static String getUnpaddedTripId(String id) {
-        if (id.indexOf("-") > 0) {
-            return id.substring(0, id.indexOf("-"));
-        } else {
-            return id;
-        }
+        return tripIndex.getTripsBySiriId(tripId);
     }
 
     public Set<Route> getRoutesForStop(AgencyAndId siriStopId) {
@@ -292,44 +197,15 @@ public class SiriFuzzyTripMatcher {
     }
 
     public AgencyAndId getStop(String siriStopId) {
-
-        if (nonExistingStops.contains(siriStopId)) {
-            return null;
-        }
-
-        //First, assume same agency
-        Stop firstStop = index.stopForId.values().stream().findFirst().get();
-        AgencyAndId id = new AgencyAndId(firstStop.getId().getAgencyId(), siriStopId);
-        if (index.stopForId.containsKey(id)) {
-            return id;
-        } else if (index.stationForId.containsKey(id)) {
-            return id;
-        }
-
-        //Not same agency - loop through all stops/Stations
-        Collection<Stop> stops = index.stopForId.values();
-        for (Stop stop : stops) {
-            if (stop.getId().getId().equals(siriStopId)) {
-                return stop.getId();
-            }
-        }
-        //No match found in quays - check parent-stops (stopplace)
-        for (Stop stop : stops) {
-            if (siriStopId.equals(stop.getParentStation())) {
-                return stop.getParentStationAgencyAndId();
-            }
-        }
-
-        nonExistingStops.add(siriStopId);
-        return null;
+        return tripIndex.getStop(siriStopId);
     }
 
     public Set<Route> getRoutes(String lineRefValue) {
-        return mappedRoutesCache.getOrDefault(lineRefValue, new HashSet<>());
+        return tripIndex.getRoutesBySiriId(lineRefValue);
     }
 
     public AgencyAndId getTripId(String vehicleJourney) {
-        Trip trip = vehicleJourneyTripCache.get(vehicleJourney);
+        Trip trip = tripIndex.getTrip(vehicleJourney);
         if (trip != null) {
             return trip.getId();
         }
@@ -337,7 +213,6 @@ public class SiriFuzzyTripMatcher {
         for (String feedId : index.agenciesForFeedId.keySet()) {
             trip = index.tripForId.get(new AgencyAndId(feedId, vehicleJourney));
             if (trip != null) {
-                vehicleJourneyTripCache.put(vehicleJourney, trip);
                 return trip.getId();
             }
         }
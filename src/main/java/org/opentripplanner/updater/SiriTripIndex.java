@@ -0,0 +1,186 @@
+package org.opentripplanner.updater;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import org.opentripplanner.model.AgencyAndId;
+import org.opentripplanner.model.Route;
+import org.opentripplanner.model.Stop;
+import org.opentripplanner.model.TransmodelTransportSubmode;
+import org.opentripplanner.model.Trip;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.TripPattern;
+import org.opentripplanner.routing.graph.GraphIndex;
+import org.opentripplanner.routing.trippattern.TripTimes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Lookup tables used by {@link SiriFuzzyTripMatcher} to find the trips of SIRI deliveries, built once
+ * per graph (see {@link GraphIndex#getSiriTripIndex()}) from the scheduled data, in parallel.
+ *
+ * The index is immutable once built, so the SIRI-ET, SIRI-VM and SIRI-SX updaters and the APIs may
+ * all match trips concurrently without any locking. Trips added in real time are not indexed here.
+ */
+public class SiriTripIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SiriTripIndex.class);
+
+    /** Trips by their id without the part after the first dash, as used in SIRI. */
+    private final ImmutableSetMultimap<String, Trip> tripsBySiriId;
+
+    /** Rail and rail replacement trips by their short name, which SIRI uses as vehicle ref. */
+    private final ImmutableSetMultimap<String, Trip> tripsByVehicleRef;
+
+    /** Routes by their id without the part after the first dash. */
+    private final ImmutableSetMultimap<String, Route> routesBySiriId;
+
+    /** Trips by the id of their last stop, then by their scheduled arrival time at that stop. */
+    private final Map<String, TIntObjectMap<Set<Trip>>> tripsByLastStopAndArrival;
+
+    /** Trips by their id without feed. */
+    private final Map<String, Trip> tripsById;
+
+    /** Stops and stations by their id without feed, see {@link #getStop(String)}. */
+    private final Map<String, AgencyAndId> stopIdsBySiriId;
+
+    public SiriTripIndex(GraphIndex index) {
+        long start = System.currentTimeMillis();
+        Set<Trip> trips = index.patternForTrip.keySet();
+
+        tripsBySiriId = trips.parallelStream().collect(ImmutableSetMultimap.toImmutableSetMultimap(
+                trip -> getUnpaddedId(trip.getId().getId()), trip -> trip));
+
+        tripsByVehicleRef = trips.parallelStream()
+                .filter(trip -> trip.getTripShortName() != null && isRail(index.patternForTrip.get(trip), trip))
+                .collect(ImmutableSetMultimap.toImmutableSetMultimap(Trip::getTripShortName, trip -> trip));
+
+        routesBySiriId = index.patternsForRoute.keySet().parallelStream()
+                .collect(ImmutableSetMultimap.toImmutableSetMultimap(
+                        route -> getUnpaddedId(route.getId().getId()), route -> route));
+
+        tripsById = ImmutableMap.copyOf(index.tripForId.values().parallelStream()
+                .collect(Collectors.toMap(trip -> trip.getId().getId(), trip -> trip, (a, b) -> b)));
+
+        Map<String, List<Trip>> tripsByLastStop = trips.parallelStream()
+                .filter(trip -> index.patternForTrip.get(trip) != null)
+                .collect(Collectors.groupingByConcurrent(trip -> lastStopId(index.patternForTrip.get(trip))));
+        tripsByLastStopAndArrival = ImmutableMap.copyOf(tripsByLastStop.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> byArrival(index, e.getValue()))));
+
+        stopIdsBySiriId = ImmutableMap.copyOf(indexStopIds(index));
+
+        LOG.info("Built SIRI trip index in {} ms: {} routes, {} vehicle refs, {} trip ids, {} last stops.",
+                System.currentTimeMillis() - start, routesBySiriId.keySet().size(),
+                tripsByVehicleRef.keySet().size(), tripsBySiriId.keySet().size(),
+                tripsByLastStopAndArrival.size());
+    }
+
+    /** @return the trips whose id without the part after the first dash is the given one. */
+    public Set<Trip> getTripsBySiriId(String siriId) {
+        return tripsBySiriId.get(siriId);
+    }
+
+    /** @return the rail trips with the given short name. */
+    public Set<Trip> getTripsByVehicleRef(String vehicleRef) {
+        return tripsByVehicleRef.get(vehicleRef);
+    }
+
+    public Set<Route> getRoutesBySiriId(String siriId) {
+        return routesBySiriId.get(siriId);
+    }
+
+    /**
+     * @param arrivalTime scheduled arrival time at the last stop, in seconds since midnight of the
+     *                    service day.
+     * @return the trips ending at the given stop at the given time, null if there are none.
+     */
+    public Set<Trip> getTripsByLastStop(String lastStopId, int arrivalTime) {
+        TIntObjectMap<Set<Trip>> byArrival = tripsByLastStopAndArrival.get(lastStopId);
+        return byArrival == null ? null : byArrival.get(arrivalTime);
+    }
+
+    /** @return the trip with the given id, in any feed. */
+    public Trip getTrip(String tripId) {
+        return tripsById.get(tripId);
+    }
+
+    /**
+     * Find the stop or station of a SIRI stop ref. A stop or station of the same feed as the first
+     * stop of the graph is preferred, then a stop of another feed, then a parent station.
+     *
+     * @return the id of the stop or station, null if there is none.
+     */
+    public AgencyAndId getStop(String siriStopId) {
+        return stopIdsBySiriId.get(siriStopId);
+    }
+
+    private static TIntObjectMap<Set<Trip>> byArrival(GraphIndex index, List<Trip> trips) {
+        TIntObjectMap<Set<Trip>> byArrival = new TIntObjectHashMap<>();
+        Map<Integer, ImmutableSet.Builder<Trip>> builders = new HashMap<>();
+        for (Trip trip : trips) {
+            TripTimes tripTimes = index.patternForTrip.get(trip).scheduledTimetable.getTripTimes(trip);
+            if (tripTimes != null) {
+                int arrivalTime = tripTimes.getArrivalTime(tripTimes.getNumStops() - 1);
+                builders.computeIfAbsent(arrivalTime, t -> ImmutableSet.builder()).add(trip);
+            }
+        }
+        builders.forEach((arrivalTime, builder) -> byArrival.put(arrivalTime, builder.build()));
+        return byArrival;
+    }
+
+    private static Map<String, AgencyAndId> indexStopIds(GraphIndex index) {
+        Map<String, AgencyAndId> ids = new LinkedHashMap<>();
+        if (index.stopForId.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String agencyId = index.stopForId.values().iterator().next().getId().getAgencyId();
+        for (AgencyAndId id : index.stopForId.keySet()) {
+            if (id.getAgencyId().equals(agencyId)) {
+                ids.put(id.getId(), id);
+            }
+        }
+        for (AgencyAndId id : index.stationForId.keySet()) {
+            if (id.getAgencyId().equals(agencyId)) {
+                ids.put(id.getId(), id);
+            }
+        }
+        for (Stop stop : index.stopForId.values()) {
+            ids.putIfAbsent(stop.getId().getId(), stop.getId());
+        }
+        for (Stop stop : index.stopForId.values()) {
+            if (stop.getParentStation() != null) {
+                ids.putIfAbsent(stop.getParentStation(), stop.getParentStationAgencyAndId());
+            }
+        }
+        return ids;
+    }
+
+    private static boolean isRail(TripPattern tripPattern, Trip trip) {
+        return tripPattern != null && (tripPattern.mode.equals(TraverseMode.RAIL) ||
+                TransmodelTransportSubmode.RAIL_REPLACEMENT_BUS.equals(trip.getTransportSubmode()));
+    }
+
+    private static String lastStopId(TripPattern tripPattern) {
+        List<Stop> stops = tripPattern.getStops();
+        return stops.get(stops.size() - 1).getId().getId();
+    }
+
+    static String getUnpaddedId(String id) {
+        if (id.indexOf("-") > 0) {
+            return id.substring(0, id.indexOf("-"));
+        } else {
+            return id;
+        }
+    }
+}
@@ -187,9 +187,8 @@ public class AlertsUpdateHandler {
 
 
         // Alerts are not partially updated - cancel ALL current related alerts before adding updated.
-        idsToExpire.addAll(alertPatchService.getAllAlertPatches()
+        idsToExpire.addAll(alertPatchService.getSituationPatches(situationNumber)
             .stream()
-            .filter(alertPatch -> alertPatch.getSituationNumber().equals(situationNumber))
             .map(AlertPatch::getId)
             .collect(Collectors.toList()));
 
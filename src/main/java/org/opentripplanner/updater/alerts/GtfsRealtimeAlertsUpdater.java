@@ -52,7 +52,7 @@ public class GtfsRealtimeAlertsUpdater extends PollingGraphUpdater {
 
     private GtfsRealtimeFuzzyTripMatcher fuzzyTripMatcher;
 
-    private AlertPatchService alertPatchService;
+    private AlertPatchServiceImpl alertPatchService;
 
     private long earlyStart;
 
@@ -66,8 +66,7 @@ public class GtfsRealtimeAlertsUpdater extends PollingGraphUpdater {
     @Override
     protected void configurePolling(Graph graph, JsonNode config) throws Exception {
         // TODO: add options to choose different patch services
-        AlertPatchService alertPatchService = new AlertPatchServiceImpl(graph);
-        this.alertPatchService = alertPatchService;
+        this.alertPatchService = new AlertPatchServiceImpl(graph);
         String url = config.path("url").asText();
         if (url == null) {
             throw new IllegalArgumentException("Missing mandatory 'url' parameter");
@@ -75,6 +74,7 @@ public class GtfsRealtimeAlertsUpdater extends PollingGraphUpdater {
         this.url = url;
         this.earlyStart = config.path("earlyStartSec").asInt(0);
         this.feedId = config.path("feedId").asText();
+        alertPatchService.registerMetrics("router", graph.routerId, "updater", "GtfsRealtimeAlertsUpdater", "feed", feedId);
         if (config.path("fuzzyTripMatching").asBoolean(false)) {
             this.fuzzyTripMatcher = new GtfsRealtimeFuzzyTripMatcher(graph.index);
         }
@@ -124,6 +124,9 @@ public class GtfsRealtimeAlertsUpdater extends PollingGraphUpdater {
 
     @Override
     public void teardown() {
+        if (alertPatchService != null) {
+            alertPatchService.unregisterMetrics();
+        }
     }
 
     public AlertPatchService getAlertPatchService() {
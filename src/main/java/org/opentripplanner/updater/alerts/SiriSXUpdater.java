@@ -49,7 +49,7 @@ public class SiriSXUpdater extends PollingGraphUpdater {
 
     private SiriFuzzyTripMatcher fuzzyTripMatcher;
 
-    private AlertPatchService alertPatchService;
+    private AlertPatchServiceImpl alertPatchService;
 
     private long earlyStart;
 
@@ -61,6 +61,9 @@ public class SiriSXUpdater extends PollingGraphUpdater {
 
     private static Map<String, String> requestHeaders;
     
+    /** How long alerts are kept after the end of their validity, in seconds. */
+    private int expiredAlertRetentionSec;
+
     private long retryIntervalMillis = 5000;
     private int retryCount = 0;
     private String originalRequestorRef;
@@ -73,8 +76,7 @@ public class SiriSXUpdater extends PollingGraphUpdater {
     @Override
     protected void configurePolling(Graph graph, JsonNode config) throws Exception {
         // TODO: add options to choose different patch services
-        AlertPatchService alertPatchService = new AlertPatchServiceImpl(graph);
-        this.alertPatchService = alertPatchService;
+        this.alertPatchService = new AlertPatchServiceImpl(graph);
         String url = config.path("url").asText();
         if (url == null) {
             throw new IllegalArgumentException("Missing mandatory 'url' parameter");
@@ -89,7 +91,9 @@ public class SiriSXUpdater extends PollingGraphUpdater {
 
         this.url = url;// + uniquenessParameter;
         this.earlyStart = config.path("earlyStartSec").asInt(0);
+        this.expiredAlertRetentionSec = config.path("expiredAlertRetentionSec").asInt(3600);
         this.feedId = config.path("feedId").asText();
+        alertPatchService.registerMetrics("router", graph.routerId, "updater", "SiriSXUpdater", "feed", feedId);
 
 
         int timeoutSec = config.path("timeoutSec").asInt();
@@ -133,9 +137,9 @@ public class SiriSXUpdater extends PollingGraphUpdater {
                 // Handle update in graph writer runnable
                 if (blockReadinessUntilInitialized && !isInitialized) {
                     LOG.info("Execute blocking tripupdates");
-                    updaterManager.executeBlocking(graph -> updateHandler.update(updates.getServiceDelivery()));
+                    updaterManager.executeBlocking(graph -> applyUpdates(updates.getServiceDelivery()));
                 } else {
-                    updaterManager.execute(graph -> updateHandler.update(updates.getServiceDelivery()));
+                    updaterManager.execute(graph -> applyUpdates(updates.getServiceDelivery()));
                 }
             }
             if (updates != null &&
@@ -162,6 +166,11 @@ public class SiriSXUpdater extends PollingGraphUpdater {
         }
     }
 
+    private void applyUpdates(ServiceDelivery delivery) {
+        updateHandler.update(delivery);
+        alertPatchService.expireEndedBefore(System.currentTimeMillis() / 1000 - expiredAlertRetentionSec);
+    }
+
     private Siri getUpdates() throws JAXBException, IOException, XMLStreamException {
 
         long t1 = System.currentTimeMillis();
@@ -208,6 +217,9 @@ public class SiriSXUpdater extends PollingGraphUpdater {
 
     @Override
     public void teardown() {
+        if (alertPatchService != null) {
+            alertPatchService.unregisterMetrics();
+        }
     }
 
     public AlertPatchService getAlertPatchService() {
@@ -127,6 +127,9 @@ public class TimetableSnapshotSource {
 
     protected long lastSnapshotTime = -1;
 
+    /** Time the current snapshot was committed, in milliseconds since the epoch, -1 if there is none yet. */
+    private volatile long snapshotCommitTime = -1;
+
     private final TimeZone timeZone;
 
     private final GraphIndex graphIndex;
@@ -181,12 +184,21 @@ public class TimetableSnapshotSource {
         return snapshotToReturn;
     }
 
+    /**
+     * @return the time the current snapshot was committed, in milliseconds since the epoch, or -1 if no
+     *         snapshot was committed yet. Updates are only committed when a search asks for the snapshot.
+     */
+    public long getSnapshotCommitTime() {
+        return snapshotCommitTime;
+    }
+
     private TimetableSnapshot getTimetableSnapshot(final boolean force) {
         final long now = System.currentTimeMillis();
         if (force || now - lastSnapshotTime > maxSnapshotFrequency) {
             if (force || buffer.isDirty()) {
                 LOG.debug("Committing {}", buffer.toString());
                 snapshot = buffer.commit(force);
+                snapshotCommitTime = System.currentTimeMillis();
             } else {
                 LOG.debug("Buffer was unchanged, keeping old snapshot.");
             }
@@ -17,6 +17,7 @@ import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.opentripplanner.common.geometry.CoordinateConsumer;
 import org.opentripplanner.util.model.EncodedPolylineBean;
 
 import org.locationtech.jts.geom.Coordinate;
@@ -84,9 +85,10 @@ public class PolylineEncoder {
             plat = late5;
             plng = lnge5;
 
-            encodedPoints.append(encodeSignedNumber(dlat)).append(encodeSignedNumber(dlng));
+            appendSignedNumber(encodedPoints, dlat);
+            appendSignedNumber(encodedPoints, dlng);
             if (level >= 0)
-                encodedLevels.append(encodeNumber(level));
+                appendNumber(encodedLevels, level);
             count++;
         }
 
@@ -95,6 +97,43 @@ public class PolylineEncoder {
         return new EncodedPolylineBean(pointsString, levelsString, count);
     }
 
+    /**
+     * Encodes the points as they are given, without collecting them first. This gives the same
+     * encoding as {@link #createEncodings(Iterable)}.
+     */
+    public static class Builder implements CoordinateConsumer {
+
+        private final StringBuilder encodedPoints = new StringBuilder();
+
+        private int plat = 0;
+
+        private int plng = 0;
+
+        private int count = 0;
+
+        @Override
+        public void accept(double x, double y) {
+            int late5 = floor1e5(y);
+            int lnge5 = floor1e5(x);
+
+            appendSignedNumber(encodedPoints, late5 - plat);
+            appendSignedNumber(encodedPoints, lnge5 - plng);
+
+            plat = late5;
+            plng = lnge5;
+            count++;
+        }
+
+        /** @return the number of points added so far */
+        public int getCount() {
+            return count;
+        }
+
+        public EncodedPolylineBean build() {
+            return new EncodedPolylineBean(encodedPoints.toString(), null, count);
+        }
+    }
+
     public static List<Coordinate> decode(EncodedPolylineBean polyline) {
 
         String pointString = polyline.getPoints();
@@ -130,11 +169,17 @@ public class PolylineEncoder {
     }
 
     public static String encodeSignedNumber(int num) {
+        StringBuilder encodeString = new StringBuilder();
+        appendSignedNumber(encodeString, num);
+        return encodeString.toString();
+    }
+
+    private static void appendSignedNumber(StringBuilder encodeString, int num) {
         int sgn_num = num << 1;
         if (num < 0) {
             sgn_num = ~(sgn_num);
         }
-        return (encodeNumber(sgn_num));
+        appendNumber(encodeString, sgn_num);
     }
 
     public static int decodeSignedNumber(String value) {
@@ -153,9 +198,12 @@ public class PolylineEncoder {
     }
 
     public static String encodeNumber(int num) {
+        StringBuilder encodeString = new StringBuilder();
+        appendNumber(encodeString, num);
+        return encodeString.toString();
+    }
 
-        StringBuffer encodeString = new StringBuffer();
-
+    private static void appendNumber(StringBuilder encodeString, int num) {
         while (num >= 0x20) {
             int nextValue = (0x20 | (num & 0x1f)) + 63;
             encodeString.append((char) (nextValue));
@@ -164,8 +212,6 @@ public class PolylineEncoder {
 
         num += 63;
         encodeString.append((char) (num));
-
-        return encodeString.toString();
     }
 
     public static int decodeNumber(String value) {
@@ -0,0 +1,151 @@
+package org.opentripplanner.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * An input stream returning, in order, blocks of bytes which are produced ahead of the reader by
+ * background tasks, e.g. downloaded or decompressed. At most {@code maxPendingBlocks} blocks are
+ * requested at once, so the memory used is bounded whatever the length of the stream, and the
+ * reader starts as soon as the first block is ready.
+ * <p>
+ * Subclasses only request the next block, see {@link #requestBlock()}. A failed block fails the
+ * stream with the {@link IOException} of its task.
+ * <p>
+ * This class is not thread-safe, like most input streams.
+ */
+public abstract class ReadAheadInputStream extends InputStream {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int maxPendingBlocks;
+
+    /** Blocks requested and not read yet, in stream order. */
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] current = EMPTY;
+    private int position = 0;
+    private boolean endOfBlocks = false;
+    private boolean closed = false;
+
+    /**
+     * @param maxPendingBlocks the maximum number of blocks requested ahead of the reader.
+     */
+    protected ReadAheadInputStream(int maxPendingBlocks) {
+        if (maxPendingBlocks <= 0) {
+            throw new IllegalArgumentException(
+                    "The number of blocks read ahead must be positive: " + maxPendingBlocks
+            );
+        }
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    /**
+     * Request the next block of the stream, typically by submitting a task to an executor.
+     * @return the next block, or null at the end of the stream.
+     */
+    protected abstract Future<byte[]> requestBlock() throws IOException;
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    /** Cancel the blocks which were requested and not read yet. */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        cancelPending();
+        current = EMPTY;
+        position = 0;
+    }
+
+
+    /* private methods */
+
+    /**
+     * Make sure there is something left to read in the current block, waiting for the next block
+     * if needed.
+     * @return false at the end of the stream.
+     */
+    private boolean fill() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (position == current.length) {
+            requestBlocks();
+            Future<byte[]> next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            current = await(next);
+            position = 0;
+        }
+        return true;
+    }
+
+    private void requestBlocks() throws IOException {
+        while (!endOfBlocks && pending.size() < maxPendingBlocks) {
+            Future<byte[]> block = requestBlock();
+            if (block == null) {
+                endOfBlocks = true;
+            }
+            else {
+                pending.add(block);
+            }
+        }
+    }
+
+    private byte[] await(Future<byte[]> block) throws IOException {
+        try {
+            return block.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelPending();
+            throw new InterruptedIOException("Interrupted while waiting for the next block.");
+        }
+        catch (ExecutionException e) {
+            cancelPending();
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause().getLocalizedMessage(), e.getCause());
+        }
+    }
+
+    private void cancelPending() {
+        for (Future<byte[]> block : pending) {
+            block.cancel(true);
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,38 @@
+package org.opentripplanner.util.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count which only goes up. Increments do not take any lock and contended increments from several threads are
+ * spread over several cells, so a counter may be incremented in the innermost loops of a search.
+ */
+public class Counter extends Metric {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter(String name, String help, String labels) {
+        super(name, help, labels);
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long n) {
+        count.add(n);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    String type() {
+        return "counter";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        writeSample(out, name, labels, count.sum());
+    }
+}
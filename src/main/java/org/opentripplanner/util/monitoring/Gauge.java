@@ -0,0 +1,31 @@
+package org.opentripplanner.util.monitoring;
+
+import java.util.function.DoubleSupplier;
+
+/** A value which may go up and down, read from its supplier each time the metrics are reported. */
+public class Gauge extends Metric {
+
+    private final DoubleSupplier value;
+
+    Gauge(String name, String help, String labels, DoubleSupplier value) {
+        super(name, help, labels);
+        this.value = value;
+    }
+
+    public double get() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    String type() {
+        return "gauge";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        double v = value.getAsDouble();
+        if (!Double.isNaN(v)) {
+            writeSample(out, name, labels, v);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.opentripplanner.util.monitoring;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The distribution of observed values, as counts of the values at most equal to each of a fixed list of bucket
+ * bounds, together with their count and sum. Like a {@link Counter}, observing a value does not take any lock.
+ */
+public class Histogram extends Metric {
+
+    /** Bucket bounds in seconds for request latencies, from 5 ms to 30 s. */
+    public static final double[] LATENCY_BUCKETS =
+            { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30 };
+
+    private final double[] bounds;
+
+    /** Number of values in each bucket, the last one counting the values above all bounds. */
+    private final LongAdder[] counts;
+
+    private final DoubleAdder sum = new DoubleAdder();
+
+    Histogram(String name, String help, String labels, double[] bounds) {
+        super(name, help, labels);
+        this.bounds = bounds.clone();
+        Arrays.sort(this.bounds);
+        this.counts = new LongAdder[this.bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /** @return bucket bounds growing by the given factor from start, for instance for counts of vertices. */
+    public static double[] exponentialBuckets(double start, double factor, int count) {
+        double[] buckets = new double[count];
+        for (int i = 0; i < count; i++) {
+            buckets[i] = start * Math.pow(factor, i);
+        }
+        return buckets;
+    }
+
+    public void observe(double value) {
+        int bucket = Arrays.binarySearch(bounds, value);
+        counts[bucket >= 0 ? bucket : -bucket - 1].increment();
+        sum.add(value);
+    }
+
+    /** Observe a duration measured with {@link System#nanoTime()}, in seconds. */
+    public void observeNanos(long nanos) {
+        observe(nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    @Override
+    String type() {
+        return "histogram";
+    }
+
+    @Override
+    void writeSamples(StringBuilder out) {
+        String separator = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i].sum();
+            writeSample(out, name + "_bucket", separator + "le=\"" + bounds[i] + "\"", cumulative);
+        }
+        cumulative += counts[bounds.length].sum();
+        writeSample(out, name + "_bucket", separator + "le=\"+Inf\"", cumulative);
+        writeSample(out, name + "_sum", labels, sum.sum());
+        writeSample(out, name + "_count", labels, cumulative);
+    }
+}
@@ -0,0 +1,41 @@
+package org.opentripplanner.util.monitoring;
+
+/**
+ * A value or set of values reported by the metrics endpoint, identified by its name and its labels. Metrics are
+ * created and registered by a {@link MetricsRegistry}.
+ */
+public abstract class Metric {
+
+    final String name;
+
+    final String help;
+
+    /** The labels in the Prometheus text format, for instance {@code api="plan"}, empty if there are none. */
+    final String labels;
+
+    Metric(String name, String help, String labels) {
+        this.name = name;
+        this.help = help;
+        this.labels = labels;
+    }
+
+    /** @return the Prometheus type of the metric: counter, gauge or histogram. */
+    abstract String type();
+
+    /** Append the samples of this metric in the Prometheus text format. */
+    abstract void writeSamples(StringBuilder out);
+
+    static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,71 @@
+package org.opentripplanner.util.monitoring;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The metrics of the OTP server, reported by the {@link org.opentripplanner.api.resource.MetricsResource}.
+ *
+ * The metrics updated by the searches are kept in constants so that reporting to them is a single lock-free
+ * increment. The metrics of the web services, the real-time updaters and the JVM are registered in the
+ * {@link #REGISTRY} as they are needed.
+ */
+public class Metrics {
+
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    /** Number of vertices visited by each search. */
+    public static final Histogram ASTAR_VISITED_VERTICES = REGISTRY.histogram("otp_astar_visited_vertices",
+            "Number of vertices visited by each A* search.", Histogram.exponentialBuckets(100, 4, 10));
+
+    /** Time spent initializing the goal direction heuristic of each search. */
+    public static final Histogram ASTAR_HEURISTIC_INIT_SECONDS = REGISTRY.histogram(
+            "otp_astar_heuristic_init_seconds", "Time spent initializing the remaining weight heuristic of each search.",
+            Histogram.LATENCY_BUCKETS);
+
+    /** Number of searches which were stopped by their timeout. */
+    public static final Counter ASTAR_TIMEOUTS = REGISTRY.counter("otp_astar_timeouts_total",
+            "Number of A* searches stopped by their timeout.");
+
+    static {
+        registerJvmMetrics(REGISTRY);
+    }
+
+    /** @return the latency histogram of the requests to the given web service. */
+    public static Histogram httpRequestSeconds(String api) {
+        return REGISTRY.histogram("otp_http_request_duration_seconds", "Time to answer requests, per web service.",
+                Histogram.LATENCY_BUCKETS, "api", api);
+    }
+
+    /** @return the histogram of the time taken by the graph writers of the given real-time updater. */
+    public static Histogram realtimeApplySeconds(String routerId, String updater) {
+        return REGISTRY.histogram("otp_realtime_apply_seconds",
+                "Time taken to apply real-time updates to the graph, per updater.", Histogram.LATENCY_BUCKETS,
+                "router", routerId, "updater", updater);
+    }
+
+    static void registerJvmMetrics(MetricsRegistry registry) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("jvm_memory_heap_used_bytes", "Used heap memory.",
+                () -> memory.getHeapMemoryUsage().getUsed());
+        registry.gauge("jvm_memory_heap_committed_bytes", "Heap memory committed by the JVM.",
+                () -> memory.getHeapMemoryUsage().getCommitted());
+        registry.gauge("jvm_memory_heap_max_bytes", "Maximum heap memory.",
+                () -> memory.getHeapMemoryUsage().getMax());
+        registry.gauge("jvm_memory_nonheap_used_bytes", "Used non-heap memory.",
+                () -> memory.getNonHeapMemoryUsage().getUsed());
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            registry.gauge("jvm_gc_collections", "Number of collections of each garbage collector.",
+                    collector::getCollectionCount, "gc", collector.getName());
+            registry.gauge("jvm_gc_collection_seconds", "Time spent in each garbage collector.",
+                    () -> collector.getCollectionTime() / 1000.0, "gc", collector.getName());
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.gauge("jvm_threads", "Number of live threads.", threads::getThreadCount);
+        registry.gauge("jvm_threads_daemon", "Number of live daemon threads.", threads::getDaemonThreadCount);
+        registry.gauge("jvm_uptime_seconds", "Time since the JVM started.",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+}
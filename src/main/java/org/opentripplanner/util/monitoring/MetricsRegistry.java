@@ -0,0 +1,92 @@
+package org.opentripplanner.util.monitoring;
+
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The metrics of a process, reported in the Prometheus text format by {@link #write()}.
+ *
+ * Metrics are looked up by name and labels, which are given as name and value pairs. Looking a metric up is a
+ * concurrent map access: code which reports often, such as the searches, should keep the metric in a field rather
+ * than look it up each time. Reporting a value never takes a lock.
+ */
+public class MetricsRegistry {
+
+    /** Metrics by name then labels, which is also the order in which they are reported. */
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String help, String... labels) {
+        String labelText = labelText(labels);
+        return (Counter) metrics.computeIfAbsent(key(name, labelText), k -> new Counter(name, help, labelText));
+    }
+
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        String labelText = labelText(labels);
+        return (Histogram) metrics.computeIfAbsent(key(name, labelText),
+                k -> new Histogram(name, help, labelText, buckets));
+    }
+
+    /** Register a gauge reading the given value, replacing any gauge with the same name and labels. */
+    public Gauge gauge(String name, String help, DoubleSupplier value, String... labels) {
+        String labelText = labelText(labels);
+        Gauge gauge = new Gauge(name, help, labelText, value);
+        metrics.put(key(name, labelText), gauge);
+        return gauge;
+    }
+
+    /** Stop reporting the metric with the given name and labels. */
+    public void remove(String name, String... labels) {
+        metrics.remove(key(name, labelText(labels)));
+    }
+
+    /**
+     * Stop reporting the given metric, unless it was already replaced by another metric with the same name and
+     * labels, for instance the gauge of a router which replaced the given one.
+     */
+    public void remove(Metric metric) {
+        metrics.remove(key(metric.name, metric.labels), metric);
+    }
+
+    /** @return all the metrics in the Prometheus text exposition format, version 0.0.4. */
+    public String write() {
+        StringBuilder out = new StringBuilder();
+        String lastName = null;
+        for (Metric metric : new TreeMap<>(metrics).values()) {
+            if (!metric.name.equals(lastName)) {
+                out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+                out.append("# TYPE ").append(metric.name).append(' ').append(metric.type()).append('\n');
+                lastName = metric.name;
+            }
+            metric.writeSamples(out);
+        }
+        return out.toString();
+    }
+
+    int size() {
+        return metrics.size();
+    }
+
+    private static String key(String name, String labelText) {
+        // A space sorts before the characters allowed in names, so a name comes before its longer variants.
+        return name + " " + labelText;
+    }
+
+    private static String labelText(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs.");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            text.append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"));
+            text.append('"');
+        }
+        return text.toString();
+    }
+}
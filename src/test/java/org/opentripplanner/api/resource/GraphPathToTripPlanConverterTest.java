@@ -38,6 +38,7 @@ import org.opentripplanner.api.model.Leg;
 import org.opentripplanner.api.model.Place;
 import org.opentripplanner.api.model.RelativeDirection;
 import org.opentripplanner.api.model.WalkStep;
+import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.geometry.PackedCoordinateSequence;
 import org.opentripplanner.gtfs.BikeAccess;
 import org.opentripplanner.model.StopPattern;
@@ -72,12 +73,14 @@ import org.opentripplanner.routing.edgetype.StreetEdge;
 import org.opentripplanner.routing.edgetype.StreetTransitLink;
 import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
 import org.opentripplanner.routing.edgetype.StreetWithElevationEdge;
+import org.opentripplanner.routing.edgetype.TemporaryPartialStreetEdge;
 import org.opentripplanner.routing.edgetype.TimetableSnapshot;
 import org.opentripplanner.routing.edgetype.TransitBoardAlight;
 import org.opentripplanner.routing.edgetype.TripPattern;
 import org.opentripplanner.routing.error.TrivialPathException;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.location.StreetLocation;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
 import org.opentripplanner.routing.services.FareService;
 import org.opentripplanner.routing.services.notes.StreetNotesService;
 import org.opentripplanner.routing.spt.GraphPath;
@@ -191,6 +194,43 @@ public class GraphPathToTripPlanConverterTest {
         GraphPathToTripPlanConverter.generateItinerary(graphPath, false, false, locale);
     }
 
+    /**
+     * Test that a turn staying on the same street generates a new walk step when the only other street leaving the
+     * intersection is a temporary edge of the request, towards a destination split from another street.
+     */
+    @Test
+    public void testTurnWithTemporaryAlternativeGeneratesStep() {
+        Graph graph = new Graph();
+        IntersectionVertex a = new IntersectionVertex(graph, "A", 0.0, 0.0);
+        IntersectionVertex x = new IntersectionVertex(graph, "X", 0.0, 0.001);
+        IntersectionVertex b = new IntersectionVertex(graph, "B", -0.001, 0.001);
+        IntersectionVertex c = new IntersectionVertex(graph, "C", 0.001, 0.002);
+        IntersectionVertex d = new IntersectionVertex(graph, "D", 0.001, 0.004);
+        StreetEdge ax = new StreetEdge(a, x, GeometryUtils.makeLineString(0.0, 0.0, 0.0, 0.001),
+                "Main", 111, StreetTraversalPermission.ALL, false);
+        StreetEdge xb = new StreetEdge(x, b, GeometryUtils.makeLineString(0.0, 0.001, -0.001, 0.001),
+                "Main", 111, StreetTraversalPermission.ALL, false);
+        StreetEdge side = new StreetEdge(c, d, GeometryUtils.makeLineString(0.001, 0.002, 0.001, 0.004),
+                "Side", 222, StreetTraversalPermission.ALL, false);
+        TemporaryStreetLocation destination = new TemporaryStreetLocation("Destination",
+                new Coordinate(0.0, 0.002), new NonLocalizedString("Destination"), true);
+        new TemporaryPartialStreetEdge(side, x, destination, GeometryUtils.makeLineString(0.0, 0.001, 0.0, 0.002),
+                new NonLocalizedString("Side"), 111);
+
+        RoutingRequest options = new RoutingRequest();
+        options.setRoutingContext(graph, a, destination);
+        State s0 = new State(options);
+        State s1 = ax.traverse(s0);
+        State s2 = xb.traverse(s1);
+
+        List<WalkStep> steps = GraphPathToTripPlanConverter.generateWalkSteps(graph,
+                new State[] { s0, s1, s2 }, null, locale);
+
+        assertEquals(2, steps.size());
+        assertEquals("Main", steps.get(1).streetName);
+        assertTrue(steps.get(1).stayOn);
+    }
+
     /**
      * Build three GraphPath objects that can be used for testing for forward, backward and onboard.
      * This method doesn't rely on any routing code.
@@ -0,0 +1,79 @@
+package org.opentripplanner.common;
+
+import org.junit.Test;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreetUtilsTest {
+
+    private static final int MAX_ISLAND_SIZE = 4;
+
+    /**
+     * The main component and an island at the threshold are kept, an island below the threshold is
+     * removed with its edges.
+     */
+    @Test
+    public void testPruneFloatingIslands() {
+        Graph graph = new Graph();
+        List<StreetEdge> main = streets(graph, "main", 59.0, 8);
+        List<StreetEdge> small = streets(graph, "small", 59.1, MAX_ISLAND_SIZE - 1);
+        List<StreetEdge> large = streets(graph, "large", 59.2, MAX_ISLAND_SIZE);
+
+        StreetUtils.pruneFloatingIslands(graph, MAX_ISLAND_SIZE, MAX_ISLAND_SIZE, null);
+
+        for (int i = 0; i < 8; i++) {
+            assertNotNull(graph.getVertex("main" + i));
+        }
+        for (int i = 0; i < MAX_ISLAND_SIZE - 1; i++) {
+            assertNull(graph.getVertex("small" + i));
+        }
+        for (int i = 0; i < MAX_ISLAND_SIZE; i++) {
+            assertNotNull(graph.getVertex("large" + i));
+        }
+        assertEquals(8 + MAX_ISLAND_SIZE, graph.getVertices().size());
+
+        for (StreetEdge edge : small) {
+            assertFalse(graph.getEdges().contains(edge));
+        }
+        for (StreetEdge edge : main) {
+            assertTrue(graph.getEdges().contains(edge));
+            assertEquals(StreetTraversalPermission.PEDESTRIAN, edge.getPermission());
+            assertFalse(edge.isNoThruTraffic());
+        }
+        for (StreetEdge edge : large) {
+            assertTrue(graph.getEdges().contains(edge));
+            assertEquals(StreetTraversalPermission.PEDESTRIAN, edge.getPermission());
+        }
+        assertEquals(2 * (8 - 1) + 2 * (MAX_ISLAND_SIZE - 1), graph.getEdges().size());
+    }
+
+    /** Create a line of footways through the given number of vertices, walkable both ways. */
+    private static List<StreetEdge> streets(Graph graph, String name, double lat, int size) {
+        List<IntersectionVertex> vertices = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            vertices.add(new IntersectionVertex(graph, name + i, 10.0 + i * 0.001, lat));
+        }
+        List<StreetEdge> edges = new ArrayList<>();
+        for (int i = 1; i < size; i++) {
+            IntersectionVertex a = vertices.get(i - 1);
+            IntersectionVertex b = vertices.get(i);
+            edges.add(new StreetEdge(a, b, GeometryUtils.makeLineString(a.getX(), a.getY(), b.getX(), b.getY()),
+                    name, 57, StreetTraversalPermission.PEDESTRIAN, false));
+            edges.add(new StreetEdge(b, a, GeometryUtils.makeLineString(b.getX(), b.getY(), a.getX(), a.getY()),
+                    name, 57, StreetTraversalPermission.PEDESTRIAN, true));
+        }
+        return edges;
+    }
+}
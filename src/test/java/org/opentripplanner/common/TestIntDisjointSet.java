@@ -0,0 +1,57 @@
+package org.opentripplanner.common;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class TestIntDisjointSet extends TestCase {
+
+    @Test
+    public void testSimple() {
+        IntDisjointSet set = new IntDisjointSet(4);
+        set.union(0, 1);
+        assertEquals(set.find(0), set.find(1));
+        assertTrue(set.find(0) != set.find(2));
+
+        set.union(2, 3);
+        assertEquals(set.find(2), set.find(3));
+        assertTrue(set.find(1) != set.find(3));
+
+        IntDisjointSet copy = new IntDisjointSet(set);
+        copy.union(3, 1);
+        assertEquals(copy.find(0), copy.find(3));
+        // the original is not affected by unions in the copy
+        assertTrue(set.find(0) != set.find(3));
+    }
+
+    @Test
+    public void testConcurrentUnionsMatchSequential() {
+        int size = 20000;
+        Random random = new Random(1);
+        int[] pairs = new int[2 * 15000];
+        for (int i = 0; i < pairs.length; i++) {
+            pairs[i] = random.nextInt(size);
+        }
+
+        DisjointSet<Integer> expected = new DisjointSet<Integer>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            expected.union(pairs[i], pairs[i + 1]);
+        }
+
+        IntDisjointSet set = new IntDisjointSet(size);
+        IntStream.range(0, pairs.length / 2).parallel().forEach(i -> set.union(pairs[2 * i], pairs[2 * i + 1]));
+
+        for (int i = 0; i < pairs.length; i += 2) {
+            assertEquals(set.find(pairs[i]), set.find(pairs[i + 1]));
+        }
+        for (int i = 0; i < 1000; i++) {
+            int a = random.nextInt(size);
+            int b = random.nextInt(size);
+            boolean joined = expected.exists(a) && expected.exists(b) && expected.find(a) == expected.find(b);
+            assertEquals(joined || a == b, set.find(a) == set.find(b));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.opentripplanner.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class VersionedLruCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        VersionedLruCache<String, Integer> cache = new VersionedLruCache<>(2, () -> 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", () -> load(loads, 1));
+        cache.get("b", () -> load(loads, 2));
+        // touch a, so that b is the least recently used entry
+        assertEquals(1, (int) cache.get("a", () -> load(loads, 99)));
+        cache.get("c", () -> load(loads, 3));
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.size());
+
+        assertEquals(1, (int) cache.get("a", () -> load(loads, 99)));
+        assertEquals(4, (int) cache.get("b", () -> load(loads, 4)));
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+
+        // Missing values are not cached.
+        assertNull(cache.get("d", () -> null));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testEntriesAreDroppedWhenVersionChanges() {
+        AtomicLong version = new AtomicLong();
+        VersionedLruCache<String, Integer> cache = new VersionedLruCache<>(10, version::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", () -> load(loads, 1));
+        assertEquals(1, (int) cache.get("a", () -> load(loads, 2)));
+        assertEquals(1, loads.get());
+
+        version.incrementAndGet();
+        assertEquals(3, (int) cache.get("a", () -> load(loads, 3)));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getInvalidations());
+
+        // A value computed while the version changed is returned, but not cached.
+        assertEquals(4, (int) cache.get("b", () -> {
+            version.incrementAndGet();
+            return load(loads, 4);
+        }));
+        assertEquals(5, (int) cache.get("b", () -> load(loads, 5)));
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(1, cache.size());
+    }
+
+    private static Integer load(AtomicInteger loads, int value) {
+        loads.incrementAndGet();
+        return value;
+    }
+}
@@ -116,6 +116,45 @@ public class CompactLineStringTest extends TestCase {
         packTest(new int[] { 8100, 8200, 8300 }, 8);
     }
 
+    @Test
+    public final void testForEachCoordinate() {
+        GeometryFactory gf = new GeometryFactory();
+        double x0 = 1.111111111;
+        double y0 = 0.123456789;
+        double x1 = 2.0;
+        double y1 = 0.0;
+        LineString straight = gf.createLineString(new Coordinate[] {
+                new Coordinate(x0, y0), new Coordinate(x1, y1) });
+        LineString ls = gf.createLineString(new Coordinate[] {
+                new Coordinate(x0, y0), new Coordinate(-179.99, 1.12345),
+                new Coordinate(179.99, 1.12345), new Coordinate(1.5, 0.5),
+                new Coordinate(x1, y1) });
+
+        for (LineString geometry : Arrays.asList(straight, ls)) {
+            for (boolean reverse : new boolean[] { false, true }) {
+                // Stored as a back edge would store it
+                LineString stored = reverse ? (LineString) geometry.reverse() : geometry;
+                byte[] packed = CompactLineString.compackLineString(x0, y0, x1, y1, stored, reverse);
+                Coordinate[] expected = CompactLineString
+                        .uncompackLineString(x0, y0, x1, y1, packed, reverse).getCoordinates();
+
+                CoordinateBuffer buffer = new CoordinateBuffer();
+                CompactLineString.forEachCoordinate(x0, y0, x1, y1, packed, reverse, false, buffer);
+                assertEquals(expected.length, buffer.size());
+                for (int i = 0; i < expected.length; i++) {
+                    assertEquals(expected[i].x, buffer.getX(i), 0.0);
+                    assertEquals(expected[i].y, buffer.getY(i), 0.0);
+                }
+
+                buffer.clear();
+                CompactLineString.forEachCoordinate(x0, y0, x1, y1, packed, reverse, true, buffer);
+                assertEquals(expected.length - 1, buffer.size());
+                assertEquals(expected[1].x, buffer.getX(0), 0.0);
+                assertEquals(expected[1].y, buffer.getY(0), 0.0);
+            }
+        }
+    }
+
     private void packTest(int[] arr, int expectedPackedLen) {
         byte[] packed = DlugoszVarLenIntPacker.pack(arr);
         System.out.println("Unpacked: " + Arrays.toString(arr) + " -> packed: "
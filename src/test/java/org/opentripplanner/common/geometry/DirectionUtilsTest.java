@@ -23,6 +23,8 @@ import org.geotools.referencing.GeodeticCalculator;
 import org.junit.Test;
 
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
 
 public class DirectionUtilsTest extends TestCase {
 
@@ -99,4 +101,24 @@ public class DirectionUtilsTest extends TestCase {
         System.out.println("Max error in azimuth: " + maxError + " degrees.");
         assertTrue(maxError < 0.15);
     }
+
+    @Test
+    public final void testAnglesOfCoordinateBuffer() {
+        GeometryFactory gf = new GeometryFactory();
+        Random rand = new Random(42);
+        CoordinateBuffer buffer = new CoordinateBuffer();
+        for (int run = 0; run < 1000; run++) {
+            // Points a few meters apart, so that the angles skip some of them
+            Coordinate[] coordinates = new Coordinate[2 + rand.nextInt(8)];
+            buffer.clear();
+            for (int i = 0; i < coordinates.length; i++) {
+                coordinates[i] = new Coordinate(rand.nextDouble() * 0.0002,
+                        45 + rand.nextDouble() * 0.0002);
+                buffer.accept(coordinates[i].x, coordinates[i].y);
+            }
+            LineString line = gf.createLineString(coordinates);
+            assertEquals(DirectionUtils.getFirstAngle(line), DirectionUtils.getFirstAngle(buffer), 0.0);
+            assertEquals(DirectionUtils.getLastAngle(line), DirectionUtils.getLastAngle(buffer), 0.0);
+        }
+    }
 }
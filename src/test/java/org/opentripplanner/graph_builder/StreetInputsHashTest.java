@@ -0,0 +1,79 @@
+package org.opentripplanner.graph_builder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.standalone.datastore.DataSource;
+import org.opentripplanner.standalone.datastore.FileType;
+import org.opentripplanner.standalone.datastore.file.FileDataSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class StreetInputsHashTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<DataSource> NONE = Collections.emptyList();
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("StreetInputsHashTest-").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(tempDir);
+    }
+
+    @Test
+    public void testHashDependsOnContentOnly() throws IOException {
+        JsonNode config = MAPPER.readTree("{}");
+        DataSource a = file("a.pbf", "osm a", FileType.OSM);
+        DataSource b = file("b.pbf", "osm b", FileType.OSM);
+        DataSource renamedA = file("renamed-a.pbf", "osm a", FileType.OSM);
+
+        String hash = StreetInputsHash.of(Arrays.asList(a, b), NONE, config);
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, StreetInputsHash.of(Arrays.asList(b, renamedA), NONE, config));
+        assertNotEquals(hash, StreetInputsHash.of(Collections.singletonList(a), NONE, config));
+        assertNotEquals(hash, StreetInputsHash.of(
+                Arrays.asList(a, file("b.pbf", "osm b changed", FileType.OSM)), NONE, config
+        ));
+        // The same file as elevation data is another input
+        assertNotEquals(hash, StreetInputsHash.of(
+                Collections.singletonList(a), Collections.singletonList(b), config
+        ));
+    }
+
+    @Test
+    public void testHashDependsOnStreetParametersOnly() throws IOException {
+        List<DataSource> osm = Collections.singletonList(file("a.pbf", "osm a", FileType.OSM));
+        String hash = StreetInputsHash.of(osm, NONE, MAPPER.readTree("{ \"areaVisibility\": false }"));
+
+        assertNotEquals(hash, StreetInputsHash.of(
+                osm, NONE, MAPPER.readTree("{ \"areaVisibility\": true }")
+        ));
+        assertEquals(hash, StreetInputsHash.of(
+                osm, NONE, MAPPER.readTree("{ \"areaVisibility\": false, \"useTransfersTxt\": true }")
+        ));
+    }
+
+    private DataSource file(String name, String content, FileType type) throws IOException {
+        File file = new File(tempDir, name);
+        FileUtils.writeStringToFile(file, content, UTF_8);
+        return new FileDataSource(file, type);
+    }
+}
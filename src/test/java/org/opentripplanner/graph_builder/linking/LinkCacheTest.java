@@ -0,0 +1,33 @@
+package org.opentripplanner.graph_builder.linking;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LinkCacheTest {
+
+    private static final LinkCache.Link LINK = new LinkCache.Link(Collections.emptyList(),
+            Collections.emptyList());
+
+    @Test
+    public void testLinksAreKeyedByRoundedCoordinateAndMode() {
+        LinkCache cache = new LinkCache(new Graph(), 10);
+        Coordinate c = new Coordinate(10.7522, 59.9139);
+
+        assertSame(LINK, cache.get(c, TraverseMode.WALK, () -> LINK));
+        assertSame(LINK, cache.get(new Coordinate(10.75220002, 59.91389998), TraverseMode.WALK,
+                () -> LinkCache.Link.NONE));
+        assertSame(LinkCache.Link.NONE, cache.get(new Coordinate(10.7523, 59.9139), TraverseMode.WALK,
+                () -> LinkCache.Link.NONE));
+        assertSame(LinkCache.Link.NONE, cache.get(c, TraverseMode.CAR, () -> LinkCache.Link.NONE));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.size());
+    }
+}
@@ -3,12 +3,26 @@ package org.opentripplanner.graph_builder.linking;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.common.geometry.GeometryUtils;
 import org.opentripplanner.common.model.GenericLocation;
+import org.opentripplanner.model.AgencyAndId;
+import org.opentripplanner.model.Stop;
 import org.opentripplanner.routing.core.RoutingRequest;
 import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
 import org.opentripplanner.routing.graph.Graph;
 import org.opentripplanner.routing.graph.Vertex;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.TransitStop;
+import org.opentripplanner.util.NonLocalizedString;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.spy;
@@ -40,4 +54,62 @@ public class SimpleStreetSplitterTest {
         spySimpleStreetSplitter.getClosestVertex(genericLocation, routingRequest, true);
         verify(spySimpleStreetSplitter).link(any(Vertex.class), eq(TraverseMode.WALK), eq(routingRequest));
     }
+
+    /**
+     * Tests that linking a stop to an existing street vertex, which only adds link edges, changes the street graph
+     * version.
+     */
+    @Test
+    public void testDestructiveLinkingChangesStreetGraphVersion() {
+        Graph graph = new Graph();
+        IntersectionVertex a = new IntersectionVertex(graph, "A", 10.0, 59.0);
+        IntersectionVertex b = new IntersectionVertex(graph, "B", 10.002, 59.0);
+        new StreetEdge(a, b, GeometryUtils.makeLineString(10.0, 59.0, 10.002, 59.0), "AB", 115,
+                StreetTraversalPermission.ALL, false);
+        Stop stop = new Stop();
+        stop.setId(new AgencyAndId("TestAgency", "TestStop"));
+        stop.setLon(10.0);
+        stop.setLat(59.0001);
+        TransitStop transitStop = new TransitStop(graph, stop);
+        SimpleStreetSplitter splitter = new SimpleStreetSplitter(graph, null, null, true);
+
+        long version = graph.getStreetGraphVersion();
+        int vertices = graph.getVertices().size();
+        splitter.link(transitStop);
+
+        assertEquals(vertices, graph.getVertices().size());
+        assertEquals(2, transitStop.getDegreeIn() + transitStop.getDegreeOut());
+        assertNotEquals(version, graph.getStreetGraphVersion());
+    }
+
+    @Test
+    public void testLinkCacheSize() {
+        Graph graph = new Graph();
+        IntersectionVertex a = new IntersectionVertex(graph, "A", 10.0, 59.0);
+        IntersectionVertex b = new IntersectionVertex(graph, "B", 10.002, 59.0);
+        new StreetEdge(a, b, GeometryUtils.makeLineString(10.0, 59.0, 10.002, 59.0), "AB", 115,
+                StreetTraversalPermission.ALL, false);
+        SimpleStreetSplitter splitter = new SimpleStreetSplitter(graph, null, null, false);
+        splitter.setLinkCacheSize(10);
+
+        assertTrue(splitter.link(origin()));
+        assertTrue(splitter.link(origin()));
+        LinkCache linkCache = splitter.getLinkCache();
+        assertEquals(1, linkCache.getHits());
+        assertEquals(1, linkCache.getMisses());
+        assertEquals(1, linkCache.size());
+
+        splitter.setLinkCacheSize(0);
+        assertNull(splitter.getLinkCache());
+        assertTrue(splitter.link(origin()));
+
+        SimpleStreetSplitter destructiveSplitter = new SimpleStreetSplitter(graph, null, null, true);
+        destructiveSplitter.setLinkCacheSize(10);
+        assertNull(destructiveSplitter.getLinkCache());
+    }
+
+    private static TemporaryStreetLocation origin() {
+        return new TemporaryStreetLocation("origin", new Coordinate(10.001, 59.0001),
+                new NonLocalizedString("origin"), false);
+    }
 }
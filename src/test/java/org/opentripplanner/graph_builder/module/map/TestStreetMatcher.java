@@ -17,6 +17,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -130,6 +132,21 @@ public class TestStreetMatcher {
         assertEquals("ballard_20th", match.get(3).getToVertex().getLabel());
     }
 
+    @Test
+    public void testConcurrentMatching() {
+        StreetMatcher matcher = new StreetMatcher(_graph);
+        LineString geometry = geometry(-122.384756, 47.669260, -122.384777, 47.667454, -122.383554, 47.666789,
+                -122.3825, 47.666);
+        List<Edge> expected = matcher.match(geometry);
+        // A single matcher is shared by the threads matching bus routes.
+        List<List<Edge>> matches = IntStream.range(0, 64).parallel()
+                .mapToObj(i -> matcher.match(geometry))
+                .collect(Collectors.toList());
+        for (List<Edge> match : matches) {
+            assertEquals(expected, match);
+        }
+    }
+
     private LineString geometry(double... ordinates) {
         Coordinate[] coords = new Coordinate[ordinates.length / 2];
 
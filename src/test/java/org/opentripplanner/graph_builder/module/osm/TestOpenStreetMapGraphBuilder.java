@@ -166,13 +166,16 @@ public class TestOpenStreetMapGraphBuilder extends TestCase {
      * Routing needs to be successful in both options since without visibility calculation
      * area rings are used.
      * @param skipVisibility if true visibility calculations are skipped
+     * @param maxVisibilityDistance maximum length of the visibility edges
      * @throws UnsupportedEncodingException
      */
-    private void testBuildingAreas(boolean skipVisibility) throws UnsupportedEncodingException {
+    private void testBuildingAreas(boolean skipVisibility, double maxVisibilityDistance)
+            throws UnsupportedEncodingException {
         Graph gg = new Graph();
 
         OpenStreetMapModule loader = new OpenStreetMapModule();
         loader.skipVisibility = skipVisibility;
+        loader.maxAreaVisibilityDistance = maxVisibilityDistance;
         loader.setDefaultWayPropertySetSource(new DefaultWayPropertySetSource());
         FileBasedOpenStreetMapProviderImpl provider = new FileBasedOpenStreetMapProviderImpl();
 
@@ -209,15 +212,20 @@ public class TestOpenStreetMapGraphBuilder extends TestCase {
 
     @Test
     public void testBuildAreaWithoutVisibility() throws Exception {
-        testBuildingAreas(true);
+        testBuildingAreas(true, Double.POSITIVE_INFINITY);
     }
 
     @Test
     public void testBuildAreaWithVisibility() throws Exception {
-        testBuildingAreas(false);
+        testBuildingAreas(false, Double.POSITIVE_INFINITY);
 
     }
 
+    @Test
+    public void testBuildAreaWithCappedVisibility() throws Exception {
+        testBuildingAreas(false, 50);
+    }
+
     @Test
     public void testWayDataSet() {
         OSMWithTags way = new OSMWay();
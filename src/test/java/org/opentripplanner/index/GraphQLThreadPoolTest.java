@@ -0,0 +1,75 @@
+package org.opentripplanner.index;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GraphQLThreadPoolTest {
+
+    @Test
+    public void testBoundedPoolRejectsWhenQueueIsFull() throws Exception {
+        GraphQLThreadPool pool = GraphQLThreadPool.bounded("test", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            pool.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            pool.execute(() -> { });
+            assertEquals(1, pool.getQueueDepth());
+            assertEquals(1, pool.getActiveCount());
+            try {
+                pool.execute(() -> { });
+                fail("The task should have been rejected.");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            assertEquals(1L, pool.getRejectedCount());
+            assertEquals(1L, pool.getStatus().get("rejected"));
+            assertEquals(1, pool.getStatus().get("queueCapacity"));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCallerRunsPoolRunsInCallerWhenBusy() throws Exception {
+        GraphQLThreadPool pool = GraphQLThreadPool.callerRuns("test", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            pool.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            AtomicReference<Thread> runner = new AtomicReference<>();
+            pool.execute(() -> runner.set(Thread.currentThread()));
+            assertSame(Thread.currentThread(), runner.get());
+            assertEquals(0, pool.getQueueDepth());
+            assertEquals(1L, pool.getRejectedCount());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
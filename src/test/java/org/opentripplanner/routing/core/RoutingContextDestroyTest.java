@@ -70,12 +70,19 @@ public class RoutingContextDestroyTest {
         // Then:
         originAndDestinationInsertedCorrect();
 
+        // And - the temporary edges are not added to the permanent vertexes
+        assertPermanentVertexesAreNotReferencingTemporaryElements();
+
         // And When:
         subject.destroy();
 
-        // Then - permanent vertexes
+        // Then
+        assertPermanentVertexesAreNotReferencingTemporaryElements();
+    }
+
+    private void assertPermanentVertexesAreNotReferencingTemporaryElements() {
         for (Vertex v : permanentVertexes) {
-            // - does not reference the any temporary nodes any more
+            // - does not reference any temporary nodes
             for (Edge e : v.getIncoming()) {
                 assertVertexEdgeIsNotReferencingTemporaryElements(v, e, e.getFromVertex());
             }
@@ -92,7 +99,7 @@ public class RoutingContextDestroyTest {
 
         // And - from the origin
         Collection<String> vertexesReachableFromOrigin = findAllReachableVertexes(
-                subject.fromVertex, true, new ArrayList<>());
+                subject, subject.fromVertex, true, new ArrayList<>());
         String msg = "All reachable vertexes from origin: " + vertexesReachableFromOrigin;
 
         // it is possible to reach the A, B, C and the Destination Vertex
@@ -103,7 +110,7 @@ public class RoutingContextDestroyTest {
 
         // And - from the destination we can backtrack
         Collection<String> vertexesReachableFromDestination = findAllReachableVertexes(
-                subject.toVertex, false, new ArrayList<>());
+                subject, subject.toVertex, false, new ArrayList<>());
         msg = "All reachable vertexes back from destination: " + vertexesReachableFromDestination;
 
         // and reach the A, B and the Origin Vertex
@@ -122,18 +129,18 @@ public class RoutingContextDestroyTest {
         new StreetEdge(v0, v1, geom, name, dist, StreetTraversalPermission.ALL, false);
     }
 
-    private static <T extends Collection<String>> T findAllReachableVertexes(Vertex vertex,
-            boolean forward, T list) {
+    private static <T extends Collection<String>> T findAllReachableVertexes(RoutingContext rctx,
+            Vertex vertex, boolean forward, T list) {
         if (list.contains(vertex.getName()))
             return list;
 
         list.add(vertex.getName());
         if (forward) {
-            vertex.getOutgoing()
-                    .forEach(it -> findAllReachableVertexes(it.getToVertex(), forward, list));
+            rctx.getOutgoing(vertex)
+                    .forEach(it -> findAllReachableVertexes(rctx, it.getToVertex(), forward, list));
         } else {
-            vertex.getIncoming()
-                    .forEach(it -> findAllReachableVertexes(it.getFromVertex(), forward, list));
+            rctx.getIncoming(vertex)
+                    .forEach(it -> findAllReachableVertexes(rctx, it.getFromVertex(), forward, list));
         }
         return list;
     }
@@ -24,8 +24,10 @@ import org.opentripplanner.routing.core.State;
 import org.opentripplanner.routing.core.TraverseMode;
 import org.opentripplanner.routing.core.TraverseModeSet;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
 import org.opentripplanner.routing.vertextype.IntersectionVertex;
 import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.util.NonLocalizedString;
 
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.LineString;
@@ -265,6 +267,57 @@ public class PlainStreetEdgeTest {
         assertNotNull(e0.traverse(e1.traverse(state)));
     }
 
+    @Test
+    public void testTurnRestrictionFlag() {
+        StreetEdge e0 = edge(v0, v1, 50.0, StreetTraversalPermission.ALL);
+        StreetEdge e1 = edge(v1, v2, 18.4, StreetTraversalPermission.ALL);
+        TurnRestriction restriction = new TurnRestriction(e0, e1, null, TraverseModeSet.allModes());
+        RoutingRequest options = proto.clone();
+        options.setMode(TraverseMode.WALK);
+        options.setRoutingContext(_graph, v0, v2);
+
+        _graph.addTurnRestriction(e0, restriction);
+        assertTrue(e0.hasTurnRestrictions());
+        assertFalse(e1.hasTurnRestrictions());
+        assertEquals(1, _graph.getTurnRestrictions(e0).size());
+        assertTrue(_graph.getTurnRestrictions(e1).isEmpty());
+        assertNull(e1.traverse(e0.traverse(new State(options))));
+
+        _graph.removeTurnRestriction(e0, restriction);
+        assertFalse(e0.hasTurnRestrictions());
+        assertTrue(_graph.getTurnRestrictions(e0).isEmpty());
+        assertNotNull(e1.traverse(e0.traverse(new State(options))));
+    }
+
+    @Test
+    public void testNoThruTrafficExitSeesTemporaryEdges() {
+        StreetVertex v3 = vertex("maple_3rd", 0.0, 2.0);
+        StreetEdge e0 = edge(v0, v1, 50.0, StreetTraversalPermission.ALL);
+        StreetEdge e1 = edge(v1, v2, 18.4, StreetTraversalPermission.ALL);
+        StreetEdge e2 = edge(v2, v3, 10.0, StreetTraversalPermission.ALL);
+        e1.setNoThruTraffic(true);
+        e2.setNoThruTraffic(true);
+
+        // v2 only leads further into the no-thru-traffic area, so the area may be entered
+        RoutingRequest options = proto.clone();
+        options.setMode(TraverseMode.WALK);
+        options.setRoutingContext(_graph, v0, v3);
+        assertNotNull(e1.traverse(e0.traverse(new State(options))));
+
+        // The destination is split from a through street, with a temporary edge leaving v2 which exits the area
+        StreetVertex u = vertex("test1", 2.0, 1.0);
+        StreetVertex v = vertex("test2", 2.0, 3.0);
+        StreetEdge parent = edge(u, v, 20.0, StreetTraversalPermission.ALL);
+        TemporaryStreetLocation destination = new TemporaryStreetLocation("destination",
+                new Coordinate(1.0, 3.0), new NonLocalizedString("destination"), true);
+        new TemporaryPartialStreetEdge(parent, v2, destination,
+                GeometryUtils.makeLineString(1.0, 2.0, 1.0, 3.0), new NonLocalizedString("temporary"), 10.0);
+        options = proto.clone();
+        options.setMode(TraverseMode.WALK);
+        options.setRoutingContext(_graph, v0, destination);
+        assertNull(e1.traverse(e0.traverse(new State(options))));
+    }
+
     /****
      * Private Methods
      ****/
@@ -18,6 +18,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.opentripplanner.calendar.impl.CalendarServiceDataFactoryImpl.createCalendarServiceData;
 
@@ -39,6 +40,7 @@ import org.opentripplanner.gtfs.GtfsContext;
 import org.opentripplanner.gtfs.GtfsContextBuilder;
 import org.opentripplanner.routing.edgetype.factory.PatternHopFactory;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.trippattern.RealTimeState;
 import org.opentripplanner.routing.trippattern.TripTimes;
 import org.opentripplanner.routing.vertextype.TransitStopDepart;
 
@@ -127,6 +129,37 @@ public class TimetableSnapshotTest {
         assertEquals(scheduled, resolver.resolve(pattern, null));
     }
 
+    @Test
+    public void testResolveKeepsDeparturesOfAddedTrips() {
+        ServiceDate today = new ServiceDate();
+        TripPattern pattern = patternIndex.get(new AgencyAndId("agency", "1.1"));
+        TimetableSnapshot resolver = new TimetableSnapshot();
+
+        TripDescriptor.Builder tripDescriptorBuilder = TripDescriptor.newBuilder();
+        tripDescriptorBuilder.setTripId("1.1");
+        tripDescriptorBuilder.setScheduleRelationship(ScheduleRelationship.CANCELED);
+        TripUpdate.Builder tripUpdateBuilder = TripUpdate.newBuilder();
+        tripUpdateBuilder.setTrip(tripDescriptorBuilder);
+        updateResolver(resolver, pattern, tripUpdateBuilder.build(), "agency", today);
+
+        // The trip is then added on a pattern of its own, which is merged into the timetables of the pattern
+        TripTimes added = new TripTimes(pattern.scheduledTimetable.getTripTimes(
+                pattern.scheduledTimetable.getTripIndex("1.1")));
+        added.setRealTimeState(RealTimeState.ADDED);
+        TripPattern addedPattern = new TripPattern(pattern.route, pattern.stopPattern, today);
+        addedPattern.scheduledTimetable.addTripTimes(added);
+        resolver.update("agency", addedPattern, added, today);
+
+        TimetableSnapshot snapshot = resolver.commit();
+        Timetable first = snapshot.resolve(pattern, today);
+        Timetable.StopDepartures departures = first.getDepartures(0);
+        assertTrue(first.tripTimes.contains(added));
+
+        Timetable second = snapshot.resolve(pattern, today);
+        assertSame(first, second);
+        assertSame(departures, second.getDepartures(0));
+    }
+
     @Test(expected=ConcurrentModificationException.class)
     public void testUpdate() {
         ServiceDate today = new ServiceDate();
@@ -16,6 +16,8 @@ package org.opentripplanner.routing.edgetype;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.opentripplanner.calendar.impl.CalendarServiceDataFactoryImpl.createCalendarServiceData;
 import static org.opentripplanner.gtfs.GtfsContextBuilder.contextBuilder;
 import static org.opentripplanner.util.TestUtils.AUGUST;
@@ -316,4 +318,38 @@ public class TimetableTest {
         updatedTripTimes = timetable.createUpdatedTripTimes(tripUpdate, timeZone, serviceDate); 
         assertNull(updatedTripTimes);
     }
+
+    @Test
+    public void testDepartures() {
+        TripPattern busiest = null;
+        for (TripPattern p : patternIndex.values()) {
+            if (busiest == null || p.scheduledTimetable.tripTimes.size() > busiest.scheduledTimetable.tripTimes.size()) {
+                busiest = p;
+            }
+        }
+        Timetable copy = new Timetable(busiest.scheduledTimetable, serviceDate);
+        int nTrips = copy.tripTimes.size();
+        Timetable.StopDepartures departures = copy.getDepartures(0);
+        assertEquals(nTrips, departures.size());
+        for (int i = 0; i < nTrips; i++) {
+            assertEquals(departures.tripTimes[i].getDepartureTime(0), departures.times[i]);
+            if (i > 0) {
+                assertTrue(departures.times[i - 1] <= departures.times[i]);
+            }
+        }
+        int last = departures.times[nTrips - 1];
+        assertEquals(nTrips - 1, departures.firstAtOrAfter(last));
+        assertEquals(nTrips, departures.firstAtOrAfter(last + 1));
+        assertEquals(0, departures.firstAtOrAfter(Integer.MIN_VALUE));
+        assertSame(departures, copy.getDepartures(0));
+
+        // Adding a trip drops the sorted departures.
+        TripTimes first = departures.tripTimes[0];
+        TripTimes delayed = new TripTimes(first.trip, last - departures.times[0] + 60, first);
+        copy.addTripTimes(delayed);
+        Timetable.StopDepartures updated = copy.getDepartures(0);
+        assertEquals(nTrips + 1, updated.size());
+        assertSame(delayed, updated.tripTimes[nTrips]);
+        assertEquals(last + 60, updated.times[nTrips]);
+    }
 }
@@ -0,0 +1,123 @@
+package org.opentripplanner.routing.graph;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompressedGraphStreamTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (int size : new int[] { 0, 1, 999, 1000, 1001, 25_000 }) {
+            byte[] data = data(size);
+            byte[] file = compress(data, 1000);
+            assertArrayEquals("Size " + size, data, decompress(file));
+        }
+    }
+
+    @Test
+    public void testSingleByteWrites() throws IOException {
+        byte[] data = data(2500);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        try (OutputStream out = new CompressedGraphOutputStream(file, 1000, 2, executor)) {
+            for (byte b : data) {
+                out.write(b);
+            }
+        }
+        assertArrayEquals(data, decompress(file.toByteArray()));
+    }
+
+    @Test
+    public void testReadMagic() throws IOException {
+        InputStream in = new ByteArrayInputStream(compress(data(10), 1000));
+        assertTrue(CompressedGraphInputStream.readMagic(in));
+
+        // Other streams are left untouched
+        in = new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 });
+        assertFalse(CompressedGraphInputStream.readMagic(in));
+        assertEquals(1, in.read());
+
+        in = new ByteArrayInputStream(new byte[] { 1 });
+        assertFalse(CompressedGraphInputStream.readMagic(in));
+        assertEquals(1, in.read());
+    }
+
+    @Test
+    public void testCorruptBlockIsDetected() throws IOException {
+        byte[] file = compress(data(5000), 1000);
+        // Flip a bit in the last block
+        file[file.length - 20] ^= 0x10;
+        try {
+            decompress(file);
+            fail();
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupt graph file"));
+        }
+    }
+
+    @Test
+    public void testTruncatedFileIsDetected() throws IOException {
+        byte[] file = compress(data(5000), 1000);
+        byte[] truncated = new byte[file.length - 100];
+        System.arraycopy(file, 0, truncated, 0, truncated.length);
+        try {
+            decompress(truncated);
+            fail();
+        }
+        catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private byte[] compress(byte[] data, int blockSize) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        try (OutputStream out = new CompressedGraphOutputStream(file, blockSize, 2, executor)) {
+            // Write in pieces not aligned with the blocks
+            for (int i = 0; i < data.length; i += 700) {
+                out.write(data, i, Math.min(700, data.length - i));
+            }
+        }
+        return file.toByteArray();
+    }
+
+    private byte[] decompress(byte[] file) throws IOException {
+        InputStream in = new ByteArrayInputStream(file);
+        assertTrue(CompressedGraphInputStream.readMagic(in));
+        try (InputStream graphIn = new CompressedGraphInputStream(in, 2, executor)) {
+            return IOUtils.toByteArray(graphIn);
+        }
+    }
+
+    /** Partly compressible data, like a serialized graph. */
+    private static byte[] data(int size) {
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i % 3 == 0 ? random.nextInt() : i / 100);
+        }
+        return data;
+    }
+}
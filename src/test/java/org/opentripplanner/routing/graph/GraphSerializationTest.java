@@ -18,7 +18,9 @@ import org.opentripplanner.standalone.datastore.file.FileDataSource;
 
 import java.io.File;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
@@ -117,15 +119,25 @@ public class GraphSerializationTest {
         // Skip incoming and outgoing edge lists. These are unordered lists which will not compare properly.
         // The edges themselves will be compared via another field, and the edge lists are reconstructed after deserialization.
         // Some tests re-build the graph which will result in build times different by as little as a few milliseconds.
-        objectDiffer.ignoreFields("incoming", "outgoing", "buildTime", "indexSchema", "luceneIndex");
+        // The vertex indexes are assigned again in another order when the graph is loaded.
+        objectDiffer.ignoreFields("incoming", "outgoing", "buildTime", "indexSchema", "luceneIndex", "indexInGraph");
         objectDiffer.useEquals(BitSet.class, LineString.class, Polygon.class, AgencyAndId.class);
         // HashGridSpatialIndex contains unordered lists in its bins. This is rebuilt after deserialization anyway.
         // The deduplicator in the loaded graph will be empty, because it is transient and only fills up when items
-        // are deduplicated.
-        objectDiffer.ignoreClasses(HashGridSpatialIndex.class, ThreadPoolExecutor.class, Deduplicator.class);
+        // are deduplicated. The vertex table is ordered by vertex index, the vertices are compared by label instead.
+        objectDiffer.ignoreClasses(HashGridSpatialIndex.class, ThreadPoolExecutor.class, Deduplicator.class, VertexTable.class);
         objectDiffer.compareTwoObjects(g1, g2);
+        objectDiffer.compareTwoObjects(verticesByLabel(g1), verticesByLabel(g2));
         // Print differences before assertion so we can see what went wrong.
         assertFalse(objectDiffer.hasDifferences());
     }
 
+    private static Map<String, Vertex> verticesByLabel(Graph graph) {
+        Map<String, Vertex> vertices = new HashMap<>();
+        for (Vertex vertex : graph.getVertices()) {
+            vertices.put(vertex.getLabel(), vertex);
+        }
+        return vertices;
+    }
+
 }
@@ -0,0 +1,85 @@
+package org.opentripplanner.routing.graph;
+
+import org.junit.Test;
+import org.opentripplanner.routing.vertextype.OsmVertex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VertexTableTest {
+
+    @Test
+    public void testAddAndRemove() {
+        Graph graph = new Graph();
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            vertices.add(new SimpleConcreteVertex(graph, "V" + i, 0, 0));
+        }
+        assertEquals(1000, graph.countVertices());
+        assertEquals(1000, graph.getVertexIndexLimit());
+        for (int i = 0; i < 1000; i++) {
+            Vertex vertex = vertices.get(i);
+            assertEquals(i, vertex.getIndex());
+            assertSame(vertex, graph.getVertex(i));
+            assertSame(vertex, graph.getVertex("V" + i));
+        }
+
+        // Remove every third vertex, the other ones must still be found
+        for (int i = 0; i < 1000; i += 3) {
+            graph.remove(vertices.get(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            Vertex vertex = vertices.get(i);
+            boolean removed = i % 3 == 0;
+            assertEquals(removed, !graph.containsVertex(vertex));
+            assertEquals(removed ? null : vertex, graph.getVertex("V" + i));
+            assertEquals(removed ? -1 : i, vertex.getIndex());
+        }
+        assertEquals(666, graph.countVertices());
+        assertEquals(666, graph.getVertices().size());
+        // The indexes are not reused
+        assertEquals(1000, new SimpleConcreteVertex(graph, "V0", 0, 0).getIndex());
+        assertNull(graph.getVertex("V1000"));
+        assertNull(graph.getVertex(null));
+    }
+
+    @Test
+    public void testVerticesAreIteratedInIndexOrder() {
+        Graph graph = new Graph();
+        Vertex a = new SimpleConcreteVertex(graph, "A", 0, 0);
+        Vertex b = new SimpleConcreteVertex(graph, "B", 0, 0);
+        Vertex c = new SimpleConcreteVertex(graph, "C", 0, 0);
+        graph.remove(b);
+        assertEquals(Arrays.asList(a, c), new ArrayList<>(graph.getVertices()));
+    }
+
+    @Test
+    public void testDuplicateLabelReplacesVertex() {
+        Graph graph = new Graph();
+        Vertex first = new SimpleConcreteVertex(graph, "A", 0, 0);
+        Vertex second = new SimpleConcreteVertex(graph, "A", 1, 1);
+        assertSame(second, graph.getVertex("A"));
+        assertFalse(graph.containsVertex(first));
+        assertEquals(1, graph.countVertices());
+    }
+
+    @Test
+    public void testOsmVertexLabelIsDerived() {
+        Graph graph = new Graph();
+        OsmVertex vertex = new OsmVertex(graph, "osm:node:42", 0, 0, 42);
+        OsmVertex levelVertex = new OsmVertex(graph, "osm:node:42:level:1", 0, 0, 42);
+        assertEquals("osm:node:42", vertex.getLabel());
+        assertEquals("osm:node:42", vertex.getName());
+        assertEquals("osm:node:42:level:1", levelVertex.getLabel());
+        assertSame(vertex, graph.getVertex("osm:node:42"));
+        assertSame(levelVertex, graph.getVertex("osm:node:42:level:1"));
+        assertTrue(graph.containsVertex(vertex));
+    }
+}
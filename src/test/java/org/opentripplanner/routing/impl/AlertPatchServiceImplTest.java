@@ -18,8 +18,13 @@ import org.junit.Test;
 import org.opentripplanner.model.AgencyAndId;
 import org.opentripplanner.routing.alertpatch.Alert;
 import org.opentripplanner.routing.alertpatch.AlertPatch;
+import org.opentripplanner.routing.alertpatch.TimePeriod;
 import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.util.monitoring.Metrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -137,4 +142,106 @@ public class AlertPatchServiceImplTest {
         assertEquals(1, instance.getAllAlertPatches().size());
         assertTrue(instance.getAllAlertPatches().contains(alerts[0]));
     }
+
+    @Test
+    public void testExpireEndedBefore() {
+        AlertPatchServiceImpl instance = getAlertPatchServiceImpl();
+        alerts[0].setTimePeriods(Arrays.asList(new TimePeriod(0, 100), new TimePeriod(200, 300)));
+        alerts[1].setTimePeriods(Collections.singletonList(new TimePeriod(0, 200)));
+        alerts[2].setTimePeriods(Collections.singletonList(new TimePeriod(100, 0)));
+        for(TestAlertPatch alert : alerts) {
+            instance.apply(alert);
+        }
+
+        instance.expireEndedBefore(250);
+
+        assertEquals(3, instance.getAllAlertPatches().size());
+        assertFalse(instance.getAllAlertPatches().contains(alerts[1]));
+        assertTrue(instance.getStopPatches(testStop).isEmpty());
+
+        instance.expireEndedBefore(Long.MAX_VALUE);
+
+        assertEquals(2, instance.getAllAlertPatches().size());
+        assertTrue(instance.getAllAlertPatches().contains(alerts[2]));
+        assertTrue(instance.getAllAlertPatches().contains(alerts[3]));
+    }
+
+    @Test
+    public void testSituationPatches() {
+        AlertPatchServiceImpl instance = getAlertPatchServiceImpl();
+        alerts[0].setSituationNumber("S1");
+        alerts[1].setSituationNumber("S1");
+        alerts[2].setSituationNumber("S2");
+        for(TestAlertPatch alert : alerts) {
+            instance.apply(alert);
+        }
+
+        assertEquals(2, instance.getSituationPatches("S1").size());
+        assertTrue(instance.getSituationPatches("S2").contains(alerts[2]));
+
+        instance.expire(Collections.singleton(alerts[0].getId()));
+
+        assertEquals(Collections.singleton(alerts[1]), instance.getSituationPatches("S1"));
+    }
+
+    @Test
+    public void testPublishedIndexIsNotModified() {
+        AlertPatchServiceImpl instance = getAlertPatchServiceImpl();
+        instance.apply(alerts[0]);
+        long version = instance.getIndexVersion();
+        Collection<AlertPatch> before = instance.getAllAlertPatches();
+
+        instance.apply(alerts[1]);
+        instance.expire(Collections.singleton(alerts[0].getId()));
+
+        assertEquals(Collections.singletonList(alerts[0]), new ArrayList<>(before));
+        assertEquals(version + 2, instance.getIndexVersion());
+        assertEquals(1, instance.getIndexSize());
+        assertEquals(3, instance.getUpdateCount());
+    }
+
+    @Test
+    public void testApplySamePatchTwice() {
+        AlertPatchServiceImpl instance = getAlertPatchServiceImpl();
+        alerts[1].setTimePeriods(Collections.singletonList(new TimePeriod(0, 200)));
+        instance.apply(alerts[1]);
+        instance.apply(alerts[1]);
+
+        assertEquals(Collections.singleton(alerts[1]), instance.getStopPatches(testStop));
+
+        // The replacing patch has the same id and a later end time
+        TestAlertPatch replacing = new TestAlertPatch();
+        replacing.setId(alerts[1].getId());
+        replacing.setStop(testStop);
+        replacing.setAlert(new Alert());
+        replacing.setTimePeriods(Collections.singletonList(new TimePeriod(0, 400)));
+        for (int i = 0; i < 10; i++) {
+            instance.applyAll(Collections.singleton(replacing));
+        }
+
+        assertEquals(Collections.singletonList(replacing), new ArrayList<>(instance.getAllAlertPatches()));
+        assertEquals(Collections.singleton(replacing), instance.getStopPatches(testStop));
+        assertEquals(1, instance.getEndTimeCount());
+
+        instance.expireEndedBefore(300);
+        assertEquals(1, instance.getIndexSize());
+
+        instance.expireEndedBefore(500);
+        assertEquals(0, instance.getIndexSize());
+        assertTrue(instance.getStopPatches(testStop).isEmpty());
+        assertEquals(0, instance.getEndTimeCount());
+    }
+
+    @Test
+    public void testMetrics() {
+        AlertPatchServiceImpl instance = getAlertPatchServiceImpl();
+        instance.registerMetrics("router", "AlertPatchServiceImplTest");
+        instance.apply(alerts[0]);
+        instance.apply(alerts[1]);
+
+        assertTrue(Metrics.REGISTRY.write().contains("otp_alert_index_size{router=\"AlertPatchServiceImplTest\"} 2"));
+
+        instance.unregisterMetrics();
+        assertFalse(Metrics.REGISTRY.write().contains("AlertPatchServiceImplTest"));
+    }
 }
@@ -0,0 +1,128 @@
+package org.opentripplanner.routing.impl;
+
+import com.fasterxml.jackson.databind.node.MissingNode;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.graph_builder.GraphBuilder;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.routing.vertextype.StreetVertex;
+import org.opentripplanner.standalone.Router;
+import org.opentripplanner.standalone.datastore.FileType;
+import org.opentripplanner.standalone.datastore.file.FileDataSource;
+import org.opentripplanner.util.monitoring.Metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InputStreamGraphSourceTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("InputStreamGraphSourceTest-").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testHotSwap() throws Exception {
+        FileUtils.writeStringToFile(new File(dir, "router-config.json"),
+                "{ \"hotSwap\": { \"memoryHeadroomFactor\": 0, \"drainTime\": 0 } }", UTF_8);
+        saveGraph("v1v2");
+        InputStreamGraphSource source = InputStreamGraphSource.newFileGraphSource("A", dir);
+        source.load();
+        Router oldRouter = source.getRouter();
+        assertTrue(oldRouter.graph.getVertex("v1v2-from") != null);
+
+        saveGraph("v3v4");
+        assertTrue(source.hotSwap());
+        // The current router answers requests while the new graph is loaded
+        assertSame(oldRouter, source.getRouter());
+        assertFalse("Only one hot swap at a time", source.hotSwap());
+
+        waitForHotSwap(source);
+        Router newRouter = source.getRouter();
+        assertNotSame(oldRouter, newRouter);
+        assertEquals("A", newRouter.graph.routerId);
+        assertTrue(newRouter.graph.getVertex("v3v4-from") != null);
+        assertNull(source.getHotSwapStatus());
+    }
+
+    @Test
+    public void testFailedHotSwapKeepsRouter() throws Exception {
+        saveGraph("v1v2");
+        InputStreamGraphSource source = InputStreamGraphSource.newFileGraphSource("A", dir);
+        source.load();
+        Router oldRouter = source.getRouter();
+
+        FileUtils.writeStringToFile(new File(dir, GraphBuilder.GRAPH_FILENAME), "Not a graph", UTF_8);
+        assertTrue(source.hotSwap());
+        waitForHotSwap(source);
+
+        assertSame(oldRouter, source.getRouter());
+        assertTrue(source.getHotSwapStatus(), source.getHotSwapStatus().startsWith("FAILED"));
+    }
+
+    @Test
+    public void testRouterWhichIsNotSwappedInKeepsMetrics() throws Exception {
+        saveGraph("v1v2");
+        InputStreamGraphSource source = InputStreamGraphSource.newFileGraphSource("metrics", dir);
+        source.load();
+        String gauge = "otp_graphql_queue_depth{router=\"metrics\"}";
+        assertTrue(Metrics.REGISTRY.write().contains(gauge));
+
+        // A router started up by a hot swap which then fails is shut down without replacing the metrics.
+        Graph graph = new Graph();
+        graph.index(new DefaultStreetVertexIndexFactory());
+        Router failedRouter = new Router("metrics", graph);
+        failedRouter.startup(MissingNode.getInstance());
+        failedRouter.shutdown();
+        assertTrue(Metrics.REGISTRY.write().contains(gauge));
+
+        source.getRouter().shutdown();
+        assertFalse(Metrics.REGISTRY.write().contains(gauge));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMemoryHeadroom() {
+        // No heap is large enough for a thousand graphs
+        InputStreamGraphSource.checkMemoryHeadroom(1000);
+    }
+
+    private void saveGraph(String name) {
+        Graph graph = new Graph();
+        StreetVertex v1 = new IntersectionVertex(graph, name + "-from", 0, 0);
+        StreetVertex v2 = new IntersectionVertex(graph, name + "-to", 0, 0.1);
+        new StreetEdge(v1, v2, null, name, 11000, StreetTraversalPermission.PEDESTRIAN, false);
+        graph.save(new FileDataSource(new File(dir, GraphBuilder.GRAPH_FILENAME), FileType.GRAPH));
+    }
+
+    private static void waitForHotSwap(InputStreamGraphSource source) throws InterruptedException {
+        for (int i = 0; i < 300; i++) {
+            if (!source.isHotSwapRunning()) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("The hot swap did not finish in time: " + source.getHotSwapStatus());
+    }
+}
@@ -0,0 +1,99 @@
+package org.opentripplanner.routing.impl;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.model.AgencyAndId;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.spt.GraphPath;
+import org.opentripplanner.standalone.Router;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelPathSearchTest {
+
+    private static Graph graph;
+
+    private static ParallelPathSearch parallelPathSearch;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = ConstantsForTests.getInstance().getVermontGraph();
+        parallelPathSearch = new ParallelPathSearch(2, 4, 600);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        parallelPathSearch.shutdown();
+    }
+
+    @Test
+    public void testCreateVariants() {
+        RoutingRequest request = new RoutingRequest();
+        request.dateTime = 1000000;
+        request.transferPenalty = 60;
+        request.walkReluctance = 2;
+        request.numItineraries = 6;
+
+        List<ParallelPathSearch.Variant> variants = parallelPathSearch.createVariants(request);
+        assertEquals(4, variants.size());
+        assertSame(request, variants.get(0).request);
+        assertEquals(ParallelPathSearch.Strategy.ORIGINAL, variants.get(0).strategy);
+
+        assertEquals(ParallelPathSearch.Strategy.SHIFTED_DEPARTURE, variants.get(1).strategy);
+        assertEquals(1000600, variants.get(1).request.dateTime);
+        assertEquals(ParallelPathSearch.Strategy.FEWER_TRANSFERS, variants.get(2).strategy);
+        assertEquals(660, variants.get(2).request.transferPenalty);
+        assertEquals(ParallelPathSearch.Strategy.LESS_WALKING, variants.get(3).strategy);
+        assertEquals(4, variants.get(3).request.walkReluctance, 0.001);
+        for (ParallelPathSearch.Variant variant : variants.subList(1, variants.size())) {
+            assertNull(variant.request.rctx);
+        }
+        // The original request is left alone.
+        assertEquals(1000000, request.dateTime);
+        assertEquals(60, request.transferPenalty);
+
+        request.arriveBy = true;
+        request.numItineraries = 2;
+        variants = parallelPathSearch.createVariants(request);
+        assertEquals(2, variants.size());
+        assertEquals(999400, variants.get(1).request.dateTime);
+    }
+
+    @Test
+    public void testParallelPlan() {
+        Router router = new Router("parallel", graph);
+        router.parallelPathSearch = parallelPathSearch;
+
+        RoutingRequest request = new RoutingRequest();
+        request.setDateTime("2018-05-23", "1:37pm", graph.getTimeZone());
+        request.setFromString("44.4214596,-72.019371");
+        request.setToString("44.4277732,-72.01203514");
+        request.setNumItineraries(3);
+        request.setRoutingContext(graph);
+        try {
+            List<GraphPath> paths = new GraphPathFinder(router).graphPathFinderEntryPoint(request);
+            assertFalse(paths.isEmpty());
+            assertTrue(paths.size() <= 3);
+            Set<List<AgencyAndId>> trips = new HashSet<>();
+            for (GraphPath path : paths) {
+                assertTrue(trips.add(path.getTrips()));
+                assertTrue(path.getStartTime() >= request.dateTime);
+            }
+            assertEquals(3, request.rctx.debugOutput.parallelSearches);
+            assertTrue(request.rctx.debugOutput.contributingSearches >= 1);
+        } finally {
+            request.cleanup();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.opentripplanner.routing.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.opentripplanner.api.model.TripPlan;
+import org.opentripplanner.routing.alertpatch.AlertPatch;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.graph.SimpleConcreteEdge;
+import org.opentripplanner.routing.spt.DominanceFunction;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PlanCacheTest {
+
+    private static final String API = "test";
+
+    private Graph graph;
+
+    private Edge edge;
+
+    private PlanCache cache;
+
+    private AtomicInteger searches;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        IntersectionVertex a = new IntersectionVertex(graph, "A", 10.0, 60.0);
+        IntersectionVertex b = new IntersectionVertex(graph, "B", 10.001, 60.0);
+        edge = new SimpleConcreteEdge(a, b);
+        cache = new PlanCache(graph, 2, 60);
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    public void testKey() {
+        RoutingRequest request = request(6000);
+        RoutingRequest sameMinute = request(6059);
+        sameMinute.dominanceFunction = new DominanceFunction.Pareto();
+        assertEquals(cache.key(API, request), cache.key(API, sameMinute));
+        assertNotEquals(cache.key(API, request), cache.key(API, request(6060)));
+
+        RoutingRequest otherParameter = request(6000);
+        otherParameter.walkReluctance = 5;
+        assertNotEquals(cache.key(API, request), cache.key(API, otherParameter));
+
+        RoutingRequest otherBannedAgencies = request(6000);
+        otherBannedAgencies.bannedAgencies.add("B");
+        otherBannedAgencies.bannedAgencies.add("A");
+        request.bannedAgencies.add("A");
+        request.bannedAgencies.add("B");
+        assertEquals(cache.key(API, request), cache.key(API, otherBannedAgencies));
+    }
+
+    @Test
+    public void testPlansAreNotSharedBetweenApis() {
+        assertNotEquals(cache.key(API, request(6000)), cache.key("other", request(6000)));
+        TripPlan plan = cache.get(API, request(6000), this::search);
+        assertNotSame(plan, cache.get("other", request(6000), this::search));
+        assertSame(plan, cache.get(API, request(6000), this::search));
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void testInvalidatedByAlerts() {
+        TripPlan plan = cache.get(API, request(6000), this::search);
+        AlertPatch alertPatch = new AlertPatch();
+        alertPatch.setId("alert");
+        graph.addAlertPatch(edge, alertPatch);
+        TripPlan withAlert = cache.get(API, request(6000), this::search);
+        assertNotSame(plan, withAlert);
+        assertEquals(1, cache.getInvalidations());
+        assertSame(withAlert, cache.get(API, request(6000), this::search));
+
+        graph.removeAlertPatch(edge, alertPatch);
+        assertNotSame(withAlert, cache.get(API, request(6000), this::search));
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(3, searches.get());
+    }
+
+    @Test
+    public void testInvalidatedByStreetGraph() {
+        TripPlan plan = cache.get(API, request(6000), this::search);
+        new IntersectionVertex(graph, "C", 10.002, 60.0);
+        assertNotSame(plan, cache.get(API, request(6000), this::search));
+        assertEquals(1, cache.getInvalidations());
+    }
+
+    private TripPlan search() {
+        searches.incrementAndGet();
+        return new TripPlan();
+    }
+
+    private static RoutingRequest request(long dateTime) {
+        RoutingRequest request = new RoutingRequest();
+        request.setFromString("60.0,10.0");
+        request.setToString("60.1,10.1");
+        request.dateTime = dateTime;
+        return request;
+    }
+}
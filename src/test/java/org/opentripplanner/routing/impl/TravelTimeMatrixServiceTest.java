@@ -0,0 +1,136 @@
+package org.opentripplanner.routing.impl;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.opentripplanner.ConstantsForTests;
+import org.opentripplanner.common.model.GenericLocation;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.graph.Graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TravelTimeMatrixServiceTest {
+
+    private static final GenericLocation A = new GenericLocation(44.4214596, -72.019371);
+
+    private static final GenericLocation B = new GenericLocation(44.4277732, -72.01203514);
+
+    /** In the sea, far from any street. */
+    private static final GenericLocation NOWHERE = new GenericLocation(0.0, 0.0);
+
+    private static Graph graph;
+
+    private static TravelTimeMatrixService service;
+
+    @BeforeClass
+    public static void setUp() {
+        graph = ConstantsForTests.getInstance().getVermontGraph();
+        service = new TravelTimeMatrixService(graph, 2, 100, 10, 10, 3600, 10);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void testWalkMatrix() throws Exception {
+        RoutingRequest request = new RoutingRequest(TraverseMode.WALK);
+        request.setDateTime("2018-05-23", "1:37pm", graph.getTimeZone());
+        List<Future<int[]>> rows = service.submit(request, Arrays.asList(A, B, NOWHERE),
+                Arrays.asList(A, B, NOWHERE), 3600);
+        assertEquals(3, rows.size());
+        int[] fromA = rows.get(0).get();
+        int[] fromB = rows.get(1).get();
+        int[] fromNowhere = rows.get(2).get();
+
+        assertTrue(fromA[0] >= 0 && fromA[0] < fromA[1]);
+        assertTrue(fromB[1] >= 0 && fromB[1] < fromB[0]);
+        // Walking is symmetric, up to the linking of the samples.
+        assertTrue(Math.abs(fromA[1] - fromB[0]) < 120);
+        assertEquals(TravelTimeMatrixService.UNREACHABLE, fromA[2]);
+        assertEquals(TravelTimeMatrixService.UNREACHABLE, fromB[2]);
+        for (int time : fromNowhere) {
+            assertEquals(TravelTimeMatrixService.UNREACHABLE, time);
+        }
+        // The request used as a template is not modified.
+        assertEquals(null, request.rctx);
+    }
+
+    @Test
+    public void testMaxTravelTime() throws Exception {
+        RoutingRequest request = new RoutingRequest(TraverseMode.WALK);
+        request.setDateTime("2018-05-23", "1:37pm", graph.getTimeZone());
+        int[] unlimited = service.submit(request, Arrays.asList(A), Arrays.asList(B), 3600).get(0).get();
+        int[] limited = service.submit(request, Arrays.asList(A), Arrays.asList(B), unlimited[0] / 2)
+                .get(0).get();
+        assertTrue(unlimited[0] > 0);
+        assertEquals(TravelTimeMatrixService.UNREACHABLE, limited[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyOrigins() {
+        RoutingRequest request = new RoutingRequest(TraverseMode.WALK);
+        GenericLocation[] origins = new GenericLocation[11];
+        Arrays.fill(origins, A);
+        service.submit(request, Arrays.asList(origins), Arrays.asList(B), 3600);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveMaxTravelTime() {
+        RoutingRequest request = new RoutingRequest(TraverseMode.WALK);
+        service.submit(request, Arrays.asList(A), Arrays.asList(B), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveConfiguredMaxTravelTime() {
+        new TravelTimeMatrixService(graph, 1, 1, 10, 10, 0, 10);
+    }
+
+    @Test
+    public void testRejectedWhenQueueIsFull() throws Exception {
+        TravelTimeMatrixService small = new TravelTimeMatrixService(graph, 1, 1, 10, 10, 3600, 10);
+        try {
+            RoutingRequest request = new RoutingRequest(TraverseMode.WALK);
+            request.setDateTime("2018-05-23", "1:37pm", graph.getTimeZone());
+            GenericLocation[] origins = new GenericLocation[10];
+            Arrays.fill(origins, A);
+            try {
+                small.submit(request, Arrays.asList(origins), Arrays.asList(B), 3600);
+                fail("One thread and a queue of one can not take ten searches at once.");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+            // The searches of the rejected request were cancelled, so the pool is soon available again.
+            executorIdle(small);
+            int[] row = small.submit(request, Arrays.asList(A), Arrays.asList(B), 3600).get(0).get();
+            assertTrue(row[0] > 0);
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    /** Wait until a search can be queued, the searches started before may not check for interruption. */
+    private static void executorIdle(TravelTimeMatrixService service) throws Exception {
+        RoutingRequest request = new RoutingRequest(TraverseMode.WALK);
+        request.setDateTime("2018-05-23", "1:37pm", graph.getTimeZone());
+        for (int i = 0; i < 100; i++) {
+            try {
+                service.submit(request, Arrays.asList(NOWHERE), Arrays.asList(B), 3600).get(0).get();
+                return;
+            } catch (RejectedExecutionException e) {
+                Thread.sleep(100);
+            }
+        }
+        fail("The matrix searches were not cancelled.");
+    }
+}
@@ -0,0 +1,69 @@
+package org.opentripplanner.routing.spt;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.opentripplanner.common.geometry.GeometryUtils;
+import org.opentripplanner.routing.algorithm.GenericDijkstra;
+import org.opentripplanner.routing.core.RoutingRequest;
+import org.opentripplanner.routing.core.State;
+import org.opentripplanner.routing.core.TraverseMode;
+import org.opentripplanner.routing.edgetype.StreetEdge;
+import org.opentripplanner.routing.edgetype.StreetTraversalPermission;
+import org.opentripplanner.routing.edgetype.TemporaryPartialStreetEdge;
+import org.opentripplanner.routing.graph.Edge;
+import org.opentripplanner.routing.graph.Graph;
+import org.opentripplanner.routing.location.TemporaryStreetLocation;
+import org.opentripplanner.routing.vertextype.IntersectionVertex;
+import org.opentripplanner.util.NonLocalizedString;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SPTWalkerTest {
+
+    /**
+     * The origin is split from the street C-A, so the temporary edge from the origin to A is not in the edge list
+     * of the permanent vertex A.
+     */
+    @Test
+    public void testWalkVisitsTemporaryEdgesReachingPermanentVertices() {
+        Graph graph = new Graph();
+        IntersectionVertex c = new IntersectionVertex(graph, "C", 10.0, 60.0);
+        IntersectionVertex a = new IntersectionVertex(graph, "A", 10.002, 60.0);
+        IntersectionVertex b = new IntersectionVertex(graph, "B", 10.004, 60.0);
+        StreetEdge ca = new StreetEdge(c, a, GeometryUtils.makeLineString(10.0, 60.0, 10.002, 60.0),
+                "C-A", 111, StreetTraversalPermission.ALL, false);
+        StreetEdge ab = new StreetEdge(a, b, GeometryUtils.makeLineString(10.002, 60.0, 10.004, 60.0),
+                "A-B", 111, StreetTraversalPermission.ALL, false);
+        TemporaryStreetLocation origin = new TemporaryStreetLocation("origin", new Coordinate(10.001, 60.0),
+                new NonLocalizedString("origin"), false);
+        TemporaryPartialStreetEdge originToA = new TemporaryPartialStreetEdge(ca, origin, a,
+                GeometryUtils.makeLineString(10.001, 60.0, 10.002, 60.0), new NonLocalizedString("C-A"), 55);
+
+        RoutingRequest options = new RoutingRequest(TraverseMode.WALK);
+        options.batch = true;
+        options.setRoutingContext(graph, origin, null);
+        ShortestPathTree spt = new GenericDijkstra(options).getShortestPathTree(new State(options));
+
+        Set<Edge> visited = new HashSet<>();
+        new SPTWalker(spt).walk(new SPTWalker.SPTVisitor() {
+            @Override
+            public boolean accept(Edge e) {
+                return e instanceof StreetEdge;
+            }
+
+            @Override
+            public void visit(Edge e, Coordinate coordinate, State s0, State s1, double d0, double d1,
+                    double speed) {
+                visited.add(e);
+            }
+        }, 50);
+
+        assertTrue(visited.contains(originToA));
+        assertTrue(visited.contains(ab));
+        assertEquals(2, visited.size());
+    }
+}
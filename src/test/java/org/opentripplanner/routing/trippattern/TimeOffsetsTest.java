@@ -0,0 +1,76 @@
+package org.opentripplanner.routing.trippattern;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeOffsetsTest {
+
+    @Test
+    public void testRuns() {
+        int[] scheduled = { 0, 60, 120, 180, 240 };
+        TimeOffsets times = new TimeOffsets(scheduled.length, 1000);
+        assertEquals(1, times.size());
+        assertEquals(1120, times.getTime(2, scheduled[2]));
+
+        // Delay the middle stop, then the following ones by the same amount
+        times.setTime(2, scheduled[2], 1150);
+        assertEquals(3, times.size());
+        times.setTime(3, scheduled[3], 1210);
+        times.setTime(4, scheduled[4], 1270);
+        assertEquals(2, times.size());
+
+        // The stops before are not available anymore
+        times.setTime(0, scheduled[0], TripTimes.UNAVAILABLE);
+        times.setTime(1, scheduled[1], TripTimes.UNAVAILABLE);
+        assertEquals(2, times.size());
+
+        int[] expected = { TripTimes.UNAVAILABLE, TripTimes.UNAVAILABLE, 1150, 1210, 1270 };
+        for (int i = 0; i < scheduled.length; i++) {
+            assertEquals(expected[i], times.getTime(i, scheduled[i]));
+        }
+    }
+
+    @Test
+    public void testRandomUpdates() {
+        Random random = new Random(42);
+        for (int run = 0; run < 1000; run++) {
+            int nStops = 1 + random.nextInt(30);
+            int[] scheduled = new int[nStops];
+            int[] expected = new int[nStops];
+            for (int i = 0; i < nStops; i++) {
+                scheduled[i] = i * 60 + random.nextInt(30);
+                expected[i] = scheduled[i] + 3600;
+            }
+            TimeOffsets times = new TimeOffsets(nStops, 3600);
+            for (int update = 0; update < 50; update++) {
+                int stop = random.nextInt(nStops);
+                int time = random.nextInt(4) == 0
+                        ? TripTimes.UNAVAILABLE
+                        : scheduled[stop] + 3600 + 60 * random.nextInt(3);
+                times.setTime(stop, scheduled[stop], time);
+                expected[stop] = time;
+
+                int runs = 1;
+                for (int i = 0; i < nStops; i++) {
+                    assertEquals(expected[i], times.getTime(i, scheduled[i]));
+                    if (i > 0 && offset(expected, scheduled, i) != offset(expected, scheduled, i - 1)) {
+                        runs++;
+                    }
+                }
+                assertEquals(runs, times.size());
+            }
+        }
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testStopOutOfRange() {
+        new TimeOffsets(3, 0).setTime(3, 180, 200);
+    }
+
+    private static long offset(int[] times, int[] scheduled, int stop) {
+        return times[stop] == TripTimes.UNAVAILABLE ? Long.MIN_VALUE : times[stop] - scheduled[stop];
+    }
+}
@@ -148,6 +148,52 @@ public class TripTimesTest {
         assertEquals(6 * 60 + 13, updatedTripTimesA.getArrivalTime(6));
     }
 
+    @Test
+    public void testDelayIsSharedByFollowingStops() {
+        TripTimes updatedTripTimesA = new TripTimes(originalTripTimes);
+        updatedTripTimesA.updateDepartureTime(0, TripTimes.UNAVAILABLE);
+        for (int i = 0; i < stops.length; i++) {
+            updatedTripTimesA.updateArrivalDelay(i, 120);
+            if (i > 0) {
+                updatedTripTimesA.updateDepartureDelay(i, 120);
+            }
+        }
+
+        // A single delay for all the arrivals, the unavailable departure and a delay for the other ones
+        assertEquals(1, updatedTripTimesA.arrivalTimes.size());
+        assertEquals(2, updatedTripTimesA.departureTimes.size());
+        assertEquals(TripTimes.UNAVAILABLE, updatedTripTimesA.getDepartureTime(0));
+        for (int i = 0; i < stops.length; i++) {
+            assertEquals(i * 60 + 120, updatedTripTimesA.getArrivalTime(i));
+            if (i > 0) {
+                assertEquals(i * 60 + 120, updatedTripTimesA.getDepartureTime(i));
+            }
+        }
+        assertTrue(originalTripTimes.isScheduled());
+        assertFalse(updatedTripTimesA.isScheduled());
+    }
+
+    @Test
+    public void testStopFlags() {
+        TripTimes updatedTripTimesA = new TripTimes(originalTripTimes);
+        updatedTripTimesA.setRecorded(1, true);
+        updatedTripTimesA.setCancelledStop(2, true);
+        updatedTripTimesA.setPredictionInaccurate(3, true);
+        updatedTripTimesA.setCancelledStop(2, false);
+
+        for (int i = 0; i < stops.length; i++) {
+            assertEquals(i == 1, updatedTripTimesA.isRecordedStop(i));
+            assertFalse(updatedTripTimesA.isCancelledStop(i));
+            assertEquals(i == 3, updatedTripTimesA.isPredictionInaccurate(i));
+        }
+        assertFalse(originalTripTimes.isRecordedStop(1));
+
+        updatedTripTimesA.cancelAllStops();
+        for (int i = 0; i < stops.length; i++) {
+            assertTrue(updatedTripTimesA.isCancelledStop(i));
+        }
+    }
+
     @Test
     public void testCancel() {
         TripTimes updatedTripTimesA = new TripTimes(originalTripTimes);
@@ -0,0 +1,131 @@
+package org.opentripplanner.standalone;
+
+import org.junit.Test;
+
+import javax.ws.rs.WebApplicationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AdmissionControlTest {
+
+    private static final Set<String> ROUTING_FIELDS = Collections.singleton("plan");
+
+    @Test
+    public void testGraphQLLane() {
+        AdmissionControl admissionControl = new AdmissionControl(1, 1, 100);
+        assertSame(admissionControl.routing,
+                admissionControl.graphQLLane("{ plan(from: {lat: 1, lon: 2}) { date } }", ROUTING_FIELDS));
+        assertSame(admissionControl.lookup,
+                admissionControl.graphQLLane("{ stop(id: \"1\") { name } }", ROUTING_FIELDS));
+        // Nested fields named like a routing field are not routed.
+        assertSame(admissionControl.lookup,
+                admissionControl.graphQLLane("{ stop(id: \"1\") { plan } }", ROUTING_FIELDS));
+        assertSame(admissionControl.lookup, admissionControl.graphQLLane("{ stop(", ROUTING_FIELDS));
+    }
+
+    @Test
+    public void testSelectsFieldsThroughFragments() {
+        assertTrue(AdmissionControl.selectsAnyField(
+                "query Q { ...Trip } fragment Trip on QueryType { plan { date } }", ROUTING_FIELDS));
+        assertTrue(AdmissionControl.selectsAnyField(
+                "query Q { ... on QueryType { plan { date } } }", ROUTING_FIELDS));
+        assertFalse(AdmissionControl.selectsAnyField(
+                "query Q { ...A } fragment A on QueryType { ...A }", ROUTING_FIELDS));
+    }
+
+    @Test
+    public void testRequestsAreShed() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(1, 1, 100);
+        AdmissionControl.Lane lane = admissionControl.routing;
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> first = executor.submit(() -> lane.call(() -> {
+                running.countDown();
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            }));
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            assertEquals(1, lane.getActive());
+
+            // The lane is busy, the request waits until its queue timeout.
+            try {
+                lane.call(() -> true);
+                fail();
+            } catch (WebApplicationException e) {
+                assertEquals(503, e.getResponse().getStatus());
+            }
+            assertEquals(0, lane.getWaiting());
+
+            // The other lane is independent.
+            assertTrue(admissionControl.lookup.call(() -> true));
+
+            release.countDown();
+            assertTrue(first.get());
+            assertEquals(0, lane.getActive());
+            assertTrue(lane.call(() -> true));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Each query of a batch waits for its own turn, so a batch cannot run more queries than the lane allows. */
+    @Test
+    public void testBatchLargerThanConcurrencyIsHeldBack() throws Exception {
+        AdmissionControl admissionControl = new AdmissionControl(2, 1, 10000);
+        AdmissionControl.Lane lane = admissionControl.routing;
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger maxActive = new AtomicInteger();
+        List<Callable<Boolean>> batch = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            batch.add(lane.admit(() -> {
+                maxActive.accumulateAndGet(lane.getActive(), Math::max);
+                running.countDown();
+                return release.await(10, TimeUnit.SECONDS);
+            }));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(batch.size());
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (Callable<Boolean> query : batch) {
+                results.add(executor.submit(query));
+            }
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 10000;
+            while (lane.getWaiting() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, lane.getActive());
+            assertEquals(2, lane.getWaiting());
+
+            release.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+            assertEquals(2, maxActive.get());
+            assertEquals(0, lane.getActive());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
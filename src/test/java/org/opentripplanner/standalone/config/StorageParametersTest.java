@@ -52,6 +52,9 @@ public class StorageParametersTest {
     public void testCreateGoogleCloudStorageParameters() throws IOException {
         JsonNode node = MAPPER.readTree("{"
                 + " gsCredentials : 'file:/cfile',\n"
+                + " gsHost : 'http://localhost:4443',\n"
+                + " gsReadChunkSize : 1024,\n"
+                + " gsReadConcurrency : 3,\n"
                 + " baseGraph : 'file:/b/bg.obj',\n"
                 + " graph : 'gs://b/g.obj',\n"
                 + " osm : [ 'file:/b/osm.pbf' ],\n"
@@ -64,6 +67,9 @@ public class StorageParametersTest {
         StorageParameters c =  new StorageParameters(node);
 
         assertEquals("file:/cfile", c.gsCredentials);
+        assertEquals("http://localhost:4443", c.gsHost);
+        assertEquals(1024, c.gsReadChunkSize);
+        assertEquals(3, c.gsReadConcurrency);
         assertEquals("file:/b/bg.obj", c.baseGraph.toString());
         assertEquals("gs://b/g.obj", c.graph.toString());
         assertEquals("[file:/b/osm.pbf]", c.osm.toString());
@@ -73,4 +79,13 @@ public class StorageParametersTest {
         assertEquals("gs://b/otp-status", c.otpStatusDir.toString());
         assertEquals("gs://b/report", c.buildReportDir.toString());
     }
+
+    @Test
+    public void testGoogleCloudStorageReadDefaults() throws IOException {
+        StorageParameters c =  new StorageParameters(MAPPER.readTree("{ }"));
+
+        assertNull(c.gsHost);
+        assertEquals(StorageParameters.DEFAULT_GS_READ_CHUNK_SIZE, c.gsReadChunkSize);
+        assertEquals(StorageParameters.DEFAULT_GS_READ_CONCURRENCY, c.gsReadConcurrency);
+    }
 }
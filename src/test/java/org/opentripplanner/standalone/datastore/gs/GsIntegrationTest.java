@@ -25,6 +25,10 @@ import static org.opentripplanner.standalone.datastore.gs.GsHelper.toUri;
  * test you need to provide a service credential file and a bucket name. For all test to pass there
  * also need to be a gtfs.zip file in your store. Edit the {@link #CREDENTIALS_FILE},
  * {@link #BUCKET_NAME} and {@link #GTFS_URI} to make the test run.
+ * <p>
+ * To run the test against a local fake GCS server instead, set the {@link #HOST} (e.g.
+ * {@code "http://localhost:4443"} for fsouza/fake-gcs-server) and set the
+ * {@link #CREDENTIALS_FILE} to {@code null}.
  *
  * This test comed in handy, not only to verify the implementation, but also to verify that your
  * credentials have the proper rights. If the test run, then OTP should also run with the same
@@ -33,6 +37,8 @@ import static org.opentripplanner.standalone.datastore.gs.GsHelper.toUri;
 @Ignore("This test is a manual integration test, because it require an Google Cloud Store to run.")
 public class GsIntegrationTest {
     private static final String CREDENTIALS_FILE = "<Insert path to local Google Service Credential file here>";
+    private static final String HOST = null;
+    private static final int READ_CHUNK_SIZE = 1000;
     private static final String BUCKET_NAME = "otp-test-bucket";
     private static final URI GTFS_URI = toUri(BUCKET_NAME, "gtfs.zip");
     private static final String DATA = "{ \"key\" : \"data\" }";
@@ -42,7 +48,7 @@ public class GsIntegrationTest {
     @Before
     public void setUp() {
         // Open a repository
-        repo = new GsDataSourceRepository(CREDENTIALS_FILE);
+        repo = new GsDataSourceRepository(CREDENTIALS_FILE, HOST, READ_CHUNK_SIZE, 4);
         repo.open();
     }
 
@@ -146,6 +152,29 @@ public class GsIntegrationTest {
         cleanUpDir(tempDir);
     }
 
+    @Test
+    public void testReadingInChunks() throws IOException {
+        String tempDir = "temp-dir";
+        cleanUpDir(tempDir);
+
+        URI dsUri = toUri(BUCKET_NAME, tempDir + "/large.txt");
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; buf.length() <= 10 * READ_CHUNK_SIZE; i++) {
+            buf.append("line ").append(i).append('\n');
+        }
+        String data = buf.toString();
+        try(OutputStream output = repo.findSource(dsUri, FileType.UNKNOWN).asOutputStream()) {
+            IOUtils.write(data, output, UTF_8);
+        }
+
+        // The blob spans several chunks, which are read in parallel
+        DataSource ds = repo.findSource(dsUri, FileType.UNKNOWN);
+        assertEquals(data.length(), ds.size());
+        assertEquals(data,  IOUtils.toString(ds.asInputStream(), UTF_8));
+
+        cleanUpDir(tempDir);
+    }
+
     @Test
     //@Ignore("This test is a manual test, because it require an Google Cloud Store to run.")
     public void testReadingZipFile() throws Exception {
@@ -0,0 +1,131 @@
+package org.opentripplanner.standalone.datastore.gs;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelRangeInputStreamTest {
+
+    private static final byte[] DATA = data(10_000);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadChunksInOrder() throws IOException {
+        for (int chunkSize : new int[] { 1, 7, 1000, 9_999, 10_000, 20_000 }) {
+            InputStream in = new ParallelRangeInputStream(
+                    ParallelRangeInputStreamTest::readRange, DATA.length, chunkSize, 3, executor
+            );
+            assertArrayEquals("Chunk size " + chunkSize, DATA, IOUtils.toByteArray(in));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testReadSingleBytes() throws IOException {
+        InputStream in = new ParallelRangeInputStream(
+                ParallelRangeInputStreamTest::readRange, 100, 30, 2, executor
+        );
+        for (int i = 0; i < 100; i++) {
+            assertEquals(DATA[i] & 0xff, in.read());
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        InputStream in = new ParallelRangeInputStream(
+                ParallelRangeInputStreamTest::readRange, 0, 100, 2, executor
+        );
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testConcurrencyIsBounded() throws IOException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        InputStream in = new ParallelRangeInputStream(
+                (offset, length) -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                        return readRange(offset, length);
+                    }
+                    catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    finally {
+                        running.decrementAndGet();
+                    }
+                },
+                DATA.length, 500, 2, executor
+        );
+        assertArrayEquals(DATA, IOUtils.toByteArray(in));
+        assertTrue("Max running: " + maxRunning.get(), maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testFailedRangeIsReported() throws IOException {
+        InputStream in = new ParallelRangeInputStream(
+                (offset, length) -> {
+                    if (offset >= 5000) { throw new IOException("Failed at " + offset); }
+                    return readRange(offset, length);
+                },
+                DATA.length, 1000, 3, executor
+        );
+        byte[] buf = new byte[5000];
+        assertEquals(5000, IOUtils.read(in, buf));
+        try {
+            in.read();
+            fail();
+        }
+        catch (IOException e) {
+            assertEquals("Failed at 5000", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTruncatedFileIsReported() {
+        // The file is shorter than its size says, e.g. if it is replaced while read
+        InputStream in = new ParallelRangeInputStream(
+                ParallelRangeInputStreamTest::readRange, DATA.length + 10, 1000, 3, executor
+        );
+        try {
+            IOUtils.toByteArray(in);
+            fail();
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Expected 10 bytes at offset 10000"));
+        }
+    }
+
+    private static byte[] readRange(long offset, int length) {
+        int from = (int) offset;
+        return Arrays.copyOfRange(DATA, from, Math.min(from + length, DATA.length));
+    }
+
+    private static byte[] data(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31 + i / 256);
+        }
+        return data;
+    }
+}
@@ -35,4 +35,21 @@ public class TestPolylineEncoder extends TestCase {
         assertEquals(3, eplb.getLength());
         assertNull(eplb.getLevels());
     }
+
+    public void testBuilder() {
+        List<Coordinate> points = new ArrayList<Coordinate>();
+        points.add(new Coordinate(-73.85062, 40.903125));
+        points.add(new Coordinate(-73.85136, 40.902261));
+        points.add(new Coordinate(-73.85151, 40.902066));
+        points.add(new Coordinate(10.5, -33.25));
+        PolylineEncoder.Builder builder = new PolylineEncoder.Builder();
+        for (Coordinate point : points) {
+            builder.accept(point.x, point.y);
+        }
+        assertEquals(4, builder.getCount());
+        EncodedPolylineBean eplb = builder.build();
+        assertEquals(PolylineEncoder.createEncodings(points).getPoints(), eplb.getPoints());
+        assertEquals(4, eplb.getLength());
+        assertNull(eplb.getLevels());
+    }
 }
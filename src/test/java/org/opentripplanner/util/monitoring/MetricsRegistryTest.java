@@ -0,0 +1,78 @@
+package org.opentripplanner.util.monitoring;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testCounter() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("otp_test_total", "Test counter.", "router", "default");
+        counter.increment();
+        counter.add(2);
+        assertSame(counter, registry.counter("otp_test_total", "Test counter.", "router", "default"));
+        assertEquals(3, counter.get());
+        assertEquals("# HELP otp_test_total Test counter.\n"
+                + "# TYPE otp_test_total counter\n"
+                + "otp_test_total{router=\"default\"} 3\n", registry.write());
+    }
+
+    @Test
+    public void testHistogram() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("otp_test_seconds", "Test histogram.", new double[] { 0.1, 1 });
+        histogram.observe(0.05);
+        histogram.observe(0.5);
+        histogram.observe(5);
+        assertEquals(3, histogram.getCount());
+        assertEquals(5.55, histogram.getSum(), 0.0001);
+        String text = registry.write();
+        assertTrue(text.contains("# TYPE otp_test_seconds histogram\n"));
+        assertTrue(text.contains("otp_test_seconds_bucket{le=\"0.1\"} 1\n"));
+        assertTrue(text.contains("otp_test_seconds_bucket{le=\"1.0\"} 2\n"));
+        assertTrue(text.contains("otp_test_seconds_bucket{le=\"+Inf\"} 3\n"));
+        assertTrue(text.contains("otp_test_seconds_count 3\n"));
+    }
+
+    @Test
+    public void testGaugeAndRemove() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.gauge("otp_test_gauge", "Test gauge.", () -> 1.5, "router", "a");
+        registry.gauge("otp_test_gauge", "Test gauge.", () -> Double.NaN, "router", "b");
+        String text = registry.write();
+        assertTrue(text.contains("otp_test_gauge{router=\"a\"} 1.5\n"));
+        // Unknown values are left out.
+        assertFalse(text.contains("router=\"b\""));
+
+        registry.remove("otp_test_gauge", "router", "a");
+        registry.remove("otp_test_gauge", "router", "b");
+        assertEquals(0, registry.size());
+        assertEquals("", registry.write());
+    }
+
+    @Test
+    public void testRemoveKeepsReplacingMetric() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Gauge old = registry.gauge("otp_test_gauge", "Test gauge.", () -> 1, "router", "a");
+        registry.gauge("otp_test_gauge", "Test gauge.", () -> 2, "router", "a");
+        registry.remove(old);
+        assertTrue(registry.write().contains("otp_test_gauge{router=\"a\"} 2\n"));
+    }
+
+    @Test
+    public void testLabelValuesAreEscaped() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("otp_test_total", "Test counter.", "router", "a\"b\\c\nd").increment();
+        assertTrue(registry.write().contains("otp_test_total{router=\"a\\\"b\\\\c\\nd\"} 1\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLabelsArePairs() {
+        new MetricsRegistry().counter("otp_test_total", "Test counter.", "router");
+    }
+}